@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.adobe.aem.spa.project.core.internal.StructurePatternsEngine;
+import com.adobe.aem.spa.project.core.internal.impl.PageImpl;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyUtils;
+import com.adobe.aem.spa.project.core.internal.impl.utils.ModelJsonWriter;
+import com.adobe.aem.spa.project.core.internal.impl.utils.StructurePatterns;
+import com.adobe.aem.spa.project.core.models.Page;
+
+/**
+ * Measures the hierarchy export of a root page on a {@link SyntheticPageTree}, from the traversal of the descendants to the JSON written
+ * to the response. Each export uses a new request, as the descendants are shared by the models of a request. <br>
+ * The sample time mode reports the latency percentiles of an export; run with {@code -bm thrpt} for the throughput and with
+ * {@code -prof gc} for the bytes allocated per export ({@code gc.alloc.rate.norm}). The stubs answer in memory, so the results leave out
+ * the repository access of a real instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HierarchyExportBenchmark {
+
+    @Param({ "5", "10" })
+    private int width;
+
+    @Param({ "3", "4" })
+    private int depth;
+
+    /**
+     * Share of the child pages matched by the structure patterns
+     */
+    @Param({ "1.0", "0.2" })
+    private double selectivity;
+
+    private SyntheticPageTree tree;
+
+    private ModelJsonWriter writer;
+
+    private CountingOutputStream out;
+
+    private StructurePatterns structurePatterns;
+
+    private SlingHttpServletRequest traversalRequest;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        tree = new SyntheticPageTree(width, depth, selectivity);
+        writer = new ModelJsonWriter(Collections.emptyList());
+        out = new CountingOutputStream();
+        traversalRequest = tree.newRequest(null);
+        structurePatterns = HierarchyUtils.getCompiledStructurePatterns(traversalRequest, tree.getRootStyle(),
+            StructurePatternsEngine.REGEX);
+    }
+
+    /**
+     * Reading the structure patterns of the root policy, compiled once and cached
+     */
+    @Benchmark
+    public StructurePatterns getStructurePatterns() {
+        return HierarchyUtils.getCompiledStructurePatterns(traversalRequest, tree.getRootStyle(), StructurePatternsEngine.REGEX);
+    }
+
+    /**
+     * Traversal of the descendants matching the structure patterns
+     */
+    @Benchmark
+    public int getDescendants() {
+        List<com.day.cq.wcm.api.Page> descendants = HierarchyUtils.getDescendants(tree.getRootPage(), traversalRequest,
+            structurePatterns, depth);
+        return descendants.size();
+    }
+
+    /**
+     * Traversal and adaptation of the models of the descendants
+     */
+    @Benchmark
+    public int getDescendantsModels() {
+        Map<String, Page> models = HierarchyUtils.getDescendantsModels(tree.newRequest(null), tree.getRootPage(), tree.getRootStyle(),
+            tree.getModelFactory());
+        return models.size();
+    }
+
+    /**
+     * Children of the root page model, as read by the exporter
+     */
+    @Benchmark
+    public int getExportedChildren() {
+        return tree.newRootModel(tree.newRequest(null)).getExportedChildren().size();
+    }
+
+    /**
+     * Whole export of the root page model, written to the response
+     */
+    @Benchmark
+    public long export() throws IOException {
+        PageImpl model = tree.newRootModel(tree.newRequest(null));
+        writer.write(model, out, false);
+        return out.getCount();
+    }
+}
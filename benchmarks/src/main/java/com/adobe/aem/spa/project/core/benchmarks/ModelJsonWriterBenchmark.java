@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.adobe.aem.spa.project.core.internal.impl.utils.ModelJsonWriter;
+
+/**
+ * Compares writing a hierarchical page export to the response as the Sling Models exporter servlet does, serializing it to a string
+ * first, with streaming it to the response. Run with {@code -prof gc} to compare the bytes allocated per export
+ * ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelJsonWriterBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int children;
+
+    private ModelJsonWriter writer;
+
+    private Map<String, Object> model;
+
+    private CountingOutputStream out;
+
+    @Setup
+    public void setup() {
+        writer = new ModelJsonWriter(Collections.emptyList());
+        out = new CountingOutputStream();
+
+        Map<String, Object> childModels = new LinkedHashMap<>();
+        for (int i = 0; i < children; i++) {
+            String path = "/content/site/en/page" + i;
+            childModels.put(path, createPageModel(path));
+        }
+        model = createPageModel("/content/site/en");
+        model.put(":children", childModels);
+    }
+
+    @Benchmark
+    public long buffered() throws IOException {
+        String json = writer.writeAsString(model, false);
+        Writer responseWriter = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        responseWriter.write(json);
+        responseWriter.flush();
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long streamed() throws IOException {
+        writer.write(model, out, false);
+        return out.getCount();
+    }
+
+    private static Map<String, Object> createPageModel(String path) {
+        Map<String, Object> items = new LinkedHashMap<>();
+        List<String> itemsOrder = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put(":type", "site/components/text");
+            item.put("text", "<p>Paragraph " + i + " of the page at " + path + ", with some <b>markup</b>.</p>");
+            item.put("richText", true);
+            items.put("text_" + i, item);
+            itemsOrder.add("text_" + i);
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put(":type", "site/components/page");
+        page.put(":path", path);
+        page.put("title", "Page " + path.substring(path.lastIndexOf('/') + 1));
+        page.put("templateName", "spa-page-template");
+        page.put("lastModifiedDate", 1593000000000L);
+        page.put(":items", items);
+        page.put(":itemsOrder", itemsOrder);
+        return page;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.adobe.aem.spa.project.core.internal.StructurePatternsEngine;
+import com.adobe.aem.spa.project.core.internal.impl.utils.StructurePatterns;
+
+/**
+ * Compares the engines matching structure patterns, with the patterns usually configured in policies and with a pattern backtracking
+ * exponentially in java.util.regex on Java 8. Patterns are compiled once, only matching is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructurePatternsBenchmark {
+
+    @Param({ "REGEX", "LINEAR" })
+    private StructurePatternsEngine engine;
+
+    private StructurePatterns typicalPatterns;
+
+    private StructurePatterns adversarialPatterns;
+
+    private String[] paths;
+
+    private String adversarialPath;
+
+    @Setup
+    public void setup() {
+        typicalPatterns = StructurePatterns.compile("^/content/site/(en|fr)/products,^/content/site/[a-z]{2}/blog/\\d{4}/,about$", engine);
+        adversarialPatterns = StructurePatterns.compile("^/content/(a+)+b", engine);
+        paths = new String[] {
+            "/content/site/en",
+            "/content/site/en/products/shoes",
+            "/content/site/de/blog/2020/post",
+            "/content/site/fr/about",
+            "/content/site/fr/contact/form"
+        };
+        // Backtracks exponentially with java.util.regex on Java 8, later runtimes memoize some of these loops
+        adversarialPath = "/content/" + StringUtils.repeat('a', 20) + "!";
+    }
+
+    @Benchmark
+    public int typical() {
+        int matches = 0;
+        for (String path : paths) {
+            if (typicalPatterns.matches(path)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public boolean adversarial() {
+        return adversarialPatterns.matches(adversarialPath);
+    }
+}
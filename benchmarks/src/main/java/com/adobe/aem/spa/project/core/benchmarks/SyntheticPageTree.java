@@ -0,0 +1,424 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestParameter;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.models.factory.ModelFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.adobe.aem.spa.project.core.internal.impl.PageImpl;
+import com.adobe.cq.export.json.ComponentExporter;
+import com.day.cq.commons.jcr.JcrConstants;
+import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.designer.Style;
+
+import static com.adobe.aem.spa.project.core.models.Page.PN_STRUCTURE_DEPTH;
+
+/**
+ * Synthetic tree of pages below {@value #ROOT_PATH}, backed by in-memory stubs of the repository and Sling APIs so that the benchmarks
+ * measure the hierarchy code rather than the repository. Each page has {@code width} child pages named {@code p0}, {@code p1}, ... down
+ * to {@code depth} levels below the root. <br>
+ * The selectivity is the share of the child pages matched by the structure patterns of the root policy; the patterns match the pages
+ * whose every name is among the first {@code width * selectivity} names, so the pages below an excluded page are excluded as well. <br>
+ * Page models are {@link PageImpl} instances whose injected fields are set the way Sling Models injects them, with a stub of the Core
+ * Components page as delegate.
+ */
+final class SyntheticPageTree {
+
+    static final String ROOT_PATH = "/content/bench";
+
+    private static final String PAGE_RESOURCE_TYPE = "spa-project-core/components/page";
+
+    private static final String CONTENT_SUFFIX = "/" + JcrConstants.JCR_CONTENT;
+
+    /**
+     * Makes the path of the root policy unique, so that trees do not share cached policies
+     */
+    private static final AtomicInteger POLICY_COUNT = new AtomicInteger();
+
+    private final Calendar lastModified = Calendar.getInstance();
+
+    private final Map<String, Object> items;
+
+    private final String[] itemsOrder;
+
+    private final Map<Resource, Page> pagesByContent = new IdentityHashMap<>();
+
+    private final Map<Page, com.adobe.cq.wcm.core.components.models.Page> delegates = new IdentityHashMap<>();
+
+    private final ModelFactory modelFactory;
+
+    private final Style rootStyle;
+
+    private final Style childStyle;
+
+    private final String structurePatterns;
+
+    private final Page rootPage;
+
+    private int pageCount;
+
+    SyntheticPageTree(int width, int depth, double selectivity) {
+        Map<String, Object> pageItems = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            pageItems.put("text_" + i, new TextItem("<p>Paragraph " + i + " with some <b>markup</b>.</p>"));
+        }
+        items = Collections.unmodifiableMap(pageItems);
+        itemsOrder = pageItems.keySet().toArray(new String[0]);
+
+        structurePatterns = getStructurePatterns(width, selectivity);
+        Map<String, Object> rootProperties = new HashMap<>();
+        rootProperties.put(PN_STRUCTURE_DEPTH, depth);
+        rootProperties.put(HierarchyConstants.PN_IS_ROOT, true);
+        if (structurePatterns != null) {
+            rootProperties.put(HierarchyConstants.PN_STRUCTURE_PATTERNS, structurePatterns);
+        }
+        rootProperties.put(JcrConstants.JCR_LASTMODIFIED, lastModified);
+        rootStyle = createStyle("/conf/bench/settings/wcm/policies/page/policy_" + POLICY_COUNT.incrementAndGet(), rootProperties);
+        childStyle = createStyle(null, Collections.emptyMap());
+
+        modelFactory = stub(ModelFactory.class, (name, args) -> {
+            if (name.equals("getModelFromWrappedRequest")) {
+                Page page = pagesByContent.get((Resource) args[1]);
+                return page != null ? createPageModel((SlingHttpServletRequest) args[0], page, childStyle) : null;
+            }
+            return null;
+        });
+
+        rootPage = createPage(ROOT_PATH, width, depth);
+    }
+
+    /**
+     * @return Root page of the tree
+     */
+    @NotNull
+    Page getRootPage() {
+        return rootPage;
+    }
+
+    /**
+     * @return Policy of the root page, with the depth and structure patterns of the export
+     */
+    @NotNull
+    Style getRootStyle() {
+        return rootStyle;
+    }
+
+    /**
+     * @return Structure patterns of the root policy, or {@code null} if all pages are exported
+     */
+    @Nullable
+    String getStructurePatterns() {
+        return structurePatterns;
+    }
+
+    /**
+     * @return Number of pages in the tree, including the root page
+     */
+    int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * @return Model factory adapting the content resources of the pages to page models
+     */
+    @NotNull
+    ModelFactory getModelFactory() {
+        return modelFactory;
+    }
+
+    /**
+     * Returns a new model JSON request for the root page, whose attributes are those of a request which was not processed yet
+     *
+     * @param requestPatterns Structure patterns passed as request parameter, or {@code null}
+     * @return Request
+     */
+    @NotNull
+    SlingHttpServletRequest newRequest(@Nullable String requestPatterns) {
+        Map<String, Object> attributes = new HashMap<>();
+        ResourceResolver resourceResolver = stub(ResourceResolver.class, (name, args) -> null);
+        RequestPathInfo pathInfo = stub(RequestPathInfo.class, (name, args) -> {
+            switch (name) {
+                case "getResourcePath":
+                    return ROOT_PATH + CONTENT_SUFFIX;
+                case "getSelectors":
+                    return new String[] { "model" };
+                case "getSelectorString":
+                    return "model";
+                case "getExtension":
+                    return "json";
+                default:
+                    return null;
+            }
+        });
+        RequestParameter patternsParameter = requestPatterns != null
+            ? stub(RequestParameter.class, (name, args) -> name.equals("getString") ? requestPatterns : null)
+            : null;
+
+        return stub(SlingHttpServletRequest.class, (name, args) -> {
+            switch (name) {
+                case "getAttribute":
+                    return attributes.get(args[0]);
+                case "setAttribute":
+                    attributes.put((String) args[0], args[1]);
+                    return null;
+                case "removeAttribute":
+                    attributes.remove(args[0]);
+                    return null;
+                case "getAttributeNames":
+                    return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+                case "getRequestParameter":
+                    return HierarchyConstants.PN_STRUCTURE_PATTERNS.toLowerCase().equals(args[0]) ? patternsParameter : null;
+                case "getRequestPathInfo":
+                    return pathInfo;
+                case "getResourceResolver":
+                    return resourceResolver;
+                case "getResource":
+                    return rootPage.getContentResource();
+                case "getContextPath":
+                    return "";
+                case "getRequestURI":
+                    return ROOT_PATH + ".model.json";
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * @param request Request for the root page, see {@link #newRequest(String)}
+     * @return Model of the root page, as adapted by the Sling Models exporter
+     */
+    @NotNull
+    PageImpl newRootModel(@NotNull SlingHttpServletRequest request) {
+        return createPageModel(request, rootPage, rootStyle);
+    }
+
+    private Page createPage(String path, int width, int remainingDepth) {
+        pageCount++;
+        List<Page> children = new ArrayList<>();
+        if (remainingDepth > 0) {
+            for (int i = 0; i < width; i++) {
+                children.add(createPage(path + "/p" + i, width, remainingDepth - 1));
+            }
+        }
+
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        String contentPath = path + CONTENT_SUFFIX;
+        Resource contentResource = stub(Resource.class, (method, args) -> {
+            switch (method) {
+                case "getPath":
+                    return contentPath;
+                case "getName":
+                    return JcrConstants.JCR_CONTENT;
+                case "getResourceType":
+                    return PAGE_RESOURCE_TYPE;
+                case "isResourceType":
+                    return PAGE_RESOURCE_TYPE.equals(args[0]);
+                default:
+                    return null;
+            }
+        });
+        Page page = stub(Page.class, (method, args) -> {
+            switch (method) {
+                case "getPath":
+                    return path;
+                case "getName":
+                case "getTitle":
+                    return name;
+                case "getContentResource":
+                    return args == null ? contentResource : null;
+                case "listChildren":
+                    return children.iterator();
+                case "hasChild":
+                    return !children.isEmpty();
+                case "getLastModified":
+                    return lastModified;
+                default:
+                    return null;
+            }
+        });
+        com.adobe.cq.wcm.core.components.models.Page delegate = stub(com.adobe.cq.wcm.core.components.models.Page.class,
+            (method, args) -> {
+                switch (method) {
+                    case "getTitle":
+                        return name;
+                    case "getLanguage":
+                        return "en";
+                    case "getTemplateName":
+                        return "spa-page-template";
+                    case "getLastModifiedDate":
+                        return lastModified;
+                    case "getExportedType":
+                        return PAGE_RESOURCE_TYPE;
+                    case "getExportedItems":
+                        return items;
+                    case "getExportedItemsOrder":
+                        return itemsOrder;
+                    default:
+                        return null;
+                }
+            });
+
+        pagesByContent.put(contentResource, page);
+        delegates.put(page, delegate);
+        return page;
+    }
+
+    private PageImpl createPageModel(SlingHttpServletRequest request, Page page, Style style) {
+        PageImpl model = new PageImpl();
+        inject(model, "request", request);
+        inject(model, "currentPage", page);
+        inject(model, "currentStyle", style);
+        inject(model, "modelFactory", modelFactory);
+        inject(model, "resource", page.getContentResource());
+        inject(model, "delegate", delegates.get(page));
+        if (page != rootPage) {
+            inject(model, "rootPage", rootPage);
+        }
+        return model;
+    }
+
+    private static Style createStyle(@Nullable String path, Map<String, Object> properties) {
+        return stub(Style.class, (name, args) -> {
+            switch (name) {
+                case "getPath":
+                    return path;
+                case "get":
+                    Object value = properties.get(args[0]);
+                    if (args.length == 1) {
+                        return value;
+                    }
+                    if (args[1] instanceof Class) {
+                        return ((Class<?>) args[1]).isInstance(value) ? value : null;
+                    }
+                    return value != null ? value : args[1];
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * Returns the patterns matching the paths whose every name is among the first names of the child pages, or {@code null} when all
+     * pages match
+     */
+    @Nullable
+    private static String getStructurePatterns(int width, double selectivity) {
+        int matchingNames = (int) Math.ceil(width * selectivity);
+        if (matchingNames >= width) {
+            return null;
+        }
+
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < Math.max(matchingNames, 1); i++) {
+            names.append(i > 0 ? "|" : "").append(i);
+        }
+        return "^" + ROOT_PATH + "(/p(" + names + "))*$";
+    }
+
+    private static void inject(PageImpl model, String fieldName, Object value) {
+        try {
+            Field field = PageImpl.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(model, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + fieldName + " into the page model", e);
+        }
+    }
+
+    /**
+     * Returns a stub of an interface, whose methods return the answer to their invocation or the default value of their return type
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(SyntheticPageTree.class.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    Object value = answer.answer(method.getName(), args);
+                    return value != null ? value : getDefaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object getDefaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type.isPrimitive() && type != void.class) {
+            throw new UnsupportedOperationException("No default value for " + type);
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface Answer {
+        Object answer(String method, Object[] args);
+    }
+
+    /**
+     * Text component of the pages
+     */
+    public static final class TextItem implements ComponentExporter {
+
+        private final String text;
+
+        TextItem(String text) {
+            this.text = text;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public boolean isRichText() {
+            return true;
+        }
+
+        @NotNull
+        @Override
+        public String getExportedType() {
+            return "bench/components/text";
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.adobe.aem.spa.project.core.benchmarks.jmh_generated;
+public class HierarchyExportBenchmark_jmhType extends HierarchyExportBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.adobe.aem.spa.project.core.benchmarks.jmh_generated;
+public class ModelJsonWriterBenchmark_jmhType extends ModelJsonWriterBenchmark_jmhType_B3 {
+}
+
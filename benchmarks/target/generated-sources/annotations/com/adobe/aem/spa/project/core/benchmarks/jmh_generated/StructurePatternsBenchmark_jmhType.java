@@ -0,0 +1,4 @@
+package com.adobe.aem.spa.project.core.benchmarks.jmh_generated;
+public class StructurePatternsBenchmark_jmhType extends StructurePatternsBenchmark_jmhType_B3 {
+}
+
@@ -51,4 +51,9 @@ public class HierarchyConstants {
      * List of Regexp patterns to filter the exported tree of pages
      */
     public static final String PN_STRUCTURE_PATTERNS = "structurePatterns";
+
+    /**
+     * Whether descendants other than the entry point page are exported as skeletons of their models
+     */
+    public static final String PN_SKELETON_DESCENDANTS = "skeletonDescendants";
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal;
+
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reverse index from the pages and policies consumed by the hierarchy exports to the exported models, which lists the models to
+ * invalidate when a path changes. <br>
+ * The index is filled by the hierarchy dependency filter and is not consumed in this bundle: it is meant for the invalidation agents of
+ * a project, e.g. a dispatcher flush or a CDN purge triggered on replication.
+ */
+public interface HierarchyDependencyIndex {
+
+    /**
+     * Records the dependencies of an exported model, replacing the ones previously recorded for it
+     *
+     * @param modelKey     Request URI of the exported model, with its query string if any, as cached by a dispatcher or a CDN
+     * @param dependencies Paths of the pages and policies the export consumed
+     */
+    void record(@NotNull String modelKey, @NotNull Set<String> dependencies);
+
+    /**
+     * Returns the models depending on a changed path: the models which consumed the changed page or policy, its parent, whose list of
+     * children changes, or one of its descendants, which is removed or moved with it.
+     *
+     * @param changedPath Path of a changed resource, changes in the content of a page are changes of the page
+     * @return Request URIs of the models to invalidate, with their query strings
+     */
+    @NotNull
+    Set<String> getDependentModels(@NotNull String changedPath);
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal;
+
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Instance wide settings of the hierarchical page model export. The default methods define the behaviour when no configuration is
+ * available.
+ */
+public interface HierarchyExportSettings {
+
+    /**
+     * Settings used when the service is not available
+     */
+    HierarchyExportSettings DEFAULT = new HierarchyExportSettings() {
+    };
+
+    /**
+     * Returns the engine matching the structure patterns provided as request parameter. Patterns of template policies are always
+     * matched with {@link StructurePatternsEngine#REGEX}.
+     *
+     * @return Engine for request supplied structure patterns
+     */
+    @NotNull
+    default StructurePatternsEngine getRequestPatternsEngine() {
+        return StructurePatternsEngine.REGEX;
+    }
+
+    /**
+     * Returns the maximum number of descendants a hierarchy export traverses. The entry point page is exported in addition.
+     *
+     * @return Maximum number of descendants, zero or less for no limit
+     */
+    default int getMaxDescendants() {
+        return 0;
+    }
+
+    /**
+     * Returns the maximum number of descendant page models a hierarchy export adapts, including the entry point page which is always
+     * exported.
+     *
+     * @return Maximum number of models, zero or less for no limit
+     */
+    default int getMaxModels() {
+        return 0;
+    }
+
+    /**
+     * Returns the time after which a hierarchy export stops traversing descendants and adapting their models. The entry point page is
+     * exported in any case.
+     *
+     * @return Maximum time in milliseconds, zero or less for no limit
+     */
+    default long getMaxExportTime() {
+        return 0;
+    }
+
+    /**
+     * Returns whether the descendant page models are adapted only while the exported children are serialized, one at a time, instead of
+     * all before the response is written. The export time does not apply to lazily adapted models.
+     *
+     * @return {@code true} to adapt the descendant models lazily
+     */
+    default boolean isLazyAdaptation() {
+        return false;
+    }
+
+    /**
+     * Returns the JSON properties of the page models exported with a field projection profile, requested with the
+     * {@code fields-<profile>} selector. The properties of the hierarchy are exported in any case.
+     *
+     * @param profile Name of the profile
+     * @return Names of the properties, or {@code null} if the profile is not defined
+     */
+    @Nullable
+    default Set<String> getProjectedFields(@NotNull String profile) {
+        return null;
+    }
+}
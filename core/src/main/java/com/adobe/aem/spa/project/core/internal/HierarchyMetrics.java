@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives the timings and counts of the hierarchy export, e.g. to expose them through JMX or a metrics library. <br>
+ * The export only measures itself while a metrics service is registered; implementations are called on the request threads and are
+ * expected to return quickly.
+ */
+public interface HierarchyMetrics {
+
+    /**
+     * Records a traversal of the descendants of a page
+     *
+     * @param pagePath      Path of the page whose descendants were traversed
+     * @param pagesVisited  Number of descendants visited
+     * @param pagesMatched  Number of descendants matching the structure patterns
+     * @param durationNanos Duration of the traversal in nanoseconds
+     */
+    void recordTraversal(@NotNull String pagePath, int pagesVisited, int pagesMatched, long durationNanos);
+
+    /**
+     * Records the adaptation of the model of a descendant page
+     *
+     * @param pagePath      Path of the descendant page
+     * @param durationNanos Duration of the adaptation in nanoseconds
+     */
+    void recordAdaptation(@NotNull String pagePath, long durationNanos);
+
+    /**
+     * Records the lookup of the root page of a page
+     *
+     * @param pagePath      Path of the page whose root page was looked up
+     * @param durationNanos Duration of the lookup in nanoseconds
+     */
+    void recordRootPageLookup(@NotNull String pagePath, long durationNanos);
+
+    /**
+     * Records the export of the children of a page model
+     *
+     * @param pagePath      Path of the exported page
+     * @param pagesExported Number of exported descendant models
+     * @param durationNanos Duration of the export in nanoseconds, which includes the adaptation of the models unless they are adapted
+     *                      lazily
+     */
+    void recordChildrenExport(@NotNull String pagePath, int pagesExported, long durationNanos);
+
+    /**
+     * Records a model JSON response
+     *
+     * @param pagePath      Path of the exported page
+     * @param bytesWritten  Size of the response body, in characters when it is written with a writer
+     * @param durationNanos Duration of the request in nanoseconds
+     */
+    void recordResponse(@NotNull String pagePath, long bytesWritten, long durationNanos);
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Cache of the serialized JSON of descendant page models, so that the hierarchy export neither adapts nor serializes the models of
+ * pages which did not change since they were last exported. <br>
+ * Fragments are cached per page and variant, the variant identifying everything else the JSON of the model depends on: the version of
+ * the page, its policy and the traits of the request.
+ */
+public interface PageModelFragmentCache {
+
+    /**
+     * Returns the cached JSON of a page model
+     *
+     * @param pagePath Path of the page
+     * @param variant  Variant of the model
+     * @return JSON of the model, or {@code null} if it is not cached
+     */
+    @Nullable
+    String get(@NotNull String pagePath, @NotNull String variant);
+
+    /**
+     * Caches the JSON of a page model
+     *
+     * @param pagePath Path of the page
+     * @param variant  Variant of the model
+     * @param json     JSON of the model
+     */
+    void put(@NotNull String pagePath, @NotNull String variant, @NotNull String json);
+
+    /**
+     * @return Number of lookups answered from the cache
+     */
+    long getHits();
+
+    /**
+     * @return Number of lookups for fragments which were not cached
+     */
+    long getMisses();
+
+    /**
+     * @return Number of fragments dropped to stay within the size of the cache
+     */
+    long getEvictions();
+}
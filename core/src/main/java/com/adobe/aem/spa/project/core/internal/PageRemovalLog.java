@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal;
+
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Log of the pages recently removed from and added to the repository, consulted by the delta exports of the hierarchy to tell clients
+ * which of the pages they hold were removed since their last export, and which pages were moved into the exported tree without being
+ * modified. A move is logged as the removal of the source and the addition of the destination. <br>
+ * The log is kept by each instance, with instants of its own clock: a delta can only be told by the instance which returned the
+ * instant it is requested since. Clients behind several instances keep the {@link #getHorizon(String) horizon} of their last export
+ * and request a full export when it changes.
+ */
+public interface PageRemovalLog {
+
+    /**
+     * Returns the paths of the pages below a page which were removed after an instant. The removal of a page implies the removal of its
+     * subtree, whose paths are not listed.
+     *
+     * @param rootPath Path of the page whose subtree is exported
+     * @param since    Instant in milliseconds since the epoch
+     * @return Paths of the removed pages in the order of their removal, or {@code null} if the log does not reach back to the instant
+     */
+    @Nullable
+    List<String> getRemovedPaths(@NotNull String rootPath, long since);
+
+    /**
+     * Returns the paths of the pages below a page which were added after an instant, by being created or moved there. The addition of a
+     * page implies the addition of its subtree, whose paths are not listed.
+     *
+     * @param rootPath Path of the page whose subtree is exported
+     * @param since    Instant in milliseconds since the epoch
+     * @return Paths of the added pages in the order of their addition, or {@code null} if the log does not reach back to the instant
+     */
+    @Nullable
+    List<String> getAddedPaths(@NotNull String rootPath, long since);
+
+    /**
+     * Returns the instant from which the log knows the removals and additions below a page. The log only keeps the changes below the
+     * pages it was asked about, from the first time it was asked, and forgets the oldest changes once it is full.
+     *
+     * @param rootPath Path of the page whose subtree is exported
+     * @return Instant in milliseconds since the epoch, earlier instants cannot be told
+     */
+    long getHorizon(@NotNull String rootPath);
+}
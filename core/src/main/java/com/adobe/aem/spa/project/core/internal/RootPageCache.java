@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Cache of the SPA root page of pages, so that the root of a page is not looked up by resolving the template and the policy of each of
+ * its ancestors on every request. <br>
+ * Root paths are cached whatever the permissions of the requesting user. Callers resolve them with their own
+ * {@link com.day.cq.wcm.api.PageManager}; templates and policies are expected to be readable by all users who can read the pages. That a
+ * page has no root is only cached when all its ancestors could be read.
+ */
+public interface RootPageCache {
+
+    /**
+     * Cached value of the pages which are not part of any SPA
+     */
+    String NO_ROOT = "";
+
+    /**
+     * Returns the cached path of the root page of a page
+     *
+     * @param pagePath Path of the page
+     * @return Path of the root page, {@link #NO_ROOT} if the page has none or {@code null} if it is not cached
+     */
+    @Nullable
+    String getRootPath(@NotNull String pagePath);
+
+    /**
+     * Caches the path of the root page of a page
+     *
+     * @param pagePath Path of the page
+     * @param rootPath Path of the root page, or {@link #NO_ROOT} if the page has none
+     */
+    void putRootPath(@NotNull String pagePath, @NotNull String rootPath);
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.sling.models.jacksonexporter.ModuleProvider;
+import org.osgi.service.component.annotations.Component;
+
+import com.adobe.aem.spa.project.core.internal.impl.utils.FieldProjection;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.BeanSerializerBase;
+
+/**
+ * Provides the Jackson module applying the {@link FieldProjection} of a page model export: the bean serializer of {@link PageImpl} and
+ * its subclasses is wrapped so that only the properties of the projection are written. Properties are written one by one, so the
+ * getters of the properties left out are not called. <br>
+ * The module is used by the Sling Models exporter as well as by the {@link HierarchyStreamingServlet}. Models exported without a
+ * projection are written by the bean serializer as is.
+ */
+@Component(service = ModuleProvider.class)
+public class FieldProjectionModuleProvider implements ModuleProvider {
+
+    private final Module module = new SimpleModule(FieldProjectionModuleProvider.class.getSimpleName())
+        .setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc,
+                    JsonSerializer<?> serializer) {
+                if (PageImpl.class.isAssignableFrom(beanDesc.getBeanClass()) && serializer instanceof BeanSerializerBase) {
+                    return new ProjectingSerializer((BeanSerializerBase) serializer);
+                }
+                return serializer;
+            }
+        });
+
+    @Override
+    public Module getModule() {
+        return module;
+    }
+
+    /**
+     * Serializer writing the properties of the projection of a page model, or delegating to the bean serializer without projection
+     */
+    static final class ProjectingSerializer extends JsonSerializer<Object> implements ContextualSerializer, ResolvableSerializer {
+
+        private final JsonSerializer<Object> delegate;
+
+        @SuppressWarnings("unchecked")
+        ProjectingSerializer(JsonSerializer<?> delegate) {
+            this.delegate = (JsonSerializer<Object>) delegate;
+        }
+
+        @Override
+        public void serialize(Object value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            FieldProjection projection = value instanceof PageImpl ? ((PageImpl) value).getFieldProjection() : null;
+            if (projection == null) {
+                delegate.serialize(value, gen, serializers);
+                return;
+            }
+
+            gen.writeStartObject();
+            Iterator<PropertyWriter> properties = delegate.properties();
+            while (properties.hasNext()) {
+                PropertyWriter property = properties.next();
+                if (projection.includes(property.getName())) {
+                    try {
+                        property.serializeAsField(value, gen, serializers);
+                    } catch (IOException | RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw JsonMappingException.from(serializers, "Could not write " + property.getName(), e);
+                    }
+                }
+            }
+            gen.writeEndObject();
+        }
+
+        @Override
+        public void serializeWithType(Object value, JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+            delegate.serializeWithType(value, gen, serializers, typeSer);
+        }
+
+        @Override
+        public Iterator<PropertyWriter> properties() {
+            return delegate.properties();
+        }
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider prov, BeanProperty property) throws JsonMappingException {
+            if (delegate instanceof ContextualSerializer) {
+                JsonSerializer<?> contextual = ((ContextualSerializer) delegate).createContextual(prov, property);
+                return contextual != delegate ? new ProjectingSerializer(contextual) : this;
+            }
+            return this;
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (delegate instanceof ResolvableSerializer) {
+                ((ResolvableSerializer) delegate).resolve(provider);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.apache.sling.commons.osgi.Order;
+import org.apache.sling.commons.osgi.RankedServices;
+import org.apache.sling.models.factory.ModelFactory;
+import org.apache.sling.models.jacksonexporter.ModuleProvider;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyUtils;
+import com.adobe.aem.spa.project.core.internal.impl.utils.ModelJsonWriter;
+import com.adobe.aem.spa.project.core.models.Page;
+import com.day.cq.wcm.api.PageManager;
+import com.fasterxml.jackson.databind.Module;
+
+/**
+ * Serves the models of several pages of the subtree of a SPA page in one request ({@code .models.json?path=...&path=...}), so that an
+ * application needing pages which are not part of the export of its root does not request them one by one. <br>
+ * Each page is adapted as a descendant of the requested page (see {@link HierarchyUtils#getDescendantModel}) and returned with its status:
+ * <ul>
+ * <li>200 with its model</li>
+ * <li>400 if its normalized path is not in the subtree of the requested page</li>
+ * <li>404 if it does not exist, cannot be read or has no model</li>
+ * </ul>
+ * Requests without paths or with more paths than the configured maximum are rejected. The servlet is only registered when configured.
+ */
+@Component(service = Servlet.class, configurationPolicy = ConfigurationPolicy.REQUIRE, property = {
+    "sling.servlet.resourceTypes=" + PageImpl.RESOURCE_TYPE,
+    "sling.servlet.selectors=" + HierarchyBatchServlet.SELECTOR_MODELS,
+    "sling.servlet.extensions=json",
+    "sling.servlet.methods=GET"
+})
+@Designate(ocd = HierarchyBatchServlet.Config.class)
+public class HierarchyBatchServlet extends SlingSafeMethodsServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HierarchyBatchServlet.class);
+
+    static final String SELECTOR_MODELS = "models";
+
+    static final String PARAM_PATH = "path";
+
+    static final String PN_STATUS = "status";
+
+    static final String PN_MODEL = "model";
+
+    @ObjectClassDefinition(name = "SPA Project Core - Hierarchy Batch Servlet",
+        description = "Serves the models of several pages of the subtree of a SPA page in one request")
+    @interface Config {
+
+        @AttributeDefinition(name = "Maximum paths", description = "Number of pages which can be requested at once")
+        int max_paths() default 10;
+    }
+
+    @Reference
+    private transient ModelFactory modelFactory;
+
+    private final transient RankedServices<ModuleProvider> moduleProviders = new RankedServices<>(Order.ASCENDING);
+
+    private transient volatile ModelJsonWriter jsonWriter;
+
+    private transient volatile Config config;
+
+    @Activate
+    @Modified
+    protected void activate(Config config) {
+        this.config = config;
+    }
+
+    @Reference(service = ModuleProvider.class, cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC,
+        policyOption = ReferencePolicyOption.GREEDY)
+    protected synchronized void bindModuleProvider(ModuleProvider moduleProvider, Map<String, Object> properties) {
+        moduleProviders.bind(moduleProvider, properties);
+        jsonWriter = null;
+    }
+
+    protected synchronized void unbindModuleProvider(ModuleProvider moduleProvider, Map<String, Object> properties) {
+        moduleProviders.unbind(moduleProvider, properties);
+        jsonWriter = null;
+    }
+
+    @Override
+    protected void doGet(@NotNull SlingHttpServletRequest request, @NotNull SlingHttpServletResponse response)
+        throws ServletException, IOException {
+        String[] paths = request.getParameterValues(PARAM_PATH);
+        Set<String> uniquePaths = paths != null ? new LinkedHashSet<>(Arrays.asList(paths)) : new LinkedHashSet<>();
+        if (uniquePaths.isEmpty() || uniquePaths.size() > config.max_paths()) {
+            LOGGER.debug("Rejected a batch of {} paths on {}", uniquePaths.size(), request.getResource().getPath());
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        PageManager pageManager = request.getResourceResolver().adaptTo(PageManager.class);
+        com.day.cq.wcm.api.Page currentPage = pageManager != null ? pageManager.getContainingPage(request.getResource()) : null;
+        if (currentPage == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // The pages are exported as descendants, which do not export descendants of their own
+        request.setAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE, true);
+        Map<String, Object> entries = new LinkedHashMap<>();
+        for (String path : uniquePaths) {
+            entries.put(path, getEntry(path, currentPage, pageManager, request));
+        }
+
+        boolean tidy = ArrayUtils.contains(request.getRequestPathInfo().getSelectors(), HierarchyStreamingServlet.SELECTOR_TIDY);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        getJsonWriter().write(entries, response.getOutputStream(), tidy);
+    }
+
+    /**
+     * Returns the entry of a requested page: its status, and its model if it was adapted
+     */
+    private Map<String, Object> getEntry(String path, com.day.cq.wcm.api.Page currentPage, PageManager pageManager,
+            SlingHttpServletRequest request) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        // Paths such as /content/site/en/../../other are resolved before checking the subtree
+        String normalizedPath = ResourceUtil.normalize(path);
+        if (normalizedPath == null
+            || !normalizedPath.equals(currentPage.getPath()) && !normalizedPath.startsWith(currentPage.getPath() + "/")) {
+            entry.put(PN_STATUS, HttpServletResponse.SC_BAD_REQUEST);
+            return entry;
+        }
+
+        // The page manager of the request only returns the pages the user can read
+        com.day.cq.wcm.api.Page page = pageManager.getPage(normalizedPath);
+        Page model = page != null ? HierarchyUtils.getDescendantModel(page, request, modelFactory) : null;
+        if (model == null) {
+            entry.put(PN_STATUS, HttpServletResponse.SC_NOT_FOUND);
+            return entry;
+        }
+
+        entry.put(PN_STATUS, HttpServletResponse.SC_OK);
+        entry.put(PN_MODEL, model);
+        return entry;
+    }
+
+    /**
+     * @return Writer with the modules of the current module providers, created once for all requests
+     */
+    ModelJsonWriter getJsonWriter() {
+        ModelJsonWriter writer = jsonWriter;
+        if (writer == null) {
+            synchronized (this) {
+                writer = jsonWriter;
+                if (writer == null) {
+                    List<Module> modules = new ArrayList<>();
+                    for (ModuleProvider moduleProvider : moduleProviders) {
+                        modules.add(moduleProvider.getModule());
+                    }
+                    writer = new ModelJsonWriter(modules);
+                    jsonWriter = writer;
+                }
+            }
+        }
+        return writer;
+    }
+}
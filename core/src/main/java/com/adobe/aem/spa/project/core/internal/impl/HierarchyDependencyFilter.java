@@ -0,0 +1,248 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.wrappers.SlingHttpServletResponseWrapper;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyDependencyIndex;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyRequestContext;
+import com.adobe.aem.spa.project.core.internal.impl.utils.SurrogateKeys;
+
+/**
+ * Emits the pages and policies consumed by the model JSON export of SPA pages as a surrogate key header (see {@link SurrogateKeys}), so
+ * that a dispatcher or a CDN can invalidate the cached exports depending on a changed path, and records them in the
+ * {@link HierarchyDependencyIndex} when one is active. <br>
+ * The header is added when the export starts writing its response; exports with more dependencies than the configured maximum emit the
+ * overflow key in place of the keys which do not fit. The filter is only registered when configured.
+ */
+@Component(service = Filter.class, configurationPolicy = ConfigurationPolicy.REQUIRE, property = {
+    "sling.filter.scope=REQUEST",
+    "sling.filter.selectors=model",
+    "sling.filter.extensions=json",
+    "sling.filter.methods=GET"
+})
+@Designate(ocd = HierarchyDependencyFilter.Config.class)
+public class HierarchyDependencyFilter implements Filter {
+
+    @ObjectClassDefinition(name = "SPA Project Core - Hierarchy Dependency Filter",
+        description = "Emits the pages and policies consumed by the model JSON export of SPA pages as surrogate keys")
+    @interface Config {
+
+        @AttributeDefinition(name = "Header name",
+            description = "Name of the header listing the keys, e.g. Surrogate-Key, Cache-Tag or Edge-Cache-Tag")
+        String header_name() default "Surrogate-Key";
+
+        @AttributeDefinition(name = "Separator", description = "Separator of the keys in the header")
+        String separator() default " ";
+
+        @AttributeDefinition(name = "Maximum keys", description = "Number of keys emitted, including the overflow key")
+        int max_keys() default 1000;
+
+        @AttributeDefinition(name = "Overflow key",
+            description = "Key emitted by the exports whose dependencies do not fit, to be invalidated on every content change")
+        String overflow_key() default "spa-hierarchy-overflow";
+
+        @AttributeDefinition(name = "Service ranking",
+            description = "Ranking of the filter, lower than the one of the validator filter so that unmodified exports are not "
+                + "tracked")
+        int service_ranking() default -150;
+    }
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC,
+        policyOption = ReferencePolicyOption.GREEDY)
+    private volatile HierarchyDependencyIndex dependencyIndex;
+
+    private volatile Config config;
+
+    @Activate
+    @Modified
+    protected void activate(Config config) {
+        this.config = config;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (!(request instanceof SlingHttpServletRequest) || !(response instanceof SlingHttpServletResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        SlingHttpServletRequest slingRequest = (SlingHttpServletRequest) request;
+        // Created before the export so that the models of the export share it
+        HierarchyRequestContext context = HierarchyRequestContext.get(slingRequest);
+        DependencyResponse dependencyResponse = new DependencyResponse((SlingHttpServletResponse) response, context, config);
+        chain.doFilter(request, dependencyResponse);
+
+        // Responses which do not tell their dependencies would drop the ones recorded by earlier exports
+        HierarchyDependencyIndex index = dependencyIndex;
+        Set<String> dependencies = context.getDependencies();
+        if (index != null && dependencyResponse.status == HttpServletResponse.SC_OK && !dependencies.isEmpty()) {
+            index.record(getModelKey(slingRequest), dependencies);
+        }
+    }
+
+    /**
+     * Returns the key of the export in the index: variants of an export with other query parameters, e.g. {@code structurepatterns},
+     * depend on other pages
+     */
+    @NotNull
+    private static String getModelKey(@NotNull SlingHttpServletRequest request) {
+        String queryString = request.getQueryString();
+        return queryString != null ? request.getRequestURI() + "?" + queryString : request.getRequestURI();
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to release
+    }
+
+    /**
+     * Returns the header value listing the keys of the dependencies
+     *
+     * @param dependencies Paths of the pages and policies
+     * @param config       Configuration of the filter
+     * @return Keys separated by the configured separator
+     */
+    @NotNull
+    static String getHeaderValue(@NotNull Set<String> dependencies, @NotNull Config config) {
+        int maxKeys = Math.max(config.max_keys(), 1);
+        Set<String> keys = new LinkedHashSet<>();
+        for (String dependency : dependencies) {
+            keys.add(SurrogateKeys.of(dependency));
+        }
+
+        List<String> values = new ArrayList<>(keys);
+        if (values.size() > maxKeys) {
+            values = new ArrayList<>(values.subList(0, maxKeys - 1));
+            values.add(config.overflow_key());
+        }
+        return String.join(config.separator(), values);
+    }
+
+    /**
+     * Response adding the header when the export starts writing, before the response is committed. The status is tracked so that only
+     * successful exports are indexed.
+     */
+    static final class DependencyResponse extends SlingHttpServletResponseWrapper {
+
+        private final HierarchyRequestContext context;
+
+        private final Config config;
+
+        private boolean headerAdded;
+
+        private int status = HttpServletResponse.SC_OK;
+
+        DependencyResponse(@NotNull SlingHttpServletResponse response, @NotNull HierarchyRequestContext context,
+            @NotNull Config config) {
+            super(response);
+            this.context = context;
+            this.config = config;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            status = sc;
+            super.setStatus(sc);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void setStatus(int sc, String sm) {
+            status = sc;
+            super.setStatus(sc, sm);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            status = sc;
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            status = sc;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            status = HttpServletResponse.SC_FOUND;
+            super.sendRedirect(location);
+        }
+
+        private void addHeader() {
+            if (headerAdded || status != HttpServletResponse.SC_OK) {
+                return;
+            }
+            headerAdded = true;
+            Set<String> dependencies = context.getDependencies();
+            if (!dependencies.isEmpty()) {
+                setHeader(config.header_name(), getHeaderValue(dependencies, config));
+            }
+        }
+    }
+}
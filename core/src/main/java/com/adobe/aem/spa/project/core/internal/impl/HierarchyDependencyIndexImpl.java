@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyDependencyIndex;
+import com.adobe.aem.spa.project.core.internal.impl.utils.SurrogateKeys;
+
+/**
+ * {@link HierarchyDependencyIndex} which keeps the dependencies of the most recently exported models in memory, with the models of each
+ * dependency, so that a lookup does not go through all models. Models which were not exported since the activation, or which were
+ * dropped because the index is full, are not listed. The index is only active when configured.
+ */
+@Component(service = HierarchyDependencyIndex.class, configurationPolicy = ConfigurationPolicy.REQUIRE)
+@Designate(ocd = HierarchyDependencyIndexImpl.Config.class)
+public class HierarchyDependencyIndexImpl implements HierarchyDependencyIndex {
+
+    @ObjectClassDefinition(name = "SPA Project Core - Hierarchy Dependency Index",
+        description = "In-memory index of the pages and policies consumed by the model JSON exports of SPA pages")
+    @interface Config {
+
+        @AttributeDefinition(name = "Maximum models",
+            description = "Number of exported models whose dependencies are kept, the least recently exported are dropped first")
+        int max_models() default 1000;
+    }
+
+    /**
+     * Dependencies by model, in access order
+     */
+    private Map<String, Set<String>> models = Collections.emptyMap();
+
+    /**
+     * Models by dependency, sorted so that the dependencies below a path are a range
+     */
+    private final NavigableMap<String, Set<String>> dependents = new TreeMap<>();
+
+    @Activate
+    @Modified
+    protected synchronized void activate(Config config) {
+        int maxModels = Math.max(config.max_models(), 1);
+        Map<String, Set<String>> entries = new LinkedHashMap<String, Set<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+                if (size() <= maxModels) {
+                    return false;
+                }
+                removeDependents(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+        Map<String, Set<String>> previousModels = models;
+        models = entries;
+        dependents.clear();
+        previousModels.forEach(this::record);
+    }
+
+    @Override
+    public synchronized void record(@NotNull String modelKey, @NotNull Set<String> dependencies) {
+        Set<String> previousDependencies = models.remove(modelKey);
+        if (previousDependencies != null) {
+            removeDependents(modelKey, previousDependencies);
+        }
+        if (!dependencies.isEmpty()) {
+            Set<String> modelDependencies = Collections.unmodifiableSet(new LinkedHashSet<>(dependencies));
+            for (String dependency : modelDependencies) {
+                dependents.computeIfAbsent(dependency, key -> new LinkedHashSet<>()).add(modelKey);
+            }
+            models.put(modelKey, modelDependencies);
+        }
+    }
+
+    @NotNull
+    @Override
+    public synchronized Set<String> getDependentModels(@NotNull String changedPath) {
+        String path = SurrogateKeys.getChangedPage(changedPath);
+        int index = path.lastIndexOf('/');
+        String parentPath = index > 0 ? path.substring(0, index) : null;
+        String subtreePrefix = path + "/";
+
+        Set<String> dependentModels = new LinkedHashSet<>(dependents.getOrDefault(path, Collections.emptySet()));
+        if (parentPath != null) {
+            dependentModels.addAll(dependents.getOrDefault(parentPath, Collections.emptySet()));
+        }
+        for (Set<String> subtreeModels : dependents.subMap(subtreePrefix, true, subtreePrefix + Character.MAX_VALUE, true).values()) {
+            dependentModels.addAll(subtreeModels);
+        }
+        return dependentModels;
+    }
+
+    /**
+     * @return Number of models whose dependencies are kept
+     */
+    synchronized int size() {
+        return models.size();
+    }
+
+    /**
+     * @return Number of dependencies whose models are kept
+     */
+    synchronized int dependencyCount() {
+        return dependents.size();
+    }
+
+    private void removeDependents(@NotNull String modelKey, @NotNull Set<String> dependencies) {
+        for (String dependency : dependencies) {
+            Set<String> dependencyModels = dependents.get(dependency);
+            if (dependencyModels != null) {
+                dependencyModels.remove(modelKey);
+                if (dependencyModels.isEmpty()) {
+                    dependents.remove(dependency);
+                }
+            }
+        }
+    }
+}
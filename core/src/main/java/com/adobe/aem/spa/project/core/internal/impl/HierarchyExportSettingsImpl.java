@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.osgi.service.metatype.annotations.Option;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.StructurePatternsEngine;
+
+/**
+ * OSGi configurable {@link HierarchyExportSettings}
+ */
+@Component(service = HierarchyExportSettings.class)
+@Designate(ocd = HierarchyExportSettingsImpl.Config.class)
+public class HierarchyExportSettingsImpl implements HierarchyExportSettings {
+
+    @ObjectClassDefinition(name = "SPA Project Core - Hierarchy Export Settings",
+        description = "Settings of the hierarchical page model export of SPA root pages")
+    @interface Config {
+
+        @AttributeDefinition(name = "Request structure patterns engine",
+            description = "Engine matching the structure patterns provided with the 'structurepatterns' request parameter. The linear "
+                + "engine cannot be slowed down by crafted expressions and rejects the constructs it does not support with a 400 "
+                + "response. Patterns of template policies are always matched with java.util.regex.",
+            options = {
+                @Option(label = "java.util.regex", value = "REGEX"),
+                @Option(label = "Linear time", value = "LINEAR")
+            })
+        StructurePatternsEngine request_patterns_engine() default StructurePatternsEngine.REGEX;
+
+        @AttributeDefinition(name = "Maximum descendants",
+            description = "Number of descendant pages after which an export stops traversing the page tree and marks its children as "
+                + "truncated. 0 for no limit.")
+        int max_descendants() default 0;
+
+        @AttributeDefinition(name = "Maximum models",
+            description = "Number of descendant page models after which an export stops adapting them and marks its children as "
+                + "truncated. The entry point page is always exported. 0 for no limit.")
+        int max_models() default 0;
+
+        @AttributeDefinition(name = "Maximum export time",
+            description = "Milliseconds after which an export stops traversing the page tree and adapting models and marks its "
+                + "children as truncated. The entry point page is always exported. 0 for no limit.")
+        long max_export_time() default 0;
+
+        @AttributeDefinition(name = "Lazy adaptation",
+            description = "Adapt the descendant page models only while the response is written, one at a time, so that they do not all "
+                + "stay in memory until the export is complete. Lazily adapted models are not limited by the maximum export time.")
+        boolean lazy_adaptation() default false;
+
+        @AttributeDefinition(name = "Field projection profiles",
+            description = "Profiles of the JSON properties exported with the 'fields-<profile>' selector, as <profile>=<property>,"
+                + "<property>, e.g. navigation=title,language. The properties of the hierarchy are always exported and the getters of "
+                + "the other properties are not called.")
+        String[] projection_profiles() default { "navigation=title,language" };
+    }
+
+    private volatile StructurePatternsEngine requestPatternsEngine = StructurePatternsEngine.REGEX;
+
+    private volatile int maxDescendants;
+
+    private volatile int maxModels;
+
+    private volatile long maxExportTime;
+
+    private volatile boolean lazyAdaptation;
+
+    private volatile Map<String, Set<String>> projectionProfiles = Collections.emptyMap();
+
+    @Activate
+    @Modified
+    protected void activate(Config config) {
+        requestPatternsEngine = config.request_patterns_engine();
+        maxDescendants = config.max_descendants();
+        maxModels = config.max_models();
+        maxExportTime = config.max_export_time();
+        lazyAdaptation = config.lazy_adaptation();
+        projectionProfiles = parseProjectionProfiles(config.projection_profiles());
+    }
+
+    @NotNull
+    @Override
+    public StructurePatternsEngine getRequestPatternsEngine() {
+        return requestPatternsEngine;
+    }
+
+    @Override
+    public int getMaxDescendants() {
+        return maxDescendants;
+    }
+
+    @Override
+    public int getMaxModels() {
+        return maxModels;
+    }
+
+    @Override
+    public long getMaxExportTime() {
+        return maxExportTime;
+    }
+
+    @Override
+    public boolean isLazyAdaptation() {
+        return lazyAdaptation;
+    }
+
+    @Nullable
+    @Override
+    public Set<String> getProjectedFields(@NotNull String profile) {
+        return projectionProfiles.get(profile);
+    }
+
+    /**
+     * Parses the profiles configured as {@code <profile>=<property>,<property>}, ignoring the entries without a name
+     */
+    static Map<String, Set<String>> parseProjectionProfiles(@Nullable String[] profiles) {
+        Map<String, Set<String>> parsed = new HashMap<>();
+        if (profiles == null) {
+            return parsed;
+        }
+
+        for (String profile : profiles) {
+            String name = StringUtils.trim(StringUtils.substringBefore(profile, "="));
+            if (StringUtils.isNotEmpty(name)) {
+                Set<String> fields = new LinkedHashSet<>();
+                for (String field : StringUtils.split(StringUtils.substringAfter(profile, "="), ',')) {
+                    fields.add(field.trim());
+                }
+                parsed.put(name, Collections.unmodifiableSet(fields));
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.wrappers.SlingHttpServletResponseWrapper;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.framework.Constants;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyMetrics;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyRequestContext;
+import com.day.cq.commons.jcr.JcrConstants;
+
+/**
+ * Measures the model JSON requests with the {@link HierarchyMetrics}: the hierarchy export of the request records its traversals,
+ * adaptations and root page lookups, and the filter records the size and duration of successful responses. <br>
+ * The filter is only active while a metrics service is registered, so that the export is not measured otherwise. Its ranking is higher
+ * than the one of the other model filters, so that their work is part of the measured duration.
+ */
+@Component(service = Filter.class, property = {
+    "sling.filter.scope=REQUEST",
+    "sling.filter.selectors=model",
+    "sling.filter.extensions=json",
+    "sling.filter.methods=GET",
+    Constants.SERVICE_RANKING + ":Integer=100"
+})
+public class HierarchyMetricsFilter implements Filter {
+
+    private static final String CONTENT_SUFFIX = "/" + JcrConstants.JCR_CONTENT;
+
+    @Reference(policyOption = ReferencePolicyOption.GREEDY)
+    private HierarchyMetrics metrics;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (!(request instanceof SlingHttpServletRequest) || !(response instanceof SlingHttpServletResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        SlingHttpServletRequest slingRequest = (SlingHttpServletRequest) request;
+        long start = System.nanoTime();
+        HierarchyRequestContext.get(slingRequest).setMetrics(metrics);
+        CountingResponse countingResponse = new CountingResponse((SlingHttpServletResponse) response);
+        chain.doFilter(request, countingResponse);
+
+        if (countingResponse.getStatus() == HttpServletResponse.SC_OK) {
+            String pagePath = StringUtils.removeEnd(slingRequest.getResource().getPath(), CONTENT_SUFFIX);
+            metrics.recordResponse(pagePath, countingResponse.getCount(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to release
+    }
+
+    /**
+     * Response counting the bytes written to its stream, or the characters written to its writer
+     */
+    static final class CountingResponse extends SlingHttpServletResponseWrapper {
+
+        private long count;
+
+        private ServletOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        CountingResponse(@NotNull SlingHttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream wrapped = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        wrapped.write(b);
+                        count++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        wrapped.write(b, off, len);
+                        count += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        wrapped.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        wrapped.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return wrapped.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        wrapped.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                PrintWriter wrapped = super.getWriter();
+                writer = new PrintWriter(new Writer() {
+                    @Override
+                    public void write(char[] cbuf, int off, int len) {
+                        wrapped.write(cbuf, off, len);
+                        count += len;
+                    }
+
+                    @Override
+                    public void write(String str, int off, int len) {
+                        wrapped.write(str, off, len);
+                        count += len;
+                    }
+
+                    @Override
+                    public void flush() {
+                        wrapped.flush();
+                    }
+
+                    @Override
+                    public void close() {
+                        wrapped.close();
+                    }
+                });
+            }
+            return writer;
+        }
+
+        /**
+         * @return Number of bytes or characters written so far
+         */
+        long getCount() {
+            return count;
+        }
+    }
+}
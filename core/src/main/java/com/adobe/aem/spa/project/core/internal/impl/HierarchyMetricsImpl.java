@@ -0,0 +1,408 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyMetrics;
+import com.adobe.aem.spa.project.core.internal.PageModelFragmentCache;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyPolicyCache;
+import com.adobe.aem.spa.project.core.internal.impl.utils.StructurePatternsCache;
+
+/**
+ * {@link HierarchyMetrics} which sums the timings and counts of the hierarchy export in memory and exposes them through JMX, with a
+ * histogram of the response times of each of the most recently exported pages. <br>
+ * The hits and misses of the structure patterns, hierarchy policy and page model fragment caches are exposed alongside; they are
+ * counted by the caches themselves. <br>
+ * The metrics are only collected when configured.
+ */
+@Component(service = { HierarchyMetrics.class, HierarchyMetricsMXBean.class },
+    configurationPolicy = ConfigurationPolicy.REQUIRE,
+    property = "jmx.objectname=com.adobe.aem.spa.project.core:type=HierarchyMetrics")
+@Designate(ocd = HierarchyMetricsImpl.Config.class)
+public class HierarchyMetricsImpl implements HierarchyMetrics, HierarchyMetricsMXBean {
+
+    /**
+     * Upper bounds of the buckets of the response time histograms in milliseconds
+     */
+    static final long[] RESPONSE_TIME_BUCKETS_MILLIS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000 };
+
+    @ObjectClassDefinition(name = "SPA Project Core - Hierarchy Metrics",
+        description = "Collects the timings and counts of the hierarchy export in memory and exposes them through JMX")
+    @interface Config {
+
+        @AttributeDefinition(name = "Maximum pages",
+            description = "Number of exported pages whose response times are kept, the least recently exported are dropped first")
+        int max_pages() default 100;
+    }
+
+    private final LongAdder traversals = new LongAdder();
+
+    private final LongAdder pagesVisited = new LongAdder();
+
+    private final LongAdder pagesMatched = new LongAdder();
+
+    private final LongAdder traversalNanos = new LongAdder();
+
+    private final LongAdder adaptations = new LongAdder();
+
+    private final LongAdder adaptationNanos = new LongAdder();
+
+    private final LongAdder rootPageLookups = new LongAdder();
+
+    private final LongAdder rootPageLookupNanos = new LongAdder();
+
+    private final LongAdder childrenExports = new LongAdder();
+
+    private final LongAdder pagesExported = new LongAdder();
+
+    private final LongAdder childrenExportNanos = new LongAdder();
+
+    private final LongAdder responses = new LongAdder();
+
+    private final LongAdder bytesWritten = new LongAdder();
+
+    private final LongAdder responseNanos = new LongAdder();
+
+    private Map<String, PageHistogram> pages = new LinkedHashMap<>();
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC,
+        policyOption = ReferencePolicyOption.GREEDY)
+    private volatile PageModelFragmentCache fragmentCache;
+
+    @Activate
+    @Modified
+    protected synchronized void activate(Config config) {
+        int maxPages = Math.max(config.max_pages(), 1);
+        Map<String, PageHistogram> entries = new LinkedHashMap<String, PageHistogram>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PageHistogram> eldest) {
+                return size() > maxPages;
+            }
+        };
+        entries.putAll(pages);
+        pages = entries;
+    }
+
+    @Override
+    public void recordTraversal(@NotNull String pagePath, int pagesVisited, int pagesMatched, long durationNanos) {
+        traversals.increment();
+        this.pagesVisited.add(pagesVisited);
+        this.pagesMatched.add(pagesMatched);
+        traversalNanos.add(durationNanos);
+    }
+
+    @Override
+    public void recordAdaptation(@NotNull String pagePath, long durationNanos) {
+        adaptations.increment();
+        adaptationNanos.add(durationNanos);
+    }
+
+    @Override
+    public void recordRootPageLookup(@NotNull String pagePath, long durationNanos) {
+        rootPageLookups.increment();
+        rootPageLookupNanos.add(durationNanos);
+    }
+
+    @Override
+    public void recordChildrenExport(@NotNull String pagePath, int pagesExported, long durationNanos) {
+        childrenExports.increment();
+        this.pagesExported.add(pagesExported);
+        childrenExportNanos.add(durationNanos);
+    }
+
+    @Override
+    public void recordResponse(@NotNull String pagePath, long bytesWritten, long durationNanos) {
+        responses.increment();
+        this.bytesWritten.add(bytesWritten);
+        responseNanos.add(durationNanos);
+
+        PageHistogram histogram;
+        synchronized (this) {
+            histogram = pages.computeIfAbsent(pagePath, PageHistogram::new);
+        }
+        histogram.record(bytesWritten, durationNanos);
+    }
+
+    @Override
+    public long getTraversalCount() {
+        return traversals.sum();
+    }
+
+    @Override
+    public long getPagesVisited() {
+        return pagesVisited.sum();
+    }
+
+    @Override
+    public long getPagesMatched() {
+        return pagesMatched.sum();
+    }
+
+    @Override
+    public double getTraversalTimeMillis() {
+        return toMillis(traversalNanos.sum());
+    }
+
+    @Override
+    public long getAdaptationCount() {
+        return adaptations.sum();
+    }
+
+    @Override
+    public double getAdaptationTimeMillis() {
+        return toMillis(adaptationNanos.sum());
+    }
+
+    @Override
+    public long getRootPageLookupCount() {
+        return rootPageLookups.sum();
+    }
+
+    @Override
+    public double getRootPageLookupTimeMillis() {
+        return toMillis(rootPageLookupNanos.sum());
+    }
+
+    @Override
+    public long getChildrenExportCount() {
+        return childrenExports.sum();
+    }
+
+    @Override
+    public long getPagesExported() {
+        return pagesExported.sum();
+    }
+
+    @Override
+    public double getChildrenExportTimeMillis() {
+        return toMillis(childrenExportNanos.sum());
+    }
+
+    @Override
+    public long getResponseCount() {
+        return responses.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public double getResponseTimeMillis() {
+        return toMillis(responseNanos.sum());
+    }
+
+    @Override
+    public long[] getResponseTimeBucketsMillis() {
+        return RESPONSE_TIME_BUCKETS_MILLIS.clone();
+    }
+
+    @Override
+    public List<PageStatistics> getPages() {
+        List<PageHistogram> histograms;
+        synchronized (this) {
+            histograms = new ArrayList<>(pages.values());
+        }
+
+        List<PageStatistics> statistics = new ArrayList<>(histograms.size());
+        for (PageHistogram histogram : histograms) {
+            statistics.add(histogram.getStatistics());
+        }
+        return statistics;
+    }
+
+    @Override
+    public long getStructurePatternsCacheHits() {
+        return StructurePatternsCache.getInstance().getHits();
+    }
+
+    @Override
+    public long getStructurePatternsCacheMisses() {
+        return StructurePatternsCache.getInstance().getMisses();
+    }
+
+    @Override
+    public long getPolicyCacheHits() {
+        return HierarchyPolicyCache.getInstance().getHits();
+    }
+
+    @Override
+    public long getPolicyCacheMisses() {
+        return HierarchyPolicyCache.getInstance().getMisses();
+    }
+
+    @Override
+    public long getFragmentCacheHits() {
+        PageModelFragmentCache cache = fragmentCache;
+        return cache != null ? cache.getHits() : 0;
+    }
+
+    @Override
+    public long getFragmentCacheMisses() {
+        PageModelFragmentCache cache = fragmentCache;
+        return cache != null ? cache.getMisses() : 0;
+    }
+
+    @Override
+    public long getFragmentCacheEvictions() {
+        PageModelFragmentCache cache = fragmentCache;
+        return cache != null ? cache.getEvictions() : 0;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder adder : Arrays.asList(traversals, pagesVisited, pagesMatched, traversalNanos, adaptations, adaptationNanos,
+            rootPageLookups, rootPageLookupNanos, childrenExports, pagesExported, childrenExportNanos, responses, bytesWritten,
+            responseNanos)) {
+            adder.reset();
+        }
+        synchronized (this) {
+            pages.clear();
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Response times of an exported page
+     */
+    private static final class PageHistogram {
+
+        private final String path;
+
+        private final long[] buckets = new long[RESPONSE_TIME_BUCKETS_MILLIS.length + 1];
+
+        private long count;
+
+        private long bytesWritten;
+
+        private long totalNanos;
+
+        private long maxNanos;
+
+        private PageHistogram(String path) {
+            this.path = path;
+        }
+
+        private synchronized void record(long bytes, long durationNanos) {
+            count++;
+            bytesWritten += bytes;
+            totalNanos += durationNanos;
+            maxNanos = Math.max(maxNanos, durationNanos);
+
+            long millis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+            int bucket = 0;
+            while (bucket < RESPONSE_TIME_BUCKETS_MILLIS.length && millis >= RESPONSE_TIME_BUCKETS_MILLIS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket]++;
+        }
+
+        private synchronized PageStatistics getStatistics() {
+            return new PageStatistics(path, count, bytesWritten, toMillis(totalNanos), toMillis(maxNanos), buckets.clone());
+        }
+    }
+
+    /**
+     * Snapshot of the response times of an exported page
+     */
+    public static final class PageStatistics {
+
+        private final String path;
+
+        private final long count;
+
+        private final long bytesWritten;
+
+        private final double timeMillis;
+
+        private final double maxTimeMillis;
+
+        private final long[] timeHistogram;
+
+        PageStatistics(String path, long count, long bytesWritten, double timeMillis, double maxTimeMillis, long[] timeHistogram) {
+            this.path = path;
+            this.count = count;
+            this.bytesWritten = bytesWritten;
+            this.timeMillis = timeMillis;
+            this.maxTimeMillis = maxTimeMillis;
+            this.timeHistogram = timeHistogram;
+        }
+
+        /**
+         * @return Path of the exported page
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return Number of responses
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return Total size of the responses
+         */
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        /**
+         * @return Total duration of the responses in milliseconds
+         */
+        public double getTimeMillis() {
+            return timeMillis;
+        }
+
+        /**
+         * @return Longest duration of a response in milliseconds
+         */
+        public double getMaxTimeMillis() {
+            return maxTimeMillis;
+        }
+
+        /**
+         * @return Number of responses in each bucket of {@link HierarchyMetricsMXBean#getResponseTimeBucketsMillis()}, and above the
+         *     last bound
+         */
+        public long[] getTimeHistogram() {
+            return timeHistogram.clone();
+        }
+    }
+}
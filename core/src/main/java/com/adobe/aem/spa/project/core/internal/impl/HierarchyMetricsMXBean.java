@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.List;
+
+/**
+ * Metrics of the hierarchy export collected by the {@link HierarchyMetricsImpl}, exposed through JMX
+ */
+public interface HierarchyMetricsMXBean {
+
+    /**
+     * @return Number of traversals of descendants
+     */
+    long getTraversalCount();
+
+    /**
+     * @return Number of descendants visited by the traversals
+     */
+    long getPagesVisited();
+
+    /**
+     * @return Number of descendants matching the structure patterns
+     */
+    long getPagesMatched();
+
+    /**
+     * @return Total duration of the traversals in milliseconds
+     */
+    double getTraversalTimeMillis();
+
+    /**
+     * @return Number of descendant models adapted
+     */
+    long getAdaptationCount();
+
+    /**
+     * @return Total duration of the adaptations in milliseconds
+     */
+    double getAdaptationTimeMillis();
+
+    /**
+     * @return Number of root page lookups
+     */
+    long getRootPageLookupCount();
+
+    /**
+     * @return Total duration of the root page lookups in milliseconds
+     */
+    double getRootPageLookupTimeMillis();
+
+    /**
+     * @return Number of exports of the children of page models
+     */
+    long getChildrenExportCount();
+
+    /**
+     * @return Number of descendant models exported
+     */
+    long getPagesExported();
+
+    /**
+     * @return Total duration of the exports of children in milliseconds
+     */
+    double getChildrenExportTimeMillis();
+
+    /**
+     * @return Number of successful model JSON responses
+     */
+    long getResponseCount();
+
+    /**
+     * @return Total size of the responses
+     */
+    long getBytesWritten();
+
+    /**
+     * @return Total duration of the responses in milliseconds
+     */
+    double getResponseTimeMillis();
+
+    /**
+     * @return Upper bounds of the buckets of the response time histograms in milliseconds, the last bucket has no upper bound
+     */
+    long[] getResponseTimeBucketsMillis();
+
+    /**
+     * @return Statistics of the responses of the most recently exported pages
+     */
+    List<HierarchyMetricsImpl.PageStatistics> getPages();
+
+    /**
+     * @return Number of lookups answered by the cache of compiled structure patterns
+     */
+    long getStructurePatternsCacheHits();
+
+    /**
+     * @return Number of structure patterns compiled because they were not cached
+     */
+    long getStructurePatternsCacheMisses();
+
+    /**
+     * @return Number of lookups answered by the cache of hierarchy policies
+     */
+    long getPolicyCacheHits();
+
+    /**
+     * @return Number of hierarchy policies resolved because they were not cached
+     */
+    long getPolicyCacheMisses();
+
+    /**
+     * @return Number of lookups answered by the page model fragment cache, 0 when the cache is not configured
+     */
+    long getFragmentCacheHits();
+
+    /**
+     * @return Number of lookups for fragments which were not cached, 0 when the cache is not configured
+     */
+    long getFragmentCacheMisses();
+
+    /**
+     * @return Number of fragments dropped to stay within the size of the cache, 0 when the cache is not configured
+     */
+    long getFragmentCacheEvictions();
+
+    /**
+     * Resets all metrics, except the hits and misses of the caches which are counted by the caches themselves
+     */
+    void reset();
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.List;
+
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Component;
+
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyPolicyCache;
+
+/**
+ * Drops the cached {@link com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyPolicy} snapshots of the policies changed below
+ * {@code /conf}, including changes that do not update the modification time of the policy, such as package installations.
+ */
+@Component(service = ResourceChangeListener.class,
+    property = {
+        ResourceChangeListener.PATHS + "=/conf",
+        ResourceChangeListener.CHANGES + "=ADDED",
+        ResourceChangeListener.CHANGES + "=REMOVED",
+        ResourceChangeListener.CHANGES + "=CHANGED"
+    })
+public class HierarchyPolicyInvalidator implements ResourceChangeListener, ExternalResourceChangeListener {
+
+    @Override
+    public void onChange(@NotNull List<ResourceChange> changes) {
+        for (ResourceChange change : changes) {
+            HierarchyPolicyCache.getInstance().invalidate(change.getPath());
+        }
+    }
+}
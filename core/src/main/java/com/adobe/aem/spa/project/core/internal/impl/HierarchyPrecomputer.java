@@ -0,0 +1,572 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.api.wrappers.ResourceResolverWrapper;
+import org.apache.sling.engine.SlingRequestProcessor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyRequestContext;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyUtils;
+import com.day.cq.commons.jcr.JcrConstants;
+import com.day.cq.contentsync.handler.util.RequestResponseFactory;
+import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.PageManager;
+import com.day.cq.wcm.api.policies.ContentPolicyManager;
+
+/**
+ * Renders the model JSON export of SPA root pages ({@code .model.json}) in the background after their content changed, e.g. after a
+ * replication to a publish instance, so that the first requests after an activation do not compute the whole hierarchy. <br>
+ * Changes below {@code /content} are collected for the configured delay, so that a burst of changes renders each affected root once.
+ * The affected roots are the root of each changed page, found with {@link HierarchyUtils#findRootPage(Page, ContentPolicyManager)},
+ * the rendered roots above it and the rendered roots which depend on it; a change below {@code /conf} renders all of them again. Until
+ * a root is rendered again its requests are served as before. <br>
+ * The dependencies of a rendered root are the pages and policies recorded by its export, and the pages and assets below
+ * {@code /content} which the rendering read outside of the root, e.g. experience fragments and images. <br>
+ * Rendered models are stored below {@value #STORE_ROOT} and served to anonymous requests of the plain {@code .model.json} of the root,
+ * without further selectors, suffix or query. The pages and policies the rendering depended on are stored with the model and recorded
+ * in the {@link HierarchyRequestContext} of the served request, for the {@link HierarchyDependencyFilter}. After an activation of the
+ * component the stored models are served while they are rendered again. <br>
+ * The component is only active when configured. It needs two service user mappings of this bundle, shipped with the all package:
+ * {@value #SUBSERVICE} to a user which reads the content and policies and writes below {@value #STORE_ROOT}, and
+ * {@value #RENDER_SUBSERVICE} to a user which renders the models. The rendering user has no permissions of its own, so that it reads
+ * what everyone reads, which is what anonymous requests read unless the anonymous user is granted or denied more than everyone.
+ */
+@Component(service = { Filter.class, ResourceChangeListener.class },
+    configurationPolicy = ConfigurationPolicy.REQUIRE,
+    property = {
+        "sling.filter.scope=REQUEST",
+        "sling.filter.selectors=model",
+        "sling.filter.extensions=json",
+        "sling.filter.methods=GET",
+        ResourceChangeListener.PATHS + "=/content",
+        ResourceChangeListener.PATHS + "=/conf",
+        ResourceChangeListener.CHANGES + "=ADDED",
+        ResourceChangeListener.CHANGES + "=REMOVED",
+        ResourceChangeListener.CHANGES + "=CHANGED"
+    })
+@Designate(ocd = HierarchyPrecomputer.Config.class)
+public class HierarchyPrecomputer implements Filter, ResourceChangeListener, ExternalResourceChangeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HierarchyPrecomputer.class);
+
+    static final String SUBSERVICE = "hierarchy-precomputer";
+
+    static final String RENDER_SUBSERVICE = "hierarchy-renderer";
+
+    static final String ANONYMOUS = "anonymous";
+
+    static final String STORE_ROOT = "/var/spa-project-core/models";
+
+    static final String PN_JSON = "json";
+
+    static final String PN_DEPENDENCIES = "dependencies";
+
+    private static final String CONTENT_SEGMENT = "/" + JcrConstants.JCR_CONTENT;
+
+    private static final String CONF_ROOT = "/conf";
+
+    private static final String MODEL_JSON = ".model.json";
+
+    private static final String THREAD_NAME = "spa-project-core-hierarchy-precomputer";
+
+    @ObjectClassDefinition(name = "SPA Project Core - Hierarchy Precomputer",
+        description = "Renders the model JSON export of SPA root pages in the background after their content changed")
+    @interface Config {
+
+        @AttributeDefinition(name = "Delay",
+            description = "Milliseconds during which changes are collected before the affected roots are rendered")
+        long delay() default 5000;
+
+        @AttributeDefinition(name = "Service ranking",
+            description = "Ranking of the filter, lower than the one of the hierarchy validator filter so that conditional requests "
+                + "are answered first")
+        int service_ranking() default -200;
+    }
+
+    @Reference
+    private ResourceResolverFactory resolverFactory;
+
+    @Reference
+    private SlingRequestProcessor requestProcessor;
+
+    @Reference
+    private RequestResponseFactory requestResponseFactory;
+
+    /**
+     * Rendered models which are up to date, by root path
+     */
+    private final Map<String, Model> models = new ConcurrentHashMap<>();
+
+    /**
+     * Roots which have been rendered, with the paths their last rendering depended on
+     */
+    private final Map<String, Set<String>> roots = new ConcurrentHashMap<>();
+
+    /**
+     * Changed paths waiting for the next rendering, guarded by this
+     */
+    private final Set<String> changedPaths = new LinkedHashSet<>();
+
+    private boolean renderingScheduled;
+
+    private long delay;
+
+    private ScheduledExecutorService scheduler;
+
+    public HierarchyPrecomputer() {
+    }
+
+    HierarchyPrecomputer(@NotNull ResourceResolverFactory resolverFactory) {
+        this.resolverFactory = resolverFactory;
+    }
+
+    @Activate
+    @Modified
+    protected synchronized void activate(Config config) {
+        delay = Math.max(0, config.delay());
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        // Changes may have been missed while the component was not active
+        loadStoredModels();
+        changedPaths.addAll(roots.keySet());
+        scheduleRendering();
+    }
+
+    @Deactivate
+    protected synchronized void deactivate() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        renderingScheduled = false;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        Model model = request instanceof SlingHttpServletRequest ? getModel((SlingHttpServletRequest) request) : null;
+        if (model == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HierarchyRequestContext context = HierarchyRequestContext.get((SlingHttpServletRequest) request);
+        for (String dependency : model.dependencies) {
+            context.addDependency(dependency);
+        }
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(model.json);
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to release
+    }
+
+    @Override
+    public void onChange(@NotNull List<ResourceChange> changes) {
+        synchronized (this) {
+            for (ResourceChange change : changes) {
+                String path = change.getPath();
+
+                if (isSameOrAncestor(CONF_ROOT, path)) {
+                    models.clear();
+                    changedPaths.addAll(roots.keySet());
+                    continue;
+                }
+
+                String pagePath = getPagePath(path);
+                for (Map.Entry<String, Set<String>> root : roots.entrySet()) {
+                    if (isAffected(root.getKey(), root.getValue(), pagePath)) {
+                        models.remove(root.getKey());
+                        changedPaths.add(root.getKey());
+                    }
+                }
+                changedPaths.add(pagePath);
+            }
+            scheduleRendering();
+        }
+    }
+
+    /**
+     * Renders the roots affected by the changes collected so far
+     */
+    void render() {
+        List<String> paths;
+        synchronized (this) {
+            paths = new ArrayList<>(changedPaths);
+            changedPaths.clear();
+            renderingScheduled = false;
+        }
+        if (paths.isEmpty()) {
+            return;
+        }
+
+        try (ResourceResolver resolver = getServiceResourceResolver(SUBSERVICE);
+            ResourceResolver renderResolver = getServiceResourceResolver(RENDER_SUBSERVICE)) {
+            for (String rootPath : getAffectedRoots(resolver, paths)) {
+                renderRoot(resolver, renderResolver, rootPath);
+            }
+        } catch (LoginException e) {
+            LOGGER.warn("Cannot render the SPA root models, the service users of {} and {} are not available", SUBSERVICE,
+                RENDER_SUBSERVICE);
+        }
+    }
+
+    /**
+     * Renders the model JSON export of a root page
+     *
+     * @param resolver Resource resolver of the rendering service user, which records the content the rendering reads
+     * @param rootPath Path of the root page
+     * @return Model with the pages and policies it depends on, or {@code null} if the page could not be rendered
+     * @throws ServletException If the rendering fails
+     * @throws IOException      If the rendering fails
+     */
+    @Nullable
+    Model renderModel(@NotNull ResourceResolver resolver, @NotNull String rootPath) throws ServletException, IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        HttpServletRequest request = requestResponseFactory.createRequest("GET", rootPath + MODEL_JSON);
+        HttpServletResponse response = requestResponseFactory.createResponse(output);
+        requestProcessor.processRequest(request, response, resolver);
+        response.flushBuffer();
+        if (response.getStatus() != HttpServletResponse.SC_OK) {
+            LOGGER.debug("Rendering the model of {} returned the status {}", rootPath, response.getStatus());
+            return null;
+        }
+        return new Model(new String(output.toByteArray(), StandardCharsets.UTF_8), HierarchyRequestContext.getDependencies(request));
+    }
+
+    /**
+     * Returns the root page of a page
+     *
+     * @param page Page
+     * @return Root page, or {@code null} if the page is not part of an SPA
+     */
+    @Nullable
+    Page getRootPage(@NotNull Page page) {
+        Resource contentResource = page.getContentResource();
+        ContentPolicyManager policyManager = contentResource != null
+            ? contentResource.getResourceResolver().adaptTo(ContentPolicyManager.class)
+            : null;
+        return policyManager != null ? HierarchyUtils.findRootPage(page, policyManager) : null;
+    }
+
+    @Nullable
+    private Model getModel(@NotNull SlingHttpServletRequest request) {
+        String[] selectors = request.getRequestPathInfo().getSelectors();
+        if (selectors.length != 1 || request.getRequestPathInfo().getSuffix() != null || request.getQueryString() != null
+            || !ANONYMOUS.equals(request.getResourceResolver().getUserID())) {
+            return null;
+        }
+        return models.get(request.getResource().getPath());
+    }
+
+    private Set<String> getAffectedRoots(@NotNull ResourceResolver resolver, @NotNull List<String> paths) {
+        PageManager pageManager = resolver.adaptTo(PageManager.class);
+        Set<String> affectedRoots = new LinkedHashSet<>();
+        for (String path : paths) {
+            for (String rootPath : roots.keySet()) {
+                if (isSameOrAncestor(rootPath, path)) {
+                    affectedRoots.add(rootPath);
+                }
+            }
+
+            Page page = pageManager != null ? getContainingPage(resolver, pageManager, path) : null;
+            Page rootPage = page != null ? getRootPage(page) : null;
+            if (rootPage != null) {
+                affectedRoots.add(rootPage.getPath());
+            }
+        }
+        return affectedRoots;
+    }
+
+    /**
+     * Returns the page containing the path, or its closest existing ancestor page if the path was removed
+     */
+    @Nullable
+    private static Page getContainingPage(@NotNull ResourceResolver resolver, @NotNull PageManager pageManager, @NotNull String path) {
+        String existingPath = path;
+        while (existingPath.lastIndexOf('/') > 0 && resolver.getResource(existingPath) == null) {
+            existingPath = existingPath.substring(0, existingPath.lastIndexOf('/'));
+        }
+        Resource resource = resolver.getResource(existingPath);
+        return resource != null ? pageManager.getContainingPage(resource) : null;
+    }
+
+    private void renderRoot(@NotNull ResourceResolver resolver, @NotNull ResourceResolver renderResolver, @NotNull String rootPath) {
+        Model model;
+        try {
+            // Roots which cannot be read by everyone are not served
+            ReferenceRecordingResolver recordingResolver = new ReferenceRecordingResolver(renderResolver, rootPath);
+            Model rendered = renderResolver.getResource(rootPath) != null ? renderModel(recordingResolver, rootPath) : null;
+            model = rendered != null ? rendered.withReferences(recordingResolver.references) : null;
+        } catch (ServletException | IOException | RuntimeException e) {
+            LOGGER.warn("Cannot render the model of {}", rootPath, e);
+            model = null;
+        }
+
+        try {
+            store(resolver, rootPath, model);
+        } catch (PersistenceException e) {
+            LOGGER.warn("Cannot store the model of {}", rootPath, e);
+            resolver.revert();
+        }
+
+        synchronized (this) {
+            if (model == null) {
+                roots.remove(rootPath);
+                models.remove(rootPath);
+            } else {
+                Set<String> dependencies = model.dependencies;
+                roots.put(rootPath, dependencies);
+                // The model is outdated if its content changed while it was rendered
+                if (changedPaths.stream().noneMatch(path -> isAffected(rootPath, dependencies, path))) {
+                    models.put(rootPath, model);
+                }
+            }
+        }
+    }
+
+    private static void store(@NotNull ResourceResolver resolver, @NotNull String rootPath, @Nullable Model model)
+        throws PersistenceException {
+        String storePath = STORE_ROOT + rootPath;
+        Resource stored = resolver.getResource(storePath);
+        if (model == null) {
+            if (stored != null) {
+                resolver.delete(stored);
+                resolver.commit();
+            }
+            return;
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED);
+        stored = ResourceUtil.getOrCreateResource(resolver, storePath, properties, null, false);
+        ModifiableValueMap storedProperties = stored.adaptTo(ModifiableValueMap.class);
+        if (storedProperties == null) {
+            throw new PersistenceException("Cannot modify " + storePath);
+        }
+        storedProperties.put(PN_JSON, model.json);
+        storedProperties.put(PN_DEPENDENCIES, model.dependencies.toArray(new String[0]));
+        resolver.commit();
+    }
+
+    private void loadStoredModels() {
+        try (ResourceResolver resolver = getServiceResourceResolver(SUBSERVICE)) {
+            Resource storeRoot = resolver.getResource(STORE_ROOT);
+            if (storeRoot != null) {
+                loadStoredModels(storeRoot);
+            }
+        } catch (LoginException e) {
+            LOGGER.warn("Cannot load the stored SPA root models, the service user of {} is not available", SUBSERVICE);
+        }
+    }
+
+    private void loadStoredModels(@NotNull Resource resource) {
+        String json = resource.getValueMap().get(PN_JSON, String.class);
+        if (json != null) {
+            String rootPath = resource.getPath().substring(STORE_ROOT.length());
+            Set<String> dependencies = new LinkedHashSet<>(Arrays.asList(resource.getValueMap().get(PN_DEPENDENCIES, new String[0])));
+            roots.put(rootPath, dependencies);
+            models.put(rootPath, new Model(json, dependencies));
+        }
+        for (Iterator<Resource> children = resource.listChildren(); children.hasNext(); ) {
+            loadStoredModels(children.next());
+        }
+    }
+
+    private void scheduleRendering() {
+        if (!renderingScheduled && scheduler != null && !changedPaths.isEmpty()) {
+            renderingScheduled = true;
+            scheduler.schedule(this::render, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private ResourceResolver getServiceResourceResolver(@NotNull String subservice) throws LoginException {
+        return resolverFactory.getServiceResourceResolver(Collections.singletonMap(ResourceResolverFactory.SUBSERVICE, subservice));
+    }
+
+    /**
+     * Returns whether a change of a page affects a rendered root: roots embed their descendants and the content they depend on, which is
+     * also affected by the removal or move of one of its ancestors
+     */
+    private static boolean isAffected(@NotNull String rootPath, @NotNull Set<String> dependencies, @NotNull String pagePath) {
+        if (isSameOrAncestor(rootPath, pagePath)) {
+            return true;
+        }
+        for (String dependency : dependencies) {
+            if (isSameOrAncestor(dependency, pagePath) || isSameOrAncestor(pagePath, dependency)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the path of the page or asset containing a path, whose content is stored below {@code jcr:content}
+     */
+    @NotNull
+    private static String getPagePath(@NotNull String path) {
+        int contentIndex = path.indexOf(CONTENT_SEGMENT);
+        return contentIndex >= 0 ? path.substring(0, contentIndex) : path;
+    }
+
+    private static boolean isSameOrAncestor(@NotNull String ancestorPath, @NotNull String path) {
+        return path.equals(ancestorPath) || path.startsWith(ancestorPath + "/");
+    }
+
+    /**
+     * Rendered model of a root page
+     */
+    static final class Model {
+
+        private final String json;
+
+        private final Set<String> dependencies;
+
+        /**
+         * @param json         JSON of the model
+         * @param dependencies Paths of the pages and policies the rendering depended on
+         */
+        Model(@NotNull String json, @NotNull Set<String> dependencies) {
+            this.json = json;
+            this.dependencies = dependencies;
+        }
+
+        /**
+         * @param references Paths of the content read by the rendering
+         * @return Model which also depends on the references
+         */
+        @NotNull
+        Model withReferences(@NotNull Set<String> references) {
+            Set<String> allDependencies = new LinkedHashSet<>(dependencies);
+            allDependencies.addAll(references);
+            return new Model(json, allDependencies);
+        }
+    }
+
+    /**
+     * Resource resolver of a rendering which records the pages and assets below {@code /content} read outside of the rendered root,
+     * including those which do not exist, so that the root is rendered again once they are created
+     */
+    private static final class ReferenceRecordingResolver extends ResourceResolverWrapper {
+
+        private final String rootPath;
+
+        private final Set<String> references = new LinkedHashSet<>();
+
+        ReferenceRecordingResolver(@NotNull ResourceResolver resolver, @NotNull String rootPath) {
+            super(resolver);
+            this.rootPath = rootPath;
+        }
+
+        @Override
+        public Resource getResource(@NotNull String path) {
+            record(path);
+            return super.getResource(path);
+        }
+
+        @Override
+        public Resource getResource(Resource base, @NotNull String path) {
+            Resource resource = super.getResource(base, path);
+            record(resource != null ? resource.getPath() : path);
+            return resource;
+        }
+
+        @NotNull
+        @Override
+        public Resource resolve(@NotNull HttpServletRequest request, @NotNull String absPath) {
+            return record(super.resolve(request, absPath));
+        }
+
+        @NotNull
+        @Override
+        public Resource resolve(@NotNull String absPath) {
+            return record(super.resolve(absPath));
+        }
+
+        @NotNull
+        private Resource record(@NotNull Resource resource) {
+            record(resource.getPath());
+            return resource;
+        }
+
+        private void record(@NotNull String path) {
+            String pagePath = getPagePath(path);
+            if (pagePath.startsWith("/content/") && !isSameOrAncestor(rootPath, pagePath)) {
+                references.add(pagePath);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.apache.sling.commons.osgi.Order;
+import org.apache.sling.commons.osgi.RankedServices;
+import org.apache.sling.models.factory.ModelFactory;
+import org.apache.sling.models.jacksonexporter.ModuleProvider;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.aem.spa.project.core.internal.impl.utils.ModelJsonWriter;
+import com.adobe.aem.spa.project.core.models.Page;
+import com.adobe.cq.export.json.ContainerExporter;
+import com.adobe.cq.export.json.ExporterConstants;
+import com.fasterxml.jackson.databind.Module;
+
+/**
+ * Serves the model JSON export of SPA pages ({@code .model.json}) by writing the model directly to the response stream, instead of
+ * through the Sling Models exporter servlet which serializes the whole hierarchy to a string first. The JSON is the same, byte for byte.
+ * <br>
+ * Combined with the lazy adaptation of the {@link com.adobe.aem.spa.project.core.internal.HierarchyExportSettings}, descendant page models
+ * are adapted while they are written and neither the models nor their JSON are held for the whole hierarchy. <br>
+ * The servlet is only registered when configured; its service ranking has to be higher than the one of the exporter servlet.
+ */
+@Component(service = Servlet.class, configurationPolicy = ConfigurationPolicy.REQUIRE, property = {
+    "sling.servlet.resourceTypes=" + PageImpl.RESOURCE_TYPE,
+    "sling.servlet.selectors=" + ExporterConstants.SLING_MODEL_SELECTOR,
+    "sling.servlet.extensions=" + ExporterConstants.SLING_MODEL_EXTENSION,
+    "sling.servlet.methods=GET"
+})
+@Designate(ocd = HierarchyStreamingServlet.Config.class)
+public class HierarchyStreamingServlet extends SlingSafeMethodsServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HierarchyStreamingServlet.class);
+
+    static final String SELECTOR_TIDY = "tidy";
+
+    @ObjectClassDefinition(name = "SPA Project Core - Hierarchy Streaming Servlet",
+        description = "Writes the model JSON export of SPA pages directly to the response instead of buffering it as a string")
+    @interface Config {
+
+        @AttributeDefinition(name = "Service ranking",
+            description = "Ranking of the servlet, higher than the one of the Sling Models exporter servlet for it to serve the "
+                + "model JSON export")
+        int service_ranking() default 1;
+    }
+
+    @Reference
+    private transient ModelFactory modelFactory;
+
+    private final transient RankedServices<ModuleProvider> moduleProviders = new RankedServices<>(Order.ASCENDING);
+
+    private transient volatile ModelJsonWriter jsonWriter;
+
+    @Reference(service = ModuleProvider.class, cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC,
+        policyOption = ReferencePolicyOption.GREEDY)
+    protected synchronized void bindModuleProvider(ModuleProvider moduleProvider, Map<String, Object> properties) {
+        moduleProviders.bind(moduleProvider, properties);
+        jsonWriter = null;
+    }
+
+    protected synchronized void unbindModuleProvider(ModuleProvider moduleProvider, Map<String, Object> properties) {
+        moduleProviders.unbind(moduleProvider, properties);
+        jsonWriter = null;
+    }
+
+    @Override
+    protected void doGet(@NotNull SlingHttpServletRequest request, @NotNull SlingHttpServletResponse response)
+        throws ServletException, IOException {
+        Object model = modelFactory.getModelFromWrappedRequest(request, request.getResource(), ContainerExporter.class);
+        if (model == null) {
+            LOGGER.debug("No model to export for {}", request.getResource().getPath());
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        if (model instanceof Page) {
+            // Resolves the descendants before writing, so that the dependencies of the export are known when the response starts
+            ((Page) model).getExportedChildren();
+        }
+
+        boolean tidy = ArrayUtils.contains(request.getRequestPathInfo().getSelectors(), SELECTOR_TIDY);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        getJsonWriter().write(model, response.getOutputStream(), tidy);
+    }
+
+    /**
+     * @return Writer with the modules of the current module providers, created once for all requests
+     */
+    ModelJsonWriter getJsonWriter() {
+        ModelJsonWriter writer = jsonWriter;
+        if (writer == null) {
+            synchronized (this) {
+                writer = jsonWriter;
+                if (writer == null) {
+                    List<Module> modules = new ArrayList<>();
+                    for (ModuleProvider moduleProvider : moduleProviders) {
+                        modules.add(moduleProvider.getModule());
+                    }
+                    writer = new ModelJsonWriter(modules);
+                    jsonWriter = writer;
+                }
+            }
+        }
+        return writer;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import javax.jcr.RepositoryException;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.api.security.user.Authorizable;
+import org.apache.jackrabbit.api.security.user.Group;
+import org.apache.jackrabbit.api.security.user.UserManager;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.wrappers.SlingHttpServletResponseWrapper;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyRequestContext;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyTrace;
+
+/**
+ * Traces the model JSON export of SPA pages requested with the trace header by an authorized user: the lookup of the content resource,
+ * the templated resource adaptation, the model adaptation and the serialization of each descendant page are timed (see
+ * {@link HierarchyTrace}) and summed in a {@code Server-Timing} header. Exports slower than the threshold log their slowest pages. <br>
+ * The response of a traced export is buffered, so that the serialization, which happens while writing, is part of the header. The
+ * filter is only registered when configured.
+ */
+@Component(service = Filter.class, configurationPolicy = ConfigurationPolicy.REQUIRE, property = {
+    "sling.filter.scope=REQUEST",
+    "sling.filter.selectors=model",
+    "sling.filter.extensions=json",
+    "sling.filter.methods=GET"
+})
+@Designate(ocd = HierarchyTraceFilter.Config.class)
+public class HierarchyTraceFilter implements Filter {
+
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HierarchyTraceFilter.class);
+
+    @ObjectClassDefinition(name = "SPA Project Core - Hierarchy Trace Filter",
+        description = "Breaks down the duration of the model JSON export of SPA pages by page and phase")
+    @interface Config {
+
+        @AttributeDefinition(name = "Header name", description = "Name of the request header enabling the trace with the value true")
+        String header_name() default "X-SPA-Trace";
+
+        @AttributeDefinition(name = "Allowed groups", description = "Groups whose members may trace the export")
+        String[] allowed_groups() default { "administrators" };
+
+        @AttributeDefinition(name = "Threshold (ms)", description = "Duration from which a traced export logs its slowest pages")
+        long threshold_millis() default 1000;
+
+        @AttributeDefinition(name = "Slowest pages", description = "Number of pages logged for a slow export")
+        int slowest_pages() default 10;
+
+        @AttributeDefinition(name = "Service ranking",
+            description = "Ranking of the filter, higher than the one of the other model filters so that their work is traced")
+        int service_ranking() default 200;
+    }
+
+    private volatile Config config;
+
+    @Activate
+    @Modified
+    protected void activate(Config config) {
+        this.config = config;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        Config currentConfig = config;
+        if (!(request instanceof SlingHttpServletRequest) || !(response instanceof SlingHttpServletResponse)
+            || !isTraceRequested((SlingHttpServletRequest) request, currentConfig)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        SlingHttpServletRequest slingRequest = (SlingHttpServletRequest) request;
+        SlingHttpServletResponse slingResponse = (SlingHttpServletResponse) response;
+        long start = System.nanoTime();
+        HierarchyTrace trace = new HierarchyTrace();
+        HierarchyRequestContext.get(slingRequest).setTrace(trace);
+        BufferingResponse bufferingResponse = new BufferingResponse(slingResponse);
+        chain.doFilter(request, bufferingResponse);
+
+        byte[] body = bufferingResponse.getBody();
+        long totalNanos = System.nanoTime() - start;
+        String serverTiming = trace.getServerTiming();
+        String total = "total;dur=" + formatMillis(totalNanos);
+        slingResponse.setHeader(SERVER_TIMING_HEADER, serverTiming.isEmpty() ? total : serverTiming + ", " + total);
+        if (body.length > 0) {
+            slingResponse.getOutputStream().write(body);
+        }
+
+        if (totalNanos >= currentConfig.threshold_millis() * 1_000_000L) {
+            List<HierarchyTrace.PageTiming> slowestPages = trace.getSlowestPages(currentConfig.slowest_pages());
+            LOGGER.info("Traced export of {} took {} ms, slowest pages: {}", slingRequest.getRequestURI(), formatMillis(totalNanos),
+                slowestPages);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to release
+    }
+
+    /**
+     * Checks whether the request asks for a trace and whether its user may trace the export
+     *
+     * @param request Request
+     * @param config  Configuration of the filter
+     * @return {@code true} if the export is to be traced
+     */
+    static boolean isTraceRequested(@NotNull SlingHttpServletRequest request, @NotNull Config config) {
+        if (!Boolean.parseBoolean(request.getHeader(config.header_name()))) {
+            return false;
+        }
+
+        ResourceResolver resolver = request.getResourceResolver();
+        String userId = resolver.getUserID();
+        UserManager userManager = resolver.adaptTo(UserManager.class);
+        if (userId == null || userManager == null) {
+            return false;
+        }
+
+        List<String> allowedGroups = Arrays.asList(config.allowed_groups());
+        try {
+            Authorizable authorizable = userManager.getAuthorizable(userId);
+            if (authorizable == null) {
+                return false;
+            }
+            Iterator<Group> groups = authorizable.memberOf();
+            while (groups.hasNext()) {
+                if (allowedGroups.contains(groups.next().getID())) {
+                    return true;
+                }
+            }
+        } catch (RepositoryException e) {
+            LOGGER.debug("Could not resolve the groups of {}, the export is not traced", userId, e);
+        }
+        return false;
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000d);
+    }
+
+    /**
+     * Response buffering its body, so that headers can be set once the export is written
+     */
+    static final class BufferingResponse extends SlingHttpServletResponseWrapper {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private ServletOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        BufferingResponse(@NotNull SlingHttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) {
+                        buffer.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        buffer.write(b, off, len);
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        // Writing to the buffer never blocks
+                        try {
+                            writeListener.onWritePossible();
+                        } catch (IOException e) {
+                            writeListener.onError(e);
+                        }
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = StringUtils.isEmpty(encoding) ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+                writer = new PrintWriter(new OutputStreamWriter(buffer, charset));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() {
+            // Written to the response once the export completes
+        }
+
+        @Override
+        public void resetBuffer() {
+            buffer.reset();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            buffer.reset();
+        }
+
+        /**
+         * @return Body written so far
+         */
+        byte[] getBody() {
+            if (writer != null) {
+                writer.flush();
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.IOException;
+import java.util.regex.PatternSyntaxException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyValidator;
+import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.PageManager;
+
+/**
+ * Adds an aggregate {@code ETag} and {@code Last-Modified} header to the model JSON export of SPA pages, covering the page and the
+ * descendants it embeds (see {@link HierarchyValidator}), and answers requests whose {@code If-None-Match} header matches with a 304
+ * response before any model is adapted. <br>
+ * {@code If-Modified-Since} is not answered: the removal, move or reordering of a descendant changes the entity tag, but not the latest
+ * modification time. <br>
+ * Requests for which the validator cannot be computed, e.g. because a page has no modification time, are exported without validators.
+ * The filter is only registered when configured.
+ */
+@Component(service = Filter.class, configurationPolicy = ConfigurationPolicy.REQUIRE, property = {
+    "sling.filter.scope=REQUEST",
+    "sling.filter.selectors=model",
+    "sling.filter.extensions=json",
+    "sling.filter.methods=GET"
+})
+@Designate(ocd = HierarchyValidatorFilter.Config.class)
+public class HierarchyValidatorFilter implements Filter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HierarchyValidatorFilter.class);
+
+    static final String HEADER_ETAG = "ETag";
+
+    static final String HEADER_LAST_MODIFIED = "Last-Modified";
+
+    static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    @ObjectClassDefinition(name = "SPA Project Core - Hierarchy Validator Filter",
+        description = "Adds aggregate validators to the model JSON export of SPA pages and answers conditional requests")
+    @interface Config {
+
+        @AttributeDefinition(name = "Service ranking",
+            description = "Ranking of the filter, lower than the one of the structure patterns filter so that invalid patterns are "
+                + "rejected first")
+        int service_ranking() default -100;
+    }
+
+    @Reference(policyOption = ReferencePolicyOption.GREEDY)
+    private HierarchyExportSettings settings;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (request instanceof SlingHttpServletRequest && response instanceof HttpServletResponse) {
+            SlingHttpServletRequest slingRequest = (SlingHttpServletRequest) request;
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            HierarchyValidator validator = getValidator(slingRequest);
+
+            if (validator != null) {
+                httpResponse.setHeader(HEADER_ETAG, validator.getETag());
+                httpResponse.setDateHeader(HEADER_LAST_MODIFIED, validator.getLastModified());
+
+                if (isNotModified(slingRequest, validator)) {
+                    httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to release
+    }
+
+    @Nullable
+    private HierarchyValidator getValidator(@NotNull SlingHttpServletRequest request) {
+        PageManager pageManager = request.getResourceResolver().adaptTo(PageManager.class);
+        Resource resource = request.getResource();
+        Page page = pageManager != null ? pageManager.getContainingPage(resource) : null;
+        if (page == null) {
+            return null;
+        }
+
+        // Only the export of the page itself, not of one of its components
+        Resource contentResource = page.getContentResource();
+        if (contentResource == null || !contentResource.isResourceType(PageImpl.RESOURCE_TYPE)
+            || !(resource.getPath().equals(page.getPath()) || resource.getPath().equals(contentResource.getPath()))) {
+            return null;
+        }
+
+        try {
+            return HierarchyValidator.compute(request, page, settings);
+        } catch (PatternSyntaxException e) {
+            LOGGER.debug("No validator for {}: {}", page.getPath(), e.getDescription());
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the entity tags of the request match the export. {@code If-Modified-Since} is ignored, as the latest modification
+     * time of the export does not reflect removed, moved or reordered descendants.
+     *
+     * @param request   Request
+     * @param validator Validator of the export
+     * @return {@code true} if the export was not modified
+     */
+    static boolean isNotModified(@NotNull SlingHttpServletRequest request, @NotNull HierarchyValidator validator) {
+        String ifNoneMatch = request.getHeader(HEADER_IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        String opaqueTag = getOpaqueTag(validator.getETag());
+        for (String eTag : ifNoneMatch.split(",")) {
+            String trimmed = eTag.trim();
+            if (trimmed.equals("*") || getOpaqueTag(trimmed).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Weak comparison of entity tags ignores the weakness indicator
+     */
+    private static String getOpaqueTag(@NotNull String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+}
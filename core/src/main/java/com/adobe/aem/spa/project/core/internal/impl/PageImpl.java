@@ -25,6 +25,7 @@ import org.apache.sling.models.annotations.Exporter;
 import org.apache.sling.models.annotations.Model;
 import org.apache.sling.models.annotations.Via;
 import org.apache.sling.models.annotations.injectorspecific.InjectionStrategy;
+import org.apache.sling.models.annotations.injectorspecific.OSGiService;
 import org.apache.sling.models.annotations.injectorspecific.ScriptVariable;
 import org.apache.sling.models.annotations.injectorspecific.Self;
 import org.apache.sling.models.annotations.via.ResourceSuperType;
@@ -32,9 +33,21 @@ import org.apache.sling.models.factory.ModelFactory;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.HierarchyMetrics;
+import com.adobe.aem.spa.project.core.internal.PageModelFragmentCache;
+import com.adobe.aem.spa.project.core.internal.PageRemovalLog;
+import com.adobe.aem.spa.project.core.internal.RootPageCache;
+import com.adobe.aem.spa.project.core.internal.impl.utils.ChildrenSlice;
+import com.adobe.aem.spa.project.core.internal.impl.utils.ExportDelta;
+import com.adobe.aem.spa.project.core.internal.impl.utils.FieldProjection;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyEvents;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyExportBudget;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyExportOptions;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyPolicy;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyRequestContext;
 import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyUtils;
 import com.adobe.aem.spa.project.core.internal.impl.utils.RequestUtils;
-import com.adobe.aem.spa.project.core.internal.impl.utils.StyleUtils;
 import com.adobe.aem.spa.project.core.models.Page;
 import com.adobe.cq.export.json.ComponentExporter;
 import com.adobe.cq.export.json.ContainerExporter;
@@ -44,6 +57,8 @@ import com.adobe.cq.wcm.core.components.models.HtmlPageItem;
 import com.adobe.cq.wcm.core.components.models.NavigationItem;
 import com.day.cq.wcm.api.designer.Style;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * Page that allows the retrieval of the model in JSON format with hierarchical structures of more than one page. <br>
@@ -76,6 +91,16 @@ public class PageImpl implements Page {
 
     static final String RESOURCE_TYPE = "spa-project-core/components/page";
 
+    static final String PN_CHILDREN_TRUNCATED = ":childrenTruncated";
+
+    static final String PN_CHILDREN_NEXT = ":childrenNext";
+
+    static final String PN_CHILDREN_SINCE = ":childrenSince";
+
+    static final String PN_CHILDREN_REMOVED = ":childrenRemoved";
+
+    static final String PN_CHILDREN_HORIZON = ":childrenHorizon";
+
     // Delegated to Page v1
     @ScriptVariable
     @Via(type = ResourceSuperType.class)
@@ -99,6 +124,18 @@ public class PageImpl implements Page {
     @ScriptVariable
     private Resource resource;
 
+    @OSGiService(injectionStrategy = InjectionStrategy.OPTIONAL)
+    private HierarchyExportSettings settings;
+
+    @OSGiService(injectionStrategy = InjectionStrategy.OPTIONAL)
+    private PageModelFragmentCache fragmentCache;
+
+    @OSGiService(injectionStrategy = InjectionStrategy.OPTIONAL)
+    private RootPageCache rootPageCache;
+
+    @OSGiService(injectionStrategy = InjectionStrategy.OPTIONAL)
+    private PageRemovalLog removalLog;
+
     // "delegate" object with which methods from Page v1/v2 can be used
     @Self
     @Via(type = ResourceSuperType.class)
@@ -111,6 +148,14 @@ public class PageImpl implements Page {
 
     private com.day.cq.wcm.api.Page rootPage;
 
+    private boolean childrenTruncated;
+
+    private String childrenNextSelector;
+
+    private ExportDelta childrenDelta;
+
+    private Long childrenWatermark;
+
     /**
      * Package-private setter for descendedPageModels (required for tests)
      */
@@ -135,12 +180,88 @@ public class PageImpl implements Page {
     @Override
     public Map<String, ? extends Page> getExportedChildren() {
         if (descendedPageModels == null) {
-            setDescendedPageModels(HierarchyUtils.getDescendantsModels(request, currentPage, currentStyle, modelFactory));
+            // Other models of the page in the same request, e.g. hierarchy root models, share the descendants
+            HierarchyRequestContext.Descendants descendants = HierarchyRequestContext.get(request).getDescendants(currentPage, request,
+                this::exportDescendants);
+            setDescendedPageModels(descendants.getModels());
+            childrenTruncated = descendants.isTruncated();
+            childrenNextSelector = descendants.getNextSelector();
+            childrenDelta = descendants.getDelta();
+            childrenWatermark = descendants.getWatermark();
         }
 
         return descendedPageModels;
     }
 
+    /**
+     * Returns whether descendants were left out of {@link #getExportedChildren()} because the export exceeded its budget. Clients are
+     * expected to request the models of the missing pages on their own.
+     *
+     * @return {@code true} if the exported children are incomplete
+     */
+    @JsonProperty(PN_CHILDREN_TRUNCATED)
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public boolean isChildrenTruncated() {
+        getExportedChildren();
+        return childrenTruncated;
+    }
+
+    /**
+     * Returns the model URL of the next slice of {@link #getExportedChildren()} when the children were requested in slices with a
+     * {@code children-<offset>-<limit>} selector, see {@link ChildrenSlice}. The other selectors of the request are kept.
+     *
+     * @return Model URL of the next slice, or {@code null} if the request is not sliced or this is the last slice
+     */
+    @Nullable
+    @JsonProperty(PN_CHILDREN_NEXT)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getChildrenNext() {
+        getExportedChildren();
+        return childrenNextSelector != null ? RequestUtils.getPageJsonExportUrl(request, currentPage, childrenNextSelector) : null;
+    }
+
+    /**
+     * Returns the watermark of the export when a delta was requested with a {@code since-<millis>} selector, see {@link ExportDelta}.
+     * Clients send it as the instant of their next delta request. It is also returned when the delta cannot be told and all descendants
+     * are exported, which {@link #getChildrenRemoved()} tells.
+     *
+     * @return Watermark in milliseconds since the epoch, or {@code null} if no delta was requested
+     */
+    @Nullable
+    @JsonProperty(PN_CHILDREN_SINCE)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getChildrenSince() {
+        getExportedChildren();
+        return childrenWatermark;
+    }
+
+    /**
+     * Returns the paths of the descendants removed since the instant of the delta, see {@link #getChildrenSince()}
+     *
+     * @return Paths of the removed descendants, or {@code null} if all descendants are exported
+     */
+    @Nullable
+    @JsonProperty(PN_CHILDREN_REMOVED)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public List<String> getChildrenRemoved() {
+        getExportedChildren();
+        return childrenDelta != null ? childrenDelta.getRemovedPaths() : null;
+    }
+
+    /**
+     * Returns the horizon of the log of removed pages of this instance when a delta was requested, see
+     * {@link PageRemovalLog#getHorizon(String)}. Deltas are told from the log of the instance which answers: clients request a full
+     * export when the horizon differs from the one of their last export, e.g. because another instance answered.
+     *
+     * @return Horizon in milliseconds since the epoch, or {@code null} if no delta was requested or no log is available
+     */
+    @Nullable
+    @JsonProperty(PN_CHILDREN_HORIZON)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getChildrenHorizon() {
+        return getChildrenSince() != null && removalLog != null ? removalLog.getHorizon(currentPage.getPath()) : null;
+    }
+
     @NotNull
     @Override
     public String getExportedPath() {
@@ -151,15 +272,15 @@ public class PageImpl implements Page {
     @Override
     public String getHierarchyRootJsonExportUrl() {
         if (isRootPage()) {
-            return RequestUtils.getPageJsonExportUrl(request, currentPage);
+            return getPageJsonExportUrl(currentPage);
         }
 
         if (rootPage == null) {
-            setRootPage(HierarchyUtils.getRootPage(resource, currentPage));
+            setRootPage(HierarchyUtils.getRootPage(request, resource, currentPage, rootPageCache));
         }
 
         if (rootPage != null) {
-            return RequestUtils.getPageJsonExportUrl(request, rootPage);
+            return getPageJsonExportUrl(rootPage);
         }
         return null;
     }
@@ -177,18 +298,58 @@ public class PageImpl implements Page {
         }
 
         if (rootPage == null) {
-            setRootPage(HierarchyUtils.getRootPage(resource, currentPage));
+            setRootPage(HierarchyUtils.getRootPage(request, resource, currentPage, rootPageCache));
         }
 
         if (rootPage == null) {
             return null;
         }
 
-        return modelFactory.getModelFromWrappedRequest(request, rootPage.getContentResource(), this.getClass());
+        return HierarchyRequestContext.get(request).getRootModel(rootPage, this.getClass(),
+            () -> modelFactory.getModelFromWrappedRequest(request, rootPage.getContentResource(), this.getClass()));
+    }
+
+    private HierarchyRequestContext.Descendants exportDescendants() {
+        HierarchyMetrics metrics = HierarchyRequestContext.getMetrics(request);
+        Object event = HierarchyEvents.beginChildrenExport();
+        long start = metrics != null ? System.nanoTime() : 0;
+        HierarchyExportBudget budget = HierarchyExportBudget.start(getSettings());
+        ChildrenSlice slice = ChildrenSlice.fromSelectors(request.getRequestPathInfo().getSelectors());
+        ExportDelta delta = ExportDelta.fromRequest(request, currentPage, currentStyle, getSettings(), removalLog);
+        Long watermark = ExportDelta.getWatermark(request);
+        HierarchyRequestContext.get(request).setExportOptions(new HierarchyExportOptions(getSettings(), budget, slice, fragmentCache,
+            delta));
+        Map<String, ? extends Page> models = HierarchyUtils.getDescendantsModels(request, currentPage, currentStyle, modelFactory);
+        if (metrics != null) {
+            metrics.recordChildrenExport(currentPage.getPath(), models.size(), System.nanoTime() - start);
+        }
+        HierarchyEvents.commitChildrenExport(event, currentPage.getPath(), models.size(), budget.isTruncated());
+        String[] selectors = request.getRequestPathInfo().getSelectors();
+        return new HierarchyRequestContext.Descendants(models, budget.isTruncated(),
+            slice != null ? slice.getNextSelectors(selectors) : null, delta, watermark);
+    }
+
+    private String getPageJsonExportUrl(com.day.cq.wcm.api.Page page) {
+        return HierarchyRequestContext.get(request).getExportUrl(page, () -> RequestUtils.getPageJsonExportUrl(request, page));
+    }
+
+    private HierarchyExportSettings getSettings() {
+        return settings != null ? settings : HierarchyExportSettings.DEFAULT;
+    }
+
+    /**
+     * Returns the projection the model is exported with, see {@link FieldProjectionModuleProvider}. Descendant models share the
+     * selectors of the request, and so the projection.
+     *
+     * @return Projection requested by the selectors, or {@code null} to export all properties
+     */
+    @Nullable
+    FieldProjection getFieldProjection() {
+        return FieldProjection.fromSelectors(request.getRequestPathInfo().getSelectors(), getSettings());
     }
 
     private boolean isRootPage() {
-        return currentStyle != null && StyleUtils.isRootPage(currentStyle);
+        return HierarchyPolicy.of(currentStyle).isRoot();
     }
 
     // Delegated to Page v1
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.aem.spa.project.core.internal.PageModelFragmentCache;
+import com.day.cq.commons.jcr.JcrConstants;
+
+/**
+ * {@link PageModelFragmentCache} bounded by the size of the cached JSON, which drops the least recently used fragments first. <br>
+ * A change below {@code /content} drops the fragments of the page it belongs to, the removal of a page those of its whole subtree. A
+ * change below {@code /conf}, where templates and policies are stored, drops all fragments. Content a page model reads from other pages
+ * or from assets is not tracked, its changes only show once the page itself is modified. <br>
+ * The cache is only active when configured.
+ */
+@Component(service = { PageModelFragmentCache.class, ResourceChangeListener.class },
+    configurationPolicy = ConfigurationPolicy.REQUIRE,
+    property = {
+        ResourceChangeListener.PATHS + "=/content",
+        ResourceChangeListener.PATHS + "=/conf",
+        ResourceChangeListener.CHANGES + "=ADDED",
+        ResourceChangeListener.CHANGES + "=REMOVED",
+        ResourceChangeListener.CHANGES + "=CHANGED"
+    })
+@Designate(ocd = PageModelFragmentCacheImpl.Config.class)
+public class PageModelFragmentCacheImpl implements PageModelFragmentCache, ResourceChangeListener, ExternalResourceChangeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageModelFragmentCacheImpl.class);
+
+    private static final String CONTENT_SEGMENT = "/" + JcrConstants.JCR_CONTENT;
+
+    private static final String CONF_ROOT = "/conf";
+
+    /**
+     * Estimated bytes held by a fragment in addition to its characters: the entry, the key and the strings
+     */
+    static final int ENTRY_OVERHEAD = 128;
+
+    @ObjectClassDefinition(name = "SPA Project Core - Page Model Fragment Cache",
+        description = "In-memory cache of the serialized JSON of descendant page models used by the hierarchy export")
+    @interface Config {
+
+        @AttributeDefinition(name = "Maximum size",
+            description = "Estimated number of bytes of the cached fragments, the least recently used are dropped first")
+        long max_size() default 32L * 1024 * 1024;
+    }
+
+    private final Map<FragmentKey, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+
+    private volatile long maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Activate
+    @Modified
+    protected void activate(Config config) {
+        maxSize = config.max_size();
+        synchronized (entries) {
+            evict();
+        }
+    }
+
+    @Nullable
+    @Override
+    public String get(@NotNull String pagePath, @NotNull String variant) {
+        String json;
+        synchronized (entries) {
+            json = entries.get(new FragmentKey(pagePath, variant));
+        }
+        (json != null ? hits : misses).incrementAndGet();
+        return json;
+    }
+
+    @Override
+    public void put(@NotNull String pagePath, @NotNull String variant, @NotNull String json) {
+        long fragmentSize = getSize(pagePath, variant, json);
+        if (fragmentSize > maxSize) {
+            return;
+        }
+
+        synchronized (entries) {
+            String previous = entries.put(new FragmentKey(pagePath, variant), json);
+            if (previous != null) {
+                size -= getSize(pagePath, variant, previous);
+            }
+            size += fragmentSize;
+            evict();
+        }
+    }
+
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public void onChange(@NotNull List<ResourceChange> changes) {
+        synchronized (entries) {
+            for (ResourceChange change : changes) {
+                String path = change.getPath();
+
+                if (path.equals(CONF_ROOT) || path.startsWith(CONF_ROOT + "/")) {
+                    LOGGER.debug("Dropping all page model fragments after a change of {}", path);
+                    entries.clear();
+                    size = 0;
+                    continue;
+                }
+
+                int contentIndex = path.indexOf(CONTENT_SEGMENT);
+                String pagePath = contentIndex >= 0 ? path.substring(0, contentIndex) : path;
+                // Moves are removals followed by additions, the fragments of the whole subtree are dropped
+                boolean subtree = contentIndex < 0 && change.getType() == ResourceChange.ChangeType.REMOVED;
+                remove(pagePath, subtree);
+            }
+        }
+    }
+
+    /**
+     * @return Estimated number of bytes of the cached fragments
+     */
+    long size() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    private void remove(String pagePath, boolean subtree) {
+        Iterator<Map.Entry<FragmentKey, String>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<FragmentKey, String> entry = iterator.next();
+            String entryPath = entry.getKey().pagePath;
+            if (entryPath.equals(pagePath) || subtree && entryPath.startsWith(pagePath + "/")) {
+                size -= getSize(entryPath, entry.getKey().variant, entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<FragmentKey, String>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<FragmentKey, String> eldest = iterator.next();
+            size -= getSize(eldest.getKey().pagePath, eldest.getKey().variant, eldest.getValue());
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static long getSize(String pagePath, String variant, String json) {
+        // Characters take two bytes at most
+        return ENTRY_OVERHEAD + 2L * (pagePath.length() + variant.length() + json.length());
+    }
+
+    private static final class FragmentKey {
+        private final String pagePath;
+        private final String variant;
+
+        private FragmentKey(String pagePath, String variant) {
+            this.pagePath = pagePath;
+            this.variant = variant;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FragmentKey)) {
+                return false;
+            }
+            FragmentKey that = (FragmentKey) o;
+            return pagePath.equals(that.pagePath) && variant.equals(that.variant);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pagePath, variant);
+        }
+    }
+}
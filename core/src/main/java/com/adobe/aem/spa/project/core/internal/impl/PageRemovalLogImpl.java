@@ -0,0 +1,192 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import com.adobe.aem.spa.project.core.internal.PageRemovalLog;
+
+/**
+ * {@link PageRemovalLog} which keeps the most recent removals and additions of pages below the exported roots in memory. <br>
+ * A root is tracked from the first time the log is asked about it, i.e. from the first delta export of its subtree, until it is the
+ * least recently asked about of more roots than configured. The log of a root reaches back to the time it was tracked from, or to the
+ * latest change dropped once the log is full; earlier instants cannot be answered. Changes of nodes whose path below the root has a
+ * namespaced segment, such as {@code jcr:content} or {@code rep:policy}, are not pages and are ignored. <br>
+ * The log is kept in memory and is lost when the component is restarted, and each instance logs with its own clock. The log is only
+ * active when configured.
+ */
+@Component(service = { PageRemovalLog.class, ResourceChangeListener.class },
+    configurationPolicy = ConfigurationPolicy.REQUIRE,
+    property = {
+        ResourceChangeListener.PATHS + "=/content",
+        ResourceChangeListener.CHANGES + "=REMOVED",
+        ResourceChangeListener.CHANGES + "=ADDED"
+    })
+@Designate(ocd = PageRemovalLogImpl.Config.class)
+public class PageRemovalLogImpl implements PageRemovalLog, ResourceChangeListener, ExternalResourceChangeListener {
+
+    @ObjectClassDefinition(name = "SPA Project Core - Page Removal Log",
+        description = "In-memory log of the removed and added pages, which allows delta exports of the hierarchy to list removed pages "
+            + "and to include moved pages")
+    @interface Config {
+
+        @AttributeDefinition(name = "Maximum entries",
+            description = "Number of removals and additions kept, the oldest are dropped first")
+        int max_entries() default 10000;
+
+        @AttributeDefinition(name = "Maximum roots",
+            description = "Number of exported roots whose removals and additions are kept, the least recently exported are dropped first")
+        int max_roots() default 100;
+    }
+
+    private final LongSupplier clock;
+
+    private final Deque<Change> changes = new ArrayDeque<>();
+
+    /**
+     * Time from which each tracked root is logged, in access order
+     */
+    private Map<String, Long> roots = createRoots(0);
+
+    private int maxEntries;
+
+    private long horizon;
+
+    public PageRemovalLogImpl() {
+        this(System::currentTimeMillis);
+    }
+
+    PageRemovalLogImpl(@NotNull LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Activate
+    @Modified
+    protected synchronized void activate(Config config) {
+        maxEntries = config.max_entries();
+        changes.clear();
+        roots = createRoots(config.max_roots());
+        horizon = clock.getAsLong();
+    }
+
+    @Nullable
+    @Override
+    public List<String> getRemovedPaths(@NotNull String rootPath, long since) {
+        return getPaths(ResourceChange.ChangeType.REMOVED, rootPath, since);
+    }
+
+    @Nullable
+    @Override
+    public List<String> getAddedPaths(@NotNull String rootPath, long since) {
+        return getPaths(ResourceChange.ChangeType.ADDED, rootPath, since);
+    }
+
+    @Override
+    public synchronized long getHorizon(@NotNull String rootPath) {
+        Long rootHorizon = roots.get(rootPath);
+        if (rootHorizon == null) {
+            rootHorizon = clock.getAsLong();
+            roots.put(rootPath, rootHorizon);
+        }
+        return Math.max(horizon, rootHorizon);
+    }
+
+    @Override
+    public synchronized void onChange(@NotNull List<ResourceChange> resourceChanges) {
+        long now = clock.getAsLong();
+        for (ResourceChange resourceChange : resourceChanges) {
+            String path = resourceChange.getPath();
+            ResourceChange.ChangeType type = resourceChange.getType();
+            if ((type != ResourceChange.ChangeType.REMOVED && type != ResourceChange.ChangeType.ADDED) || !isPageBelowRoot(path)) {
+                continue;
+            }
+
+            changes.addLast(new Change(type, path, now));
+            while (changes.size() > maxEntries) {
+                // Changes up to the dropped one cannot be told anymore
+                horizon = Math.max(horizon, changes.removeFirst().time);
+            }
+        }
+    }
+
+    @Nullable
+    private synchronized List<String> getPaths(ResourceChange.ChangeType type, String rootPath, long since) {
+        if (since < getHorizon(rootPath)) {
+            return null;
+        }
+
+        String subtreePath = rootPath + "/";
+        List<String> paths = new ArrayList<>();
+        for (Change change : changes) {
+            if (change.type == type && change.time > since && change.path.startsWith(subtreePath)) {
+                paths.add(change.path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Page names cannot contain colons, which namespaced nodes such as {@code jcr:content} and {@code rep:policy} do
+     */
+    private boolean isPageBelowRoot(@NotNull String path) {
+        for (String rootPath : roots.keySet()) {
+            if (path.startsWith(rootPath + "/") && path.indexOf(':', rootPath.length()) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, Long> createRoots(int maxRoots) {
+        return new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxRoots;
+            }
+        };
+    }
+
+    private static final class Change {
+
+        private final ResourceChange.ChangeType type;
+
+        private final String path;
+
+        private final long time;
+
+        private Change(ResourceChange.ChangeType type, String path, long time) {
+            this.type = type;
+            this.path = path;
+            this.time = time;
+        }
+    }
+}
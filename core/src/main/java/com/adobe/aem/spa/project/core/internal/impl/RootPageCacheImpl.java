@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.aem.spa.project.core.internal.RootPageCache;
+import com.day.cq.commons.jcr.JcrConstants;
+
+/**
+ * {@link RootPageCache} which keeps the root paths of the most recently used pages. <br>
+ * The root of a page depends on the templates and policies of its ancestors: a change below {@code /conf} drops all entries, and a
+ * change of a page node, of the properties of its content node, such as its template, or of its access control policy drops the
+ * entries of the page and of its subtree, as well as the entries whose root is in that subtree, e.g. after the root was moved. Changes
+ * deeper in the content of a page are ignored. <br>
+ * The cache is only active when configured.
+ */
+@Component(service = { RootPageCache.class, ResourceChangeListener.class },
+    configurationPolicy = ConfigurationPolicy.REQUIRE,
+    property = {
+        ResourceChangeListener.PATHS + "=/content",
+        ResourceChangeListener.PATHS + "=/conf",
+        ResourceChangeListener.CHANGES + "=ADDED",
+        ResourceChangeListener.CHANGES + "=REMOVED",
+        ResourceChangeListener.CHANGES + "=CHANGED"
+    })
+@Designate(ocd = RootPageCacheImpl.Config.class)
+public class RootPageCacheImpl implements RootPageCache, ResourceChangeListener, ExternalResourceChangeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RootPageCacheImpl.class);
+
+    private static final String CONTENT_SEGMENT = "/" + JcrConstants.JCR_CONTENT;
+
+    private static final String CONF_ROOT = "/conf";
+
+    private static final String POLICY_SEGMENT = "/rep:policy";
+
+    @ObjectClassDefinition(name = "SPA Project Core - Root Page Cache",
+        description = "In-memory cache of the SPA root page of pages used by the page models")
+    @interface Config {
+
+        @AttributeDefinition(name = "Maximum entries",
+            description = "Number of pages whose root page is kept, the least recently used are dropped first")
+        int max_entries() default 10000;
+    }
+
+    private volatile Map<String, String> entries = createEntries(0);
+
+    @Activate
+    @Modified
+    protected void activate(Config config) {
+        entries = createEntries(config.max_entries());
+    }
+
+    @Nullable
+    @Override
+    public String getRootPath(@NotNull String pagePath) {
+        Map<String, String> currentEntries = entries;
+        synchronized (currentEntries) {
+            return currentEntries.get(pagePath);
+        }
+    }
+
+    @Override
+    public void putRootPath(@NotNull String pagePath, @NotNull String rootPath) {
+        Map<String, String> currentEntries = entries;
+        synchronized (currentEntries) {
+            currentEntries.put(pagePath, rootPath);
+        }
+    }
+
+    @Override
+    public void onChange(@NotNull List<ResourceChange> changes) {
+        Map<String, String> currentEntries = entries;
+        synchronized (currentEntries) {
+            for (ResourceChange change : changes) {
+                String path = change.getPath();
+
+                if (path.equals(CONF_ROOT) || path.startsWith(CONF_ROOT + "/")) {
+                    LOGGER.debug("Dropping all root pages after a change of {}", path);
+                    currentEntries.clear();
+                    continue;
+                }
+
+                // Access control changes the parents a user can read while looking for a root
+                int policyIndex = path.indexOf(POLICY_SEGMENT);
+                if (policyIndex >= 0) {
+                    path = path.substring(0, policyIndex);
+                }
+
+                int contentIndex = path.indexOf(CONTENT_SEGMENT);
+                // Only the properties of the content node, e.g. the template, decide whether a page is a root
+                if (policyIndex < 0 && contentIndex >= 0 && contentIndex + CONTENT_SEGMENT.length() != path.length()) {
+                    continue;
+                }
+
+                String pagePath = contentIndex >= 0 ? path.substring(0, contentIndex) : path;
+                currentEntries.entrySet().removeIf(entry -> isSameOrDescendant(entry.getKey(), pagePath)
+                    || isSameOrDescendant(entry.getValue(), pagePath));
+            }
+        }
+    }
+
+    private static boolean isSameOrDescendant(@NotNull String path, @NotNull String ancestorPath) {
+        return path.equals(ancestorPath) || path.startsWith(ancestorPath + "/");
+    }
+
+    /**
+     * @return Number of pages whose root page is cached
+     */
+    int size() {
+        Map<String, String> currentEntries = entries;
+        synchronized (currentEntries) {
+            return currentEntries.size();
+        }
+    }
+
+    private static Map<String, String> createEntries(int maxEntries) {
+        return new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
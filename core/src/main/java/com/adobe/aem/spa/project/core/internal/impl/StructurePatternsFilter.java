@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.IOException;
+import java.util.regex.PatternSyntaxException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestParameter;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.impl.utils.StructurePatterns;
+
+import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.PN_STRUCTURE_PATTERNS;
+
+/**
+ * Rejects model requests whose {@code structurepatterns} parameter cannot be compiled by the configured engine with a 400 response,
+ * before any model is adapted. Without it such requests fail with a server error while the hierarchy is exported.
+ */
+@Component(service = Filter.class, property = {
+    "sling.filter.scope=REQUEST",
+    "sling.filter.selectors=model",
+    "sling.filter.extensions=json",
+    "sling.filter.methods=GET"
+})
+public class StructurePatternsFilter implements Filter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StructurePatternsFilter.class);
+
+    @Reference(policyOption = ReferencePolicyOption.GREEDY)
+    private HierarchyExportSettings settings;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (request instanceof SlingHttpServletRequest && response instanceof HttpServletResponse) {
+            RequestParameter parameter = ((SlingHttpServletRequest) request).getRequestParameter(PN_STRUCTURE_PATTERNS.toLowerCase());
+
+            if (parameter != null && StringUtils.isNotBlank(parameter.getString())) {
+                try {
+                    StructurePatterns.compile(parameter.getString(), settings.getRequestPatternsEngine());
+                } catch (PatternSyntaxException e) {
+                    LOGGER.debug("Rejecting structure patterns {}: {}", parameter.getString(), e.getDescription());
+                    ((HttpServletResponse) response).sendError(HttpServletResponse.SC_BAD_REQUEST,
+                        "Invalid structure patterns: " + e.getDescription());
+                    return;
+                }
+            }
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to release
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.adobe.aem.spa.project.core.internal.PageModelFragmentCache;
+import com.adobe.aem.spa.project.core.models.Page;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * Descendant page model backed by a {@link PageModelFragmentCache}. <br>
+ * When the JSON of the model is cached, the model is serialized by writing that JSON as is, and only adapted if one of its methods is
+ * called. Otherwise the adapted model is serialized once, written and cached. Indented output is never cached, since the indentation of
+ * a fragment depends on where it is written.
+ */
+public final class CachedPageModel extends DelegatingPageModel implements JsonSerializable {
+
+    private static final JsonFactory FRAGMENT_FACTORY = new JsonFactory();
+
+    private final Supplier<Page> adapter;
+
+    private final PageModelFragmentCache cache;
+
+    private final String pagePath;
+
+    private final String variant;
+
+    private Page model;
+
+    private String json;
+
+    private CachedPageModel(@Nullable Page model, @Nullable String json, @NotNull Supplier<Page> adapter,
+            @NotNull PageModelFragmentCache cache, @NotNull String pagePath, @NotNull String variant) {
+        this.model = model;
+        this.json = json;
+        this.adapter = adapter;
+        this.cache = cache;
+        this.pagePath = pagePath;
+        this.variant = variant;
+    }
+
+    /**
+     * Returns the model of a page whose JSON is cached
+     *
+     * @param json     Cached JSON of the model
+     * @param adapter  Function adapting the model when it is needed
+     * @param cache    Cache of the fragment
+     * @param pagePath Path of the page
+     * @param variant  Variant of the model
+     * @return Model serialized from the cached JSON
+     */
+    @NotNull
+    public static CachedPageModel fromFragment(@NotNull String json, @NotNull Supplier<Page> adapter,
+            @NotNull PageModelFragmentCache cache, @NotNull String pagePath, @NotNull String variant) {
+        return new CachedPageModel(null, json, adapter, cache, pagePath, variant);
+    }
+
+    /**
+     * Returns the adapted model of a page whose JSON is not cached yet
+     *
+     * @param model    Adapted model, cached once it is serialized
+     * @param cache    Cache of the fragment
+     * @param pagePath Path of the page
+     * @param variant  Variant of the model
+     * @return Model cached when it is serialized
+     */
+    @NotNull
+    public static CachedPageModel fromModel(@NotNull Page model, @NotNull PageModelFragmentCache cache, @NotNull String pagePath,
+            @NotNull String variant) {
+        return new CachedPageModel(model, null, () -> model, cache, pagePath, variant);
+    }
+
+    /**
+     * @return The adapted model, adapted on the first call when it was served from the cache
+     */
+    @Nullable
+    @Override
+    synchronized Page getModel() {
+        if (model == null) {
+            model = adapter.get();
+        }
+        return model;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (gen.getPrettyPrinter() != null) {
+            serializers.defaultSerializeValue(getModel(), gen);
+            return;
+        }
+
+        String fragment = getJson(gen, serializers);
+        if (fragment != null) {
+            gen.writeRawValue(fragment);
+        } else {
+            gen.writeNull();
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        // Page models are not serialized with type information
+        serialize(gen, serializers);
+    }
+
+    @Nullable
+    private synchronized String getJson(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (json == null) {
+            Page adapted = getModel();
+            if (adapted == null) {
+                return null;
+            }
+
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator fragment = FRAGMENT_FACTORY.createGenerator(writer)) {
+                // Same escaping as the response, so that the fragment can be written as is
+                for (JsonGenerator.Feature feature : JsonGenerator.Feature.values()) {
+                    fragment.configure(feature, gen.isEnabled(feature));
+                }
+                fragment.setCharacterEscapes(gen.getCharacterEscapes());
+                fragment.setCodec(gen.getCodec());
+                serializers.defaultSerializeValue(adapted, fragment);
+            }
+            json = writer.toString();
+            cache.put(pagePath, variant, json);
+        }
+        return json;
+    }
+}
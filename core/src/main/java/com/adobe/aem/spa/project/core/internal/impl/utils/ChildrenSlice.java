@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.adobe.cq.export.json.ExporterConstants;
+
+/**
+ * Slice of the descendants exported as children of a hierarchy root, requested with a {@code children-<offset>-<limit>} selector,
+ * e.g. {@code /content/site.model.children-0-50.json}. <br>
+ * Slices are taken from the descendants in traversal order, after the structure depth and patterns were applied, so consecutive
+ * slices are stable as long as the page tree does not change. Only the models of the pages in the slice are adapted.
+ */
+public final class ChildrenSlice {
+
+    /**
+     * Largest number of children of a slice
+     */
+    static final int MAX_LIMIT = 1000;
+
+    private static final String SELECTOR_PREFIX = "children-";
+
+    private static final Pattern SELECTOR_PATTERN = Pattern.compile("^" + SELECTOR_PREFIX + "(\\d{1,9})-(\\d{1,4})$");
+
+    private final int offset;
+
+    private final int limit;
+
+    private boolean hasNext;
+
+    ChildrenSlice(int offset, int limit) {
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the slice requested by the selectors
+     *
+     * @param selectors Selectors of the request
+     * @return Requested slice, or {@code null} if the selectors do not request a valid slice
+     */
+    @Nullable
+    public static ChildrenSlice fromSelectors(@Nullable String[] selectors) {
+        if (selectors == null) {
+            return null;
+        }
+
+        for (String selector : selectors) {
+            Matcher matcher = SELECTOR_PATTERN.matcher(selector);
+            if (matcher.matches()) {
+                int limit = Integer.parseInt(matcher.group(2));
+                if (limit > 0 && limit <= MAX_LIMIT) {
+                    return new ChildrenSlice(Integer.parseInt(matcher.group(1)), limit);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the pages of the slice and records whether pages follow it
+     *
+     * @param descendants Descendants in traversal order
+     * @param <T>         Type of the descendants
+     * @return Descendants of the slice
+     */
+    @NotNull
+    public <T> List<T> apply(@NotNull List<T> descendants) {
+        int from = Math.min(offset, descendants.size());
+        int to = (int) Math.min((long) offset + limit, descendants.size());
+        hasNext = to < descendants.size();
+        return new ArrayList<>(descendants.subList(from, to));
+    }
+
+    /**
+     * @return {@code true} if this is the first slice
+     */
+    public boolean isFirst() {
+        return offset == 0;
+    }
+
+    /**
+     * @return Selector of the next slice, or {@code null} if no page follows this slice
+     */
+    @Nullable
+    public String getNextSelector() {
+        return hasNext ? SELECTOR_PREFIX + (offset + limit) + "-" + limit : null;
+    }
+
+    /**
+     * Returns the selectors of the next slice: the selectors of the request without the model selector and with the slice selector
+     * replaced by the one of the next slice, e.g. {@code fields-navigation.children-50-50} for
+     * {@code model.fields-navigation.children-0-50}. The next slices are thus exported like the first one.
+     *
+     * @param selectors Selectors of the request
+     * @return Selectors of the next slice, or {@code null} if no page follows this slice
+     */
+    @Nullable
+    public String getNextSelectors(@Nullable String[] selectors) {
+        String nextSelector = getNextSelector();
+        if (nextSelector == null || selectors == null) {
+            return nextSelector;
+        }
+
+        List<String> nextSelectors = new ArrayList<>(selectors.length);
+        boolean replaced = false;
+        for (String selector : selectors) {
+            if (SELECTOR_PATTERN.matcher(selector).matches()) {
+                if (!replaced) {
+                    nextSelectors.add(nextSelector);
+                    replaced = true;
+                }
+            } else if (!selector.equals(ExporterConstants.SLING_MODEL_SELECTOR)) {
+                nextSelectors.add(selector);
+            }
+        }
+        if (!replaced) {
+            nextSelectors.add(nextSelector);
+        }
+        return String.join(".", nextSelectors);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.adobe.aem.spa.project.core.models.Page;
+import com.adobe.cq.export.json.ComponentExporter;
+import com.adobe.cq.export.json.hierarchy.HierarchyNodeExporter;
+import com.adobe.cq.wcm.core.components.models.HtmlPageItem;
+import com.adobe.cq.wcm.core.components.models.NavigationItem;
+import com.adobe.cq.wcm.core.components.models.datalayer.ComponentData;
+
+/**
+ * Descendant page model which delegates all its methods to another model, for wrappers which only change how the model is serialized
+ */
+abstract class DelegatingPageModel implements Page {
+
+    /**
+     * @return The model the methods are delegated to
+     */
+    abstract Page getModel();
+
+    @Override
+    public String getHierarchyRootJsonExportUrl() {
+        return getModel().getHierarchyRootJsonExportUrl();
+    }
+
+    @Override
+    public Page getHierarchyRootModel() {
+        return getModel().getHierarchyRootModel();
+    }
+
+    @NotNull
+    @Override
+    public String[] getExportedItemsOrder() {
+        return getModel().getExportedItemsOrder();
+    }
+
+    @NotNull
+    @Override
+    public Map<String, ? extends ComponentExporter> getExportedItems() {
+        return getModel().getExportedItems();
+    }
+
+    @NotNull
+    @Override
+    public String getExportedType() {
+        return getModel().getExportedType();
+    }
+
+    @Override
+    public String getExportedHierarchyType() {
+        return getModel().getExportedHierarchyType();
+    }
+
+    @Override
+    public String getExportedPath() {
+        return getModel().getExportedPath();
+    }
+
+    @Override
+    public Map<String, ? extends HierarchyNodeExporter> getExportedChildren() {
+        return getModel().getExportedChildren();
+    }
+
+    @Override
+    public String getLanguage() {
+        return getModel().getLanguage();
+    }
+
+    @Override
+    public Calendar getLastModifiedDate() {
+        return getModel().getLastModifiedDate();
+    }
+
+    @Override
+    public String[] getKeywords() {
+        return getModel().getKeywords();
+    }
+
+    @Override
+    public String getDesignPath() {
+        return getModel().getDesignPath();
+    }
+
+    @Override
+    public String getStaticDesignPath() {
+        return getModel().getStaticDesignPath();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public Map<String, String> getFavicons() {
+        return getModel().getFavicons();
+    }
+
+    @Override
+    public String getTitle() {
+        return getModel().getTitle();
+    }
+
+    @Override
+    public String getDescription() {
+        return getModel().getDescription();
+    }
+
+    @Override
+    public String getBrandSlug() {
+        return getModel().getBrandSlug();
+    }
+
+    @Override
+    public String[] getClientLibCategories() {
+        return getModel().getClientLibCategories();
+    }
+
+    @Override
+    public String[] getClientLibCategoriesJsBody() {
+        return getModel().getClientLibCategoriesJsBody();
+    }
+
+    @Override
+    public String[] getClientLibCategoriesJsHead() {
+        return getModel().getClientLibCategoriesJsHead();
+    }
+
+    @Override
+    public String getTemplateName() {
+        return getModel().getTemplateName();
+    }
+
+    @Override
+    public String getAppResourcesPath() {
+        return getModel().getAppResourcesPath();
+    }
+
+    @Override
+    public String getCssClassNames() {
+        return getModel().getCssClassNames();
+    }
+
+    @Override
+    public NavigationItem getRedirectTarget() {
+        return getModel().getRedirectTarget();
+    }
+
+    @Override
+    public boolean hasCloudconfigSupport() {
+        return getModel().hasCloudconfigSupport();
+    }
+
+    @Override
+    public Set<String> getComponentsResourceTypes() {
+        return getModel().getComponentsResourceTypes();
+    }
+
+    @Override
+    public String getMainContentSelector() {
+        return getModel().getMainContentSelector();
+    }
+
+    @Override
+    public List<HtmlPageItem> getHtmlPageItems() {
+        return getModel().getHtmlPageItems();
+    }
+
+    @Override
+    public String getCanonicalLink() {
+        return getModel().getCanonicalLink();
+    }
+
+    @Override
+    public Map<Locale, String> getAlternateLanguageLinks() {
+        return getModel().getAlternateLanguageLinks();
+    }
+
+    @Override
+    public List<String> getRobotsTags() {
+        return getModel().getRobotsTags();
+    }
+
+    @Override
+    public boolean isClientlibsAsync() {
+        return getModel().isClientlibsAsync();
+    }
+
+    @Override
+    public boolean isDataLayerClientlibIncluded() {
+        return getModel().isDataLayerClientlibIncluded();
+    }
+
+    @Override
+    public String getDataLayerName() {
+        return getModel().getDataLayerName();
+    }
+
+    @Override
+    public String getId() {
+        return getModel().getId();
+    }
+
+    @Override
+    public ComponentData getData() {
+        return getModel().getData();
+    }
+
+    @Override
+    public String getAppliedCssClasses() {
+        return getModel().getAppliedCssClasses();
+    }
+}
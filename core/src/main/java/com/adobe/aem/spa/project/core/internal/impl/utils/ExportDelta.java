@@ -0,0 +1,247 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.PageRemovalLog;
+import com.day.cq.replication.ReplicationStatus;
+import com.day.cq.wcm.api.PageManager;
+import com.day.cq.wcm.api.designer.Style;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+import com.day.cq.wcm.api.policies.ContentPolicyManager;
+
+/**
+ * Delta of the exported descendants since an instant, requested with a {@code since-<millis>} selector, e.g.
+ * {@code /content/site.model.since-1600000000000.json}. <br>
+ * A delta export only contains the descendants whose page or policy was modified or which were replicated, created or moved into the
+ * exported tree after the instant, plus the paths of the pages removed from the exported tree since then, both selected by the
+ * structure depth and patterns of the export. Clients apply the removals, which imply the removal of the subtrees, before the exported
+ * descendants. <br>
+ * Requests for which the delta cannot be told are exported in full: when no {@link PageRemovalLog} reaches back to the instant, or
+ * when the policy of the exported page, which defines the traversal, was modified since. <br>
+ * Whether in full or not, the export tells the {@link #getWatermark(SlingHttpServletRequest) watermark} clients send as the instant of
+ * their next delta request. The clock of the server is not the one of the client, which must not use its own time instead. <br>
+ * Deltas are per instance: the removal log and the watermark come from the clock of the instance which answers, and the export also
+ * tells the {@link PageRemovalLog#getHorizon(String) horizon} of its log, so that clients request a full export when it changes.
+ */
+public final class ExportDelta {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportDelta.class);
+
+    private static final String SELECTOR_PREFIX = "since-";
+
+    private static final Pattern SELECTOR_PATTERN = Pattern.compile("^" + SELECTOR_PREFIX + "(\\d{1,15})$");
+
+    private final long since;
+
+    private final List<String> removedPaths;
+
+    private final List<String> addedPaths;
+
+    ExportDelta(long since, @NotNull List<String> removedPaths, @NotNull List<String> addedPaths) {
+        this.since = since;
+        this.removedPaths = removedPaths;
+        this.addedPaths = addedPaths;
+    }
+
+    /**
+     * Returns the instant requested by the selectors
+     *
+     * @param selectors Selectors of the request
+     * @return Instant in milliseconds since the epoch, or {@code null} if the selectors do not request a delta
+     */
+    @Nullable
+    static Long getSince(@Nullable String[] selectors) {
+        if (selectors == null) {
+            return null;
+        }
+
+        for (String selector : selectors) {
+            Matcher matcher = SELECTOR_PATTERN.matcher(selector);
+            if (matcher.matches()) {
+                return Long.parseLong(matcher.group(1));
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the delta requested by the selectors of the export of a page
+     *
+     * @param request      Request
+     * @param currentPage  Exported page
+     * @param currentStyle Style of the exported page
+     * @param settings     Settings of the hierarchy export
+     * @param removalLog   Log of the removed pages, or {@code null} if none is available
+     * @return Requested delta, or {@code null} if no delta is requested or if it cannot be told and the descendants are to be exported
+     *         in full
+     * @throws java.util.regex.PatternSyntaxException If the structure patterns of the request cannot be compiled
+     */
+    @Nullable
+    public static ExportDelta fromRequest(@NotNull SlingHttpServletRequest request, @NotNull com.day.cq.wcm.api.Page currentPage,
+            @Nullable Style currentStyle, @NotNull HierarchyExportSettings settings, @Nullable PageRemovalLog removalLog) {
+        Long since = getSince(request.getRequestPathInfo().getSelectors());
+        // Child pages do not export descendants
+        if (since == null || Boolean.TRUE.equals(request.getAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE))) {
+            return null;
+        }
+
+        ContentPolicyManager policyManager = request.getResourceResolver().adaptTo(ContentPolicyManager.class);
+        if (isModifiedSince(getPolicy(policyManager, currentPage), since)) {
+            LOGGER.debug("Exporting all descendants of {}, its policy was modified since {}", currentPage.getPath(), since);
+            return null;
+        }
+
+        List<String> removedPaths = removalLog != null ? removalLog.getRemovedPaths(currentPage.getPath(), since) : null;
+        List<String> addedPaths = removalLog != null ? removalLog.getAddedPaths(currentPage.getPath(), since) : null;
+        if (removedPaths == null || addedPaths == null) {
+            LOGGER.debug("Exporting all descendants of {}, its removed pages since {} are not known", currentPage.getPath(), since);
+            return null;
+        }
+
+        int depth = HierarchyPolicy.of(currentStyle).getDepth();
+        StructurePatterns structurePatterns = HierarchyUtils.getCompiledStructurePatterns(request, currentStyle,
+            settings.getRequestPatternsEngine());
+        PageManager pageManager = currentPage.getPageManager();
+
+        List<String> exportedRemovedPaths = new ArrayList<>();
+        for (String removedPath : removedPaths) {
+            if (isExported(currentPage.getPath(), removedPath, depth, structurePatterns)
+                && (pageManager == null || pageManager.getPage(removedPath) == null)) {
+                exportedRemovedPaths.add(removedPath);
+            }
+        }
+
+        return new ExportDelta(since, Collections.unmodifiableList(exportedRemovedPaths), addedPaths);
+    }
+
+    /**
+     * Returns the watermark of the export of a page for which a delta was requested: the instant the traversal of its descendants
+     * started, see {@link HierarchyRequestContext#markTraversalStart()}. Pages changed while they are exported are changed after the
+     * watermark, so that a delta requested since the watermark includes them.
+     *
+     * @param request Request
+     * @return Watermark in milliseconds since the epoch, or {@code null} if no delta is requested
+     */
+    @Nullable
+    public static Long getWatermark(@NotNull SlingHttpServletRequest request) {
+        // Child pages do not export descendants
+        if (getSince(request.getRequestPathInfo().getSelectors()) == null
+            || Boolean.TRUE.equals(request.getAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE))) {
+            return null;
+        }
+        return HierarchyRequestContext.get(request).markTraversalStart();
+    }
+
+    /**
+     * Returns the descendants which were modified, replicated or added since the instant of the delta, in their order. Descendants whose
+     * modification time is unknown are kept.
+     *
+     * @param request     Request
+     * @param descendants Descendants selected by the structure depth and patterns
+     * @return Modified descendants
+     */
+    @NotNull
+    public List<com.day.cq.wcm.api.Page> apply(@NotNull SlingHttpServletRequest request,
+            @NotNull List<com.day.cq.wcm.api.Page> descendants) {
+        ContentPolicyManager policyManager = request.getResourceResolver().adaptTo(ContentPolicyManager.class);
+        List<com.day.cq.wcm.api.Page> modified = new ArrayList<>();
+        for (com.day.cq.wcm.api.Page descendant : descendants) {
+            Calendar lastModified = descendant.getLastModified();
+            if (lastModified == null || lastModified.getTimeInMillis() > since || isReplicatedSince(descendant, since)
+                || isAdded(descendant.getPath()) || isModifiedSince(getPolicy(policyManager, descendant), since)) {
+                modified.add(descendant);
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * @return Instant of the delta in milliseconds since the epoch
+     */
+    public long getSince() {
+        return since;
+    }
+
+    /**
+     * @return Paths of the pages removed from the exported tree since the instant of the delta
+     */
+    @NotNull
+    public List<String> getRemovedPaths() {
+        return removedPaths;
+    }
+
+    private static boolean isExported(@NotNull String rootPath, @NotNull String path, int depth,
+            @NotNull StructurePatterns structurePatterns) {
+        if (depth == 0) {
+            return false;
+        }
+        // A negative depth exports all descendants
+        if (depth > 0) {
+            String relativePath = path.substring(rootPath.length() + 1);
+            int pathDepth = relativePath.split("/").length;
+            if (pathDepth > depth) {
+                return false;
+            }
+        }
+        return structurePatterns.matches(path);
+    }
+
+    /**
+     * Moved pages keep their modification time, they are exported if they or one of their ancestors were moved since the instant
+     */
+    private boolean isAdded(@NotNull String path) {
+        for (String addedPath : addedPaths) {
+            if (path.equals(addedPath) || path.startsWith(addedPath + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isReplicatedSince(@NotNull com.day.cq.wcm.api.Page page, long since) {
+        ValueMap properties = page.getProperties();
+        if (properties == null) {
+            return false;
+        }
+        Calendar lastReplicated = properties.get(ReplicationStatus.NODE_PROPERTY_LAST_REPLICATED, Calendar.class);
+        return lastReplicated != null && lastReplicated.getTimeInMillis() > since;
+    }
+
+    private static boolean isModifiedSince(@Nullable ContentPolicy policy, long since) {
+        return policy != null && policy.getLastModified() != null && policy.getLastModified().getTimeInMillis() > since;
+    }
+
+    @Nullable
+    private static ContentPolicy getPolicy(@Nullable ContentPolicyManager policyManager, @NotNull com.day.cq.wcm.api.Page page) {
+        Resource contentResource = page.getContentResource();
+        return policyManager != null && contentResource != null ? policyManager.getPolicy(contentResource) : null;
+    }
+}
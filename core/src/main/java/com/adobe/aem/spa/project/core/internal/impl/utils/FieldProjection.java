@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+
+/**
+ * Projection of the page model export on the JSON properties of a profile, requested with a selector, e.g.
+ * {@code /content/site.model.fields-navigation.json}. <br>
+ * The profiles are configured in the {@link HierarchyExportSettings}. The properties which make up the hierarchy ({@code :type},
+ * {@code :path}, {@code :hierarchyType}, {@code :children} and the state of the children) are always exported, so that the projection
+ * applies to the descendants as well. The getters of the properties which are left out are not called.
+ */
+public final class FieldProjection {
+
+    private static final String SELECTOR_PREFIX = "fields-";
+
+    private static final Set<String> HIERARCHY_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(":type", ":path",
+        ":hierarchyType", ":children", ":childrenTruncated", ":childrenNext", ":childrenSince", ":childrenRemoved")));
+
+    private final Set<String> fields;
+
+    FieldProjection(@NotNull Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Returns the projection requested by the selectors
+     *
+     * @param selectors Selectors of the request
+     * @param settings  Settings defining the profiles
+     * @return Requested projection, or {@code null} if the selectors do not request a configured profile
+     */
+    @Nullable
+    public static FieldProjection fromSelectors(@Nullable String[] selectors, @NotNull HierarchyExportSettings settings) {
+        if (selectors == null) {
+            return null;
+        }
+
+        for (String selector : selectors) {
+            if (selector.startsWith(SELECTOR_PREFIX)) {
+                Set<String> fields = settings.getProjectedFields(selector.substring(SELECTOR_PREFIX.length()));
+                if (fields != null) {
+                    return new FieldProjection(fields);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param field Name of the JSON property
+     * @return Whether the property is exported
+     */
+    public boolean includes(@NotNull String field) {
+        return HIERARCHY_FIELDS.contains(field) || fields.contains(field);
+    }
+}
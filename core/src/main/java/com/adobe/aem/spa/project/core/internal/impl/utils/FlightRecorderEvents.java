@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder events of the hierarchy export, only loaded by {@link HierarchyEvents} when Flight Recorder is available. Events are
+ * only allocated while their type is enabled in a recording.
+ */
+final class FlightRecorderEvents {
+
+    private static final String NAME_PREFIX = "com.adobe.aem.spa.project.core.";
+
+    private static final EventType ROOT_PAGE_LOOKUP = EventType.getEventType(RootPageLookupEvent.class);
+
+    private static final EventType TRAVERSAL = EventType.getEventType(TraversalEvent.class);
+
+    private static final EventType ADAPTATION = EventType.getEventType(AdaptationEvent.class);
+
+    private static final EventType CHILDREN_EXPORT = EventType.getEventType(ChildrenExportEvent.class);
+
+    private FlightRecorderEvents() {
+    }
+
+    static Object beginRootPageLookup() {
+        return ROOT_PAGE_LOOKUP.isEnabled() ? begin(new RootPageLookupEvent()) : null;
+    }
+
+    static void commitRootPageLookup(Object handle, String pagePath, String rootPagePath) {
+        RootPageLookupEvent event = (RootPageLookupEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.pagePath = pagePath;
+            event.rootPagePath = rootPagePath;
+            event.commit();
+        }
+    }
+
+    static Object beginTraversal() {
+        return TRAVERSAL.isEnabled() ? begin(new TraversalEvent()) : null;
+    }
+
+    static void commitTraversal(Object handle, String pagePath, int visited, int matched) {
+        TraversalEvent event = (TraversalEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.pagePath = pagePath;
+            event.visited = visited;
+            event.matched = matched;
+            event.commit();
+        }
+    }
+
+    static Object beginAdaptation() {
+        return ADAPTATION.isEnabled() ? begin(new AdaptationEvent()) : null;
+    }
+
+    static void commitAdaptation(Object handle, String pagePath, boolean adapted) {
+        AdaptationEvent event = (AdaptationEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.pagePath = pagePath;
+            event.adapted = adapted;
+            event.commit();
+        }
+    }
+
+    static Object beginChildrenExport() {
+        return CHILDREN_EXPORT.isEnabled() ? begin(new ChildrenExportEvent()) : null;
+    }
+
+    static void commitChildrenExport(Object handle, String pagePath, int pagesExported, boolean truncated) {
+        ChildrenExportEvent event = (ChildrenExportEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.pagePath = pagePath;
+            event.pagesExported = pagesExported;
+            event.truncated = truncated;
+            event.commit();
+        }
+    }
+
+    private static Event begin(Event event) {
+        event.begin();
+        return event;
+    }
+
+    @Name(NAME_PREFIX + "RootPageLookup")
+    @Label("SPA Root Page Lookup")
+    @Category({ "AEM", "SPA Project Core" })
+    @Description("Lookup of the root page of an exported page")
+    static final class RootPageLookupEvent extends Event {
+
+        @Label("Page Path")
+        String pagePath;
+
+        @Label("Root Page Path")
+        String rootPagePath;
+    }
+
+    @Name(NAME_PREFIX + "DescendantTraversal")
+    @Label("SPA Descendant Traversal")
+    @Category({ "AEM", "SPA Project Core" })
+    @Description("Traversal of the descendants of an exported page")
+    static final class TraversalEvent extends Event {
+
+        @Label("Page Path")
+        String pagePath;
+
+        @Label("Visited Pages")
+        int visited;
+
+        @Label("Matched Pages")
+        int matched;
+    }
+
+    @Name(NAME_PREFIX + "ModelAdaptation")
+    @Label("SPA Model Adaptation")
+    @Category({ "AEM", "SPA Project Core" })
+    @Description("Adaptation of the model of a descendant page")
+    static final class AdaptationEvent extends Event {
+
+        @Label("Page Path")
+        String pagePath;
+
+        @Label("Adapted")
+        boolean adapted;
+    }
+
+    @Name(NAME_PREFIX + "ChildrenExport")
+    @Label("SPA Children Export")
+    @Category({ "AEM", "SPA Project Core" })
+    @Description("Export of the descendant page models of a page")
+    static final class ChildrenExportEvent extends Event {
+
+        @Label("Page Path")
+        String pagePath;
+
+        @Label("Exported Pages")
+        int pagesExported;
+
+        @Label("Truncated")
+        boolean truncated;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Emits JDK Flight Recorder events for the root page lookups, descendant traversals, descendant model adaptations and children exports
+ * of the hierarchy export. <br>
+ * Each operation begins an event, which is passed back when the operation completes. The event is {@code null} when Flight Recorder
+ * is not available or the event is not enabled by a recording, so that nothing is allocated nor measured otherwise. The events are
+ * only referenced through this class, so that the bundle runs on virtual machines without Flight Recorder.
+ */
+public final class HierarchyEvents {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HierarchyEvents.class);
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private HierarchyEvents() {
+    }
+
+    /**
+     * @return Event of a root page lookup, or {@code null} if it is not recorded
+     */
+    @Nullable
+    public static Object beginRootPageLookup() {
+        return AVAILABLE ? FlightRecorderEvents.beginRootPageLookup() : null;
+    }
+
+    /**
+     * @param event        Event returned when the lookup began
+     * @param pagePath     Path of the page whose root is looked up
+     * @param rootPagePath Path of the root page, or {@code null} if there is none
+     */
+    public static void commitRootPageLookup(@Nullable Object event, @NotNull String pagePath, @Nullable String rootPagePath) {
+        if (event != null) {
+            FlightRecorderEvents.commitRootPageLookup(event, pagePath, rootPagePath);
+        }
+    }
+
+    /**
+     * @return Event of a descendant traversal, or {@code null} if it is not recorded
+     */
+    @Nullable
+    public static Object beginTraversal() {
+        return AVAILABLE ? FlightRecorderEvents.beginTraversal() : null;
+    }
+
+    /**
+     * @param event    Event returned when the traversal began
+     * @param pagePath Path of the page whose descendants are traversed
+     * @param visited  Number of pages visited
+     * @param matched  Number of pages matching the structure patterns
+     */
+    public static void commitTraversal(@Nullable Object event, @NotNull String pagePath, int visited, int matched) {
+        if (event != null) {
+            FlightRecorderEvents.commitTraversal(event, pagePath, visited, matched);
+        }
+    }
+
+    /**
+     * @return Event of a descendant model adaptation, or {@code null} if it is not recorded
+     */
+    @Nullable
+    public static Object beginAdaptation() {
+        return AVAILABLE ? FlightRecorderEvents.beginAdaptation() : null;
+    }
+
+    /**
+     * @param event    Event returned when the adaptation began
+     * @param pagePath Path of the descendant page
+     * @param adapted  Whether the page was adapted to a model
+     */
+    public static void commitAdaptation(@Nullable Object event, @NotNull String pagePath, boolean adapted) {
+        if (event != null) {
+            FlightRecorderEvents.commitAdaptation(event, pagePath, adapted);
+        }
+    }
+
+    /**
+     * @return Event of a children export, or {@code null} if it is not recorded
+     */
+    @Nullable
+    public static Object beginChildrenExport() {
+        return AVAILABLE ? FlightRecorderEvents.beginChildrenExport() : null;
+    }
+
+    /**
+     * @param event         Event returned when the export began
+     * @param pagePath      Path of the exported page
+     * @param pagesExported Number of descendant pages exported
+     * @param truncated     Whether the export exhausted its budget
+     */
+    public static void commitChildrenExport(@Nullable Object event, @NotNull String pagePath, int pagesExported, boolean truncated) {
+        if (event != null) {
+            FlightRecorderEvents.commitChildrenExport(event, pagePath, pagesExported, truncated);
+        }
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, HierarchyEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            LOGGER.debug("Flight Recorder is not available, the hierarchy export does not emit events");
+            return false;
+        }
+    }
+}
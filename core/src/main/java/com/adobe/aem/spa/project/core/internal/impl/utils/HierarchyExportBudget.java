@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+
+/**
+ * Limits of one hierarchy export: the number of descendants traversed, the number of models adapted and the time spent on both. <br>
+ * The export stops as soon as a limit is reached and records that the exported children are truncated. Limits of zero or less are
+ * not enforced.
+ */
+public final class HierarchyExportBudget {
+
+    private final int maxDescendants;
+
+    private final int maxModels;
+
+    private final long maxTimeNanos;
+
+    private final long startNanos;
+
+    private final LongSupplier nanoClock;
+
+    private volatile boolean truncated;
+
+    HierarchyExportBudget(int maxDescendants, int maxModels, long maxTimeMillis, @NotNull LongSupplier nanoClock) {
+        this.maxDescendants = maxDescendants;
+        this.maxModels = maxModels;
+        this.maxTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxTimeMillis);
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Starts the budget of an export, the time limit counts from now
+     *
+     * @param settings Settings defining the limits
+     * @return Budget of the export
+     */
+    @NotNull
+    public static HierarchyExportBudget start(@NotNull HierarchyExportSettings settings) {
+        return new HierarchyExportBudget(settings.getMaxDescendants(), settings.getMaxModels(), settings.getMaxExportTime(),
+            System::nanoTime);
+    }
+
+    /**
+     * @return Budget without any limit
+     */
+    @NotNull
+    public static HierarchyExportBudget unlimited() {
+        return new HierarchyExportBudget(0, 0, 0, System::nanoTime);
+    }
+
+    /**
+     * @param count Number of descendants collected so far
+     * @return {@code true} if one more descendant may be collected
+     */
+    public boolean allowsDescendant(int count) {
+        return maxDescendants <= 0 || count < maxDescendants;
+    }
+
+    /**
+     * @param count Number of models adapted so far
+     * @return {@code true} if one more model may be adapted
+     */
+    public boolean allowsModel(int count) {
+        return maxModels <= 0 || count < maxModels;
+    }
+
+    /**
+     * @return {@code true} if the time of the export is over
+     */
+    public boolean isExpired() {
+        return maxTimeNanos > 0 && nanoClock.getAsLong() - startNanos >= maxTimeNanos;
+    }
+
+    /**
+     * Records that descendants or models were left out because of a limit
+     */
+    public void truncate() {
+        truncated = true;
+    }
+
+    /**
+     * @return {@code true} if descendants or models were left out because of a limit
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
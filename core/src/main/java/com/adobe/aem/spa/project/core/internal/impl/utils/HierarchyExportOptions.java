@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.PageModelFragmentCache;
+
+/**
+ * Options of one export of the descendants of a page: the settings and the budget of the export, the requested slice and delta of the
+ * descendants and the cache of the model fragments. <br>
+ * The options are held by the {@link HierarchyRequestContext} of the request, from which
+ * {@link HierarchyUtils#getDescendantsModels(org.apache.sling.api.SlingHttpServletRequest, com.day.cq.wcm.api.Page,
+ * com.day.cq.wcm.api.designer.Style, org.apache.sling.models.factory.ModelFactory)} reads them.
+ */
+public final class HierarchyExportOptions {
+
+    private final HierarchyExportSettings settings;
+
+    private final HierarchyExportBudget budget;
+
+    private final ChildrenSlice slice;
+
+    private final PageModelFragmentCache fragmentCache;
+
+    private final ExportDelta delta;
+
+    /**
+     * @param settings      Settings of the hierarchy export
+     * @param budget        Budget of the export, which records whether descendants were left out
+     * @param slice         Slice of the descendants to export, which records whether descendants follow it, or {@code null} for all
+     * @param fragmentCache Cache of the JSON of the models, or {@code null} to adapt all models
+     * @param delta         Delta to export, or {@code null} for all descendants
+     */
+    public HierarchyExportOptions(@NotNull HierarchyExportSettings settings, @NotNull HierarchyExportBudget budget,
+            @Nullable ChildrenSlice slice, @Nullable PageModelFragmentCache fragmentCache, @Nullable ExportDelta delta) {
+        this.settings = settings;
+        this.budget = budget;
+        this.slice = slice;
+        this.fragmentCache = fragmentCache;
+        this.delta = delta;
+    }
+
+    /**
+     * Returns the options of an export of all descendants with the settings, whose budget starts now
+     *
+     * @param settings Settings of the hierarchy export
+     * @return Options of the export
+     */
+    @NotNull
+    public static HierarchyExportOptions of(@NotNull HierarchyExportSettings settings) {
+        return new HierarchyExportOptions(settings, HierarchyExportBudget.start(settings), null, null, null);
+    }
+
+    @NotNull
+    public HierarchyExportSettings getSettings() {
+        return settings;
+    }
+
+    @NotNull
+    public HierarchyExportBudget getBudget() {
+        return budget;
+    }
+
+    @Nullable
+    public ChildrenSlice getSlice() {
+        return slice;
+    }
+
+    @Nullable
+    public PageModelFragmentCache getFragmentCache() {
+        return fragmentCache;
+    }
+
+    @Nullable
+    public ExportDelta getDelta() {
+        return delta;
+    }
+}
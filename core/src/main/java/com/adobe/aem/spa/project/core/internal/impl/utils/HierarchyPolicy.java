@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.Calendar;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.day.cq.commons.jcr.JcrConstants;
+import com.day.cq.wcm.api.designer.Style;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+
+import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.PN_IS_ROOT;
+import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.PN_SKELETON_DESCENDANTS;
+import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.PN_STRUCTURE_PATTERNS;
+import static com.adobe.aem.spa.project.core.models.Page.PN_STRUCTURE_DEPTH;
+
+/**
+ * Immutable snapshot of the hierarchy properties of a page policy: the structure depth, the root flag, the compiled structure
+ * patterns and the skeleton flag. <br>
+ * Snapshots of policies with a path and a modification time are shared through the {@link HierarchyPolicyCache}, so that the
+ * properties are converted once per version of the policy rather than on each request.
+ */
+public final class HierarchyPolicy {
+
+    /**
+     * Snapshot of a page without policy
+     */
+    public static final HierarchyPolicy EMPTY = new HierarchyPolicy(0, false, StructurePatterns.compile(null), false, 0);
+
+    private final int depth;
+
+    private final boolean root;
+
+    private final StructurePatterns structurePatterns;
+
+    private final boolean skeletonDescendants;
+
+    private final long lastModified;
+
+    private HierarchyPolicy(int depth, boolean root, @NotNull StructurePatterns structurePatterns, boolean skeletonDescendants,
+            long lastModified) {
+        this.depth = depth;
+        this.root = root;
+        this.structurePatterns = structurePatterns;
+        this.skeletonDescendants = skeletonDescendants;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Returns the snapshot of the style of a page
+     *
+     * @param style Style of the page, or {@code null}
+     * @return Snapshot of the style
+     */
+    @NotNull
+    public static HierarchyPolicy of(@Nullable Style style) {
+        if (style == null) {
+            return EMPTY;
+        }
+        Calendar lastModified = style.get(JcrConstants.JCR_LASTMODIFIED, Calendar.class);
+        return of(style.getPath(), lastModified, style);
+    }
+
+    /**
+     * Returns the snapshot of a content policy
+     *
+     * @param contentPolicy Content policy, or {@code null}
+     * @return Snapshot of the content policy
+     */
+    @NotNull
+    public static HierarchyPolicy of(@Nullable ContentPolicy contentPolicy) {
+        if (contentPolicy == null) {
+            return EMPTY;
+        }
+        ValueMap properties = contentPolicy.getProperties();
+        if (properties == null) {
+            return EMPTY;
+        }
+        return of(contentPolicy.getPath(), contentPolicy.getLastModified(), properties);
+    }
+
+    private static HierarchyPolicy of(@Nullable String path, @Nullable Calendar lastModified, @NotNull ValueMap properties) {
+        // Without a modification time a changed policy cannot be told apart from the cached one
+        if (path == null || lastModified == null) {
+            return read(properties, 0);
+        }
+        long time = lastModified.getTimeInMillis();
+        return HierarchyPolicyCache.getInstance().get(path, time, () -> read(properties, time));
+    }
+
+    @NotNull
+    static HierarchyPolicy read(@NotNull ValueMap properties, long lastModified) {
+        Integer depth = properties.get(PN_STRUCTURE_DEPTH, Integer.class);
+        Boolean root = properties.get(PN_IS_ROOT, false);
+        StructurePatterns structurePatterns = StructurePatterns.compile(properties.get(PN_STRUCTURE_PATTERNS, String.class));
+        Boolean skeletonDescendants = properties.get(PN_SKELETON_DESCENDANTS, false);
+        return new HierarchyPolicy(depth != null ? depth : 0, Boolean.TRUE.equals(root), structurePatterns,
+            Boolean.TRUE.equals(skeletonDescendants), lastModified);
+    }
+
+    /**
+     * @return Depth of the tree of pages to export, 0 if not defined
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return Whether the page is the root of an SPA
+     */
+    public boolean isRoot() {
+        return root;
+    }
+
+    /**
+     * @return Compiled structure patterns filtering the exported descendants
+     */
+    @NotNull
+    public StructurePatterns getStructurePatterns() {
+        return structurePatterns;
+    }
+
+    /**
+     * @return Whether descendants other than the entry point page are exported as skeletons
+     */
+    public boolean isSkeletonDescendants() {
+        return skeletonDescendants;
+    }
+
+    /**
+     * @return Modification time of the policy in milliseconds, 0 if unknown
+     */
+    long getLastModified() {
+        return lastModified;
+    }
+}
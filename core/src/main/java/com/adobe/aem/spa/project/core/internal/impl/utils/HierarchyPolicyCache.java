@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Bounded least-recently-used cache of {@link HierarchyPolicy} snapshots, keyed by the path of the policy. An entry is only used while
+ * the modification time of the policy matches the one of the snapshot; entries of changed or removed policies are dropped by
+ * {@link #invalidate(String)}. <br>
+ * Hits and misses are counted and exposed through the hierarchy metrics.
+ */
+public final class HierarchyPolicyCache {
+
+    /**
+     * Number of snapshots kept by the shared cache
+     */
+    static final int DEFAULT_MAX_SIZE = 1024;
+
+    private static final HierarchyPolicyCache INSTANCE = new HierarchyPolicyCache(DEFAULT_MAX_SIZE);
+
+    private final Map<String, HierarchyPolicy> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    HierarchyPolicyCache(int maxSize) {
+        this.entries = new LinkedHashMap<String, HierarchyPolicy>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, HierarchyPolicy> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return The cache shared by all policy lookups
+     */
+    @NotNull
+    public static HierarchyPolicyCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the snapshot of the policy, reading and caching it when none is cached for the modification time
+     *
+     * @param path         Path of the policy
+     * @param lastModified Modification time of the policy in milliseconds
+     * @param reader       Reads the snapshot from the policy
+     * @return Snapshot of the policy
+     */
+    @NotNull
+    HierarchyPolicy get(@NotNull String path, long lastModified, @NotNull Supplier<HierarchyPolicy> reader) {
+        synchronized (entries) {
+            HierarchyPolicy cached = entries.get(path);
+            if (cached != null && cached.getLastModified() == lastModified) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        // Read outside of the lock, concurrent misses for the same policy read it twice at worst
+        HierarchyPolicy policy = reader.get();
+        misses.incrementAndGet();
+
+        synchronized (entries) {
+            entries.put(path, policy);
+        }
+        return policy;
+    }
+
+    /**
+     * Drops the snapshots of the policies at, above or below the path
+     *
+     * @param path Path of the changed resource
+     */
+    public void invalidate(@NotNull String path) {
+        String subtreePath = path + "/";
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.equals(path) || key.startsWith(subtreePath) || path.startsWith(key + "/"));
+        }
+    }
+
+    /**
+     * @return Number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Number of lookups which required reading the policy
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Number of snapshots currently cached
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
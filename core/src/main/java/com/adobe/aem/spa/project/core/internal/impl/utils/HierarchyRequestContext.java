@@ -0,0 +1,374 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import javax.servlet.ServletRequest;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.adobe.aem.spa.project.core.internal.HierarchyMetrics;
+import com.adobe.aem.spa.project.core.models.Page;
+
+/**
+ * State of the hierarchy export shared by all page models of a request: the root pages, the root page models, the model URLs, the
+ * traversed and exported descendants of the pages and the options they are exported with, the paths the export depends on and the
+ * metrics and trace it is measured with. It is stored once as a request attribute, so that models adapting each other, e.g. a page and
+ * its hierarchy root model, do not look up or adapt the same pages again.
+ * <br>
+ * Values are computed by the first model asking for them, with its request.
+ */
+public final class HierarchyRequestContext {
+
+    /**
+     * Request attribute holding the context
+     */
+    static final String ATTR_CONTEXT = HierarchyRequestContext.class.getName();
+
+    private final Map<String, Optional<com.day.cq.wcm.api.Page>> rootPages = new HashMap<>();
+
+    private final Map<String, Optional<Page>> rootModels = new HashMap<>();
+
+    private final Map<String, Optional<String>> exportUrls = new HashMap<>();
+
+    private final Map<String, Optional<Descendants>> descendants = new HashMap<>();
+
+    private final Map<String, List<com.day.cq.wcm.api.Page>> traversals = new HashMap<>();
+
+    private final Set<String> dependencies = new LinkedHashSet<>();
+
+    private HierarchyMetrics metrics;
+
+    private HierarchyTrace trace;
+
+    private HierarchyExportOptions exportOptions;
+
+    private long traversalStart;
+
+    private HierarchyRequestContext() {
+    }
+
+    /**
+     * Returns the context of the request, created on the first call
+     *
+     * @param request Request
+     * @return Context of the request
+     */
+    @NotNull
+    public static HierarchyRequestContext get(@NotNull SlingHttpServletRequest request) {
+        Object context = request.getAttribute(ATTR_CONTEXT);
+        if (context instanceof HierarchyRequestContext) {
+            return (HierarchyRequestContext) context;
+        }
+
+        HierarchyRequestContext newContext = new HierarchyRequestContext();
+        request.setAttribute(ATTR_CONTEXT, newContext);
+        return newContext;
+    }
+
+    /**
+     * Returns the paths the export of a request depends on, without creating its context, e.g. after an internal request was processed
+     *
+     * @param request Request, or the request wrapped by a Sling request
+     * @return Paths of the pages and policies the export depends on, in the order they were recorded
+     */
+    @NotNull
+    public static Set<String> getDependencies(@NotNull ServletRequest request) {
+        Object context = request.getAttribute(ATTR_CONTEXT);
+        return context instanceof HierarchyRequestContext ? ((HierarchyRequestContext) context).getDependencies() : Collections.emptySet();
+    }
+
+    /**
+     * Returns the metrics measuring the export of the request, without creating its context
+     *
+     * @param request Request
+     * @return Metrics, or {@code null} if the export is not measured
+     */
+    @Nullable
+    public static HierarchyMetrics getMetrics(@NotNull SlingHttpServletRequest request) {
+        Object context = request.getAttribute(ATTR_CONTEXT);
+        return context instanceof HierarchyRequestContext ? ((HierarchyRequestContext) context).metrics : null;
+    }
+
+    /**
+     * Measures the export of the request with the metrics
+     *
+     * @param metrics Metrics, or {@code null} to not measure the export
+     */
+    public void setMetrics(@Nullable HierarchyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the trace of the export of the request, without creating its context
+     *
+     * @param request Request
+     * @return Trace, or {@code null} if the export is not traced
+     */
+    @Nullable
+    public static HierarchyTrace getTrace(@NotNull SlingHttpServletRequest request) {
+        Object context = request.getAttribute(ATTR_CONTEXT);
+        return context instanceof HierarchyRequestContext ? ((HierarchyRequestContext) context).trace : null;
+    }
+
+    /**
+     * Traces the export of the request
+     *
+     * @param trace Trace, or {@code null} to not trace the export
+     */
+    public void setTrace(@Nullable HierarchyTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Returns the options of the export of descendants of the request, without creating its context
+     *
+     * @param request Request
+     * @return Options of the export, or {@code null} to export all descendants with the default settings
+     */
+    @Nullable
+    public static HierarchyExportOptions getExportOptions(@NotNull SlingHttpServletRequest request) {
+        Object context = request.getAttribute(ATTR_CONTEXT);
+        return context instanceof HierarchyRequestContext ? ((HierarchyRequestContext) context).exportOptions : null;
+    }
+
+    /**
+     * Sets the options of the next export of descendants of the request
+     *
+     * @param exportOptions Options of the export, or {@code null} to export all descendants with the default settings
+     */
+    public void setExportOptions(@Nullable HierarchyExportOptions exportOptions) {
+        this.exportOptions = exportOptions;
+    }
+
+    /**
+     * Returns the root page of a page, looked up once
+     *
+     * @param pagePath Path of the page
+     * @param lookup   Function looking up the root page
+     * @return Root page, or {@code null} if the page has none
+     */
+    @Nullable
+    public com.day.cq.wcm.api.Page getRootPage(@NotNull String pagePath, @NotNull Supplier<com.day.cq.wcm.api.Page> lookup) {
+        return memoize(rootPages, pagePath, lookup);
+    }
+
+    /**
+     * Returns the model of a root page, adapted once per model class
+     *
+     * @param rootPage   Root page
+     * @param modelClass Class of the model
+     * @param adapter    Function adapting the model
+     * @return Model of the root page, or {@code null} if it cannot be adapted
+     */
+    @Nullable
+    public Page getRootModel(@NotNull com.day.cq.wcm.api.Page rootPage, @NotNull Class<? extends Page> modelClass,
+            @NotNull Supplier<? extends Page> adapter) {
+        return memoize(rootModels, rootPage.getPath() + ':' + modelClass.getName(), adapter);
+    }
+
+    /**
+     * Returns the model URL of a page, built once
+     *
+     * @param page    Page
+     * @param builder Function building the URL
+     * @return Model URL of the page
+     */
+    @Nullable
+    public String getExportUrl(@NotNull com.day.cq.wcm.api.Page page, @NotNull Supplier<String> builder) {
+        return memoize(exportUrls, page.getPath(), builder);
+    }
+
+    /**
+     * Returns the exported descendants of a page, computed once. Pages exported as children of another page export other descendants
+     * than the same page exported as the root of the hierarchy, the two are kept apart.
+     *
+     * @param page     Page
+     * @param request  Request, telling whether the page is exported as a child page
+     * @param exporter Function computing the descendants
+     * @return Exported descendants of the page
+     */
+    @NotNull
+    public Descendants getDescendants(@NotNull com.day.cq.wcm.api.Page page, @NotNull SlingHttpServletRequest request,
+            @NotNull Supplier<Descendants> exporter) {
+        boolean childPage = Boolean.TRUE.equals(request.getAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE));
+        String key = page.getPath() + (childPage ? ":child" : ":root");
+        Descendants exported = memoize(descendants, key, exporter);
+        return exported != null ? exported : new Descendants(Collections.emptyMap(), false, null);
+    }
+
+    /**
+     * Marks the start of the traversal of the descendants of the request. The first mark is kept, so that it precedes all traversals of
+     * the request, e.g. the one of its validator.
+     *
+     * @return Instant of the first mark in milliseconds since the epoch
+     */
+    public long markTraversalStart() {
+        if (traversalStart == 0) {
+            traversalStart = System.currentTimeMillis();
+        }
+        return traversalStart;
+    }
+
+    /**
+     * Records the complete traversal of the descendants of a page, so that the export of the page does not list them again, e.g. after
+     * its validator was computed
+     *
+     * @param page              Traversed page
+     * @param structurePatterns Patterns the descendants were filtered with
+     * @param depth             Depth of the traversal
+     * @param pages             Descendants found by the traversal, in their order
+     */
+    public void putTraversal(@NotNull com.day.cq.wcm.api.Page page, @NotNull StructurePatterns structurePatterns, int depth,
+            @NotNull List<com.day.cq.wcm.api.Page> pages) {
+        traversals.put(getTraversalKey(page, structurePatterns, depth), new ArrayList<>(pages));
+    }
+
+    /**
+     * Returns the recorded traversal of the descendants of a page, see {@link #putTraversal(com.day.cq.wcm.api.Page, StructurePatterns,
+     * int, List)}
+     *
+     * @param page              Traversed page
+     * @param structurePatterns Patterns the descendants are filtered with
+     * @param depth             Depth of the traversal
+     * @return Copy of the descendants found by the traversal, or {@code null} if the page was not traversed with these patterns and depth
+     */
+    @Nullable
+    public List<com.day.cq.wcm.api.Page> getTraversal(@NotNull com.day.cq.wcm.api.Page page, @NotNull StructurePatterns structurePatterns,
+            int depth) {
+        List<com.day.cq.wcm.api.Page> pages = traversals.get(getTraversalKey(page, structurePatterns, depth));
+        return pages != null ? new ArrayList<>(pages) : null;
+    }
+
+    /**
+     * Sets compiled from the same expressions select the same pages, whichever engine matches them
+     */
+    private static String getTraversalKey(com.day.cq.wcm.api.Page page, StructurePatterns structurePatterns, int depth) {
+        StringBuilder key = new StringBuilder(page.getPath()).append(':').append(depth);
+        for (Pattern pattern : structurePatterns.getPatterns()) {
+            key.append(':').append(pattern.pattern());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Records a page or policy whose change changes the export
+     *
+     * @param path Path of the page or policy
+     */
+    public void addDependency(@NotNull String path) {
+        dependencies.add(path);
+    }
+
+    /**
+     * @return Paths of the pages and policies the export depends on, in the order they were recorded
+     */
+    @NotNull
+    public Set<String> getDependencies() {
+        return new LinkedHashSet<>(dependencies);
+    }
+
+    /**
+     * Computes a value outside of the map, so that computing it can use the context again, and keeps the first value computed
+     */
+    @Nullable
+    private static <T> T memoize(Map<String, Optional<T>> values, String key, Supplier<? extends T> supplier) {
+        Optional<T> value = values.get(key);
+        if (value == null) {
+            Optional<T> computed = Optional.ofNullable(supplier.get());
+            value = values.putIfAbsent(key, computed);
+            if (value == null) {
+                value = computed;
+            }
+        }
+        return value.orElse(null);
+    }
+
+    /**
+     * Exported descendants of a page
+     */
+    public static final class Descendants {
+
+        private final Map<String, ? extends Page> models;
+
+        private final boolean truncated;
+
+        private final String nextSelector;
+
+        private final ExportDelta delta;
+
+        private final Long watermark;
+
+        /**
+         * @param models       Descendant page models by page path
+         * @param truncated    Whether descendants were left out because the export exceeded its budget
+         * @param nextSelector Selectors of the next slice of descendants, or {@code null}
+         */
+        public Descendants(@NotNull Map<String, ? extends Page> models, boolean truncated, @Nullable String nextSelector) {
+            this(models, truncated, nextSelector, null, null);
+        }
+
+        /**
+         * @param models       Descendant page models by page path
+         * @param truncated    Whether descendants were left out because the export exceeded its budget
+         * @param nextSelector Selectors of the next slice of descendants, or {@code null}
+         * @param delta        Delta the descendants were exported for, or {@code null} if all descendants were exported
+         * @param watermark    Watermark of the export, see {@link ExportDelta#getWatermark(SlingHttpServletRequest)}, or {@code null}
+         */
+        public Descendants(@NotNull Map<String, ? extends Page> models, boolean truncated, @Nullable String nextSelector,
+                @Nullable ExportDelta delta, @Nullable Long watermark) {
+            this.models = models;
+            this.truncated = truncated;
+            this.nextSelector = nextSelector;
+            this.delta = delta;
+            this.watermark = watermark;
+        }
+
+        @NotNull
+        public Map<String, ? extends Page> getModels() {
+            return models;
+        }
+
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        @Nullable
+        public String getNextSelector() {
+            return nextSelector;
+        }
+
+        @Nullable
+        public ExportDelta getDelta() {
+            return delta;
+        }
+
+        @Nullable
+        public Long getWatermark() {
+            return watermark;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Timings of each descendant page of a traced hierarchy export, broken down by {@link Phase}. Pages are recorded by the request
+ * exporting them, in the order they are first timed.
+ */
+public final class HierarchyTrace {
+
+    /**
+     * Phases of the export of a descendant page
+     */
+    public enum Phase {
+
+        /**
+         * Lookup of the content resource of the page
+         */
+        RESOURCE("resource"),
+
+        /**
+         * Adaptation of the content resource to its templated resource
+         */
+        TEMPLATE("template"),
+
+        /**
+         * Adaptation of the page model
+         */
+        ADAPT("adapt"),
+
+        /**
+         * Serialization of the page model
+         */
+        SERIALIZE("serialize");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+
+        /**
+         * @return Name of the phase in the {@code Server-Timing} header
+         */
+        @NotNull
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private final Map<String, PageTiming> pages = new LinkedHashMap<>();
+
+    /**
+     * Adds the duration of a phase to the timing of a page
+     *
+     * @param pagePath      Path of the page
+     * @param phase         Phase of the export
+     * @param durationNanos Duration in nanoseconds
+     */
+    public void record(@NotNull String pagePath, @NotNull Phase phase, long durationNanos) {
+        pages.computeIfAbsent(pagePath, PageTiming::new).add(phase, durationNanos);
+    }
+
+    /**
+     * Returns the {@code Server-Timing} header value summing each phase over all pages, e.g.
+     * {@code resource;dur=1.2;desc="12 pages", adapt;dur=48.5;desc="12 pages"}. Phases which were not recorded are left out.
+     *
+     * @return Header value, empty if no page was recorded
+     */
+    @NotNull
+    public String getServerTiming() {
+        long[] totals = new long[Phase.values().length];
+        int[] counts = new int[Phase.values().length];
+        for (PageTiming page : pages.values()) {
+            for (Phase phase : Phase.values()) {
+                long nanos = page.getNanos(phase);
+                if (nanos >= 0) {
+                    totals[phase.ordinal()] += nanos;
+                    counts[phase.ordinal()]++;
+                }
+            }
+        }
+
+        StringBuilder header = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            if (counts[phase.ordinal()] > 0) {
+                if (header.length() > 0) {
+                    header.append(", ");
+                }
+                header.append(phase.getMetricName())
+                    .append(";dur=").append(formatMillis(totals[phase.ordinal()]))
+                    .append(";desc=\"").append(counts[phase.ordinal()]).append(" pages\"");
+            }
+        }
+        return header.toString();
+    }
+
+    /**
+     * @param limit Maximum number of pages
+     * @return Timings of the pages which took longest over all phases, the slowest first
+     */
+    @NotNull
+    public List<PageTiming> getSlowestPages(int limit) {
+        List<PageTiming> timings = new ArrayList<>(pages.values());
+        timings.sort(Comparator.comparingLong(PageTiming::getTotalNanos).reversed());
+        return timings.subList(0, Math.min(Math.max(limit, 0), timings.size()));
+    }
+
+    static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * Timing of a descendant page
+     */
+    public static final class PageTiming {
+
+        private final String path;
+
+        private final long[] nanos = new long[Phase.values().length];
+
+        private PageTiming(String path) {
+            this.path = path;
+            for (int i = 0; i < nanos.length; i++) {
+                nanos[i] = -1;
+            }
+        }
+
+        private void add(Phase phase, long durationNanos) {
+            long current = nanos[phase.ordinal()];
+            nanos[phase.ordinal()] = current < 0 ? durationNanos : current + durationNanos;
+        }
+
+        /**
+         * @return Path of the page
+         */
+        @NotNull
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @param phase Phase of the export
+         * @return Duration of the phase in nanoseconds, or {@code -1} if it was not recorded
+         */
+        public long getNanos(@NotNull Phase phase) {
+            return nanos[phase.ordinal()];
+        }
+
+        /**
+         * @return Duration of all phases in nanoseconds
+         */
+        public long getTotalNanos() {
+            long total = 0;
+            for (long phaseNanos : nanos) {
+                total += Math.max(phaseNanos, 0);
+            }
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder timing = new StringBuilder(path).append(": ").append(formatMillis(getTotalNanos())).append(" ms");
+            for (Phase phase : Phase.values()) {
+                if (nanos[phase.ordinal()] >= 0) {
+                    timing.append(", ").append(phase.getMetricName()).append(' ').append(formatMillis(nanos[phase.ordinal()]))
+                        .append(" ms");
+                }
+            }
+            return timing.toString();
+        }
+    }
+}
@@ -12,8 +12,10 @@
 
 package com.adobe.aem.spa.project.core.internal.impl.utils;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Calendar;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -24,6 +26,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.request.RequestParameter;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.api.wrappers.SlingHttpServletRequestWrapper;
 import org.apache.sling.models.factory.ModelFactory;
 import org.jetbrains.annotations.NotNull;
@@ -32,11 +36,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.HierarchyMetrics;
+import com.adobe.aem.spa.project.core.internal.PageModelFragmentCache;
+import com.adobe.aem.spa.project.core.internal.RootPageCache;
+import com.adobe.aem.spa.project.core.internal.StructurePatternsEngine;
 import com.adobe.aem.spa.project.core.internal.impl.ComponentContextRequestWrapper;
 import com.adobe.aem.spa.project.core.internal.impl.HierarchyComponentContextWrapper;
 import com.adobe.aem.spa.project.core.models.Page;
+import com.day.cq.wcm.api.PageManager;
 import com.day.cq.wcm.api.Template;
 import com.day.cq.wcm.api.TemplatedResource;
+import com.day.cq.wcm.api.WCMMode;
 import com.day.cq.wcm.api.components.ComponentContext;
 import com.day.cq.wcm.api.designer.Style;
 import com.day.cq.wcm.api.policies.ContentPolicy;
@@ -47,9 +58,7 @@ import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.ATTR_CO
 import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.ATTR_CURRENT_PAGE;
 import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.ATTR_HIERARCHY_ENTRY_POINT_PAGE;
 import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.ATTR_IS_CHILD_PAGE;
-import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.PN_IS_ROOT;
 import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.PN_STRUCTURE_PATTERNS;
-import static com.adobe.aem.spa.project.core.models.Page.PN_STRUCTURE_DEPTH;
 
 public class HierarchyUtils {
 
@@ -120,14 +129,18 @@ public class HierarchyUtils {
             return;
         }
 
+        String entryPointPath = entryPointPage.getPath();
+
         // Filter the root page
-        if (entryPointPage.getPath().equals(currentPage.getPath())) {
+        if (entryPointPath.equals(currentPage.getPath())) {
             return;
         }
 
-        // Filter duplicates
-        if (descendedPages.contains(entryPointPage)) {
-            return;
+        // Filter duplicates. Pages are compared by path as the entry point and the traversed pages are usually distinct instances
+        for (com.day.cq.wcm.api.Page descendedPage : descendedPages) {
+            if (entryPointPath.equals(descendedPage.getPath())) {
+                return;
+            }
         }
 
         descendedPages.add(entryPointPage);
@@ -137,75 +150,193 @@ public class HierarchyUtils {
      * Returns the page structure patterns to filter the descendants to be exported. The patterns can either be stored on the template
      * policy of the page or provided as a request parameter
      *
-     * @param request      Request
-     * @param currentStyle Current style
+     * @param request       Request
+     * @param currentStyle  Current style
+     * @param requestEngine Engine matching the patterns of the request parameter, usually the one of the
+     *                      {@link HierarchyExportSettings}
      * @return List of page structure patterns
+     * @throws java.util.regex.PatternSyntaxException If one of the patterns is invalid or not supported by the engine
      */
     @NotNull
-    public static List<Pattern> getStructurePatterns(@NotNull SlingHttpServletRequest request, Style currentStyle) {
-        RequestParameter pageFilterParameter = request.getRequestParameter(PN_STRUCTURE_PATTERNS.toLowerCase());
+    public static List<Pattern> getStructurePatterns(@NotNull SlingHttpServletRequest request, Style currentStyle,
+            @NotNull StructurePatternsEngine requestEngine) {
+        return getCompiledStructurePatterns(request, currentStyle, requestEngine).getPatterns();
+    }
 
-        String rawPageFilters = null;
+    /**
+     * Returns the compiled set of page structure patterns to filter the descendants to be exported, see
+     * {@link #getStructurePatterns(SlingHttpServletRequest, Style, StructurePatternsEngine)}. Patterns provided as request parameter are
+     * matched with the given engine, patterns of the template policy with {@link StructurePatternsEngine#REGEX}. Sets are cached by their
+     * raw value.
+     *
+     * @param request       Request
+     * @param currentStyle  Current style
+     * @param requestEngine Engine matching the patterns of the request parameter
+     * @return Compiled set of page structure patterns
+     * @throws java.util.regex.PatternSyntaxException If one of the patterns is invalid or not supported by the engine
+     */
+    @NotNull
+    public static StructurePatterns getCompiledStructurePatterns(@NotNull SlingHttpServletRequest request, Style currentStyle,
+            @NotNull StructurePatternsEngine requestEngine) {
+        RequestParameter pageFilterParameter = request.getRequestParameter(PN_STRUCTURE_PATTERNS.toLowerCase());
 
-        if (pageFilterParameter != null) {
-            rawPageFilters = pageFilterParameter.getString();
+        if (pageFilterParameter != null && StringUtils.isNotBlank(pageFilterParameter.getString())) {
+            return StructurePatterns.compile(pageFilterParameter.getString(), requestEngine);
         }
 
-        if (currentStyle != null && StringUtils.isBlank(rawPageFilters)) {
-            rawPageFilters = currentStyle.get(PN_STRUCTURE_PATTERNS, String.class);
+        return HierarchyPolicy.of(currentStyle).getStructurePatterns();
+    }
+
+    /**
+     * Returns the root page which the current page is part of
+     *
+     * @param resource    Resource
+     * @param currentPage Current page
+     * @return Root page
+     */
+    public static com.day.cq.wcm.api.Page getRootPage(Resource resource, com.day.cq.wcm.api.Page currentPage) {
+        ContentPolicyManager contentPolicyManager = resource.getResourceResolver().adaptTo(ContentPolicyManager.class);
+        if (contentPolicyManager == null) {
+            LOGGER.error("Error determining SPA root page: Cannot adapt resource resolver to ContentPolicyManager class");
+            return null;
         }
 
-        if (StringUtils.isBlank(rawPageFilters)) {
-            return Collections.emptyList();
+        com.day.cq.wcm.api.Page rootPage = findRootPage(currentPage, contentPolicyManager);
+        if (rootPage != null) {
+            LOGGER.debug("Found SPA root page: {}", rootPage.getPath());
+            return rootPage;
         }
 
-        String[] pageFilters = rawPageFilters.split(",");
+        // Root page not found
+        LOGGER.error("SPA root page not found, returning null");
+        return null;
+    }
 
-        List<Pattern> pageFilterPatterns = new ArrayList<>();
-        for (String pageFilter : pageFilters) {
-            pageFilterPatterns.add(Pattern.compile(pageFilter));
-        }
+    /**
+     * Returns the root page which a page is part of, see {@link #getRootPage(Resource, com.day.cq.wcm.api.Page)}. Pages which are not
+     * part of an SPA are expected, e.g. when looking up the roots of changed pages, and not logged.
+     *
+     * @param page                 Page
+     * @param contentPolicyManager Content policy manager
+     * @return Root page, or {@code null} if the page is not part of an SPA
+     */
+    @Nullable
+    public static com.day.cq.wcm.api.Page findRootPage(@Nullable com.day.cq.wcm.api.Page page,
+            @NotNull ContentPolicyManager contentPolicyManager) {
+        com.day.cq.wcm.api.Page tempRootPage = page;
+        while (tempRootPage != null) {
+            if (isRootPage(tempRootPage, contentPolicyManager)) {
+                return tempRootPage;
+            }
 
-        return pageFilterPatterns;
+            // Is not the root page to move up the tree
+            tempRootPage = tempRootPage.getParent();
+        }
+        return null;
     }
 
     /**
-     * Returns the root page which the current page is part of
+     * Returns the root page which the current page is part of, see {@link #getRootPage(Resource, com.day.cq.wcm.api.Page)}. The root
+     * page is looked up once per request and page, and only on the ancestors whose root is not cached.
      *
-     * @param resource    Resource
-     * @param currentPage Current page
+     * @param request       Request, whose {@link HierarchyRequestContext} remembers the root pages looked up
+     * @param resource      Resource
+     * @param currentPage   Current page
+     * @param rootPageCache Cache of the root pages, or {@code null} to look the root up on each request
      * @return Root page
      */
-    public static com.day.cq.wcm.api.Page getRootPage(Resource resource, com.day.cq.wcm.api.Page currentPage) {
-        com.day.cq.wcm.api.Page tempRootPage = currentPage;
+    @Nullable
+    public static com.day.cq.wcm.api.Page getRootPage(@NotNull SlingHttpServletRequest request, Resource resource,
+            com.day.cq.wcm.api.Page currentPage, @Nullable RootPageCache rootPageCache) {
+        return HierarchyRequestContext.get(request).getRootPage(currentPage.getPath(), () -> {
+            HierarchyMetrics metrics = HierarchyRequestContext.getMetrics(request);
+            Object event = HierarchyEvents.beginRootPageLookup();
+            long start = metrics != null ? System.nanoTime() : 0;
+            com.day.cq.wcm.api.Page rootPage = rootPageCache != null
+                ? getCachedRootPage(resource, currentPage, rootPageCache)
+                : getRootPage(resource, currentPage);
+            if (metrics != null) {
+                metrics.recordRootPageLookup(currentPage.getPath(), System.nanoTime() - start);
+            }
+            HierarchyEvents.commitRootPageLookup(event, currentPage.getPath(), rootPage != null ? rootPage.getPath() : null);
+            return rootPage;
+        });
+    }
 
+    /**
+     * Walks up from the current page until a root page or a page whose root is cached, and caches the root of all pages on the way. <br>
+     * The cache is shared by all users: that the pages have no root is only cached if the walk reached the top of the page tree, not a
+     * parent the requesting user cannot read.
+     */
+    @Nullable
+    private static com.day.cq.wcm.api.Page getCachedRootPage(Resource resource, com.day.cq.wcm.api.Page currentPage,
+            RootPageCache rootPageCache) {
         ContentPolicyManager contentPolicyManager = resource.getResourceResolver().adaptTo(ContentPolicyManager.class);
         if (contentPolicyManager == null) {
             LOGGER.error("Error determining SPA root page: Cannot adapt resource resolver to ContentPolicyManager class");
             return null;
         }
 
+        List<String> walkedPaths = new ArrayList<>();
+        com.day.cq.wcm.api.Page rootPage = null;
+        String rootPath = RootPageCache.NO_ROOT;
+
+        com.day.cq.wcm.api.Page tempRootPage = currentPage;
         while (tempRootPage != null) {
-            Template template = tempRootPage.getTemplate();
-            if (template != null && template.hasStructureSupport()) {
-                Resource pageContentResource = tempRootPage.getContentResource();
-                if (pageContentResource != null) {
-                    ContentPolicy contentPolicy = contentPolicyManager.getPolicy(pageContentResource);
-                    if (ContentPolicyUtils.propertyIsTrue(contentPolicy, PN_IS_ROOT)) {
-                        // Is the root page to return it
-                        LOGGER.debug("Found SPA root page: {}", tempRootPage.getPath());
-                        return tempRootPage;
-                    }
+            String cachedRootPath = rootPageCache.getRootPath(tempRootPage.getPath());
+            if (cachedRootPath != null) {
+                rootPath = cachedRootPath;
+                if (!cachedRootPath.equals(RootPageCache.NO_ROOT)) {
+                    PageManager pageManager = currentPage.getPageManager();
+                    // The page manager of the request only returns the root page if the user can read it
+                    rootPage = pageManager != null ? pageManager.getPage(cachedRootPath) : null;
                 }
+                break;
             }
 
-            // Is not the root page to move up the tree
-            tempRootPage = tempRootPage.getParent();
+            walkedPaths.add(tempRootPage.getPath());
+            if (isRootPage(tempRootPage, contentPolicyManager)) {
+                rootPage = tempRootPage;
+                rootPath = tempRootPage.getPath();
+                break;
+            }
+            com.day.cq.wcm.api.Page parent = tempRootPage.getParent();
+            if (parent == null && !isTopPage(tempRootPage, resource.getResourceResolver())) {
+                LOGGER.debug("SPA root page of {} not found, the parent of {} cannot be read", currentPage.getPath(),
+                    tempRootPage.getPath());
+                return null;
+            }
+            tempRootPage = parent;
         }
 
-        // Root page not found
-        LOGGER.error("SPA root page not found, returning null");
-        return null;
+        // All pages between the current page and its root share the root
+        for (String walkedPath : walkedPaths) {
+            rootPageCache.putRootPath(walkedPath, rootPath);
+        }
+
+        if (rootPage == null) {
+            LOGGER.debug("SPA root page of {} not found", currentPage.getPath());
+        }
+        return rootPage;
+    }
+
+    /**
+     * Returns whether a page without parent page is at the top of the page tree, rather than below a parent the resolver cannot read
+     */
+    private static boolean isTopPage(com.day.cq.wcm.api.Page page, ResourceResolver resolver) {
+        String parentPath = ResourceUtil.getParent(page.getPath());
+        return parentPath == null || resolver.getResource(parentPath) != null;
+    }
+
+    private static boolean isRootPage(com.day.cq.wcm.api.Page page, ContentPolicyManager contentPolicyManager) {
+        Template template = page.getTemplate();
+        if (template != null && template.hasStructureSupport()) {
+            Resource pageContentResource = page.getContentResource();
+            if (pageContentResource != null) {
+                return HierarchyPolicy.of(contentPolicyManager.getPolicy(pageContentResource)).isRoot();
+            }
+        }
+        return false;
     }
 
     /**
@@ -225,6 +356,40 @@ public class HierarchyUtils {
     @NotNull
     public static List<com.day.cq.wcm.api.Page> getDescendants(com.day.cq.wcm.api.Page page, SlingHttpServletRequest slingRequest,
             List<Pattern> structurePatterns, int depth) {
+        return getDescendants(page, slingRequest, StructurePatterns.of(structurePatterns), depth);
+    }
+
+    /**
+     * Traverses the tree of descendants of the page, see {@link #getDescendants(com.day.cq.wcm.api.Page, SlingHttpServletRequest, List,
+     * int)}. Subtrees in which the structure patterns cannot match any page are not listed.
+     *
+     * @param page              Page from which to extract descended pages
+     * @param slingRequest      Request
+     * @param structurePatterns Patterns to filter descended pages
+     * @param depth             Depth of the traversal
+     * @return Flat list of matching descendants
+     */
+    @NotNull
+    public static List<com.day.cq.wcm.api.Page> getDescendants(com.day.cq.wcm.api.Page page, SlingHttpServletRequest slingRequest,
+            @NotNull StructurePatterns structurePatterns, int depth) {
+        return getDescendants(page, slingRequest, structurePatterns, depth, HierarchyExportBudget.unlimited());
+    }
+
+    /**
+     * Traverses the tree of descendants of the page, see {@link #getDescendants(com.day.cq.wcm.api.Page, SlingHttpServletRequest,
+     * StructurePatterns, int)}. The traversal stops when the budget is exhausted, which marks it as truncated. The traversal is recorded
+     * in the {@link HierarchyMetrics} of the request, if any, and as a {@link HierarchyEvents} event.
+     *
+     * @param page              Page from which to extract descended pages
+     * @param slingRequest      Request
+     * @param structurePatterns Patterns to filter descended pages
+     * @param depth             Depth of the traversal
+     * @param budget            Budget of the export
+     * @return Flat list of matching descendants
+     */
+    @NotNull
+    public static List<com.day.cq.wcm.api.Page> getDescendants(com.day.cq.wcm.api.Page page, SlingHttpServletRequest slingRequest,
+            @NotNull StructurePatterns structurePatterns, int depth, @NotNull HierarchyExportBudget budget) {
         // By default the depth is 0 meaning we do not expose descendants
         // If the value is set as a positive number it is going to be exposed until the counter is brought down to 0
         // If the value is set to a negative value all descendants will be exposed (full traversal tree - aka infinity)
@@ -233,45 +398,120 @@ public class HierarchyUtils {
             return new ArrayList<>();
         }
 
-        List<com.day.cq.wcm.api.Page> pages = new ArrayList<>();
+        HierarchyMetrics metrics = HierarchyRequestContext.getMetrics(slingRequest);
+        Object event = HierarchyEvents.beginTraversal();
+        if (metrics == null && event == null) {
+            return traverseDescendants(page, structurePatterns, depth, budget, null);
+        }
+
+        TraversalCount count = new TraversalCount();
+        long start = System.nanoTime();
+        List<com.day.cq.wcm.api.Page> pages = traverseDescendants(page, structurePatterns, depth, budget, count);
+        if (metrics != null) {
+            metrics.recordTraversal(page.getPath(), count.visited, pages.size(), System.nanoTime() - start);
+        }
+        HierarchyEvents.commitTraversal(event, page.getPath(), count.visited, pages.size());
+        return pages;
+    }
+
+    private static List<com.day.cq.wcm.api.Page> traverseDescendants(com.day.cq.wcm.api.Page page,
+            @NotNull StructurePatterns structurePatterns, int depth, @NotNull HierarchyExportBudget budget,
+            @Nullable TraversalCount count) {
+        if (!structurePatterns.mayMatchBelow(page.getPath())) {
+            return new ArrayList<>();
+        }
+
         Iterator<com.day.cq.wcm.api.Page> childPagesIterator = page.listChildren();
 
         if (childPagesIterator == null || !childPagesIterator.hasNext()) {
             return new ArrayList<>();
         }
 
-        // we are about to explore one lower level down the tree
-        depth--;
+        List<com.day.cq.wcm.api.Page> pages = new ArrayList<>();
 
-        boolean noPageFilters = structurePatterns.isEmpty();
+        // Depth-first traversal with an explicit stack so that deep trees neither recurse nor copy intermediate lists. A page is
+        // added before its own children are pushed, which keeps the same pre-order as a recursive walk
+        Deque<TraversalLevel> levels = new ArrayDeque<>();
+        levels.push(new TraversalLevel(childPagesIterator, depth - 1));
 
-        while (childPagesIterator.hasNext()) {
-            com.day.cq.wcm.api.Page childPage = childPagesIterator.next();
-            boolean found = noPageFilters;
+        while (!levels.isEmpty()) {
+            TraversalLevel level = levels.peek();
 
-            for (Pattern pageFilterPattern : structurePatterns) {
-                if (pageFilterPattern.matcher(childPage.getPath()).find()) {
-                    found = true;
-                    break;
-                }
+            if (!level.children.hasNext()) {
+                levels.pop();
+                continue;
+            }
+
+            if (budget.isExpired()) {
+                budget.truncate();
+                break;
+            }
+
+            com.day.cq.wcm.api.Page childPage = level.children.next();
+            String childPath = childPage.getPath();
+            if (count != null) {
+                count.visited++;
             }
 
-            if (!found) {
+            if (!structurePatterns.matches(childPath)) {
                 continue;
             }
 
+            if (!budget.allowsDescendant(pages.size())) {
+                budget.truncate();
+                break;
+            }
+
             pages.add(childPage);
 
-            pages.addAll(getDescendants(childPage, slingRequest, structurePatterns, depth));
+            // we are about to explore one lower level down the tree, unless no page below could match the patterns
+            if (level.remainingDepth != 0 && structurePatterns.mayMatchBelow(childPath)) {
+                Iterator<com.day.cq.wcm.api.Page> grandChildrenIterator = childPage.listChildren();
+                if (grandChildrenIterator != null && grandChildrenIterator.hasNext()) {
+                    levels.push(new TraversalLevel(grandChildrenIterator, level.remainingDepth - 1));
+                }
+            }
         }
 
         return pages;
     }
 
+    /**
+     * One level of the descendants traversal: the pending children of a page and the depth still available below them
+     */
+    private static final class TraversalLevel {
+        private final Iterator<com.day.cq.wcm.api.Page> children;
+        private final int remainingDepth;
+
+        private TraversalLevel(Iterator<com.day.cq.wcm.api.Page> children, int remainingDepth) {
+            this.children = children;
+            this.remainingDepth = remainingDepth;
+        }
+    }
+
+    /**
+     * Number of pages visited by a traversal, counted while the export is measured or recorded
+     */
+    private static final class TraversalCount {
+        private int visited;
+    }
+
+    /**
+     * Adapts the model of a descendant page with the component context of the page. The request is expected to be flagged with
+     * {@link HierarchyConstants#ATTR_IS_CHILD_PAGE}, so that the model does not export descendants of its own.
+     *
+     * @param childPage    Descendant page
+     * @param request      Request
+     * @param modelFactory Model factory
+     * @return Model of the page, or {@code null} if the page has no content
+     */
     @Nullable
-    protected static Page getDescendantModel(com.day.cq.wcm.api.Page childPage, SlingHttpServletRequest request,
+    public static Page getDescendantModel(com.day.cq.wcm.api.Page childPage, SlingHttpServletRequest request,
             ModelFactory modelFactory) {
+        HierarchyTrace trace = HierarchyRequestContext.getTrace(request);
+        long start = trace != null ? System.nanoTime() : 0;
         Resource childPageContentResource = childPage.getContentResource();
+        start = tracePhase(trace, childPage, HierarchyTrace.Phase.RESOURCE, start);
 
         if (childPageContentResource == null) {
             return null;
@@ -279,6 +519,7 @@ public class HierarchyUtils {
 
         // Try to pass the templated content resource
         TemplatedResource templatedResource = childPageContentResource.adaptTo(TemplatedResource.class);
+        tracePhase(trace, childPage, HierarchyTrace.Phase.TEMPLATE, start);
 
         if (templatedResource != null) {
             childPageContentResource = templatedResource;
@@ -288,12 +529,48 @@ public class HierarchyUtils {
             new HierarchyComponentContextWrapper(WCMUtils.getComponentContext(request), childPage);
         final SlingHttpServletRequest wrapperRequest = new ComponentContextRequestWrapper(request, componentContextWrapper);
 
-        return modelFactory.getModelFromWrappedRequest(wrapperRequest, childPageContentResource, Page.class);
+        HierarchyMetrics metrics = HierarchyRequestContext.getMetrics(request);
+        Object event = HierarchyEvents.beginAdaptation();
+        if (metrics == null && trace == null && event == null) {
+            return modelFactory.getModelFromWrappedRequest(wrapperRequest, childPageContentResource, Page.class);
+        }
+
+        long adaptationStart = System.nanoTime();
+        Page model = modelFactory.getModelFromWrappedRequest(wrapperRequest, childPageContentResource, Page.class);
+        long adaptationNanos = System.nanoTime() - adaptationStart;
+        HierarchyEvents.commitAdaptation(event, childPage.getPath(), model != null);
+        if (metrics != null) {
+            metrics.recordAdaptation(childPage.getPath(), adaptationNanos);
+        }
+        if (trace != null) {
+            trace.record(childPage.getPath(), HierarchyTrace.Phase.ADAPT, adaptationNanos);
+        }
+        return model;
+    }
+
+    /**
+     * Records the duration of a phase since its start in the trace, if any
+     *
+     * @return End of the phase, the start of the next one
+     */
+    private static long tracePhase(@Nullable HierarchyTrace trace, com.day.cq.wcm.api.Page page, HierarchyTrace.Phase phase,
+            long start) {
+        if (trace == null) {
+            return 0;
+        }
+        long end = System.nanoTime();
+        trace.record(page.getPath(), phase, end - start);
+        return end;
     }
 
     /**
      * Returns all descended page models of the currentPage plus the entryPoint page (even if was excluded based on rules enforced by
-     * filterPatterns or traversalDepth)
+     * filterPatterns or traversalDepth). In skeleton mode, only the entryPoint page is adapted and the other descendants are exported as
+     * {@link SkeletonPageModel}s. <br>
+     * The export follows the {@link HierarchyExportOptions} of the {@link HierarchyRequestContext} of the request, if any: descendants
+     * which do not fit into the budget are left out, only the requested slice or delta of the descendants is exported and models whose
+     * JSON is cached are written from the cache instead of being adapted. The entry point page is added to the first slice and exported
+     * in any case.
      *
      * @param request      Request
      * @param currentPage  Current page
@@ -304,22 +581,54 @@ public class HierarchyUtils {
     @NotNull
     public static Map<String, Page> getDescendantsModels(SlingHttpServletRequest request, com.day.cq.wcm.api.Page currentPage,
             Style currentStyle, ModelFactory modelFactory) {
-        int pageTreeTraversalDepth = StyleUtils.getPageTreeDepth(currentStyle, PN_STRUCTURE_DEPTH);
+        HierarchyExportOptions options = HierarchyRequestContext.getExportOptions(request);
+        if (options == null) {
+            options = HierarchyExportOptions.of(HierarchyExportSettings.DEFAULT);
+        }
+        HierarchyExportSettings settings = options.getSettings();
+        HierarchyExportBudget budget = options.getBudget();
+        ChildrenSlice slice = options.getSlice();
+        PageModelFragmentCache fragmentCache = options.getFragmentCache();
+        ExportDelta delta = options.getDelta();
+
+        int pageTreeTraversalDepth = HierarchyPolicy.of(currentStyle).getDepth();
 
-        List<Pattern> pageFilterPatterns = HierarchyUtils.getStructurePatterns(request, currentStyle);
+        StructurePatterns pageFilterPatterns = HierarchyUtils.getCompiledStructurePatterns(request, currentStyle,
+            settings.getRequestPatternsEngine());
 
         // Setting the child page to true to prevent child pages to expose their own child pages
         Map<String, Page> itemWrappers = new LinkedHashMap<>();
-        List<com.day.cq.wcm.api.Page> descendants = HierarchyUtils.getDescendants(currentPage, request, pageFilterPatterns,
-            pageTreeTraversalDepth);
+        List<com.day.cq.wcm.api.Page> descendants = getTraversedDescendants(currentPage, request, pageFilterPatterns,
+            pageTreeTraversalDepth, budget);
+
+        if (delta != null) {
+            descendants = delta.apply(request, descendants);
+        }
+
+        if (slice != null) {
+            descendants = slice.apply(descendants);
+        }
 
-        HierarchyUtils.addEntryPointPage(request, currentPage, descendants);
+        if (slice == null || slice.isFirst()) {
+            HierarchyUtils.addEntryPointPage(request, currentPage, descendants);
+        }
+        String entryPointPath = getEntryPointPath(request);
+        descendants = limitModels(descendants, entryPointPath, budget);
+        addDependencies(request, currentPage, descendants);
 
         // Add a flag to inform the model of the descendant page that it is not the root of the returned hierarchy
         request.setAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE, true);
 
+        if (SkeletonPageModel.isRequested(request, currentStyle)) {
+            return getSkeletonDescendantsModels(request, descendants, modelFactory, entryPointPath, fragmentCache);
+        }
+
+        if (settings.isLazyAdaptation()) {
+            return getLazyDescendantsModels(request, descendants, modelFactory, fragmentCache);
+        }
+
         for (com.day.cq.wcm.api.Page childPage : descendants) {
-            Page descendantModel = getDescendantModel(childPage, request, modelFactory);
+            Page descendantModel = getDescendantModel(childPage, request, modelFactory, entryPointPath, budget, fragmentCache);
             if (descendantModel != null) {
                 itemWrappers.put(childPage.getPath(), descendantModel);
             }
@@ -327,4 +636,183 @@ public class HierarchyUtils {
 
         return itemWrappers;
     }
+
+    /**
+     * Reuses the traversal of the descendants recorded in the {@link HierarchyRequestContext}, e.g. by the {@link HierarchyValidator} of
+     * the request, or traverses them
+     */
+    private static List<com.day.cq.wcm.api.Page> getTraversedDescendants(com.day.cq.wcm.api.Page currentPage,
+            SlingHttpServletRequest request, StructurePatterns structurePatterns, int depth, HierarchyExportBudget budget) {
+        if (currentPage != null && !Boolean.TRUE.equals(request.getAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE))) {
+            List<com.day.cq.wcm.api.Page> traversed = HierarchyRequestContext.get(request).getTraversal(currentPage, structurePatterns,
+                depth);
+            if (traversed != null) {
+                return traversed;
+            }
+        }
+        return getDescendants(currentPage, request, structurePatterns, depth, budget);
+    }
+
+    /**
+     * Records the exported page, its policy and its exported descendants as dependencies of the export
+     */
+    private static void addDependencies(SlingHttpServletRequest request, com.day.cq.wcm.api.Page currentPage,
+            List<com.day.cq.wcm.api.Page> descendants) {
+        HierarchyRequestContext context = HierarchyRequestContext.get(request);
+        context.addDependency(currentPage.getPath());
+
+        ContentPolicyManager policyManager = request.getResourceResolver().adaptTo(ContentPolicyManager.class);
+        Resource contentResource = currentPage.getContentResource();
+        ContentPolicy policy = policyManager != null && contentResource != null ? policyManager.getPolicy(contentResource) : null;
+        if (policy != null) {
+            context.addDependency(policy.getPath());
+        }
+
+        for (com.day.cq.wcm.api.Page descendant : descendants) {
+            context.addDependency(descendant.getPath());
+        }
+    }
+
+    /**
+     * Returns the map of the descendant page models which adapts each model when it is read. Pages without content, which have no
+     * model, are left out upfront.
+     */
+    private static Map<String, Page> getLazyDescendantsModels(SlingHttpServletRequest request,
+            List<com.day.cq.wcm.api.Page> descendants, ModelFactory modelFactory, @Nullable PageModelFragmentCache fragmentCache) {
+        List<com.day.cq.wcm.api.Page> pages = new ArrayList<>(descendants.size());
+        for (com.day.cq.wcm.api.Page descendant : descendants) {
+            if (descendant.getContentResource() != null) {
+                pages.add(descendant);
+            }
+        }
+        return new LazyPageModelMap(pages, page -> getDescendantModel(page, request, modelFactory, fragmentCache));
+    }
+
+    /**
+     * Returns the skeletons of the descendant pages, see {@link SkeletonPageModel}. Only the entry point page is adapted to its full
+     * model, since skeletons cost no adaptation it does not need the budget.
+     */
+    private static Map<String, Page> getSkeletonDescendantsModels(SlingHttpServletRequest request,
+            List<com.day.cq.wcm.api.Page> descendants, ModelFactory modelFactory, @Nullable String entryPointPath,
+            @Nullable PageModelFragmentCache fragmentCache) {
+        Map<String, Page> models = new LinkedHashMap<>();
+        for (com.day.cq.wcm.api.Page descendant : descendants) {
+            Page model = descendant.getPath().equals(entryPointPath)
+                ? getDescendantModel(descendant, request, modelFactory, fragmentCache)
+                : SkeletonPageModel.of(descendant, request);
+            if (model != null) {
+                models.put(descendant.getPath(), model);
+            }
+        }
+        return models;
+    }
+
+    @Nullable
+    private static String getEntryPointPath(SlingHttpServletRequest request) {
+        com.day.cq.wcm.api.Page entryPointPage = getEntryPoint(request);
+        return entryPointPage != null ? entryPointPage.getPath() : null;
+    }
+
+    /**
+     * Keeps as many descendants as the budget allows models, in their order. The entry point page is kept in any case, in place of the
+     * last descendant that would fit otherwise.
+     */
+    private static List<com.day.cq.wcm.api.Page> limitModels(List<com.day.cq.wcm.api.Page> descendants, @Nullable String entryPointPath,
+            HierarchyExportBudget budget) {
+        if (budget.allowsModel(descendants.size() - 1)) {
+            return descendants;
+        }
+
+        boolean hasEntryPoint = false;
+        for (com.day.cq.wcm.api.Page descendant : descendants) {
+            hasEntryPoint |= descendant.getPath().equals(entryPointPath);
+        }
+
+        List<com.day.cq.wcm.api.Page> models = new ArrayList<>();
+        int reserved = hasEntryPoint ? 1 : 0;
+        for (com.day.cq.wcm.api.Page descendant : descendants) {
+            if (descendant.getPath().equals(entryPointPath)) {
+                models.add(descendant);
+                reserved = 0;
+            } else if (budget.allowsModel(models.size() + reserved)) {
+                models.add(descendant);
+            }
+        }
+
+        budget.truncate();
+        return models;
+    }
+
+    /**
+     * Adapts the model of a descendant unless the time of the export is over. The model of the entry point page is adapted in any
+     * case.
+     */
+    @Nullable
+    private static Page getDescendantModel(com.day.cq.wcm.api.Page childPage, SlingHttpServletRequest request, ModelFactory modelFactory,
+            @Nullable String entryPointPath, HierarchyExportBudget budget, @Nullable PageModelFragmentCache fragmentCache) {
+        if (!childPage.getPath().equals(entryPointPath) && budget.isExpired()) {
+            budget.truncate();
+            return null;
+        }
+        return getDescendantModel(childPage, request, modelFactory, fragmentCache);
+    }
+
+    /**
+     * Returns the model of a descendant backed by the fragment cache, without adapting it if its JSON is cached. Pages whose variant
+     * cannot be determined are adapted as without cache. The serialization of the model is timed when the export is traced.
+     */
+    @Nullable
+    private static Page getDescendantModel(com.day.cq.wcm.api.Page childPage, SlingHttpServletRequest request, ModelFactory modelFactory,
+            @Nullable PageModelFragmentCache fragmentCache) {
+        Page model = getCachedDescendantModel(childPage, request, modelFactory, fragmentCache);
+        HierarchyTrace trace = HierarchyRequestContext.getTrace(request);
+        return trace != null && model != null ? new TracedPageModel(model, trace, childPage.getPath()) : model;
+    }
+
+    @Nullable
+    private static Page getCachedDescendantModel(com.day.cq.wcm.api.Page childPage, SlingHttpServletRequest request,
+            ModelFactory modelFactory, @Nullable PageModelFragmentCache fragmentCache) {
+        String variant = fragmentCache != null ? getFragmentVariant(childPage, request) : null;
+        if (variant == null) {
+            return getDescendantModel(childPage, request, modelFactory);
+        }
+
+        String pagePath = childPage.getPath();
+        String json = fragmentCache.get(pagePath, variant);
+        if (json != null) {
+            return CachedPageModel.fromFragment(json, () -> getDescendantModel(childPage, request, modelFactory), fragmentCache,
+                pagePath, variant);
+        }
+
+        Page descendantModel = getDescendantModel(childPage, request, modelFactory);
+        return descendantModel != null ? CachedPageModel.fromModel(descendantModel, fragmentCache, pagePath, variant) : null;
+    }
+
+    /**
+     * Returns the variant of the cached JSON of a page model: the last modification of the page, its policy, the selectors, the WCM
+     * mode, the host and the user of the request
+     *
+     * @return Variant of the model, or {@code null} if the page has no content or was never modified
+     */
+    @Nullable
+    static String getFragmentVariant(com.day.cq.wcm.api.Page page, SlingHttpServletRequest request) {
+        Resource contentResource = page.getContentResource();
+        Calendar lastModified = page.getLastModified();
+        if (contentResource == null || lastModified == null) {
+            return null;
+        }
+
+        ResourceResolver resourceResolver = request.getResourceResolver();
+        ContentPolicyManager policyManager = resourceResolver.adaptTo(ContentPolicyManager.class);
+        ContentPolicy policy = policyManager != null ? policyManager.getPolicy(contentResource) : null;
+
+        return StringUtils.join(new Object[] {
+            lastModified.getTimeInMillis(),
+            policy != null ? policy.getPath() : "",
+            StringUtils.defaultString(request.getRequestPathInfo().getSelectorString()),
+            WCMMode.fromRequest(request),
+            request.getServerName(),
+            resourceResolver.getUserID()
+        }, '\n');
+    }
 }
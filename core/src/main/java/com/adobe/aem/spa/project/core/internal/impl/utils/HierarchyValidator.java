@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Calendar;
+import java.util.List;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.day.cq.replication.ReplicationStatus;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+import com.day.cq.wcm.api.policies.ContentPolicyManager;
+
+/**
+ * Aggregate validator of the model JSON export of a page and of the descendants it embeds: the latest modification or replication time
+ * of the pages and of their policies, and a digest of the paths, modification and replication times of all included pages. <br>
+ * Only the entity tag reflects the removal, move or reordering of a descendant, which leaves the latest modification time unchanged. <br>
+ * The validator is computed from the pages the export includes, without adapting their models, so that conditional requests can be
+ * answered before the export starts. The traversal of the descendants is kept in the {@link HierarchyRequestContext} of the request,
+ * so that the export does not list them again.
+ */
+public final class HierarchyValidator {
+
+    private final MessageDigest digest;
+
+    private long lastModified;
+
+    private boolean complete = true;
+
+    private String eTag;
+
+    private HierarchyValidator() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Computes the validator of the export of a page, including the descendants selected by its policy, the request parameters and the
+     * children slice selector like {@link HierarchyUtils#getDescendantsModels(SlingHttpServletRequest, com.day.cq.wcm.api.Page,
+     * com.day.cq.wcm.api.designer.Style, org.apache.sling.models.factory.ModelFactory)}.
+     *
+     * @param request       Request of the export
+     * @param page          Exported page
+     * @param settings      Settings of the hierarchy export
+     * @return Validator of the export, or {@code null} if the modification time of an included page is unknown or the descendants
+     *         cannot be listed within the budget of the export
+     * @throws java.util.regex.PatternSyntaxException If the structure patterns of the request cannot be compiled
+     */
+    @Nullable
+    public static HierarchyValidator compute(@NotNull SlingHttpServletRequest request, @NotNull com.day.cq.wcm.api.Page page,
+            @NotNull HierarchyExportSettings settings) {
+        ContentPolicyManager policyManager = request.getResourceResolver().adaptTo(ContentPolicyManager.class);
+        ContentPolicy pagePolicy = getPolicy(policyManager, page);
+        HierarchyPolicy hierarchyPolicy = HierarchyPolicy.of(pagePolicy);
+
+        HierarchyValidator validator = new HierarchyValidator();
+        validator.add(page, pagePolicy);
+
+        StructurePatterns structurePatterns = HierarchyUtils.getCompiledStructurePatterns(request, null,
+            settings.getRequestPatternsEngine());
+        if (structurePatterns.isEmpty()) {
+            structurePatterns = hierarchyPolicy.getStructurePatterns();
+        }
+
+        HierarchyExportBudget budget = HierarchyExportBudget.start(settings);
+        // The watermark of a delta export precedes this traversal, which the export reuses
+        HierarchyRequestContext.get(request).markTraversalStart();
+        List<com.day.cq.wcm.api.Page> descendants = HierarchyUtils.getDescendants(page, request, structurePatterns,
+            hierarchyPolicy.getDepth(), budget);
+        if (budget.isTruncated()) {
+            return null;
+        }
+        // The export of the page lists the same descendants
+        HierarchyRequestContext.get(request).putTraversal(page, structurePatterns, hierarchyPolicy.getDepth(), descendants);
+
+        ChildrenSlice slice = ChildrenSlice.fromSelectors(request.getRequestPathInfo().getSelectors());
+        if (slice != null) {
+            descendants = slice.apply(descendants);
+            // Whether a next slice follows is part of the export
+            validator.update(":next\t" + slice.getNextSelector());
+        }
+
+        for (com.day.cq.wcm.api.Page descendant : descendants) {
+            validator.add(descendant, getPolicy(policyManager, descendant));
+        }
+
+        if (!validator.complete) {
+            return null;
+        }
+        validator.eTag = "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(validator.digest.digest()) + "\"";
+        return validator;
+    }
+
+    /**
+     * @return Latest modification or replication time of the included pages and their policies, in milliseconds. It does not change when
+     *         a descendant is removed, moved or reordered.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return Weak entity tag of the export
+     */
+    @NotNull
+    public String getETag() {
+        return eTag;
+    }
+
+    private void add(@NotNull com.day.cq.wcm.api.Page page, @Nullable ContentPolicy policy) {
+        Calendar pageModified = page.getLastModified();
+        if (pageModified == null) {
+            complete = false;
+            return;
+        }
+
+        long policyModified = 0;
+        if (policy != null && policy.getLastModified() != null) {
+            policyModified = policy.getLastModified().getTimeInMillis();
+        }
+
+        long pageReplicated = getLastReplicated(page);
+
+        update(page.getPath() + '\t' + pageModified.getTimeInMillis() + '\t' + pageReplicated + '\t'
+            + (policy != null ? policy.getPath() : "") + '\t' + policyModified);
+        lastModified = Math.max(lastModified, Math.max(Math.max(pageModified.getTimeInMillis(), pageReplicated), policyModified));
+    }
+
+    private static long getLastReplicated(@NotNull com.day.cq.wcm.api.Page page) {
+        ValueMap properties = page.getProperties();
+        Calendar lastReplicated = properties != null
+            ? properties.get(ReplicationStatus.NODE_PROPERTY_LAST_REPLICATED, Calendar.class) : null;
+        return lastReplicated != null ? lastReplicated.getTimeInMillis() : 0;
+    }
+
+    private void update(@NotNull String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+
+    @Nullable
+    private static ContentPolicy getPolicy(@Nullable ContentPolicyManager policyManager, @NotNull com.day.cq.wcm.api.Page page) {
+        Resource contentResource = page.getContentResource();
+        return policyManager != null && contentResource != null ? policyManager.getPolicy(contentResource) : null;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.adobe.aem.spa.project.core.models.Page;
+
+/**
+ * Unmodifiable map of page models by page path which adapts a model only when its value is read, and does not keep it. <br>
+ * While the map is serialized, each model is adapted right before it is written and can be collected right after, instead of all models
+ * of the hierarchy being held until the response is complete. Reading a value again adapts the model again.
+ */
+public final class LazyPageModelMap extends AbstractMap<String, Page> {
+
+    private final List<com.day.cq.wcm.api.Page> pages;
+
+    private final Function<com.day.cq.wcm.api.Page, Page> adapter;
+
+    private final Set<Map.Entry<String, Page>> entrySet = new EntrySet();
+
+    /**
+     * @param pages   Pages whose models are the values of the map, in the order of the map
+     * @param adapter Function adapting the model of a page
+     */
+    public LazyPageModelMap(@NotNull List<com.day.cq.wcm.api.Page> pages, @NotNull Function<com.day.cq.wcm.api.Page, Page> adapter) {
+        this.pages = new ArrayList<>(pages);
+        this.adapter = adapter;
+    }
+
+    @NotNull
+    @Override
+    public Set<Map.Entry<String, Page>> entrySet() {
+        return entrySet;
+    }
+
+    @Override
+    public int size() {
+        return pages.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        for (com.day.cq.wcm.api.Page page : pages) {
+            if (page.getPath().equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Page>> {
+
+        @NotNull
+        @Override
+        public Iterator<Map.Entry<String, Page>> iterator() {
+            Iterator<com.day.cq.wcm.api.Page> pageIterator = pages.iterator();
+            return new Iterator<Map.Entry<String, Page>>() {
+                @Override
+                public boolean hasNext() {
+                    return pageIterator.hasNext();
+                }
+
+                @Override
+                public Map.Entry<String, Page> next() {
+                    return new LazyEntry(pageIterator.next());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return pages.size();
+        }
+    }
+
+    /**
+     * Entry adapting the model on the first read of its value. Entries are created for each iteration, so the model is held only as
+     * long as the entry is.
+     */
+    private final class LazyEntry implements Map.Entry<String, Page> {
+
+        private final com.day.cq.wcm.api.Page page;
+
+        private Page model;
+
+        private boolean adapted;
+
+        private LazyEntry(com.day.cq.wcm.api.Page page) {
+            this.page = page;
+        }
+
+        @Override
+        public String getKey() {
+            return page.getPath();
+        }
+
+        @Override
+        public Page getValue() {
+            if (!adapted) {
+                model = adapter.apply(page);
+                adapted = true;
+            }
+            return model;
+        }
+
+        @Override
+        public Page setValue(Page value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            Page value = getValue();
+            return getKey().equals(other.getKey()) && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Page value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+    }
+}
@@ -0,0 +1,709 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.regex.PatternSyntaxException;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Regular expression matcher which never backtracks: the expression is compiled to a Thompson NFA that is simulated over the input
+ * in a single pass, so a search takes time proportional to the length of the input times the size of the expression. <br>
+ * It supports the subset of the {@link java.util.regex.Pattern} syntax used to filter page paths, with the same meaning:
+ * <ul>
+ * <li>literals, escaped metacharacters and {@code \t \n \r \f}</li>
+ * <li>{@code .}, character classes with ranges and negation, {@code \d \D \w \W \s \S}</li>
+ * <li>{@code ^} and {@code $} anchors (without the multiline flag)</li>
+ * <li>capturing, non-capturing and named groups, alternations</li>
+ * <li>greedy and reluctant quantifiers {@code * + ? {n} {n,} {n,m}}</li>
+ * </ul>
+ * Anything else (back references, look-arounds, inline flags, possessive quantifiers, ...) and expressions compiling to more than
+ * {@link #MAX_INSTRUCTIONS} instructions are rejected with a {@link PatternSyntaxException}.
+ */
+public final class LinearPattern {
+
+    /**
+     * Maximum number of instructions of a compiled expression, which bounds the cost of matching one character
+     */
+    static final int MAX_INSTRUCTIONS = 2000;
+
+    /**
+     * Maximum nesting of groups
+     */
+    static final int MAX_GROUP_DEPTH = 50;
+
+    private static final int OP_CHAR = 0;
+    private static final int OP_SPLIT = 1;
+    private static final int OP_JUMP = 2;
+    private static final int OP_BEGIN = 3;
+    private static final int OP_END = 4;
+    private static final int OP_MATCH = 5;
+
+    private static final IntPredicate DIGIT = c -> c >= '0' && c <= '9';
+    private static final IntPredicate WORD = c -> DIGIT.test(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    private static final IntPredicate SPACE = c -> c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    private static final IntPredicate ANY = c -> !isLineTerminator(c);
+
+    private final String pattern;
+
+    private final int[] operations;
+    private final int[] firstArguments;
+    private final int[] secondArguments;
+    private final IntPredicate[] predicates;
+
+    private LinearPattern(String pattern, Program program) {
+        this.pattern = pattern;
+        int size = program.size();
+        this.operations = new int[size];
+        this.firstArguments = new int[size];
+        this.secondArguments = new int[size];
+        this.predicates = new IntPredicate[size];
+        for (int pc = 0; pc < size; pc++) {
+            Instruction instruction = program.instructions.get(pc);
+            operations[pc] = instruction.operation;
+            firstArguments[pc] = instruction.first;
+            secondArguments[pc] = instruction.second;
+            predicates[pc] = instruction.predicate;
+        }
+    }
+
+    /**
+     * Compiles a regular expression
+     *
+     * @param regex Regular expression
+     * @return Compiled expression
+     * @throws PatternSyntaxException If the expression is invalid, uses unsupported constructs or is too complex
+     */
+    @NotNull
+    public static LinearPattern compile(@NotNull String regex) {
+        List<String> regexes = new ArrayList<>(1);
+        regexes.add(regex);
+        return compile(regexes);
+    }
+
+    /**
+     * Compiles several regular expressions into one expression which is found wherever one of them is found
+     *
+     * @param regexes Regular expressions
+     * @return Compiled alternation of the expressions
+     * @throws PatternSyntaxException If one of the expressions is invalid, uses unsupported constructs or the alternation is too
+     *                                complex
+     */
+    @NotNull
+    public static LinearPattern compile(@NotNull List<String> regexes) {
+        List<Node> alternatives = new ArrayList<>(regexes.size());
+        for (String regex : regexes) {
+            alternatives.add(new Parser(regex).parse());
+        }
+        Node root = alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+
+        String pattern = String.join("|", regexes);
+        Program program = new Program(pattern);
+        root.emit(program);
+        program.add(new Instruction(OP_MATCH));
+        return new LinearPattern(pattern, program);
+    }
+
+    /**
+     * @return The source of the expression
+     */
+    @NotNull
+    public String pattern() {
+        return pattern;
+    }
+
+    /**
+     * Searches the expression in the input, like {@link java.util.regex.Matcher#find()}
+     *
+     * @param input Input
+     * @return {@code true} if a subsequence of the input matches the expression
+     */
+    public boolean find(@NotNull CharSequence input) {
+        int size = operations.length;
+        int length = input.length();
+        ThreadList current = new ThreadList(size);
+        ThreadList next = new ThreadList(size);
+        // Every instruction enters a closure at most once and pushes at most two successors
+        int[] stack = new int[2 * size + 1];
+
+        // The search is unanchored: a new thread starts at every position
+        if (addThread(current, 0, input, 0, stack)) {
+            return true;
+        }
+
+        int position = 0;
+        while (position < length) {
+            int codePoint = Character.codePointAt(input, position);
+            int nextPosition = position + Character.charCount(codePoint);
+            next.clear();
+
+            for (int index = 0; index < current.size; index++) {
+                int pc = current.threads[index];
+                if (operations[pc] == OP_CHAR && predicates[pc].test(codePoint)
+                    && addThread(next, pc + 1, input, nextPosition, stack)) {
+                    return true;
+                }
+            }
+
+            if (addThread(next, 0, input, nextPosition, stack)) {
+                return true;
+            }
+
+            ThreadList swap = current;
+            current = next;
+            next = swap;
+            position = nextPosition;
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds the thread and all threads reachable from it without consuming input to the list
+     *
+     * @return {@code true} if the match instruction is reachable
+     */
+    private boolean addThread(ThreadList list, int startPc, CharSequence input, int position, int[] stack) {
+        int top = 0;
+        stack[top++] = startPc;
+
+        while (top > 0) {
+            int pc = stack[--top];
+            if (!list.add(pc)) {
+                continue;
+            }
+
+            switch (operations[pc]) {
+                case OP_MATCH:
+                    return true;
+                case OP_JUMP:
+                    stack[top++] = firstArguments[pc];
+                    break;
+                case OP_SPLIT:
+                    // Pushed in reverse so that the preferred branch is followed first
+                    stack[top++] = secondArguments[pc];
+                    stack[top++] = firstArguments[pc];
+                    break;
+                case OP_BEGIN:
+                    if (position == 0) {
+                        stack[top++] = pc + 1;
+                    }
+                    break;
+                case OP_END:
+                    if (isEnd(input, position)) {
+                        stack[top++] = pc + 1;
+                    }
+                    break;
+                default:
+                    // Character instructions wait for the next input character
+                    break;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * {@code $} matches at the end of the input and before a final line terminator
+     */
+    private static boolean isEnd(CharSequence input, int position) {
+        int length = input.length();
+        if (position == length) {
+            return true;
+        }
+        if (position == length - 1) {
+            return isLineTerminator(input.charAt(position));
+        }
+        return position == length - 2 && input.charAt(position) == '\r' && input.charAt(position + 1) == '\n';
+    }
+
+    private static boolean isLineTerminator(int c) {
+        return c == '\n' || c == '\r' || c == 0x85 || c == 0x2028 || c == 0x2029;
+    }
+
+    /**
+     * Set of instruction addresses with constant time insertion and reset
+     */
+    private static final class ThreadList {
+        private final int[] threads;
+        private final boolean[] contained;
+        private int size;
+
+        private ThreadList(int capacity) {
+            this.threads = new int[capacity];
+            this.contained = new boolean[capacity];
+        }
+
+        private boolean add(int pc) {
+            if (contained[pc]) {
+                return false;
+            }
+            contained[pc] = true;
+            threads[size++] = pc;
+            return true;
+        }
+
+        private void clear() {
+            for (int index = 0; index < size; index++) {
+                contained[threads[index]] = false;
+            }
+            size = 0;
+        }
+    }
+
+    private static final class Instruction {
+        private final int operation;
+        private final IntPredicate predicate;
+        private int first;
+        private int second;
+
+        private Instruction(int operation) {
+            this(operation, null);
+        }
+
+        private Instruction(int operation, IntPredicate predicate) {
+            this.operation = operation;
+            this.predicate = predicate;
+        }
+    }
+
+    private static final class Program {
+        private final String pattern;
+        private final List<Instruction> instructions = new ArrayList<>();
+
+        private Program(String pattern) {
+            this.pattern = pattern;
+        }
+
+        private Instruction add(Instruction instruction) {
+            if (instructions.size() >= MAX_INSTRUCTIONS) {
+                throw new PatternSyntaxException("Pattern is too complex", pattern, -1);
+            }
+            instructions.add(instruction);
+            return instruction;
+        }
+
+        private int size() {
+            return instructions.size();
+        }
+    }
+
+    private interface Node {
+        void emit(Program program);
+    }
+
+    private static final class CharacterNode implements Node {
+        private final IntPredicate predicate;
+
+        private CharacterNode(IntPredicate predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void emit(Program program) {
+            program.add(new Instruction(OP_CHAR, predicate));
+        }
+    }
+
+    private static final class AssertionNode implements Node {
+        private final int operation;
+
+        private AssertionNode(int operation) {
+            this.operation = operation;
+        }
+
+        @Override
+        public void emit(Program program) {
+            program.add(new Instruction(operation));
+        }
+    }
+
+    private static final class Sequence implements Node {
+        private final List<Node> nodes;
+
+        private Sequence(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public void emit(Program program) {
+            for (Node node : nodes) {
+                node.emit(program);
+            }
+        }
+    }
+
+    private static final class Alternation implements Node {
+        private final List<Node> alternatives;
+
+        private Alternation(List<Node> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        public void emit(Program program) {
+            List<Instruction> jumps = new ArrayList<>();
+            for (int index = 0; index < alternatives.size(); index++) {
+                Instruction split = null;
+                if (index < alternatives.size() - 1) {
+                    split = program.add(new Instruction(OP_SPLIT));
+                    split.first = program.size();
+                }
+                alternatives.get(index).emit(program);
+                if (split != null) {
+                    jumps.add(program.add(new Instruction(OP_JUMP)));
+                    split.second = program.size();
+                }
+            }
+            for (Instruction jump : jumps) {
+                jump.first = program.size();
+            }
+        }
+    }
+
+    private static final class Repetition implements Node {
+        private final Node node;
+        private final int min;
+
+        /**
+         * Maximum number of repetitions, negative if unbounded
+         */
+        private final int max;
+
+        private Repetition(Node node, int min, int max) {
+            this.node = node;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public void emit(Program program) {
+            for (int count = 0; count < min; count++) {
+                node.emit(program);
+            }
+
+            if (max < 0) {
+                int loop = program.size();
+                Instruction split = program.add(new Instruction(OP_SPLIT));
+                split.first = program.size();
+                node.emit(program);
+                program.add(new Instruction(OP_JUMP)).first = loop;
+                split.second = program.size();
+                return;
+            }
+
+            List<Instruction> splits = new ArrayList<>();
+            for (int count = min; count < max; count++) {
+                Instruction split = program.add(new Instruction(OP_SPLIT));
+                split.first = program.size();
+                splits.add(split);
+                node.emit(program);
+            }
+            for (Instruction split : splits) {
+                split.second = program.size();
+            }
+        }
+    }
+
+    /**
+     * Recursive descent parser of the supported syntax
+     */
+    private static final class Parser {
+        private final String regex;
+        private int index;
+        private int depth;
+
+        private Parser(String regex) {
+            this.regex = regex;
+        }
+
+        private Node parse() {
+            Node node = parseAlternation();
+            if (index < regex.length()) {
+                throw error("Unmatched closing ')'");
+            }
+            return node;
+        }
+
+        private Node parseAlternation() {
+            List<Node> alternatives = new ArrayList<>();
+            alternatives.add(parseSequence());
+            while (peek('|')) {
+                index++;
+                alternatives.add(parseSequence());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+        }
+
+        private Node parseSequence() {
+            List<Node> nodes = new ArrayList<>();
+            while (index < regex.length() && !peek('|') && !peek(')')) {
+                nodes.add(parseQuantified(parseAtom()));
+            }
+            return new Sequence(nodes);
+        }
+
+        private Node parseQuantified(Node atom) {
+            if (index >= regex.length()) {
+                return atom;
+            }
+
+            int min;
+            int max;
+            char current = regex.charAt(index);
+            if (current == '*') {
+                min = 0;
+                max = -1;
+                index++;
+            } else if (current == '+') {
+                min = 1;
+                max = -1;
+                index++;
+            } else if (current == '?') {
+                min = 0;
+                max = 1;
+                index++;
+            } else if (current == '{') {
+                index++;
+                min = parseNumber();
+                max = min;
+                if (peek(',')) {
+                    index++;
+                    max = peek('}') ? -1 : parseNumber();
+                }
+                if (!peek('}')) {
+                    throw error("Unclosed counted closure");
+                }
+                index++;
+                if (max >= 0 && max < min) {
+                    throw error("Illegal repetition range");
+                }
+            } else {
+                return atom;
+            }
+
+            if (peek('?')) {
+                // Reluctant quantifiers find the same matches
+                index++;
+            } else if (peek('+')) {
+                throw error("Possessive quantifiers are not supported");
+            }
+            if (index < regex.length() && "*+?{".indexOf(regex.charAt(index)) >= 0) {
+                throw error("Dangling meta character '" + regex.charAt(index) + "'");
+            }
+
+            return new Repetition(atom, min, max);
+        }
+
+        private int parseNumber() {
+            int start = index;
+            while (index < regex.length() && regex.charAt(index) >= '0' && regex.charAt(index) <= '9') {
+                index++;
+            }
+            if (start == index) {
+                throw error("Illegal repetition");
+            }
+            if (index - start > 4) {
+                throw error("Repetition is too large");
+            }
+            return Integer.parseInt(regex.substring(start, index));
+        }
+
+        private Node parseAtom() {
+            int codePoint = regex.codePointAt(index);
+            switch (codePoint) {
+                case '(':
+                    return parseGroup();
+                case '[':
+                    index++;
+                    return new CharacterNode(parseClass());
+                case '.':
+                    index++;
+                    return new CharacterNode(ANY);
+                case '^':
+                    index++;
+                    return new AssertionNode(OP_BEGIN);
+                case '$':
+                    index++;
+                    return new AssertionNode(OP_END);
+                case '\\':
+                    index++;
+                    return new CharacterNode(parseEscape());
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    throw error("Dangling meta character '" + (char) codePoint + "'");
+                default:
+                    index += Character.charCount(codePoint);
+                    return new CharacterNode(c -> c == codePoint);
+            }
+        }
+
+        private Node parseGroup() {
+            index++;
+            if (regex.startsWith("?:", index)) {
+                index += 2;
+            } else if (regex.startsWith("?<", index) && index + 2 < regex.length()
+                && Character.isLetter(regex.charAt(index + 2))) {
+                // Named groups only group, their names are not used
+                int end = regex.indexOf('>', index);
+                if (end < 0) {
+                    throw error("Named group is missing trailing '>'");
+                }
+                index = end + 1;
+            } else if (peek('?')) {
+                throw error("Look-arounds, inline flags and special groups are not supported");
+            }
+
+            if (++depth > MAX_GROUP_DEPTH) {
+                throw error("Groups are nested too deeply");
+            }
+            Node node = parseAlternation();
+            depth--;
+
+            if (!peek(')')) {
+                throw error("Unclosed group");
+            }
+            index++;
+            return node;
+        }
+
+        private IntPredicate parseClass() {
+            boolean negated = peek('^');
+            if (negated) {
+                index++;
+            }
+
+            List<IntPredicate> members = new ArrayList<>();
+            boolean first = true;
+            while (index < regex.length() && (first || !peek(']'))) {
+                first = false;
+                if (peek('[') || regex.startsWith("&&", index)) {
+                    throw error("Nested classes and intersections are not supported");
+                }
+
+                int start;
+                if (peek('\\')) {
+                    index++;
+                    if (index < regex.length() && "dDwWsS".indexOf(regex.charAt(index)) >= 0) {
+                        members.add(parseEscape());
+                        continue;
+                    }
+                    start = parseEscapedLiteral();
+                } else {
+                    start = regex.codePointAt(index);
+                    index += Character.charCount(start);
+                }
+                if (peek('-') && index + 1 < regex.length() && regex.charAt(index + 1) != ']') {
+                    index++;
+                    int end;
+                    if (peek('\\')) {
+                        index++;
+                        end = parseEscapedLiteral();
+                    } else {
+                        end = regex.codePointAt(index);
+                        index += Character.charCount(end);
+                    }
+                    if (end < start) {
+                        throw error("Illegal character range");
+                    }
+                    members.add(c -> c >= start && c <= end);
+                } else {
+                    members.add(c -> c == start);
+                }
+            }
+
+            if (!peek(']')) {
+                throw error("Unclosed character class");
+            }
+            index++;
+
+            IntPredicate[] memberArray = members.toArray(new IntPredicate[0]);
+            return c -> {
+                for (IntPredicate member : memberArray) {
+                    if (member.test(c)) {
+                        return !negated;
+                    }
+                }
+                return negated;
+            };
+        }
+
+        /**
+         * Parses the escape sequence following a backslash
+         */
+        private IntPredicate parseEscape() {
+            if (index >= regex.length()) {
+                throw error("Unexpected internal error");
+            }
+            switch (regex.charAt(index)) {
+                case 'd':
+                    index++;
+                    return DIGIT;
+                case 'D':
+                    index++;
+                    return DIGIT.negate();
+                case 'w':
+                    index++;
+                    return WORD;
+                case 'W':
+                    index++;
+                    return WORD.negate();
+                case 's':
+                    index++;
+                    return SPACE;
+                case 'S':
+                    index++;
+                    return SPACE.negate();
+                default:
+                    int literal = parseEscapedLiteral();
+                    return c -> c == literal;
+            }
+        }
+
+        private int parseEscapedLiteral() {
+            if (index >= regex.length()) {
+                throw error("Unexpected internal error");
+            }
+            char escaped = regex.charAt(index++);
+            switch (escaped) {
+                case 't':
+                    return '\t';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 'f':
+                    return '\f';
+                default:
+                    if (Character.isLetterOrDigit(escaped)) {
+                        index--;
+                        throw error("Escape sequence '\\" + escaped + "' is not supported");
+                    }
+                    return escaped;
+            }
+        }
+
+        private boolean peek(char expected) {
+            return index < regex.length() && regex.charAt(index) == expected;
+        }
+
+        private PatternSyntaxException error(String description) {
+            return new PatternSyntaxException(description, regex, index);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Writes models as JSON the way the Sling Models Jackson exporter does: with a default {@link ObjectMapper}, the registered Jackson
+ * modules and {@code <} and {@code >} escaped so that the JSON can be embedded in a script block. <br>
+ * Unlike the exporter, which serializes the whole model to a {@link String} before the response is written, {@link #write} encodes the
+ * JSON to UTF-8 into the given stream while the model is serialized. The characters still go through a {@link Writer}: the UTF-8
+ * generator of Jackson escapes characters outside of the basic multilingual plane, which the exporter does not.
+ */
+public final class ModelJsonWriter {
+
+    private final ObjectMapper mapper;
+
+    private final JsonFactory factory;
+
+    /**
+     * @param modules Jackson modules registered with the mapper, in order
+     */
+    public ModelJsonWriter(@NotNull Iterable<? extends Module> modules) {
+        mapper = new ObjectMapper();
+        for (Module module : modules) {
+            mapper.registerModule(module);
+        }
+        factory = new JsonFactory().setCharacterEscapes(new EscapeCloseScriptBlocks());
+        // The stream belongs to the caller, e.g. the servlet container
+        factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Writes the model as UTF-8 encoded JSON to the stream, flushing it once the model is written
+     *
+     * @param model  Model to serialize
+     * @param out    Stream the JSON is written to, left open
+     * @param tidy   {@code true} to indent the JSON
+     * @throws IOException if the model cannot be serialized or the stream cannot be written
+     */
+    public void write(@NotNull Object model, @NotNull OutputStream out, boolean tidy) throws IOException {
+        write(model, new OutputStreamWriter(out, StandardCharsets.UTF_8), tidy);
+    }
+
+    /**
+     * Serializes the model to a string, as the Sling Models Jackson exporter does
+     *
+     * @param model Model to serialize
+     * @param tidy  {@code true} to indent the JSON
+     * @return JSON of the model
+     * @throws IOException if the model cannot be serialized
+     */
+    @NotNull
+    public String writeAsString(@NotNull Object model, boolean tidy) throws IOException {
+        StringWriter writer = new StringWriter();
+        write(model, writer, tidy);
+        return writer.toString();
+    }
+
+    private void write(Object model, Writer writer, boolean tidy) throws IOException {
+        // Closing the generator flushes the writer, which does not close it since the target is not auto closed
+        try (JsonGenerator generator = factory.createGenerator(writer)) {
+            ObjectWriter objectWriter = tidy ? mapper.writerWithDefaultPrettyPrinter() : mapper.writer();
+            objectWriter.writeValue(generator, model);
+        }
+    }
+
+    /**
+     * Escapes {@code <} and {@code >} in addition to the characters escaped by JSON, so that {@code </script>} cannot close the script
+     * block a JSON export is embedded in
+     */
+    private static final class EscapeCloseScriptBlocks extends CharacterEscapes {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] escapes;
+
+        EscapeCloseScriptBlocks() {
+            escapes = standardAsciiEscapesForJSON();
+            escapes['<'] = ESCAPE_STANDARD;
+            escapes['>'] = ESCAPE_STANDARD;
+        }
+
+        @Override
+        public int[] getEscapeCodesForAscii() {
+            return escapes;
+        }
+
+        @Override
+        public SerializableString getEscapeSequence(int ch) {
+            return null;
+        }
+    }
+}
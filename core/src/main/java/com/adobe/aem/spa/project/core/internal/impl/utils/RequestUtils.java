@@ -59,6 +59,23 @@ public class RequestUtils {
         return url.substring(0, dotIndex) + JSON_EXPORT_SUFFIX;
     }
 
+    /**
+     * Returns a model URL with an additional selector for the given page URL
+     *
+     * @param url      Page URL
+     * @param selector Selector to add after the model selector
+     * @return Model URL
+     */
+    public static String getJsonExportURL(@NotNull String url, @NotNull String selector) {
+        String jsonExportURL = getJsonExportURL(url);
+
+        if (jsonExportURL == null) {
+            return null;
+        }
+
+        return StringUtils.removeEnd(jsonExportURL, ".json") + "." + selector + ".json";
+    }
+
     /**
      * Returns a model URL for the given page URL
      *
@@ -69,4 +86,17 @@ public class RequestUtils {
     public static String getPageJsonExportUrl(@NotNull SlingHttpServletRequest slingRequest, @NotNull com.day.cq.wcm.api.Page page) {
         return RequestUtils.getJsonExportURL(RequestUtils.getURL(slingRequest, page));
     }
+
+    /**
+     * Returns a model URL with an additional selector for the given page
+     *
+     * @param slingRequest The current servlet request
+     * @param page         Page for which to get the model URL
+     * @param selector     Selector to add after the model selector
+     * @return Model URL
+     */
+    public static String getPageJsonExportUrl(@NotNull SlingHttpServletRequest slingRequest, @NotNull com.day.cq.wcm.api.Page page,
+            @NotNull String selector) {
+        return RequestUtils.getJsonExportURL(RequestUtils.getURL(slingRequest, page), selector);
+    }
 }
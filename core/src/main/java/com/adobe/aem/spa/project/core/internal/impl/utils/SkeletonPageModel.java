@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.adobe.aem.spa.project.core.models.Page;
+import com.adobe.cq.export.json.hierarchy.type.HierarchyTypes;
+import com.day.cq.wcm.api.designer.Style;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * Minimal model of a descendant page, exported in place of the adapted model: its path, type, hierarchy type and title, and the URL of
+ * its full model. The page is not adapted, so that exports of deep hierarchies only pay for the models of their entry point page. <br>
+ * Descendants are exported as skeletons when the policy of the exported page sets {@link HierarchyConstants#PN_SKELETON_DESCENDANTS} or
+ * the request has the {@value #SELECTOR} selector.
+ */
+public final class SkeletonPageModel implements Page, JsonSerializable {
+
+    /**
+     * Selector exporting the descendants as skeletons
+     */
+    static final String SELECTOR = "skeleton";
+
+    static final String PN_MODEL_URL = ":modelUrl";
+
+    static final String PN_SKELETON = ":skeleton";
+
+    private final String path;
+
+    private final String type;
+
+    private final String title;
+
+    private final String modelUrl;
+
+    private SkeletonPageModel(String path, String type, String title, String modelUrl) {
+        this.path = path;
+        this.type = type;
+        this.title = title;
+        this.modelUrl = modelUrl;
+    }
+
+    /**
+     * Returns the skeleton of a page
+     *
+     * @param page    Page
+     * @param request Request
+     * @return Skeleton of the page, or {@code null} if the page has no content
+     */
+    @Nullable
+    static SkeletonPageModel of(@NotNull com.day.cq.wcm.api.Page page, @NotNull SlingHttpServletRequest request) {
+        Resource contentResource = page.getContentResource();
+        if (contentResource == null) {
+            return null;
+        }
+        // Titles fall back to the page name, like the ones of the adapted models
+        String title = StringUtils.defaultIfBlank(page.getTitle(), page.getName());
+        return new SkeletonPageModel(page.getPath(), contentResource.getResourceType(), title,
+            RequestUtils.getPageJsonExportUrl(request, page));
+    }
+
+    /**
+     * Checks whether the descendants of an export are exported as skeletons
+     *
+     * @param request      Request
+     * @param currentStyle Style of the exported page
+     * @return {@code true} if the descendants other than the entry point page are exported as skeletons
+     */
+    static boolean isRequested(@NotNull SlingHttpServletRequest request, @Nullable Style currentStyle) {
+        return ArrayUtils.contains(request.getRequestPathInfo().getSelectors(), SELECTOR)
+            || HierarchyPolicy.of(currentStyle).isSkeletonDescendants();
+    }
+
+    @NotNull
+    @Override
+    public String getExportedPath() {
+        return path;
+    }
+
+    @NotNull
+    @Override
+    public String getExportedType() {
+        return type;
+    }
+
+    @Nullable
+    @Override
+    public String getExportedHierarchyType() {
+        return HierarchyTypes.PAGE;
+    }
+
+    @NotNull
+    @Override
+    public Map<String, ? extends Page> getExportedChildren() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return URL of the full model of the page
+     */
+    @NotNull
+    public String getModelUrl() {
+        return modelUrl;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField(":type", type);
+        gen.writeStringField(":path", path);
+        gen.writeStringField(":hierarchyType", HierarchyTypes.PAGE);
+        gen.writeStringField("title", title);
+        gen.writeStringField(PN_MODEL_URL, modelUrl);
+        gen.writeBooleanField(PN_SKELETON, true);
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        // Page models are not serialized with type information
+        serialize(gen, serializers);
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import com.adobe.aem.spa.project.core.internal.StructurePatternsEngine;
+
+/**
+ * Compiled set of page structure patterns used to filter the descendants of a root page. <br>
+ * Next to matching a page path, the set can tell whether any descendant of a path could still match. Patterns anchored at the start
+ * of the path are reduced to the literal path prefixes they can match, e.g. {@code ^/content/site/en/(products|blog)} to
+ * {@code /content/site/en/products} and {@code /content/site/en/blog}, so that subtrees outside of these prefixes do not have to be
+ * listed at all. Patterns that cannot be reduced (not anchored, flags, top-level alternations, ...) disable this pruning. <br>
+ * Whenever possible the patterns are combined into a single alternation so that a path is scanned once instead of once per pattern.
+ * Sets compiled for the {@link StructurePatternsEngine#LINEAR} engine are matched with a {@link LinearPattern} instead.
+ */
+public final class StructurePatterns {
+
+    private static final StructurePatterns NONE = new StructurePatterns(Collections.emptyList(), null);
+
+    /**
+     * Characters which have a special meaning outside of a character class
+     */
+    private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    /**
+     * Quantifiers that make the preceding element optional
+     */
+    private static final String OPTIONAL_QUANTIFIERS = "?*{";
+
+    private final List<Pattern> patterns;
+
+    /**
+     * Alternation of all patterns, or {@code null} if they cannot be combined without changing their meaning
+     */
+    private final Pattern combinedPattern;
+
+    /**
+     * Linear time matcher of all patterns, only set for the {@link StructurePatternsEngine#LINEAR} engine
+     */
+    private final LinearPattern linearPattern;
+
+    /**
+     * Path prefixes which every match of the set starts with, or {@code null} if at least one pattern can match anywhere
+     */
+    private final List<PathPrefix> pathPrefixes;
+
+    private StructurePatterns(List<Pattern> patterns, LinearPattern linearPattern) {
+        this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+        this.linearPattern = linearPattern;
+        this.combinedPattern = linearPattern == null ? combine(patterns) : null;
+        this.pathPrefixes = getPathPrefixes(patterns);
+    }
+
+    /**
+     * Returns the compiled set for comma separated structure patterns, as they are stored in the template policy or provided as request
+     * parameter. Compiled sets are shared through a bounded cache keyed by the raw value.
+     *
+     * @param rawPatterns Comma separated regular expressions
+     * @return Set of structure patterns
+     * @throws java.util.regex.PatternSyntaxException If one of the expressions is invalid
+     */
+    @NotNull
+    public static StructurePatterns compile(String rawPatterns) {
+        return compile(rawPatterns, StructurePatternsEngine.REGEX);
+    }
+
+    /**
+     * Returns the compiled set for comma separated structure patterns, see {@link #compile(String)}, matched with the given engine
+     *
+     * @param rawPatterns Comma separated regular expressions
+     * @param engine      Engine matching the patterns
+     * @return Set of structure patterns
+     * @throws java.util.regex.PatternSyntaxException If one of the expressions is invalid or not supported by the engine
+     */
+    @NotNull
+    public static StructurePatterns compile(String rawPatterns, @NotNull StructurePatternsEngine engine) {
+        if (StringUtils.isBlank(rawPatterns)) {
+            return NONE;
+        }
+        return StructurePatternsCache.getInstance().get(rawPatterns, engine);
+    }
+
+    static StructurePatterns parse(String rawPatterns, StructurePatternsEngine engine) {
+        String[] regexes = rawPatterns.split(",");
+
+        // The linear engine validates the expressions first, as it accepts less than java.util.regex
+        LinearPattern linearPattern = engine == StructurePatternsEngine.LINEAR ? LinearPattern.compile(Arrays.asList(regexes)) : null;
+
+        List<Pattern> compiledPatterns = new ArrayList<>(regexes.length);
+        for (String regex : regexes) {
+            compiledPatterns.add(Pattern.compile(regex));
+        }
+        return new StructurePatterns(compiledPatterns, linearPattern);
+    }
+
+    /**
+     * Creates a set from already compiled patterns
+     *
+     * @param patterns Patterns to filter descended pages
+     * @return Set of structure patterns
+     */
+    @NotNull
+    public static StructurePatterns of(List<Pattern> patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return NONE;
+        }
+        return new StructurePatterns(patterns, null);
+    }
+
+    /**
+     * @return The compiled patterns of this set
+     */
+    @NotNull
+    public List<Pattern> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * @return {@code true} if the set contains no pattern, which means all pages are accepted
+     */
+    public boolean isEmpty() {
+        return patterns.isEmpty();
+    }
+
+    /**
+     * Checks whether a page path is accepted by the set
+     *
+     * @param path Page path
+     * @return {@code true} if the set is empty or at least one of the patterns is found in the path
+     */
+    public boolean matches(@NotNull String path) {
+        if (patterns.isEmpty()) {
+            return true;
+        }
+
+        if (linearPattern != null) {
+            return linearPattern.find(path);
+        }
+
+        if (combinedPattern != null) {
+            return combinedPattern.matcher(path).find();
+        }
+
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(path).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a descendant of the page identified by the path could be accepted by the set. The answer is conservative: it is
+     * only {@code false} when no path below {@code path} can ever be matched.
+     *
+     * @param path Page path
+     * @return {@code false} if the subtree of the page does not have to be traversed
+     */
+    public boolean mayMatchBelow(@NotNull String path) {
+        if (patterns.isEmpty() || pathPrefixes == null) {
+            return true;
+        }
+
+        String subtreePrefix = path + "/";
+        for (PathPrefix pathPrefix : pathPrefixes) {
+            if (pathPrefix.mayMatchBelow(subtreePrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Combines the patterns into {@code (?:p1)|(?:p2)|...}. A path in which any of the patterns is found contains a match of the
+     * alternation and vice versa, as long as no pattern relies on flags, group numbers or group names.
+     */
+    private static Pattern combine(List<Pattern> patterns) {
+        if (patterns.size() < 2) {
+            return null;
+        }
+
+        StringBuilder alternation = new StringBuilder();
+        for (Pattern pattern : patterns) {
+            if (pattern.flags() != 0 || referencesGroups(pattern.pattern())) {
+                return null;
+            }
+            if (alternation.length() > 0) {
+                alternation.append('|');
+            }
+            alternation.append("(?:").append(pattern.pattern()).append(')');
+        }
+
+        try {
+            return Pattern.compile(alternation.toString());
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    private static boolean referencesGroups(String regex) {
+        for (int index = 0; index < regex.length() - 1; index++) {
+            if (regex.charAt(index) == '\\') {
+                char escaped = regex.charAt(index + 1);
+                if ((escaped >= '1' && escaped <= '9') || escaped == 'k') {
+                    return true;
+                }
+                // Skip the escaped character, it might be a backslash itself
+                index++;
+            } else if (regex.startsWith("(?<", index) && index + 3 < regex.length() && regex.charAt(index + 3) != '='
+                    && regex.charAt(index + 3) != '!') {
+                // Named group, names must be unique in the alternation
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathPrefix> getPathPrefixes(List<Pattern> patterns) {
+        List<PathPrefix> pathPrefixes = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            List<PathPrefix> patternPrefixes = pattern.flags() == 0 ? analyze(pattern.pattern()) : null;
+            if (patternPrefixes == null) {
+                return null;
+            }
+            pathPrefixes.addAll(patternPrefixes);
+        }
+        return pathPrefixes;
+    }
+
+    /**
+     * Reduces a regular expression to the literal prefixes its matches start with
+     *
+     * @param regex Regular expression
+     * @return The literal prefixes, or {@code null} if the expression is not anchored to a literal prefix
+     */
+    static List<PathPrefix> analyze(String regex) {
+        if (!regex.startsWith("^") || hasTopLevelAlternation(regex)) {
+            return null;
+        }
+
+        StringBuilder prefix = new StringBuilder();
+        int length = regex.length();
+        int index = 1;
+        boolean truncated = false;
+
+        while (index < length && !truncated) {
+            char current = regex.charAt(index);
+            int consumed = 1;
+
+            if (current == '\\') {
+                if (index + 1 >= length || !isEscapedLiteral(regex.charAt(index + 1))) {
+                    break;
+                }
+                current = regex.charAt(index + 1);
+                consumed = 2;
+            } else if (META_CHARACTERS.indexOf(current) >= 0) {
+                break;
+            }
+
+            int next = index + consumed;
+            if (next < length && OPTIONAL_QUANTIFIERS.indexOf(regex.charAt(next)) >= 0) {
+                // The literal is optional so the prefix ends before it
+                truncated = true;
+            } else {
+                prefix.append(current);
+                // A '+' repeats the literal, which still is part of every match
+                truncated = next < length && regex.charAt(next) == '+';
+                index = next;
+            }
+        }
+
+        if (!truncated && index == length - 1 && regex.charAt(index) == '$') {
+            return Collections.singletonList(new PathPrefix(prefix.toString(), true));
+        }
+
+        if (!truncated && index < length && regex.charAt(index) == '(') {
+            List<PathPrefix> alternatives = analyzeGroup(regex, index, prefix.toString());
+            if (alternatives != null) {
+                return alternatives;
+            }
+        }
+
+        return Collections.singletonList(new PathPrefix(prefix.toString(), false));
+    }
+
+    /**
+     * Expands a group of literal alternatives, e.g. {@code (products|blog)}, following the literal prefix
+     */
+    private static List<PathPrefix> analyzeGroup(String regex, int groupStart, String prefix) {
+        int start = groupStart + 1;
+        if (regex.startsWith("?:", start)) {
+            start += 2;
+        } else if (start < regex.length() && regex.charAt(start) == '?') {
+            return null;
+        }
+
+        List<String> alternatives = new ArrayList<>();
+        StringBuilder alternative = new StringBuilder();
+        int index = start;
+        int length = regex.length();
+
+        while (index < length && regex.charAt(index) != ')') {
+            char current = regex.charAt(index);
+            if (current == '\\') {
+                if (index + 1 >= length || !isEscapedLiteral(regex.charAt(index + 1))) {
+                    return null;
+                }
+                alternative.append(regex.charAt(index + 1));
+                index += 2;
+                continue;
+            }
+            if (current == '|') {
+                alternatives.add(alternative.toString());
+                alternative.setLength(0);
+            } else if (META_CHARACTERS.indexOf(current) >= 0) {
+                return null;
+            } else {
+                alternative.append(current);
+            }
+            index++;
+        }
+
+        if (index >= length) {
+            return null;
+        }
+        alternatives.add(alternative.toString());
+
+        int next = index + 1;
+        if (next < length && (OPTIONAL_QUANTIFIERS.indexOf(regex.charAt(next)) >= 0 || regex.charAt(next) == '+')) {
+            return null;
+        }
+
+        boolean exact = next == length - 1 && regex.charAt(next) == '$';
+        List<PathPrefix> pathPrefixes = new ArrayList<>(alternatives.size());
+        for (String literal : alternatives) {
+            pathPrefixes.add(new PathPrefix(prefix + literal, exact));
+        }
+        return pathPrefixes;
+    }
+
+    private static boolean hasTopLevelAlternation(String regex) {
+        int depth = 0;
+        boolean inCharacterClass = false;
+
+        for (int index = 0; index < regex.length(); index++) {
+            char current = regex.charAt(index);
+            if (current == '\\') {
+                index++;
+            } else if (inCharacterClass) {
+                inCharacterClass = current != ']';
+            } else if (current == '[') {
+                inCharacterClass = true;
+                // A closing bracket right after the opening one is a literal
+                if (index + 1 < regex.length() && regex.charAt(index + 1) == ']') {
+                    index++;
+                }
+            } else if (current == '(') {
+                depth++;
+            } else if (current == ')') {
+                depth--;
+            } else if (current == '|' && depth == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Escaped non-alphanumeric characters stand for themselves, escaped letters and digits are classes, anchors or references
+     */
+    private static boolean isEscapedLiteral(char escaped) {
+        return !Character.isLetterOrDigit(escaped);
+    }
+
+    /**
+     * Literal start of all paths matched by a pattern
+     */
+    static final class PathPrefix {
+        private final String value;
+
+        /**
+         * Whether the pattern matches the literal exactly (terminated by {@code $}) rather than any path starting with it
+         */
+        private final boolean exact;
+
+        PathPrefix(String value, boolean exact) {
+            this.value = value;
+            this.exact = exact;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        boolean isExact() {
+            return exact;
+        }
+
+        private boolean mayMatchBelow(String subtreePrefix) {
+            if (value.startsWith(subtreePrefix)) {
+                return true;
+            }
+            return !exact && subtreePrefix.startsWith(value);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.aem.spa.project.core.internal.StructurePatternsEngine;
+
+/**
+ * Bounded least-recently-used cache of compiled {@link StructurePatterns}, keyed by the raw comma separated value of the template
+ * policy or the request parameter and the engine matching them. <br>
+ * Hits and misses are counted so that the efficiency of the cache can be verified; they are logged on each miss at debug level
+ * and exposed through the hierarchy metrics.
+ */
+public final class StructurePatternsCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StructurePatternsCache.class);
+
+    /**
+     * Number of compiled sets kept by the shared cache
+     */
+    static final int DEFAULT_MAX_SIZE = 256;
+
+    private static final StructurePatternsCache INSTANCE = new StructurePatternsCache(DEFAULT_MAX_SIZE);
+
+    private final Map<String, StructurePatterns> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    StructurePatternsCache(int maxSize) {
+        this.entries = new LinkedHashMap<String, StructurePatterns>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StructurePatterns> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return The cache shared by all structure pattern lookups
+     */
+    @NotNull
+    public static StructurePatternsCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the compiled set for the raw value, compiling and caching it on a miss. Values that fail to compile are not cached.
+     *
+     * @param rawPatterns Comma separated regular expressions
+     * @param engine      Engine matching the patterns
+     * @return Compiled set of structure patterns
+     */
+    @NotNull
+    StructurePatterns get(@NotNull String rawPatterns, @NotNull StructurePatternsEngine engine) {
+        // Engine names do not contain a colon, so keys of different engines never collide
+        String key = engine.name() + ':' + rawPatterns;
+
+        synchronized (entries) {
+            StructurePatterns cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        // Compile outside of the lock, concurrent misses for the same value compile it twice at worst
+        StructurePatterns compiled = StructurePatterns.parse(rawPatterns, engine);
+        long missCount = misses.incrementAndGet();
+
+        synchronized (entries) {
+            entries.put(key, compiled);
+        }
+
+        LOGGER.debug("Compiled structure patterns {} for engine {} (cache hits: {}, misses: {})", rawPatterns, engine, hits.get(),
+            missCount);
+        return compiled;
+    }
+
+    /**
+     * @return Number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Number of lookups which required compiling the patterns
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Number of compiled sets currently cached
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.day.cq.commons.jcr.JcrConstants;
+
+/**
+ * Compact keys of the pages and policies a hierarchy export depends on, emitted as surrogate keys (cache tags) so that a dispatcher or a
+ * CDN can invalidate the exports depending on a changed path. <br>
+ * The key of a path is the URL-safe Base64 encoding of the first {@value #KEY_BYTES} bytes of its SHA-256 digest, which invalidation
+ * tooling can compute without access to the repository.
+ */
+public final class SurrogateKeys {
+
+    /**
+     * Number of digest bytes in a key, a multiple of three so that the key is not padded
+     */
+    static final int KEY_BYTES = 9;
+
+    private static final String CONTENT_SEGMENT = "/" + JcrConstants.JCR_CONTENT;
+
+    private SurrogateKeys() {
+    }
+
+    /**
+     * @param path Path of a page or policy
+     * @return Key of the path
+     */
+    @NotNull
+    public static String of(@NotNull String path) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+        byte[] hash = digest.digest(path.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, KEY_BYTES));
+    }
+
+    /**
+     * Returns the keys to invalidate for a changed path: the key of the changed page or policy, and the key of its parent whose list of
+     * children changes when the path is added or removed. Changes in the content of a page are changes of the page.
+     *
+     * @param changedPath Path of a changed resource
+     * @return Keys to invalidate
+     */
+    @NotNull
+    public static Set<String> forChange(@NotNull String changedPath) {
+        String path = getChangedPage(changedPath);
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(of(path));
+        int index = path.lastIndexOf('/');
+        if (index > 0) {
+            keys.add(of(path.substring(0, index)));
+        }
+        return keys;
+    }
+
+    /**
+     * @param changedPath Path of a changed resource
+     * @return Path of the page or policy containing the resource
+     */
+    @NotNull
+    public static String getChangedPage(@NotNull String changedPath) {
+        int index = changedPath.indexOf(CONTENT_SEGMENT);
+        while (index >= 0) {
+            int end = index + CONTENT_SEGMENT.length();
+            if (end == changedPath.length() || changedPath.charAt(end) == '/') {
+                return changedPath.substring(0, index);
+            }
+            index = changedPath.indexOf(CONTENT_SEGMENT, end);
+        }
+        return changedPath;
+    }
+}
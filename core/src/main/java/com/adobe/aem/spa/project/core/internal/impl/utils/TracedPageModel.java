@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.io.IOException;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.adobe.aem.spa.project.core.models.Page;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * Descendant page model of a traced export, which records how long the model takes to serialize in the {@link HierarchyTrace}
+ */
+final class TracedPageModel extends DelegatingPageModel implements JsonSerializable {
+
+    private final Page model;
+
+    private final HierarchyTrace trace;
+
+    private final String pagePath;
+
+    TracedPageModel(@NotNull Page model, @NotNull HierarchyTrace trace, @NotNull String pagePath) {
+        this.model = model;
+        this.trace = trace;
+        this.pagePath = pagePath;
+    }
+
+    @Override
+    Page getModel() {
+        return model;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        long start = System.nanoTime();
+        try {
+            serializers.defaultSerializeValue(model, gen);
+        } finally {
+            trace.record(pagePath, HierarchyTrace.Phase.SERIALIZE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        // Page models are not serialized with type information
+        serialize(gen, serializers);
+    }
+}
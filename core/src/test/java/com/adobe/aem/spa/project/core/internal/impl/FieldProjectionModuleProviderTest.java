@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.impl.utils.FieldProjection;
+import com.adobe.aem.spa.project.core.models.Page;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FieldProjectionModuleProviderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new FieldProjectionModuleProvider().getModule());
+
+    @Test
+    void testProjection() throws JsonProcessingException {
+        HierarchyExportSettings settings = mock(HierarchyExportSettings.class);
+        when(settings.getProjectedFields("navigation")).thenReturn(new HashSet<>(Collections.singletonList("title")));
+        FieldProjection projection = FieldProjection.fromSelectors(new String[] { "model", "fields-navigation" }, settings);
+
+        ProjectedPage child = new ProjectedPage("/content/site/en/about", projection, Collections.emptyMap());
+        ProjectedPage root = new ProjectedPage("/content/site/en", projection, Collections.singletonMap(child.path, child));
+
+        // Getters of the properties left out would fail
+        assertEquals("{\"title\":\"/content/site/en\",\":type\":\"site/components/page\",\":path\":\"/content/site/en\","
+            + "\":children\":{\"/content/site/en/about\":{\"title\":\"/content/site/en/about\",\":type\":\"site/components/page\","
+            + "\":path\":\"/content/site/en/about\",\":hierarchyType\":\"page\"}},\":hierarchyType\":\"page\"}",
+            mapper.writeValueAsString(root));
+    }
+
+    @Test
+    void testWithoutProjection() {
+        ProjectedPage page = new ProjectedPage("/content/site/en", null, Collections.emptyMap());
+
+        // All getters are called, including the ones of the delegate which is not injected
+        assertThrows(JsonProcessingException.class, () -> mapper.writeValueAsString(page));
+    }
+
+    private static final class ProjectedPage extends PageImpl {
+
+        private final String path;
+
+        private final FieldProjection projection;
+
+        private final Map<String, ? extends Page> children;
+
+        ProjectedPage(String path, FieldProjection projection, Map<String, ? extends Page> children) {
+            this.path = path;
+            this.projection = projection;
+            this.children = children;
+            setDescendedPageModels(children);
+        }
+
+        @Override
+        FieldProjection getFieldProjection() {
+            return projection;
+        }
+
+        @Override
+        public Map<String, ? extends Page> getExportedChildren() {
+            return children;
+        }
+
+        @Override
+        public String getExportedPath() {
+            return path;
+        }
+
+        @Override
+        public String getExportedType() {
+            return "site/components/page";
+        }
+
+        @Override
+        public String getTitle() {
+            return path;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.models.factory.ModelFactory;
+import org.apache.sling.models.jacksonexporter.ModuleProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.adobe.aem.spa.project.core.models.Page;
+import com.day.cq.wcm.api.PageManager;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HierarchyBatchServletTest {
+
+    private static final String ROOT_PATH = "/content/site/en";
+
+    @Mock
+    private ModelFactory modelFactory;
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private SlingHttpServletResponse response;
+
+    @Mock
+    private RequestPathInfo requestPathInfo;
+
+    @Mock
+    private PageManager pageManager;
+
+    @InjectMocks
+    private HierarchyBatchServlet servlet;
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        HierarchyBatchServlet.Config config = mock(HierarchyBatchServlet.Config.class);
+        when(config.max_paths()).thenReturn(3);
+        servlet.activate(config);
+
+        ModuleProvider moduleProvider = mock(ModuleProvider.class);
+        when(moduleProvider.getModule()).thenReturn(new SimpleModule().addSerializer(TitlePage.class, new TitlePageSerializer()));
+        servlet.bindModuleProvider(moduleProvider, Collections.singletonMap("service.id", 1L));
+
+        Resource resource = mock(Resource.class);
+        when(resource.getPath()).thenReturn(ROOT_PATH + "/jcr:content");
+        ResourceResolver resolver = mock(ResourceResolver.class);
+        when(resolver.adaptTo(PageManager.class)).thenReturn(pageManager);
+        com.day.cq.wcm.api.Page rootPage = mockPage(ROOT_PATH);
+        when(pageManager.getContainingPage(resource)).thenReturn(rootPage);
+
+        when(request.getResource()).thenReturn(resource);
+        when(request.getResourceResolver()).thenReturn(resolver);
+        when(request.getRequestPathInfo()).thenReturn(requestPathInfo);
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "models" });
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                // Not asynchronous
+            }
+
+            @Override
+            public void write(int b) {
+                output.write(b);
+            }
+        });
+    }
+
+    @Test
+    void testWriteModels() throws ServletException, IOException {
+        com.day.cq.wcm.api.Page about = mockPage(ROOT_PATH + "/about");
+        Resource aboutContent = about.getContentResource();
+        when(pageManager.getPage(ROOT_PATH + "/about")).thenReturn(about);
+        when(modelFactory.getModelFromWrappedRequest(any(SlingHttpServletRequest.class), eq(aboutContent), eq(Page.class)))
+            .thenReturn(new TitlePage("About"));
+        when(request.getParameterValues(HierarchyBatchServlet.PARAM_PATH))
+            .thenReturn(new String[] { ROOT_PATH + "/about", ROOT_PATH + "/missing", "/content/other", ROOT_PATH + "/about" });
+
+        servlet.doGet(request, response);
+
+        verify(request).setAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE, true);
+        verify(response).setContentType("application/json");
+        assertEquals("{\"/content/site/en/about\":{\"status\":200,\"model\":{\"title\":\"About\"}},"
+            + "\"/content/site/en/missing\":{\"status\":404},"
+            + "\"/content/other\":{\"status\":400}}", getOutput());
+        verify(pageManager, never()).getPage("/content/other");
+    }
+
+    @Test
+    void testNormalizesPaths() throws ServletException, IOException {
+        com.day.cq.wcm.api.Page about = mockPage(ROOT_PATH + "/about");
+        Resource aboutContent = about.getContentResource();
+        when(pageManager.getPage(ROOT_PATH + "/about")).thenReturn(about);
+        when(modelFactory.getModelFromWrappedRequest(any(SlingHttpServletRequest.class), eq(aboutContent), eq(Page.class)))
+            .thenReturn(new TitlePage("About"));
+        when(request.getParameterValues(HierarchyBatchServlet.PARAM_PATH))
+            .thenReturn(new String[] { ROOT_PATH + "/../../other", ROOT_PATH + "/../../../..", ROOT_PATH + "/news/../about" });
+
+        servlet.doGet(request, response);
+
+        assertEquals("{\"/content/site/en/../../other\":{\"status\":400},"
+            + "\"/content/site/en/../../../..\":{\"status\":400},"
+            + "\"/content/site/en/news/../about\":{\"status\":200,\"model\":{\"title\":\"About\"}}}", getOutput());
+        verify(pageManager, never()).getPage("/content/other");
+        verify(pageManager, never()).getPage(ROOT_PATH + "/../../other");
+    }
+
+    @Test
+    void testRejectsBatch() throws ServletException, IOException {
+        servlet.doGet(request, response);
+
+        when(request.getParameterValues(HierarchyBatchServlet.PARAM_PATH))
+            .thenReturn(new String[] { ROOT_PATH + "/a", ROOT_PATH + "/b", ROOT_PATH + "/c", ROOT_PATH + "/d" });
+        servlet.doGet(request, response);
+
+        verify(response, times(2)).sendError(HttpServletResponse.SC_BAD_REQUEST);
+        assertEquals("", getOutput());
+    }
+
+    @Test
+    void testNoPage() throws ServletException, IOException {
+        when(pageManager.getContainingPage(any(Resource.class))).thenReturn(null);
+        when(request.getParameterValues(HierarchyBatchServlet.PARAM_PATH)).thenReturn(new String[] { ROOT_PATH });
+
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    private static com.day.cq.wcm.api.Page mockPage(String path) {
+        com.day.cq.wcm.api.Page page = mock(com.day.cq.wcm.api.Page.class);
+        Resource contentResource = mock(Resource.class);
+        when(page.getPath()).thenReturn(path);
+        when(page.getContentResource()).thenReturn(contentResource);
+        return page;
+    }
+
+    private String getOutput() {
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static final class TitlePage implements Page {
+
+        private final String title;
+
+        TitlePage(String title) {
+            this.title = title;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private static final class TitlePageSerializer extends StdSerializer<TitlePage> {
+
+        TitlePageSerializer() {
+            super(TitlePage.class);
+        }
+
+        @Override
+        public void serialize(TitlePage value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("title", value.getTitle());
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyDependencyIndex;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyRequestContext;
+import com.adobe.aem.spa.project.core.internal.impl.utils.SurrogateKeys;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HierarchyDependencyFilterTest {
+
+    private static final String MODEL_PATH = "/content/site/en.model.json";
+
+    @Mock
+    private HierarchyDependencyIndex dependencyIndex;
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private SlingHttpServletResponse response;
+
+    @InjectMocks
+    private HierarchyDependencyFilter filter;
+
+    @BeforeEach
+    void beforeEach() {
+        Map<String, Object> attributes = new HashMap<>();
+        when(request.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1))).when(request)
+            .setAttribute(anyString(), any());
+        when(request.getRequestURI()).thenReturn(MODEL_PATH);
+        filter.activate(config(3));
+    }
+
+    @Test
+    void testHeaderAndIndex() throws IOException, ServletException {
+        filter.doFilter(request, response, export(200, "/content/site/en", "/content/site/en/about"));
+
+        verify(response).setHeader("Surrogate-Key", SurrogateKeys.of("/content/site/en") + " " + SurrogateKeys.of("/content/site/en/about"));
+        verify(dependencyIndex).record(MODEL_PATH, new LinkedHashSet<>(Arrays.asList("/content/site/en", "/content/site/en/about")));
+    }
+
+    @Test
+    void testIndexedWithQuery() throws IOException, ServletException {
+        when(request.getQueryString()).thenReturn("structurepatterns=.*%2Fabout");
+        filter.doFilter(request, response, export(200, "/content/site/en", "/content/site/en/about"));
+
+        verify(dependencyIndex).record(MODEL_PATH + "?structurepatterns=.*%2Fabout",
+            new LinkedHashSet<>(Arrays.asList("/content/site/en", "/content/site/en/about")));
+    }
+
+    @Test
+    void testOverflow() throws IOException, ServletException {
+        filter.doFilter(request, response, export(200, "/content/a", "/content/b", "/content/c", "/content/d"));
+
+        verify(response).setHeader("Surrogate-Key",
+            SurrogateKeys.of("/content/a") + " " + SurrogateKeys.of("/content/b") + " spa-hierarchy-overflow");
+    }
+
+    @Test
+    void testFailedExport() throws IOException, ServletException {
+        filter.doFilter(request, response, export(404, "/content/site/en"));
+
+        verify(response, never()).setHeader(anyString(), anyString());
+        verify(dependencyIndex, never()).record(anyString(), any());
+    }
+
+    @Test
+    void testNoDependencies() throws IOException, ServletException {
+        filter.doFilter(request, response, export(200));
+
+        verify(response, never()).setHeader(anyString(), anyString());
+        // Keeps the dependencies recorded by earlier exports
+        verify(dependencyIndex, never()).record(anyString(), any());
+    }
+
+    @Test
+    void testGetHeaderValue() {
+        HierarchyDependencyFilter.Config config = config(10);
+        when(config.separator()).thenReturn(",");
+        Set<String> dependencies = new LinkedHashSet<>(Arrays.asList("/content/a", "/content/b"));
+        assertEquals(SurrogateKeys.of("/content/a") + "," + SurrogateKeys.of("/content/b"),
+            HierarchyDependencyFilter.getHeaderValue(dependencies, config));
+    }
+
+    /**
+     * Chain recording the dependencies like the page models, then writing the response with a status
+     */
+    private FilterChain export(int status, String... dependencies) throws IOException, ServletException {
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            SlingHttpServletRequest chainRequest = invocation.getArgument(0);
+            HttpServletResponse chainResponse = invocation.getArgument(1);
+            HierarchyRequestContext context = HierarchyRequestContext.get(chainRequest);
+            for (String dependency : dependencies) {
+                context.addDependency(dependency);
+            }
+            if (status == HttpServletResponse.SC_OK) {
+                chainResponse.getWriter();
+            } else {
+                chainResponse.sendError(status);
+            }
+            return null;
+        }).when(chain).doFilter(any(), any());
+        return chain;
+    }
+
+    private static HierarchyDependencyFilter.Config config(int maxKeys) {
+        HierarchyDependencyFilter.Config config = mock(HierarchyDependencyFilter.Config.class);
+        when(config.header_name()).thenReturn("Surrogate-Key");
+        when(config.separator()).thenReturn(" ");
+        when(config.max_keys()).thenReturn(maxKeys);
+        when(config.overflow_key()).thenReturn("spa-hierarchy-overflow");
+        return config;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HierarchyDependencyIndexImplTest {
+
+    private static final String POLICY_PATH = "/conf/site/settings/wcm/policies/spa/page/policy_1";
+
+    private HierarchyDependencyIndexImpl index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new HierarchyDependencyIndexImpl();
+        index.activate(config(2));
+        index.record("/content/site/en.model.json",
+            new LinkedHashSet<>(Arrays.asList("/content/site/en", POLICY_PATH, "/content/site/en/about")));
+        index.record("/content/site/fr.model.json", new LinkedHashSet<>(Arrays.asList("/content/site/fr", POLICY_PATH)));
+    }
+
+    @Test
+    void testChangedPage() {
+        assertEquals(Collections.singleton("/content/site/en.model.json"),
+            index.getDependentModels("/content/site/en/about/jcr:content/root/text"));
+    }
+
+    @Test
+    void testChangedPolicy() {
+        assertEquals(new HashSet<>(Arrays.asList("/content/site/en.model.json", "/content/site/fr.model.json")),
+            index.getDependentModels(POLICY_PATH));
+    }
+
+    @Test
+    void testAddedChild() {
+        assertEquals(Collections.singleton("/content/site/en.model.json"), index.getDependentModels("/content/site/en/about/new"));
+        assertTrue(index.getDependentModels("/content/site/en/about/new/deeper").isEmpty());
+    }
+
+    @Test
+    void testRemovedSubtree() {
+        assertEquals(new HashSet<>(Arrays.asList("/content/site/en.model.json", "/content/site/fr.model.json")),
+            index.getDependentModels("/content/site"));
+    }
+
+    @Test
+    void testRecordReplaces() {
+        index.record("/content/site/en.model.json", Collections.singleton("/content/site/en"));
+        assertTrue(index.getDependentModels("/content/site/en/about/child/jcr:content").isEmpty());
+
+        index.record("/content/site/en.model.json", Collections.emptySet());
+        assertEquals(1, index.size());
+        assertEquals(2, index.dependencyCount());
+    }
+
+    @Test
+    void testVariantsKeptApart() {
+        index.activate(config(10));
+        index.record("/content/site/en.model.json?structurepatterns=.*%2Fnews", Collections.singleton("/content/site/en/news"));
+
+        // The plain export lists the children of its root
+        assertEquals(new HashSet<>(Arrays.asList("/content/site/en.model.json?structurepatterns=.*%2Fnews", "/content/site/en.model.json")),
+            index.getDependentModels("/content/site/en/news"));
+        assertEquals(Collections.singleton("/content/site/en.model.json"), index.getDependentModels("/content/site/en/about"));
+    }
+
+    @Test
+    void testSiblingPathsNotInSubtree() {
+        index.activate(config(10));
+        index.record("/content/site/en-gb.model.json", Collections.singleton("/content/site/en-gb"));
+
+        assertEquals(Collections.singleton("/content/site/en.model.json"), index.getDependentModels("/content/site/en/about"));
+    }
+
+    @Test
+    void testLeastRecentlyExportedDropped() {
+        index.record("/content/site/de.model.json", Collections.singleton("/content/site/de"));
+        assertEquals(2, index.size());
+        assertEquals(Collections.singleton("/content/site/fr.model.json"), index.getDependentModels(POLICY_PATH));
+        assertTrue(index.getDependentModels("/content/site/en/about").isEmpty());
+        assertEquals(3, index.dependencyCount());
+    }
+
+    private static HierarchyDependencyIndexImpl.Config config(int maxModels) {
+        HierarchyDependencyIndexImpl.Config config = mock(HierarchyDependencyIndexImpl.Config.class);
+        when(config.max_models()).thenReturn(maxModels);
+        return config;
+    }
+}
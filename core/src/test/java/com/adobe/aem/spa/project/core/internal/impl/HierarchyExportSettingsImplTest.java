@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.StructurePatternsEngine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HierarchyExportSettingsImplTest {
+
+    @Test
+    void testDefaults() {
+        assertEquals(StructurePatternsEngine.REGEX, new HierarchyExportSettingsImpl().getRequestPatternsEngine());
+        assertEquals(StructurePatternsEngine.REGEX, HierarchyExportSettings.DEFAULT.getRequestPatternsEngine());
+    }
+
+    @Test
+    void testActivate() {
+        HierarchyExportSettingsImpl.Config config = mock(HierarchyExportSettingsImpl.Config.class);
+        when(config.request_patterns_engine()).thenReturn(StructurePatternsEngine.LINEAR);
+        when(config.max_descendants()).thenReturn(100);
+        when(config.max_models()).thenReturn(50);
+        when(config.max_export_time()).thenReturn(400L);
+        when(config.lazy_adaptation()).thenReturn(true);
+
+        HierarchyExportSettingsImpl settings = new HierarchyExportSettingsImpl();
+        settings.activate(config);
+
+        assertEquals(StructurePatternsEngine.LINEAR, settings.getRequestPatternsEngine());
+        assertEquals(100, settings.getMaxDescendants());
+        assertEquals(50, settings.getMaxModels());
+        assertEquals(400L, settings.getMaxExportTime());
+        assertTrue(settings.isLazyAdaptation());
+        assertNull(settings.getProjectedFields("navigation"));
+    }
+
+    @Test
+    void testProjectionProfiles() {
+        HierarchyExportSettingsImpl.Config config = mock(HierarchyExportSettingsImpl.Config.class);
+        when(config.projection_profiles()).thenReturn(new String[] { "navigation=title, language", "teaser=", "=title" });
+
+        HierarchyExportSettingsImpl settings = new HierarchyExportSettingsImpl();
+        settings.activate(config);
+
+        assertEquals(Arrays.asList("title", "language"), new ArrayList<>(settings.getProjectedFields("navigation")));
+        assertTrue(settings.getProjectedFields("teaser").isEmpty());
+        assertNull(settings.getProjectedFields(""));
+        assertNull(settings.getProjectedFields("full"));
+        assertNull(HierarchyExportSettings.DEFAULT.getProjectedFields("navigation"));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.resource.Resource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyMetrics;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyRequestContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HierarchyMetricsFilterTest {
+
+    private static final String PAGE_PATH = "/content/site/en";
+
+    @Mock
+    private HierarchyMetrics metrics;
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private SlingHttpServletResponse response;
+
+    @InjectMocks
+    private HierarchyMetricsFilter filter;
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    private final StringWriter text = new StringWriter();
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        Map<String, Object> attributes = new HashMap<>();
+        when(request.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1))).when(request)
+            .setAttribute(anyString(), any());
+        Resource resource = mock(Resource.class);
+        when(resource.getPath()).thenReturn(PAGE_PATH + "/jcr:content");
+        when(request.getResource()).thenReturn(resource);
+
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                // Blocking stream
+            }
+        });
+        when(response.getWriter()).thenReturn(new PrintWriter(text));
+    }
+
+    @Test
+    void testOutputStream() throws IOException, ServletException {
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            assertSame(metrics, HierarchyRequestContext.getMetrics(invocation.getArgument(0)));
+            HttpServletResponse chainResponse = invocation.getArgument(1);
+            chainResponse.getOutputStream().write("{\"a\":\"é\"}".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals("{\"a\":\"é\"}", new String(body.toByteArray(), StandardCharsets.UTF_8));
+        verify(metrics).recordResponse(eq(PAGE_PATH), eq(10L), anyLong());
+    }
+
+    @Test
+    void testWriter() throws IOException, ServletException {
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            HttpServletResponse chainResponse = invocation.getArgument(1);
+            chainResponse.getWriter().write("{\"a\":1}");
+            chainResponse.getWriter().flush();
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals("{\"a\":1}", text.toString());
+        verify(metrics).recordResponse(eq(PAGE_PATH), eq(7L), anyLong());
+    }
+
+    @Test
+    void testFailedResponseNotRecorded() throws IOException, ServletException {
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_NOT_FOUND);
+
+        filter.doFilter(request, response, mock(FilterChain.class));
+
+        verify(metrics, never()).recordResponse(anyString(), anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.aem.spa.project.core.internal.PageModelFragmentCache;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyPolicyCache;
+import com.adobe.aem.spa.project.core.internal.impl.utils.StructurePatternsCache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HierarchyMetricsImplTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Mock
+    private PageModelFragmentCache fragmentCache;
+
+    @InjectMocks
+    private HierarchyMetricsImpl metrics;
+
+    @BeforeEach
+    void beforeEach() {
+        metrics.activate(config(2));
+    }
+
+    @Test
+    void testTotals() {
+        metrics.recordTraversal("/content/site/en", 10, 4, 2 * MILLIS);
+        metrics.recordTraversal("/content/site/fr", 5, 5, MILLIS);
+        metrics.recordAdaptation("/content/site/en/page", 3 * MILLIS);
+        metrics.recordRootPageLookup("/content/site/en/page", MILLIS / 2);
+        metrics.recordChildrenExport("/content/site/en", 4, 6 * MILLIS);
+
+        assertEquals(2, metrics.getTraversalCount());
+        assertEquals(15, metrics.getPagesVisited());
+        assertEquals(9, metrics.getPagesMatched());
+        assertEquals(3.0, metrics.getTraversalTimeMillis());
+        assertEquals(1, metrics.getAdaptationCount());
+        assertEquals(3.0, metrics.getAdaptationTimeMillis());
+        assertEquals(1, metrics.getRootPageLookupCount());
+        assertEquals(0.5, metrics.getRootPageLookupTimeMillis());
+        assertEquals(1, metrics.getChildrenExportCount());
+        assertEquals(4, metrics.getPagesExported());
+        assertEquals(6.0, metrics.getChildrenExportTimeMillis());
+    }
+
+    @Test
+    void testResponses() {
+        metrics.recordResponse("/content/site/en", 1000, MILLIS / 2);
+        metrics.recordResponse("/content/site/en", 3000, 70 * MILLIS);
+        metrics.recordResponse("/content/site/en", 2000, 10_000 * MILLIS);
+
+        assertEquals(3, metrics.getResponseCount());
+        assertEquals(6000, metrics.getBytesWritten());
+
+        List<HierarchyMetricsImpl.PageStatistics> pages = metrics.getPages();
+        assertEquals(1, pages.size());
+        HierarchyMetricsImpl.PageStatistics page = pages.get(0);
+        assertEquals("/content/site/en", page.getPath());
+        assertEquals(3, page.getCount());
+        assertEquals(6000, page.getBytesWritten());
+        assertEquals(10_000.0, page.getMaxTimeMillis());
+        assertArrayEquals(new long[] { 1, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 1 }, page.getTimeHistogram());
+        assertEquals(page.getTimeHistogram().length, metrics.getResponseTimeBucketsMillis().length + 1);
+    }
+
+    @Test
+    void testLeastRecentlyExportedPagesDropped() {
+        metrics.recordResponse("/content/site/en", 1, MILLIS);
+        metrics.recordResponse("/content/site/fr", 1, MILLIS);
+        metrics.recordResponse("/content/site/en", 1, MILLIS);
+        metrics.recordResponse("/content/site/de", 1, MILLIS);
+
+        List<HierarchyMetricsImpl.PageStatistics> pages = metrics.getPages();
+        assertEquals(2, pages.size());
+        assertEquals("/content/site/en", pages.get(0).getPath());
+        assertEquals("/content/site/de", pages.get(1).getPath());
+        assertEquals(4, metrics.getResponseCount());
+    }
+
+    @Test
+    void testReset() {
+        metrics.recordTraversal("/content/site/en", 10, 4, MILLIS);
+        metrics.recordResponse("/content/site/en", 1, MILLIS);
+        metrics.reset();
+
+        assertEquals(0, metrics.getTraversalCount());
+        assertEquals(0, metrics.getResponseCount());
+        assertTrue(metrics.getPages().isEmpty());
+    }
+
+    @Test
+    void testCacheCounters() {
+        when(fragmentCache.getHits()).thenReturn(5L);
+        when(fragmentCache.getMisses()).thenReturn(3L);
+        when(fragmentCache.getEvictions()).thenReturn(1L);
+        metrics.reset();
+
+        assertEquals(StructurePatternsCache.getInstance().getHits(), metrics.getStructurePatternsCacheHits());
+        assertEquals(StructurePatternsCache.getInstance().getMisses(), metrics.getStructurePatternsCacheMisses());
+        assertEquals(HierarchyPolicyCache.getInstance().getHits(), metrics.getPolicyCacheHits());
+        assertEquals(HierarchyPolicyCache.getInstance().getMisses(), metrics.getPolicyCacheMisses());
+        assertEquals(5, metrics.getFragmentCacheHits());
+        assertEquals(3, metrics.getFragmentCacheMisses());
+        assertEquals(1, metrics.getFragmentCacheEvictions());
+    }
+
+    @Test
+    void testFragmentCacheCountersWithoutCache() {
+        HierarchyMetricsImpl metrics = new HierarchyMetricsImpl();
+        metrics.activate(config(2));
+
+        assertEquals(0, metrics.getFragmentCacheHits());
+        assertEquals(0, metrics.getFragmentCacheMisses());
+        assertEquals(0, metrics.getFragmentCacheEvictions());
+    }
+
+    private static HierarchyMetricsImpl.Config config(int maxPages) {
+        HierarchyMetricsImpl.Config config = mock(HierarchyMetricsImpl.Config.class);
+        when(config.max_pages()).thenReturn(maxPages);
+        return config;
+    }
+}
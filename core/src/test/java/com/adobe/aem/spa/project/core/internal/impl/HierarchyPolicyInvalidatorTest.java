@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.Calendar;
+import java.util.Collections;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.junit.jupiter.api.Test;
+
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyPolicy;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HierarchyPolicyInvalidatorTest {
+
+    private static final String POLICY_PATH = "/conf/invalidator/settings/wcm/policies/spa/page/policy_1";
+
+    @Test
+    void testOnChange() {
+        ContentPolicy contentPolicy = mock(ContentPolicy.class);
+        when(contentPolicy.getPath()).thenReturn(POLICY_PATH);
+        when(contentPolicy.getLastModified()).thenReturn(Calendar.getInstance());
+        when(contentPolicy.getProperties()).thenReturn(mock(ValueMap.class));
+        HierarchyPolicy policy = HierarchyPolicy.of(contentPolicy);
+
+        HierarchyPolicyInvalidator invalidator = new HierarchyPolicyInvalidator();
+        invalidator.onChange(Collections.singletonList(
+            new ResourceChange(ResourceChange.ChangeType.CHANGED, "/conf/other/settings/wcm/policies", false)));
+        assertSame(policy, HierarchyPolicy.of(contentPolicy));
+
+        invalidator.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED, POLICY_PATH, false)));
+        assertNotSame(policy, HierarchyPolicy.of(contentPolicy));
+    }
+}
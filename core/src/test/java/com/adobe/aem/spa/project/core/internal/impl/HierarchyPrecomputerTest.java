@@ -0,0 +1,360 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.wrappers.ResourceResolverWrapper;
+import org.apache.sling.testing.mock.sling.servlet.MockRequestPathInfo;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletResponse;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyDependencyIndex;
+import com.adobe.aem.spa.project.core.internal.impl.utils.SurrogateKeys;
+import com.day.cq.wcm.api.Page;
+
+import io.wcm.testing.mock.aem.junit5.AemContext;
+import io.wcm.testing.mock.aem.junit5.AemContextBuilder;
+import io.wcm.testing.mock.aem.junit5.AemContextExtension;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(AemContextExtension.class)
+class HierarchyPrecomputerTest {
+
+    private static final String ROOT_PATH = "/content/site/en";
+
+    private static final String FRAGMENT_PATH = "/content/experience-fragments/site/footer/master";
+
+    private final AemContext context = new AemContextBuilder().registerSlingModelsFromClassPath(false).build();
+
+    private TestPrecomputer precomputer;
+
+    @BeforeEach
+    void beforeEach() throws LoginException {
+        context.create().page(ROOT_PATH);
+        context.create().page(ROOT_PATH + "/child");
+        context.create().page("/content/other");
+        context.create().page(FRAGMENT_PATH);
+
+        ResourceResolverFactory resolverFactory = mock(ResourceResolverFactory.class);
+        when(resolverFactory.getServiceResourceResolver(any())).thenAnswer(invocation -> newResolver());
+        // Tells the rendering resolver apart
+        when(resolverFactory.getServiceResourceResolver(
+            Collections.singletonMap(ResourceResolverFactory.SUBSERVICE, HierarchyPrecomputer.RENDER_SUBSERVICE)))
+            .thenAnswer(invocation -> new ResourceResolverWrapper(newResolver()) {
+                @Override
+                public String getUserID() {
+                    return HierarchyPrecomputer.RENDER_SUBSERVICE;
+                }
+            });
+        precomputer = new TestPrecomputer(resolverFactory);
+        precomputer.activate(config(60000));
+    }
+
+    @AfterEach
+    void afterEach() {
+        precomputer.deactivate();
+    }
+
+    @Test
+    void testRenderChangedRoot() throws IOException, ServletException {
+        change(ROOT_PATH + "/child/jcr:content");
+        precomputer.render();
+
+        assertEquals(Collections.singletonList(ROOT_PATH), precomputer.rendered);
+        assertEquals(Collections.singletonList(HierarchyPrecomputer.RENDER_SUBSERVICE), precomputer.renderedBy);
+        assertEquals("{\"path\":\"" + ROOT_PATH + "\"}", serve(ROOT_PATH, "anonymous"));
+        assertEquals("{\"path\":\"" + ROOT_PATH + "\"}",
+            newResolver().getResource(HierarchyPrecomputer.STORE_ROOT + ROOT_PATH).getValueMap().get(HierarchyPrecomputer.PN_JSON));
+    }
+
+    @Test
+    void testBurstRenderedOnce() {
+        change(ROOT_PATH + "/jcr:content");
+        change(ROOT_PATH + "/child/jcr:content", ROOT_PATH + "/child");
+        precomputer.render();
+        precomputer.render();
+
+        assertEquals(Collections.singletonList(ROOT_PATH), precomputer.rendered);
+    }
+
+    @Test
+    void testPageOutsideOfSpa() {
+        change("/content/other/jcr:content");
+        precomputer.render();
+
+        assertEquals(Collections.emptyList(), precomputer.rendered);
+    }
+
+    @Test
+    void testOutdatedModelNotServed() throws IOException, ServletException {
+        change(ROOT_PATH + "/jcr:content");
+        precomputer.render();
+
+        change(ROOT_PATH + "/child/jcr:content");
+        assertNull(serve(ROOT_PATH, "anonymous"));
+
+        precomputer.render();
+        assertEquals(2, precomputer.rendered.size());
+        assertEquals("{\"path\":\"" + ROOT_PATH + "\"}", serve(ROOT_PATH, "anonymous"));
+    }
+
+    @Test
+    void testReferencedContentChangeRendersRoot() throws IOException, ServletException {
+        change(ROOT_PATH + "/jcr:content");
+        precomputer.render();
+
+        change("/content/other/jcr:content");
+        assertEquals("{\"path\":\"" + ROOT_PATH + "\"}", serve(ROOT_PATH, "anonymous"));
+
+        change(FRAGMENT_PATH + "/jcr:content/root/text");
+        assertNull(serve(ROOT_PATH, "anonymous"));
+        precomputer.render();
+        assertEquals(Arrays.asList(ROOT_PATH, ROOT_PATH), precomputer.rendered);
+        assertEquals("{\"path\":\"" + ROOT_PATH + "\"}", serve(ROOT_PATH, "anonymous"));
+
+        // The removal of an ancestor removes the referenced content
+        change("/content/experience-fragments/site");
+        assertNull(serve(ROOT_PATH, "anonymous"));
+    }
+
+    @Test
+    void testConfChangeRendersAllRoots() throws IOException, ServletException {
+        change(ROOT_PATH + "/jcr:content");
+        precomputer.render();
+
+        change("/conf/site/settings/wcm/policies");
+        assertNull(serve(ROOT_PATH, "anonymous"));
+        precomputer.render();
+        assertEquals(2, precomputer.rendered.size());
+    }
+
+    @Test
+    void testRemovedRoot() throws IOException, ServletException {
+        change(ROOT_PATH + "/jcr:content");
+        precomputer.render();
+
+        ResourceResolver resolver = newResolver();
+        resolver.delete(resolver.getResource(ROOT_PATH));
+        resolver.commit();
+        change(ROOT_PATH);
+        precomputer.render();
+
+        assertNull(serve(ROOT_PATH, "anonymous"));
+        assertNull(newResolver().getResource(HierarchyPrecomputer.STORE_ROOT + ROOT_PATH));
+    }
+
+    @Test
+    void testRootNotReadableByEveryone() throws LoginException {
+        when(precomputer.resolverFactory.getServiceResourceResolver(
+            Collections.singletonMap(ResourceResolverFactory.SUBSERVICE, HierarchyPrecomputer.RENDER_SUBSERVICE)))
+            .thenAnswer(invocation -> new ResourceResolverWrapper(newResolver()) {
+                @Override
+                public Resource getResource(@NotNull String path) {
+                    return path.startsWith(ROOT_PATH) ? null : super.getResource(path);
+                }
+            });
+
+        change(ROOT_PATH + "/jcr:content");
+        precomputer.render();
+
+        assertEquals(Collections.emptyList(), precomputer.rendered);
+        assertNull(newResolver().getResource(HierarchyPrecomputer.STORE_ROOT + ROOT_PATH));
+    }
+
+    @Test
+    void testStoredModelsLoaded() throws IOException, ServletException {
+        change(ROOT_PATH + "/jcr:content");
+        precomputer.render();
+        precomputer.deactivate();
+
+        TestPrecomputer restarted = new TestPrecomputer(precomputer.resolverFactory);
+        restarted.activate(config(60000));
+        try {
+            assertEquals("{\"path\":\"" + ROOT_PATH + "\"}", serve(restarted, ROOT_PATH, "anonymous", new String[] { "model" }));
+            restarted.render();
+            assertEquals(Collections.singletonList(ROOT_PATH), restarted.rendered);
+        } finally {
+            restarted.deactivate();
+        }
+    }
+
+    @Test
+    void testDependenciesOfServedModelRecorded() throws IOException, ServletException {
+        change(ROOT_PATH + "/jcr:content");
+        precomputer.render();
+
+        // The dependency filter is ranked higher and wraps the precomputer
+        HierarchyDependencyIndex dependencyIndex = mock(HierarchyDependencyIndex.class);
+        HierarchyDependencyFilter dependencyFilter = new HierarchyDependencyFilter();
+        context.registerService(HierarchyDependencyIndex.class, dependencyIndex);
+        context.registerInjectActivateService(dependencyFilter);
+
+        ResourceResolver resolver = mock(ResourceResolver.class);
+        when(resolver.getUserID()).thenReturn("anonymous");
+        MockSlingHttpServletRequest request = new MockSlingHttpServletRequest(resolver, context.bundleContext());
+        request.setResource(newResolver().getResource(ROOT_PATH));
+        ((MockRequestPathInfo) request.getRequestPathInfo()).setSelectorString("model");
+        ((MockRequestPathInfo) request.getRequestPathInfo()).setExtension("json");
+        MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        FilterChain chain = mock(FilterChain.class);
+
+        dependencyFilter.doFilter(request, response, (filterRequest, filterResponse) ->
+            precomputer.doFilter(filterRequest, filterResponse, chain));
+
+        verify(chain, never()).doFilter(any(), any());
+        assertEquals("{\"path\":\"" + ROOT_PATH + "\"}", response.getOutputAsString());
+        assertEquals(SurrogateKeys.of(ROOT_PATH) + " " + SurrogateKeys.of(ROOT_PATH + "/child") + " " + SurrogateKeys.of(FRAGMENT_PATH),
+            response.getHeader("Surrogate-Key"));
+        verify(dependencyIndex).record(request.getRequestURI(),
+            new LinkedHashSet<>(Arrays.asList(ROOT_PATH, ROOT_PATH + "/child", FRAGMENT_PATH)));
+    }
+
+    @Test
+    void testDependenciesStored() {
+        change(ROOT_PATH + "/jcr:content");
+        precomputer.render();
+
+        Resource stored = newResolver().getResource(HierarchyPrecomputer.STORE_ROOT + ROOT_PATH);
+        assertArrayEquals(new String[] { ROOT_PATH, ROOT_PATH + "/child", FRAGMENT_PATH },
+            stored.getValueMap().get(HierarchyPrecomputer.PN_DEPENDENCIES, String[].class));
+    }
+
+    @Test
+    void testOnlyPlainRequestsOfServedUserServed() throws IOException, ServletException {
+        change(ROOT_PATH + "/jcr:content");
+        precomputer.render();
+
+        assertNull(serve(ROOT_PATH, "admin"));
+        assertNull(serve(precomputer, ROOT_PATH, "anonymous", new String[] { "model", "tidy" }));
+        assertNull(serve("/content/other", "anonymous"));
+    }
+
+    private void change(String... paths) {
+        List<ResourceChange> changes = new ArrayList<>();
+        for (String path : paths) {
+            changes.add(new ResourceChange(ResourceChange.ChangeType.CHANGED, path, false));
+        }
+        precomputer.onChange(changes);
+    }
+
+    private String serve(String path, String userId) throws IOException, ServletException {
+        return serve(precomputer, path, userId, new String[] { "model" });
+    }
+
+    private String serve(HierarchyPrecomputer filter, String path, String userId, String[] selectors)
+        throws IOException, ServletException {
+        SlingHttpServletRequest request = mock(SlingHttpServletRequest.class);
+        RequestPathInfo requestPathInfo = mock(RequestPathInfo.class);
+        ResourceResolver resolver = mock(ResourceResolver.class);
+        when(request.getRequestPathInfo()).thenReturn(requestPathInfo);
+        when(requestPathInfo.getSelectors()).thenReturn(selectors);
+        when(request.getResourceResolver()).thenReturn(resolver);
+        when(resolver.getUserID()).thenReturn(userId);
+        Resource resource = mock(Resource.class);
+        when(resource.getPath()).thenReturn(path);
+        when(request.getResource()).thenReturn(resource);
+
+        SlingHttpServletResponse response = mock(SlingHttpServletResponse.class);
+        StringWriter output = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(output));
+        FilterChain chain = mock(FilterChain.class);
+
+        filter.doFilter(request, response, chain);
+        if (output.getBuffer().length() == 0) {
+            verify(chain).doFilter(request, response);
+            return null;
+        }
+        verify(chain, never()).doFilter(request, response);
+        return output.toString();
+    }
+
+    @SuppressWarnings("deprecation")
+    private ResourceResolver newResolver() {
+        try {
+            return context.getService(ResourceResolverFactory.class).getAdministrativeResourceResolver(null);
+        } catch (LoginException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static HierarchyPrecomputer.Config config(long delay) {
+        HierarchyPrecomputer.Config config = mock(HierarchyPrecomputer.Config.class);
+        when(config.delay()).thenReturn(delay);
+        return config;
+    }
+
+    /**
+     * Renders the path of the root instead of the model, depending on the root and its child page and reading the content of an
+     * experience fragment and of the root, and treats the pages below {@value #ROOT_PATH} as part of the SPA
+     */
+    private class TestPrecomputer extends HierarchyPrecomputer {
+
+        private final ResourceResolverFactory resolverFactory;
+
+        private final List<String> rendered = new ArrayList<>();
+
+        private final List<String> renderedBy = new ArrayList<>();
+
+        TestPrecomputer(ResourceResolverFactory resolverFactory) {
+            super(resolverFactory);
+            this.resolverFactory = resolverFactory;
+        }
+
+        @Override
+        HierarchyPrecomputer.Model renderModel(@NotNull ResourceResolver resolver, @NotNull String rootPath) {
+            rendered.add(rootPath);
+            renderedBy.add(resolver.getUserID());
+            resolver.getResource(FRAGMENT_PATH + "/jcr:content/root");
+            resolver.getResource(rootPath + "/jcr:content");
+            return new HierarchyPrecomputer.Model("{\"path\":\"" + rootPath + "\"}",
+                new LinkedHashSet<>(Arrays.asList(rootPath, rootPath + "/child")));
+        }
+
+        @Override
+        Page getRootPage(@NotNull Page page) {
+            return page.getPath().startsWith(ROOT_PATH) ? page.getPageManager().getPage(ROOT_PATH) : null;
+        }
+    }
+}
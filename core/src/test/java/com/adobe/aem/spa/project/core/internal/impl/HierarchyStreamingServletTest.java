@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.models.factory.ModelFactory;
+import org.apache.sling.models.jacksonexporter.ModuleProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.cq.export.json.ContainerExporter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HierarchyStreamingServletTest {
+
+    @Mock
+    private ModelFactory modelFactory;
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private SlingHttpServletResponse response;
+
+    @Mock
+    private RequestPathInfo requestPathInfo;
+
+    @Mock
+    private Resource resource;
+
+    @InjectMocks
+    private HierarchyStreamingServlet servlet;
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        when(request.getResource()).thenReturn(resource);
+        when(request.getRequestPathInfo()).thenReturn(requestPathInfo);
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model" });
+        when(resource.getPath()).thenReturn("/content/page/jcr:content");
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                // Not asynchronous
+            }
+
+            @Override
+            public void write(int b) {
+                output.write(b);
+            }
+        });
+    }
+
+    @Test
+    void testWriteModel() throws ServletException, IOException {
+        mockModel(Collections.singletonMap(":title", "</title>"));
+
+        servlet.doGet(request, response);
+
+        verify(response).setContentType("application/json");
+        verify(response).setCharacterEncoding("UTF-8");
+        assertEquals("{\":title\":\"\\u003C/title\\u003E\"}", getOutput());
+    }
+
+    @Test
+    void testWriteTidyModel() throws ServletException, IOException {
+        mockModel(Collections.singletonMap(":title", "Title"));
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", "tidy" });
+
+        servlet.doGet(request, response);
+
+        assertEquals("{\n  \":title\" : \"Title\"\n}", getOutput());
+    }
+
+    @Test
+    void testNoModel() throws ServletException, IOException {
+        servlet.doGet(request, response);
+
+        verify(response).sendError(HttpServletResponse.SC_NOT_FOUND);
+        assertEquals("", getOutput());
+    }
+
+    @Test
+    void testModuleProviders() throws ServletException, IOException {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(StringBuilder.class, ToStringSerializer.instance);
+        ModuleProvider moduleProvider = mock(ModuleProvider.class);
+        when(moduleProvider.getModule()).thenReturn(module);
+        Map<String, Object> properties = Collections.singletonMap("service.id", 1L);
+
+        mockModel(Collections.singletonMap(":title", new StringBuilder("Title")));
+        servlet.bindModuleProvider(moduleProvider, properties);
+        servlet.doGet(request, response);
+        assertEquals("{\":title\":\"Title\"}", getOutput());
+
+        assertSame(servlet.getJsonWriter(), servlet.getJsonWriter());
+        Object writer = servlet.getJsonWriter();
+        servlet.unbindModuleProvider(moduleProvider, properties);
+        assertNotSame(writer, servlet.getJsonWriter());
+    }
+
+    private void mockModel(Object model) {
+        when(modelFactory.getModelFromWrappedRequest(request, resource, ContainerExporter.class)).thenAnswer(invocation -> model);
+    }
+
+    private String getOutput() {
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.jcr.RepositoryException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.jackrabbit.api.security.user.Authorizable;
+import org.apache.jackrabbit.api.security.user.Group;
+import org.apache.jackrabbit.api.security.user.UserManager;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyRequestContext;
+import com.adobe.aem.spa.project.core.internal.impl.utils.HierarchyTrace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.matches;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HierarchyTraceFilterTest {
+
+    private static final String PAGE_PATH = "/content/site/en/about";
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private SlingHttpServletResponse response;
+
+    @Mock
+    private ResourceResolver resolver;
+
+    @Mock
+    private UserManager userManager;
+
+    @Mock
+    private Authorizable author;
+
+    @Mock
+    private Group group;
+
+    private final HierarchyTraceFilter filter = new HierarchyTraceFilter();
+
+    private final HierarchyTraceFilter.Config config = mock(HierarchyTraceFilter.Config.class);
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void beforeEach() throws IOException, RepositoryException {
+        when(config.header_name()).thenReturn("X-SPA-Trace");
+        when(config.allowed_groups()).thenReturn(new String[] { "administrators" });
+        when(config.threshold_millis()).thenReturn(1000L);
+        when(config.slowest_pages()).thenReturn(10);
+        filter.activate(config);
+
+        Map<String, Object> attributes = new HashMap<>();
+        when(request.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1))).when(request)
+            .setAttribute(anyString(), any());
+        when(request.getHeader("X-SPA-Trace")).thenReturn("true");
+        when(request.getResourceResolver()).thenReturn(resolver);
+        when(resolver.getUserID()).thenReturn("author");
+        when(resolver.adaptTo(UserManager.class)).thenReturn(userManager);
+        when(userManager.getAuthorizable("author")).thenReturn(author);
+        when(group.getID()).thenReturn("administrators");
+        when(author.memberOf()).thenAnswer(invocation -> Collections.singletonList(group).iterator());
+
+        when(response.getCharacterEncoding()).thenReturn("UTF-8");
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                // Blocking stream
+            }
+        });
+    }
+
+    @Test
+    void testTrace() throws IOException, ServletException {
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            HierarchyTrace trace = HierarchyRequestContext.getTrace(invocation.getArgument(0));
+            assertNotNull(trace);
+            trace.record(PAGE_PATH, HierarchyTrace.Phase.ADAPT, 2_000_000L);
+            HttpServletResponse chainResponse = invocation.getArgument(1);
+            chainResponse.getWriter().write("{\"a\":\"é\"}");
+            // Nothing is written before the header is set
+            chainResponse.flushBuffer();
+            assertEquals(0, body.size());
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals("{\"a\":\"é\"}", new String(body.toByteArray(), StandardCharsets.UTF_8));
+        verify(response).setHeader(eq(HierarchyTraceFilter.SERVER_TIMING_HEADER),
+            matches("adapt;dur=2\\.0;desc=\"1 pages\", total;dur=[0-9.]+"));
+    }
+
+    @Test
+    void testNotRequested() throws IOException, ServletException {
+        when(request.getHeader("X-SPA-Trace")).thenReturn(null);
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            assertNull(HierarchyRequestContext.getTrace(invocation.getArgument(0)));
+            return null;
+        }).when(chain).doFilter(request, response);
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(response, never()).setHeader(eq(HierarchyTraceFilter.SERVER_TIMING_HEADER), anyString());
+    }
+
+    @Test
+    void testAuthorization() throws RepositoryException {
+        assertTrue(HierarchyTraceFilter.isTraceRequested(request, config));
+
+        when(group.getID()).thenReturn("content-authors");
+        assertFalse(HierarchyTraceFilter.isTraceRequested(request, config));
+
+        when(resolver.adaptTo(UserManager.class)).thenReturn(null);
+        assertFalse(HierarchyTraceFilter.isTraceRequested(request, config));
+
+        when(resolver.adaptTo(UserManager.class)).thenReturn(userManager);
+        when(group.getID()).thenReturn("administrators");
+        when(author.memberOf()).thenThrow(new RepositoryException("Session closed"));
+        assertFalse(HierarchyTraceFilter.isTraceRequested(request, config));
+    }
+
+    @Test
+    void testAdminNotAuthorizedByUserId() {
+        when(resolver.getUserID()).thenReturn("admin");
+        assertFalse(HierarchyTraceFilter.isTraceRequested(request, config));
+    }
+
+    @Test
+    void testWriteListenerOnBuffer() throws IOException {
+        HierarchyTraceFilter.BufferingResponse bufferingResponse = new HierarchyTraceFilter.BufferingResponse(response);
+        ServletOutputStream outputStream = bufferingResponse.getOutputStream();
+        WriteListener listener = mock(WriteListener.class);
+        doAnswer(invocation -> {
+            outputStream.write('a');
+            return null;
+        }).when(listener).onWritePossible();
+
+        outputStream.setWriteListener(listener);
+
+        verify(listener).onWritePossible();
+        verify(listener, never()).onError(any());
+        assertTrue(outputStream.isReady());
+        outputStream.write('b');
+        assertEquals("ab", new String(bufferingResponse.getBody(), StandardCharsets.UTF_8));
+    }
+}
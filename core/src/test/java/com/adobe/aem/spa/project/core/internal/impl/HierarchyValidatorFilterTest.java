@@ -0,0 +1,230 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.mockito.stubbing.Answer;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.StructurePatternsEngine;
+import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.PageManager;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+import com.day.cq.wcm.api.policies.ContentPolicyManager;
+
+import static com.adobe.aem.spa.project.core.internal.impl.HierarchyValidatorFilter.HEADER_ETAG;
+import static com.adobe.aem.spa.project.core.internal.impl.HierarchyValidatorFilter.HEADER_IF_NONE_MATCH;
+import static com.adobe.aem.spa.project.core.internal.impl.HierarchyValidatorFilter.HEADER_LAST_MODIFIED;
+import static com.adobe.aem.spa.project.core.models.Page.PN_STRUCTURE_DEPTH;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HierarchyValidatorFilterTest {
+
+    private static final String PAGE_PATH = "/content/site/en";
+
+    private static final long LAST_MODIFIED = 1_600_000_000_000L;
+
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    @Mock
+    private HierarchyExportSettings settings;
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private SlingHttpServletResponse response;
+
+    @Mock
+    private FilterChain chain;
+
+    @Mock
+    private Resource resource;
+
+    @Mock
+    private Resource contentResource;
+
+    @Mock
+    private Page page;
+
+    @Mock
+    private ContentPolicyManager policyManager;
+
+    @InjectMocks
+    private HierarchyValidatorFilter filter;
+
+    @BeforeEach
+    void beforeEach() {
+        ResourceResolver resourceResolver = mock(ResourceResolver.class);
+        PageManager pageManager = mock(PageManager.class);
+        when(settings.getRequestPatternsEngine()).thenReturn(StructurePatternsEngine.REGEX);
+        when(request.getResourceResolver()).thenReturn(resourceResolver);
+        when(request.getResource()).thenReturn(resource);
+        when(request.getRequestPathInfo()).thenReturn(mock(RequestPathInfo.class));
+        when(request.getDateHeader(anyString())).thenReturn(-1L);
+        when(resourceResolver.adaptTo(PageManager.class)).thenReturn(pageManager);
+        when(resourceResolver.adaptTo(ContentPolicyManager.class)).thenReturn(policyManager);
+        when(pageManager.getContainingPage(resource)).thenReturn(page);
+
+        when(resource.getPath()).thenReturn(PAGE_PATH);
+        when(contentResource.getPath()).thenReturn(PAGE_PATH + "/jcr:content");
+        when(contentResource.isResourceType(PageImpl.RESOURCE_TYPE)).thenReturn(true);
+        when(page.getPath()).thenReturn(PAGE_PATH);
+        when(page.getContentResource()).thenReturn(contentResource);
+        Calendar lastModified = Calendar.getInstance();
+        lastModified.setTimeInMillis(LAST_MODIFIED);
+        when(page.getLastModified()).thenReturn(lastModified);
+    }
+
+    @Test
+    void testValidators() throws IOException, ServletException {
+        filter.doFilter(request, response, chain);
+
+        verify(response).setHeader(eq(HEADER_ETAG), anyString());
+        verify(response).setDateHeader(HEADER_LAST_MODIFIED, LAST_MODIFIED);
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void testIfNoneMatch() throws IOException, ServletException {
+        filter.doFilter(request, response, chain);
+        ArgumentCaptor<String> eTag = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq(HEADER_ETAG), eTag.capture());
+
+        when(request.getHeader(HEADER_IF_NONE_MATCH)).thenReturn("\"other\", " + eTag.getValue().substring(2));
+        // Ignored in presence of If-None-Match
+        when(request.getDateHeader(HEADER_IF_MODIFIED_SINCE)).thenReturn(0L);
+        filter.doFilter(request, response, chain);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void testIfNoneMatchChanged() throws IOException, ServletException {
+        when(request.getHeader(HEADER_IF_NONE_MATCH)).thenReturn("W/\"other\"");
+        when(request.getDateHeader(HEADER_IF_MODIFIED_SINCE)).thenReturn(LAST_MODIFIED);
+
+        filter.doFilter(request, response, chain);
+
+        verify(response, never()).setStatus(anyInt());
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void testIfModifiedSinceIgnored() throws IOException, ServletException {
+        when(request.getDateHeader(HEADER_IF_MODIFIED_SINCE)).thenReturn(LAST_MODIFIED);
+
+        filter.doFilter(request, response, chain);
+
+        verify(response, never()).setStatus(anyInt());
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void testRemovedChildNotAnsweredByDate() throws IOException, ServletException {
+        ContentPolicy policy = mock(ContentPolicy.class);
+        ValueMap policyProperties = mock(ValueMap.class);
+        when(policy.getProperties()).thenReturn(policyProperties);
+        when(policyProperties.get(PN_STRUCTURE_DEPTH, Integer.class)).thenReturn(1);
+        when(policyManager.getPolicy(contentResource)).thenReturn(policy);
+
+        Page child = mock(Page.class);
+        Calendar childModified = Calendar.getInstance();
+        childModified.setTimeInMillis(LAST_MODIFIED - 1000);
+        when(child.getPath()).thenReturn(PAGE_PATH + "/child");
+        when(child.getContentResource()).thenReturn(mock(Resource.class));
+        when(child.getLastModified()).thenReturn(childModified);
+        List<Page> children = new ArrayList<>(Collections.singletonList(child));
+        when(page.listChildren()).thenAnswer((Answer<Iterator<Page>>) i -> new ArrayList<>(children).iterator());
+
+        filter.doFilter(request, response, chain);
+
+        // The removal does not change the latest modification time, which a client revalidating by date already holds
+        children.clear();
+        when(request.getDateHeader(HEADER_IF_MODIFIED_SINCE)).thenReturn(LAST_MODIFIED);
+        filter.doFilter(request, response, chain);
+
+        verify(response, never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response, times(2)).setDateHeader(HEADER_LAST_MODIFIED, LAST_MODIFIED);
+        verify(chain, times(2)).doFilter(request, response);
+        ArgumentCaptor<String> eTags = ArgumentCaptor.forClass(String.class);
+        verify(response, times(2)).setHeader(eq(HEADER_ETAG), eTags.capture());
+        assertNotEquals(eTags.getAllValues().get(0), eTags.getAllValues().get(1));
+    }
+
+    @Test
+    void testOtherResourceType() throws IOException, ServletException {
+        when(contentResource.isResourceType(PageImpl.RESOURCE_TYPE)).thenReturn(false);
+
+        filter.doFilter(request, response, chain);
+
+        verify(response, never()).setHeader(eq(HEADER_ETAG), anyString());
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void testComponentResource() throws IOException, ServletException {
+        when(resource.getPath()).thenReturn(PAGE_PATH + "/jcr:content/root/text");
+
+        filter.doFilter(request, response, chain);
+
+        verify(response, never()).setHeader(eq(HEADER_ETAG), anyString());
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void testUnknownModificationTime() throws IOException, ServletException {
+        when(page.getLastModified()).thenReturn(null);
+
+        filter.doFilter(request, response, chain);
+
+        verify(response, never()).setHeader(eq(HEADER_ETAG), anyString());
+        verify(chain).doFilter(request, response);
+    }
+}
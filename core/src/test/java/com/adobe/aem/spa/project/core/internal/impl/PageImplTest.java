@@ -12,11 +12,16 @@
 
 package com.adobe.aem.spa.project.core.internal.impl;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.request.RequestParameter;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.models.factory.ModelFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,16 +33,25 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
 import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.PageRemovalLog;
+import com.adobe.aem.spa.project.core.internal.StructurePatternsEngine;
 import com.adobe.aem.spa.project.core.models.Page;
 import com.adobe.cq.export.json.hierarchy.type.HierarchyTypes;
 import com.day.cq.wcm.api.designer.Style;
 
 import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.JSON_EXPORT_SUFFIX;
 import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.PN_STRUCTURE_PATTERNS;
+import static com.adobe.aem.spa.project.core.models.Page.PN_STRUCTURE_DEPTH;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -61,9 +75,18 @@ class PageImplTest {
     @Mock
     private SlingHttpServletRequest request;
 
+    @Mock
+    private RequestPathInfo requestPathInfo;
+
     @Mock
     private com.adobe.cq.wcm.core.components.models.Page delegate;
 
+    @Mock
+    private HierarchyExportSettings settings;
+
+    @Mock
+    private PageRemovalLog removalLog;
+
     @InjectMocks
     private PageImpl page;
 
@@ -79,9 +102,19 @@ class PageImplTest {
         page.setRootPage(currentPage);
 
         // Request
+        when(request.getRequestPathInfo()).thenReturn(requestPathInfo);
+        // The hierarchy request context is kept as attribute
+        Map<String, Object> attributes = new HashMap<>();
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1))).when(request)
+            .setAttribute(anyString(), any());
+        when(request.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+        when(request.getResourceResolver()).thenReturn(mock(ResourceResolver.class));
         RequestParameter requestParameter = mock(RequestParameter.class);
         when(request.getRequestParameter(eq(PN_STRUCTURE_PATTERNS.toLowerCase()))).thenReturn(requestParameter);
 
+        // Settings
+        when(settings.getRequestPatternsEngine()).thenReturn(StructurePatternsEngine.REGEX);
+
         // Mock delegated methods where required to prevent errors
         when(delegate.getExportedItemsOrder()).thenReturn(new String[] {});
         when(delegate.getExportedType()).thenReturn("some/resource/type");
@@ -106,6 +139,110 @@ class PageImplTest {
         assertTrue(page.getExportedChildren().isEmpty());
     }
 
+    @Test
+    void testIsChildrenTruncated() {
+        // Two children but only one is allowed
+        mockChildren("child1", "child2");
+        when(settings.getMaxDescendants()).thenReturn(1);
+
+        assertTrue(page.isChildrenTruncated());
+        assertEquals(0, page.getExportedChildren().size());
+    }
+
+    @Test
+    void testIsChildrenNotTruncated() {
+        mockChildren("child1", "child2");
+        when(settings.getMaxDescendants()).thenReturn(2);
+
+        assertFalse(page.isChildrenTruncated());
+    }
+
+    @Test
+    void testGetChildrenNext() {
+        mockChildren("child1", "child2");
+
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", "children-0-1" });
+        assertEquals(CURRENT_PAGE_PATH + ".model.children-1-1.json", page.getChildrenNext());
+    }
+
+    @Test
+    void testGetChildrenNextKeepsSelectors() {
+        mockChildren("child1", "child2");
+
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", "skeleton", "children-0-1", "tidy" });
+        assertEquals(CURRENT_PAGE_PATH + ".model.skeleton.children-1-1.tidy.json", page.getChildrenNext());
+    }
+
+    @Test
+    void testGetChildrenNextLastSlice() {
+        mockChildren("child1", "child2");
+
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", "children-1-1" });
+        assertNull(page.getChildrenNext());
+    }
+
+    @Test
+    void testGetChildrenNextNotSliced() {
+        mockChildren("child1", "child2");
+
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model" });
+        assertNull(page.getChildrenNext());
+    }
+
+    @Test
+    void testGetChildrenDelta() {
+        mockChildren("child1", "child2");
+        when(removalLog.getRemovedPaths(CURRENT_PAGE_PATH, 1000L)).thenReturn(Collections.singletonList(CURRENT_PAGE_PATH + "/old"));
+        when(removalLog.getAddedPaths(CURRENT_PAGE_PATH, 1000L)).thenReturn(Collections.emptyList());
+
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", "since-1000" });
+        long before = System.currentTimeMillis();
+        // The watermark of the export, not the requested instant
+        assertTrue(page.getChildrenSince() >= before);
+        assertEquals(Collections.singletonList(CURRENT_PAGE_PATH + "/old"), page.getChildrenRemoved());
+    }
+
+    @Test
+    void testGetChildrenHorizon() {
+        mockChildren("child1", "child2");
+        when(removalLog.getHorizon(CURRENT_PAGE_PATH)).thenReturn(500L);
+
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", "since-1000" });
+        assertEquals(Long.valueOf(500), page.getChildrenHorizon());
+    }
+
+    @Test
+    void testGetChildrenDeltaUnknownRemovals() {
+        mockChildren("child1", "child2");
+        when(removalLog.getRemovedPaths(CURRENT_PAGE_PATH, 1000L)).thenReturn(null);
+
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", "since-1000" });
+        // All descendants are exported, the watermark is told for the next delta
+        assertNotNull(page.getChildrenSince());
+        assertNull(page.getChildrenRemoved());
+    }
+
+    @Test
+    void testGetChildrenNotDelta() {
+        mockChildren("child1", "child2");
+
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model" });
+        assertNull(page.getChildrenSince());
+        assertNull(page.getChildrenRemoved());
+        assertNull(page.getChildrenHorizon());
+    }
+
+    private void mockChildren(String... names) {
+        List<com.day.cq.wcm.api.Page> children = new ArrayList<>();
+        for (String name : names) {
+            com.day.cq.wcm.api.Page child = mock(com.day.cq.wcm.api.Page.class);
+            when(child.getPath()).thenReturn(CURRENT_PAGE_PATH + "/" + name);
+            children.add(child);
+        }
+        when(currentPage.listChildren()).thenAnswer(invocation -> children.iterator());
+        when(currentStyle.get(PN_STRUCTURE_DEPTH, Integer.class)).thenReturn(-1);
+    }
+
     @Test
     void testGetExportedPath() {
         assertEquals(CURRENT_PAGE_PATH, page.getExportedPath());
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PageModelFragmentCacheImplTest {
+
+    private static final String JSON = "{\"title\":\"Page\"}";
+
+    private PageModelFragmentCacheImpl cache;
+
+    @BeforeEach
+    void beforeEach() {
+        cache = new PageModelFragmentCacheImpl();
+        cache.activate(config(1024 * 1024));
+    }
+
+    @Test
+    void testGetAndPut() {
+        assertNull(cache.get("/content/site/en", "1"));
+
+        cache.put("/content/site/en", "1", JSON);
+
+        assertEquals(JSON, cache.get("/content/site/en", "1"));
+        assertNull(cache.get("/content/site/en", "2"));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void testPutReplaces() {
+        cache.put("/content/site/en", "1", JSON);
+        long size = cache.size();
+
+        cache.put("/content/site/en", "1", "{}");
+
+        assertEquals("{}", cache.get("/content/site/en", "1"));
+        assertEquals(size - 2 * (JSON.length() - 2), cache.size());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        String json = StringUtils.repeat('a', 100);
+        long fragmentSize = PageModelFragmentCacheImpl.ENTRY_OVERHEAD + 2 * ("/content/a".length() + 1 + json.length());
+        cache.activate(config(2 * fragmentSize));
+
+        cache.put("/content/a", "1", json);
+        cache.put("/content/b", "1", json);
+        cache.get("/content/a", "1");
+        cache.put("/content/c", "1", json);
+
+        assertEquals(json, cache.get("/content/a", "1"));
+        assertNull(cache.get("/content/b", "1"));
+        assertEquals(json, cache.get("/content/c", "1"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2 * fragmentSize, cache.size());
+    }
+
+    @Test
+    void testIgnoresFragmentsLargerThanCache() {
+        cache.activate(config(100));
+
+        cache.put("/content/a", "1", JSON);
+
+        assertNull(cache.get("/content/a", "1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testContentChangeInvalidatesPage() {
+        cache.put("/content/site/en", "1", JSON);
+        cache.put("/content/site/en", "2", JSON);
+        cache.put("/content/site/en/child", "1", JSON);
+
+        cache.onChange(Collections.singletonList(change("/content/site/en/jcr:content/root/text", ResourceChange.ChangeType.CHANGED)));
+
+        assertNull(cache.get("/content/site/en", "1"));
+        assertNull(cache.get("/content/site/en", "2"));
+        assertEquals(JSON, cache.get("/content/site/en/child", "1"));
+    }
+
+    @Test
+    void testRemovalInvalidatesSubtree() {
+        cache.put("/content/site/en", "1", JSON);
+        cache.put("/content/site/en/child", "1", JSON);
+        cache.put("/content/site/english", "1", JSON);
+
+        cache.onChange(Collections.singletonList(change("/content/site/en", ResourceChange.ChangeType.REMOVED)));
+
+        assertNull(cache.get("/content/site/en", "1"));
+        assertNull(cache.get("/content/site/en/child", "1"));
+        assertEquals(JSON, cache.get("/content/site/english", "1"));
+    }
+
+    @Test
+    void testConfChangeInvalidatesAll() {
+        cache.put("/content/site/en", "1", JSON);
+        cache.put("/content/site/fr", "1", JSON);
+
+        cache.onChange(Arrays.asList(
+            change("/conf/site/settings/wcm/policies/page", ResourceChange.ChangeType.CHANGED),
+            change("/content/site/de", ResourceChange.ChangeType.ADDED)));
+
+        assertNull(cache.get("/content/site/en", "1"));
+        assertNull(cache.get("/content/site/fr", "1"));
+        assertEquals(0, cache.size());
+    }
+
+    private static ResourceChange change(String path, ResourceChange.ChangeType type) {
+        ResourceChange change = mock(ResourceChange.class);
+        when(change.getPath()).thenReturn(path);
+        when(change.getType()).thenReturn(type);
+        return change;
+    }
+
+    private static PageModelFragmentCacheImpl.Config config(long maxSize) {
+        PageModelFragmentCacheImpl.Config config = mock(PageModelFragmentCacheImpl.Config.class);
+        when(config.max_size()).thenReturn(maxSize);
+        return config;
+    }
+}
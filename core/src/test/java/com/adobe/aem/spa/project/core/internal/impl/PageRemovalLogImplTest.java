@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PageRemovalLogImplTest {
+
+    private final AtomicLong clock = new AtomicLong(1000);
+
+    private PageRemovalLogImpl log;
+
+    @BeforeEach
+    void beforeEach() {
+        log = new PageRemovalLogImpl(clock::get);
+        log.activate(config(3));
+        // Tracked from the first delta export of the roots
+        log.getHorizon("/content/site/en/a");
+        log.getHorizon("/content/site/en");
+    }
+
+    @Test
+    void testGetRemovedPaths() {
+        clock.set(2000);
+        remove("/content/site/en/a");
+        clock.set(3000);
+        remove("/content/site/en/b", "/content/site/fr/c");
+
+        assertEquals(Arrays.asList("/content/site/en/a", "/content/site/en/b"), log.getRemovedPaths("/content/site/en", 1000));
+        assertEquals(Collections.singletonList("/content/site/en/b"), log.getRemovedPaths("/content/site/en", 2000));
+        assertTrue(log.getRemovedPaths("/content/site/en", 3000).isEmpty());
+        assertTrue(log.getRemovedPaths("/content/site/en/a", 1000).isEmpty());
+    }
+
+    @Test
+    void testBeforeActivation() {
+        assertNull(log.getRemovedPaths("/content/site/en", 999));
+    }
+
+    @Test
+    void testContentIgnored() {
+        clock.set(2000);
+        remove("/content/site/en/a/jcr:content", "/content/site/en/a/jcr:content/root/text", "/content/site/en/rep:policy/allow");
+
+        assertTrue(log.getRemovedPaths("/content/site/en", 1000).isEmpty());
+    }
+
+    @Test
+    void testUntrackedRootsIgnored() {
+        clock.set(2000);
+        remove("/content/dam/site/a.jpg", "/content/dam/site/b.jpg", "/content/experience-fragments/site/c", "/content/site/fr/d");
+
+        // The log is not filled by changes outside of the tracked roots
+        assertTrue(log.getRemovedPaths("/content/site/en", 1000).isEmpty());
+        assertNull(log.getRemovedPaths("/content/site/fr", 1000));
+    }
+
+    @Test
+    void testRootTrackedFromFirstRequest() {
+        clock.set(2000);
+        assertNull(log.getRemovedPaths("/content/other", 1000));
+        assertEquals(2000, log.getHorizon("/content/other"));
+
+        clock.set(3000);
+        remove("/content/other/a");
+        assertEquals(Collections.singletonList("/content/other/a"), log.getRemovedPaths("/content/other", 2000));
+        assertEquals(1000, log.getHorizon("/content/site/en"));
+    }
+
+    @Test
+    void testLeastRecentlyExportedRootDropped() {
+        clock.set(2000);
+        log.getHorizon("/content/other");
+
+        // The first tracked root was dropped, the next one is dropped when it is tracked again
+        clock.set(3000);
+        assertEquals(3000, log.getHorizon("/content/site/en/a"));
+        assertEquals(2000, log.getHorizon("/content/other"));
+        assertEquals(3000, log.getHorizon("/content/site/en"));
+    }
+
+    @Test
+    void testGetAddedPaths() {
+        clock.set(2000);
+        // A move is observed as the removal of the source and the addition of the destination
+        log.onChange(Arrays.asList(new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/site/en/a", false),
+            new ResourceChange(ResourceChange.ChangeType.ADDED, "/content/site/en/b/a", false),
+            new ResourceChange(ResourceChange.ChangeType.ADDED, "/content/site/en/b/a/jcr:content", false)));
+
+        assertEquals(Collections.singletonList("/content/site/en/b/a"), log.getAddedPaths("/content/site/en", 1000));
+        assertEquals(Collections.singletonList("/content/site/en/a"), log.getRemovedPaths("/content/site/en", 1000));
+        assertTrue(log.getAddedPaths("/content/site/en", 2000).isEmpty());
+        assertNull(log.getAddedPaths("/content/site/en", 999));
+    }
+
+    @Test
+    void testOtherChangesIgnored() {
+        clock.set(2000);
+        log.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED, "/content/site/en/a", false)));
+
+        assertTrue(log.getRemovedPaths("/content/site/en", 1000).isEmpty());
+        assertTrue(log.getAddedPaths("/content/site/en", 1000).isEmpty());
+    }
+
+    @Test
+    void testOldestDropped() {
+        for (int i = 1; i <= 4; i++) {
+            clock.set(1000 + i * 1000);
+            remove("/content/site/en/" + i);
+        }
+
+        // The removal at 2000 was dropped
+        assertNull(log.getRemovedPaths("/content/site/en", 1000));
+        assertEquals(Arrays.asList("/content/site/en/2", "/content/site/en/3", "/content/site/en/4"),
+            log.getRemovedPaths("/content/site/en", 2000));
+    }
+
+    private void remove(String... paths) {
+        ResourceChange[] changes = new ResourceChange[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            changes[i] = new ResourceChange(ResourceChange.ChangeType.REMOVED, paths[i], false);
+        }
+        log.onChange(Arrays.asList(changes));
+    }
+
+    private static PageRemovalLogImpl.Config config(int maxEntries) {
+        PageRemovalLogImpl.Config config = mock(PageRemovalLogImpl.Config.class);
+        when(config.max_entries()).thenReturn(maxEntries);
+        when(config.max_roots()).thenReturn(2);
+        return config;
+    }
+}
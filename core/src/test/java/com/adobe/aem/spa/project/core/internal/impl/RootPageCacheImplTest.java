@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.adobe.aem.spa.project.core.internal.RootPageCache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RootPageCacheImplTest {
+
+    private RootPageCacheImpl cache;
+
+    @BeforeEach
+    void beforeEach() {
+        cache = new RootPageCacheImpl();
+        cache.activate(config(10));
+
+        cache.putRootPath("/content/site", "/content/site");
+        cache.putRootPath("/content/site/en", "/content/site");
+        cache.putRootPath("/content/site/en/page", "/content/site");
+        cache.putRootPath("/content/other", RootPageCache.NO_ROOT);
+    }
+
+    @Test
+    void testGetRootPath() {
+        assertEquals("/content/site", cache.getRootPath("/content/site/en/page"));
+        assertEquals(RootPageCache.NO_ROOT, cache.getRootPath("/content/other"));
+        assertNull(cache.getRootPath("/content/site/fr"));
+    }
+
+    @Test
+    void testMaxEntries() {
+        cache.activate(config(2));
+        cache.putRootPath("/content/a", RootPageCache.NO_ROOT);
+        cache.putRootPath("/content/b", RootPageCache.NO_ROOT);
+        cache.getRootPath("/content/a");
+        cache.putRootPath("/content/c", RootPageCache.NO_ROOT);
+
+        assertEquals(RootPageCache.NO_ROOT, cache.getRootPath("/content/a"));
+        assertNull(cache.getRootPath("/content/b"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testTemplateChangeDropsSubtree() {
+        cache.onChange(Collections.singletonList(change("/content/site/en/jcr:content", ResourceChange.ChangeType.CHANGED)));
+
+        assertEquals("/content/site", cache.getRootPath("/content/site"));
+        assertNull(cache.getRootPath("/content/site/en"));
+        assertNull(cache.getRootPath("/content/site/en/page"));
+    }
+
+    @Test
+    void testComponentChangeIsIgnored() {
+        cache.onChange(Collections.singletonList(change("/content/site/en/jcr:content/root/text", ResourceChange.ChangeType.CHANGED)));
+
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    void testMoveDropsSubtree() {
+        cache.onChange(Collections.singletonList(change("/content/site", ResourceChange.ChangeType.REMOVED)));
+
+        assertNull(cache.getRootPath("/content/site/en/page"));
+        assertEquals(RootPageCache.NO_ROOT, cache.getRootPath("/content/other"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testAccessControlChangeDropsSubtree() {
+        cache.onChange(Collections.singletonList(change("/content/site/en/rep:policy/allow", ResourceChange.ChangeType.ADDED)));
+
+        assertEquals("/content/site", cache.getRootPath("/content/site"));
+        assertNull(cache.getRootPath("/content/site/en"));
+        assertNull(cache.getRootPath("/content/site/en/page"));
+        assertEquals(RootPageCache.NO_ROOT, cache.getRootPath("/content/other"));
+    }
+
+    @Test
+    void testMovedRootDropsEntriesOutsideItsSubtree() {
+        cache.putRootPath("/content/linked/page", "/content/site");
+
+        cache.onChange(Arrays.asList(change("/content/site", ResourceChange.ChangeType.REMOVED),
+            change("/content/archive/site", ResourceChange.ChangeType.ADDED)));
+
+        assertNull(cache.getRootPath("/content/linked/page"));
+        assertNull(cache.getRootPath("/content/site"));
+        assertEquals(RootPageCache.NO_ROOT, cache.getRootPath("/content/other"));
+    }
+
+    @Test
+    void testMovedPageDropsDestination() {
+        cache.putRootPath("/content/site/en/moved", RootPageCache.NO_ROOT);
+
+        cache.onChange(Arrays.asList(change("/content/other/moved", ResourceChange.ChangeType.REMOVED),
+            change("/content/site/en/moved", ResourceChange.ChangeType.ADDED)));
+
+        assertNull(cache.getRootPath("/content/site/en/moved"));
+        assertEquals("/content/site", cache.getRootPath("/content/site/en/page"));
+    }
+
+    @Test
+    void testConfChangeDropsAll() {
+        cache.onChange(Collections.singletonList(change("/conf/site/settings/wcm/policies", ResourceChange.ChangeType.CHANGED)));
+
+        assertEquals(0, cache.size());
+    }
+
+    private static ResourceChange change(String path, ResourceChange.ChangeType type) {
+        ResourceChange change = mock(ResourceChange.class);
+        when(change.getPath()).thenReturn(path);
+        when(change.getType()).thenReturn(type);
+        return change;
+    }
+
+    private static RootPageCacheImpl.Config config(int maxEntries) {
+        RootPageCacheImpl.Config config = mock(RootPageCacheImpl.Config.class);
+        when(config.max_entries()).thenReturn(maxEntries);
+        return config;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.request.RequestParameter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.StructurePatternsEngine;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StructurePatternsFilterTest {
+
+    @Mock
+    private HierarchyExportSettings settings;
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private SlingHttpServletResponse response;
+
+    @Mock
+    private FilterChain chain;
+
+    @InjectMocks
+    private StructurePatternsFilter filter;
+
+    @Test
+    void testNoPatterns() throws IOException, ServletException {
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void testValidPatterns() throws IOException, ServletException {
+        setRequestPatterns("^/content/(en|fr)", StructurePatternsEngine.LINEAR);
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(response, never()).sendError(anyInt(), anyString());
+    }
+
+    @Test
+    void testInvalidPatterns() throws IOException, ServletException {
+        setRequestPatterns("valid,(invalid", StructurePatternsEngine.REGEX);
+
+        filter.doFilter(request, response, chain);
+
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verify(chain, never()).doFilter(request, response);
+    }
+
+    @Test
+    void testPatternsUnsupportedByEngine() throws IOException, ServletException {
+        // Supported by java.util.regex but not by the linear engine
+        setRequestPatterns("^/content/(a)\\1", StructurePatternsEngine.LINEAR);
+
+        filter.doFilter(request, response, chain);
+
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verify(chain, never()).doFilter(request, response);
+    }
+
+    private void setRequestPatterns(String value, StructurePatternsEngine engine) {
+        RequestParameter parameter = mock(RequestParameter.class);
+        when(parameter.getString()).thenReturn(value);
+        when(request.getRequestParameter("structurepatterns")).thenReturn(parameter);
+        when(settings.getRequestPatternsEngine()).thenReturn(engine);
+    }
+}
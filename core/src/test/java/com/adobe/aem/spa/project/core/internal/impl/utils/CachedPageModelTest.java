@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.aem.spa.project.core.internal.PageModelFragmentCache;
+import com.adobe.aem.spa.project.core.models.Page;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CachedPageModelTest {
+
+    private static final String PATH = "/content/site/en";
+
+    private static final String VARIANT = "1";
+
+    @Mock
+    private PageModelFragmentCache cache;
+
+    @Mock
+    private Supplier<Page> adapter;
+
+    private final ModelJsonWriter writer = new ModelJsonWriter(Collections.singletonList(
+        new SimpleModule().addSerializer(TitlePage.class, new TitlePageSerializer())));
+
+    @Test
+    void testSerializeModelCachesFragment() throws IOException {
+        CachedPageModel model = CachedPageModel.fromModel(new TitlePage("</script>"), cache, PATH, VARIANT);
+
+        assertEquals("{\"/content/site/en\":{\"title\":\"\\u003C/script\\u003E\"}}", writer.writeAsString(children(model), false));
+        verify(cache).put(PATH, VARIANT, "{\"title\":\"\\u003C/script\\u003E\"}");
+
+        // The fragment is serialized once
+        writer.writeAsString(children(model), false);
+        verify(cache, times(1)).put(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testSerializeFragment() throws IOException {
+        CachedPageModel model = CachedPageModel.fromFragment("{\"title\":\"Cached\"}", adapter, cache, PATH, VARIANT);
+
+        Map<String, Object> children = children(model);
+        children.put("/content/site/fr", new TitlePage("Adapted"));
+
+        assertEquals("{\"/content/site/en\":{\"title\":\"Cached\"},\"/content/site/fr\":{\"title\":\"Adapted\"}}",
+            writer.writeAsString(children, false));
+        verify(adapter, never()).get();
+        verify(cache, never()).put(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testSerializeTidyAdaptsModel() throws IOException {
+        when(adapter.get()).thenReturn(new TitlePage("Adapted"));
+        CachedPageModel model = CachedPageModel.fromFragment("{\"title\":\"Cached\"}", adapter, cache, PATH, VARIANT);
+
+        assertEquals("{\n  \"/content/site/en\" : {\n    \"title\" : \"Adapted\"\n  }\n}", writer.writeAsString(children(model), true));
+        verify(cache, never()).put(any(), any(), any());
+    }
+
+    @Test
+    void testDelegatesToAdaptedModel() {
+        TitlePage page = new TitlePage("Adapted");
+        when(adapter.get()).thenReturn(page);
+        CachedPageModel model = CachedPageModel.fromFragment("{}", adapter, cache, PATH, VARIANT);
+
+        assertEquals("Adapted", model.getTitle());
+        assertEquals("Adapted", model.getTitle());
+        assertSame(page, model.getModel());
+        verify(adapter, times(1)).get();
+    }
+
+    private static Map<String, Object> children(Page model) {
+        Map<String, Object> children = new LinkedHashMap<>();
+        children.put(PATH, model);
+        return children;
+    }
+
+    private static final class TitlePage implements Page {
+
+        private final String title;
+
+        TitlePage(String title) {
+            this.title = title;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private static final class TitlePageSerializer extends StdSerializer<TitlePage> {
+
+        TitlePageSerializer() {
+            super(TitlePage.class);
+        }
+
+        @Override
+        public void serialize(TitlePage value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("title", value.getTitle());
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChildrenSliceTest {
+
+    private static final List<String> DESCENDANTS = Arrays.asList("a", "b", "c", "d", "e");
+
+    @Test
+    void testFromSelectors() {
+        assertNull(ChildrenSlice.fromSelectors(null));
+        assertNull(ChildrenSlice.fromSelectors(new String[] { "model" }));
+        assertNotNull(ChildrenSlice.fromSelectors(new String[] { "model", "children-0-50" }));
+    }
+
+    @Test
+    void testFromInvalidSelectors() {
+        assertNull(ChildrenSlice.fromSelectors(new String[] { "children-0" }));
+        assertNull(ChildrenSlice.fromSelectors(new String[] { "children--1-10" }));
+        assertNull(ChildrenSlice.fromSelectors(new String[] { "children-0-0" }));
+        assertNull(ChildrenSlice.fromSelectors(new String[] { "children-0-" + (ChildrenSlice.MAX_LIMIT + 1) }));
+        assertNull(ChildrenSlice.fromSelectors(new String[] { "children-9999999999-10" }));
+    }
+
+    @Test
+    void testApply() {
+        ChildrenSlice first = ChildrenSlice.fromSelectors(new String[] { "children-0-2" });
+        assertEquals(Arrays.asList("a", "b"), first.apply(DESCENDANTS));
+        assertTrue(first.isFirst());
+        assertEquals("children-2-2", first.getNextSelector());
+
+        ChildrenSlice last = ChildrenSlice.fromSelectors(new String[] { "children-4-2" });
+        assertEquals(Collections.singletonList("e"), last.apply(DESCENDANTS));
+        assertFalse(last.isFirst());
+        assertNull(last.getNextSelector());
+
+        ChildrenSlice exact = ChildrenSlice.fromSelectors(new String[] { "children-3-2" });
+        assertEquals(Arrays.asList("d", "e"), exact.apply(DESCENDANTS));
+        assertNull(exact.getNextSelector());
+    }
+
+    @Test
+    void testApplyBeyondDescendants() {
+        ChildrenSlice slice = ChildrenSlice.fromSelectors(new String[] { "children-10-2" });
+        assertTrue(slice.apply(DESCENDANTS).isEmpty());
+        assertNull(slice.getNextSelector());
+    }
+
+    @Test
+    void testGetNextSelectors() {
+        ChildrenSlice slice = ChildrenSlice.fromSelectors(new String[] { "model", "fields-navigation", "children-0-2", "since-100" });
+        slice.apply(DESCENDANTS);
+        assertEquals("fields-navigation.children-2-2.since-100",
+            slice.getNextSelectors(new String[] { "model", "fields-navigation", "children-0-2", "since-100" }));
+        assertEquals("children-2-2", slice.getNextSelectors(new String[] { "model", "children-0-2" }));
+        assertEquals("children-2-2", slice.getNextSelectors(null));
+
+        ChildrenSlice last = ChildrenSlice.fromSelectors(new String[] { "children-4-2" });
+        last.apply(DESCENDANTS);
+        assertNull(last.getNextSelectors(new String[] { "model", "skeleton", "children-4-2" }));
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestParameter;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.PageRemovalLog;
+import com.day.cq.replication.ReplicationStatus;
+import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.PageManager;
+import com.day.cq.wcm.api.designer.Style;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+import com.day.cq.wcm.api.policies.ContentPolicyManager;
+
+import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.PN_STRUCTURE_PATTERNS;
+import static com.adobe.aem.spa.project.core.models.Page.PN_STRUCTURE_DEPTH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ExportDeltaTest {
+
+    private static final String ROOT_PATH = "/content/site/en";
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private RequestPathInfo requestPathInfo;
+
+    @Mock
+    private ContentPolicyManager policyManager;
+
+    @Mock
+    private PageManager pageManager;
+
+    @Mock
+    private Style style;
+
+    @Mock
+    private PageRemovalLog removalLog;
+
+    private Page root;
+
+    @BeforeEach
+    void beforeEach() {
+        ResourceResolver resourceResolver = mock(ResourceResolver.class);
+        when(request.getResourceResolver()).thenReturn(resourceResolver);
+        when(request.getRequestPathInfo()).thenReturn(requestPathInfo);
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", "since-1000" });
+        when(resourceResolver.adaptTo(ContentPolicyManager.class)).thenReturn(policyManager);
+        when(style.get(PN_STRUCTURE_DEPTH, Integer.class)).thenReturn(2);
+        when(removalLog.getRemovedPaths(ROOT_PATH, 1000)).thenReturn(Collections.emptyList());
+        when(removalLog.getAddedPaths(ROOT_PATH, 1000)).thenReturn(Collections.emptyList());
+
+        root = getMockPage(ROOT_PATH, 500);
+        when(root.getPageManager()).thenReturn(pageManager);
+    }
+
+    @Test
+    void testGetSince() {
+        assertNull(ExportDelta.getSince(null));
+        assertNull(ExportDelta.getSince(new String[] { "model" }));
+        assertNull(ExportDelta.getSince(new String[] { "model", "since-" }));
+        assertNull(ExportDelta.getSince(new String[] { "model", "since-1234567890123456" }));
+        assertEquals(1600000000000L, ExportDelta.getSince(new String[] { "model", "since-1600000000000" }));
+    }
+
+    @Test
+    void testFromRequest() {
+        ExportDelta delta = fromRequest();
+        assertNotNull(delta);
+        assertEquals(1000, delta.getSince());
+    }
+
+    @Test
+    void testNoDeltaRequested() {
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model" });
+        assertNull(fromRequest());
+    }
+
+    @Test
+    void testChildPage() {
+        when(request.getAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE)).thenReturn(true);
+        assertNull(fromRequest());
+    }
+
+    @Test
+    void testRemovalsUnknown() {
+        when(removalLog.getRemovedPaths(ROOT_PATH, 1000)).thenReturn(null);
+        assertNull(fromRequest());
+        assertNull(ExportDelta.fromRequest(request, root, style, HierarchyExportSettings.DEFAULT, null));
+    }
+
+    @Test
+    void testAdditionsUnknown() {
+        when(removalLog.getAddedPaths(ROOT_PATH, 1000)).thenReturn(null);
+        assertNull(fromRequest());
+    }
+
+    @Test
+    void testPolicyModified() {
+        ContentPolicy policy = mock(ContentPolicy.class);
+        when(policy.getLastModified()).thenReturn(time(2000));
+        when(policyManager.getPolicy(root.getContentResource())).thenReturn(policy);
+
+        assertNull(fromRequest());
+    }
+
+    @Test
+    void testRemovedPaths() {
+        when(removalLog.getRemovedPaths(ROOT_PATH, 1000)).thenReturn(Arrays.asList(ROOT_PATH + "/a", ROOT_PATH + "/a/b",
+            ROOT_PATH + "/a/b/c", ROOT_PATH + "/recreated", ROOT_PATH + "/other"));
+        when(pageManager.getPage(ROOT_PATH + "/recreated")).thenReturn(mock(Page.class));
+        RequestParameter patterns = mock(RequestParameter.class);
+        when(patterns.getString()).thenReturn("^/content/site/en/(a|recreated)");
+        when(request.getRequestParameter(PN_STRUCTURE_PATTERNS.toLowerCase())).thenReturn(patterns);
+
+        // Deeper than the structure depth, not matched by the patterns or existing again
+        assertEquals(Arrays.asList(ROOT_PATH + "/a", ROOT_PATH + "/a/b"), fromRequest().getRemovedPaths());
+    }
+
+    @Test
+    void testRemovedPathsWithoutDepth() {
+        when(style.get(PN_STRUCTURE_DEPTH, Integer.class)).thenReturn(0);
+        when(removalLog.getRemovedPaths(ROOT_PATH, 1000)).thenReturn(Collections.singletonList(ROOT_PATH + "/a"));
+
+        assertEquals(Collections.emptyList(), fromRequest().getRemovedPaths());
+    }
+
+    @Test
+    void testApply() {
+        Page unchanged = getMockPage(ROOT_PATH + "/unchanged", 1000);
+        Page changed = getMockPage(ROOT_PATH + "/changed", 1001);
+        Page unknown = getMockPage(ROOT_PATH + "/unknown", 0);
+        when(unknown.getLastModified()).thenReturn(null);
+        Page policyChanged = getMockPage(ROOT_PATH + "/policy", 500);
+        ContentPolicy policy = mock(ContentPolicy.class);
+        when(policy.getLastModified()).thenReturn(time(1500));
+        when(policyManager.getPolicy(policyChanged.getContentResource())).thenReturn(policy);
+
+        assertEquals(Arrays.asList(changed, unknown, policyChanged),
+            fromRequest().apply(request, Arrays.asList(unchanged, changed, unknown, policyChanged)));
+    }
+
+    @Test
+    void testApplyReplicated() {
+        Page replicated = getMockPage(ROOT_PATH + "/replicated", 500);
+        ValueMap properties = mock(ValueMap.class);
+        when(properties.get(ReplicationStatus.NODE_PROPERTY_LAST_REPLICATED, Calendar.class)).thenReturn(time(1500));
+        when(replicated.getProperties()).thenReturn(properties);
+        Page unchanged = getMockPage(ROOT_PATH + "/unchanged", 500);
+        when(unchanged.getProperties()).thenReturn(mock(ValueMap.class));
+
+        assertEquals(Collections.singletonList(replicated), fromRequest().apply(request, Arrays.asList(unchanged, replicated)));
+    }
+
+    @Test
+    void testApplyMoved() {
+        when(removalLog.getAddedPaths(ROOT_PATH, 1000)).thenReturn(Collections.singletonList(ROOT_PATH + "/moved"));
+        Page moved = getMockPage(ROOT_PATH + "/moved", 500);
+        Page movedChild = getMockPage(ROOT_PATH + "/moved/child", 500);
+        Page sibling = getMockPage(ROOT_PATH + "/moved-sibling", 500);
+
+        assertEquals(Arrays.asList(moved, movedChild), fromRequest().apply(request, Arrays.asList(moved, movedChild, sibling)));
+    }
+
+    @Test
+    void testGetWatermark() {
+        HierarchyRequestContext context = HierarchyRequestContext.get(new MockSlingHttpServletRequest(MockOsgi.newBundleContext()));
+        when(request.getAttribute(HierarchyRequestContext.ATTR_CONTEXT)).thenReturn(context);
+
+        long before = System.currentTimeMillis();
+        Long watermark = ExportDelta.getWatermark(request);
+        assertNotNull(watermark);
+        assertTrue(watermark >= before && watermark <= System.currentTimeMillis());
+        // The first mark is kept
+        assertEquals(watermark, context.markTraversalStart());
+
+        when(request.getAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE)).thenReturn(true);
+        assertNull(ExportDelta.getWatermark(request));
+        when(request.getAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE)).thenReturn(false);
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model" });
+        assertNull(ExportDelta.getWatermark(request));
+    }
+
+    private ExportDelta fromRequest() {
+        return ExportDelta.fromRequest(request, root, style, HierarchyExportSettings.DEFAULT, removalLog);
+    }
+
+    private static Page getMockPage(String path, long lastModified) {
+        Page page = mock(Page.class);
+        when(page.getPath()).thenReturn(path);
+        when(page.getContentResource()).thenReturn(mock(Resource.class));
+        Calendar time = time(lastModified);
+        when(page.getLastModified()).thenReturn(time);
+        return page;
+    }
+
+    private static Calendar time(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return calendar;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldProjectionTest {
+
+    @Test
+    void testFromSelectors() {
+        HierarchyExportSettings settings = new HierarchyExportSettings() {
+            @Override
+            public Set<String> getProjectedFields(@NotNull String profile) {
+                return "navigation".equals(profile) ? Collections.singleton("title") : null;
+            }
+        };
+
+        assertNull(FieldProjection.fromSelectors(null, settings));
+        assertNull(FieldProjection.fromSelectors(new String[] { "model" }, settings));
+        assertNull(FieldProjection.fromSelectors(new String[] { "model", "fields-unknown" }, settings));
+        assertNull(FieldProjection.fromSelectors(new String[] { "fields-navigation" }, HierarchyExportSettings.DEFAULT));
+
+        FieldProjection projection = FieldProjection.fromSelectors(new String[] { "model", "fields-navigation" }, settings);
+        assertTrue(projection.includes("title"));
+        assertFalse(projection.includes(":items"));
+    }
+
+    @Test
+    void testHierarchyFieldsAreIncluded() {
+        FieldProjection projection = new FieldProjection(Collections.emptySet());
+        assertTrue(projection.includes(":path"));
+        assertTrue(projection.includes(":type"));
+        assertTrue(projection.includes(":hierarchyType"));
+        assertTrue(projection.includes(":children"));
+        assertTrue(projection.includes(":childrenNext"));
+        assertFalse(projection.includes("designPath"));
+    }
+}
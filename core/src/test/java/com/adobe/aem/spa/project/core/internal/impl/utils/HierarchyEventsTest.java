@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.day.cq.wcm.api.Page;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HierarchyEventsTest {
+
+    private static final String PREFIX = "com.adobe.aem.spa.project.core.";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testNotRecorded() {
+        assertNull(HierarchyEvents.beginRootPageLookup());
+        assertNull(HierarchyEvents.beginTraversal());
+        assertNull(HierarchyEvents.beginAdaptation());
+        assertNull(HierarchyEvents.beginChildrenExport());
+    }
+
+    @Test
+    void testRecorded() throws IOException {
+        Page child = mock(Page.class);
+        when(child.getPath()).thenReturn("/content/site/en/child");
+        Page page = mock(Page.class);
+        when(page.getPath()).thenReturn("/content/site/en");
+        when(page.listChildren()).thenReturn(Arrays.asList(child, child).iterator());
+
+        Path file = directory.resolve("hierarchy.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : new String[] { "RootPageLookup", "DescendantTraversal", "ModelAdaptation", "ChildrenExport" }) {
+                recording.enable(PREFIX + name);
+            }
+            recording.start();
+
+            HierarchyEvents.commitRootPageLookup(HierarchyEvents.beginRootPageLookup(), "/content/site/en", "/content/site");
+            HierarchyUtils.getDescendants(page, mock(SlingHttpServletRequest.class), StructurePatterns.of(Collections.emptyList()), 1,
+                HierarchyExportBudget.unlimited());
+            HierarchyEvents.commitAdaptation(HierarchyEvents.beginAdaptation(), "/content/site/en/child", true);
+            HierarchyEvents.commitChildrenExport(HierarchyEvents.beginChildrenExport(), "/content/site/en", 2, false);
+
+            recording.stop();
+            recording.dump(file);
+        }
+        assertTrue(Files.size(file) > 0);
+
+        Map<String, RecordedEvent> events = new HashMap<>();
+        List<RecordedEvent> recordedEvents = RecordingFile.readAllEvents(file);
+        for (RecordedEvent event : recordedEvents) {
+            events.put(event.getEventType().getName().substring(PREFIX.length()), event);
+        }
+        assertEquals(4, recordedEvents.size());
+
+        assertEquals("/content/site", events.get("RootPageLookup").getString("rootPagePath"));
+        RecordedEvent traversal = events.get("DescendantTraversal");
+        assertEquals("/content/site/en", traversal.getString("pagePath"));
+        assertEquals(2, traversal.getInt("visited"));
+        assertEquals(2, traversal.getInt("matched"));
+        assertTrue(events.get("ModelAdaptation").getBoolean("adapted"));
+        RecordedEvent export = events.get("ChildrenExport");
+        assertEquals(2, export.getInt("pagesExported"));
+        assertFalse(export.getBoolean("truncated"));
+    }
+}
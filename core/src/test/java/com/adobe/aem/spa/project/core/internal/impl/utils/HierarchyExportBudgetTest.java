@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HierarchyExportBudgetTest {
+
+    @Test
+    void testUnlimited() {
+        HierarchyExportBudget budget = HierarchyExportBudget.unlimited();
+        assertTrue(budget.allowsDescendant(Integer.MAX_VALUE - 1));
+        assertTrue(budget.allowsModel(Integer.MAX_VALUE - 1));
+        assertFalse(budget.isExpired());
+        assertFalse(budget.isTruncated());
+    }
+
+    @Test
+    void testLimits() {
+        HierarchyExportSettings settings = mock(HierarchyExportSettings.class);
+        when(settings.getMaxDescendants()).thenReturn(2);
+        when(settings.getMaxModels()).thenReturn(3);
+
+        HierarchyExportBudget budget = HierarchyExportBudget.start(settings);
+        assertTrue(budget.allowsDescendant(1));
+        assertFalse(budget.allowsDescendant(2));
+        assertTrue(budget.allowsModel(2));
+        assertFalse(budget.allowsModel(3));
+    }
+
+    @Test
+    void testExpired() {
+        AtomicLong nanos = new AtomicLong();
+        HierarchyExportBudget budget = new HierarchyExportBudget(0, 0, 10, nanos::get);
+        assertFalse(budget.isExpired());
+
+        nanos.set(9_999_999);
+        assertFalse(budget.isExpired());
+
+        nanos.set(10_000_000);
+        assertTrue(budget.isExpired());
+    }
+
+    @Test
+    void testTruncate() {
+        HierarchyExportBudget budget = HierarchyExportBudget.unlimited();
+        budget.truncate();
+        assertTrue(budget.isTruncated());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+class HierarchyPolicyCacheTest {
+
+    private static final String POLICIES = "/conf/site/settings/wcm/policies";
+
+    @Test
+    void testGet() {
+        HierarchyPolicyCache cache = new HierarchyPolicyCache(2);
+        HierarchyPolicy policy = cache.get(POLICIES + "/policy_1", 1000, () -> read(1000));
+
+        assertSame(policy, cache.get(POLICIES + "/policy_1", 1000, () -> read(1000)));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // A newer version of the policy replaces the snapshot
+        HierarchyPolicy modified = cache.get(POLICIES + "/policy_1", 2000, () -> read(2000));
+        assertNotSame(policy, modified);
+        assertSame(modified, cache.get(POLICIES + "/policy_1", 2000, () -> read(2000)));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedDropped() {
+        HierarchyPolicyCache cache = new HierarchyPolicyCache(2);
+        cache.get(POLICIES + "/policy_1", 1000, () -> read(1000));
+        cache.get(POLICIES + "/policy_2", 1000, () -> read(1000));
+        cache.get(POLICIES + "/policy_1", 1000, () -> read(1000));
+        cache.get(POLICIES + "/policy_3", 1000, () -> read(1000));
+
+        assertEquals(2, cache.size());
+        cache.get(POLICIES + "/policy_1", 1000, () -> read(1000));
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void testInvalidate() {
+        HierarchyPolicyCache cache = new HierarchyPolicyCache(10);
+        cache.get(POLICIES + "/policy_1", 1000, () -> read(1000));
+        cache.get(POLICIES + "/policy_10", 1000, () -> read(1000));
+        cache.get("/conf/other/policy_1", 1000, () -> read(1000));
+
+        // Change below a policy
+        cache.invalidate(POLICIES + "/policy_1/child");
+        assertEquals(2, cache.size());
+
+        // Change of the policy tree
+        cache.invalidate(POLICIES);
+        assertEquals(1, cache.size());
+    }
+
+    private static HierarchyPolicy read(long lastModified) {
+        return HierarchyPolicy.read(mock(ValueMap.class), lastModified);
+    }
+}
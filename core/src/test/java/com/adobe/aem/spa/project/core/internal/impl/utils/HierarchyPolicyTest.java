@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.Calendar;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.day.cq.commons.jcr.JcrConstants;
+import com.day.cq.wcm.api.designer.Style;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+
+import static com.adobe.aem.spa.project.core.models.Page.PN_STRUCTURE_DEPTH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HierarchyPolicyTest {
+
+    private static final String POLICY_PATH = "/conf/site/settings/wcm/policies/spa/page/policy_" + HierarchyPolicyTest.class.hashCode();
+
+    @Mock
+    private ContentPolicy contentPolicy;
+
+    @Mock
+    private Style style;
+
+    @Mock
+    private ValueMap properties;
+
+    @BeforeEach
+    void beforeEach() {
+        when(properties.get(PN_STRUCTURE_DEPTH, Integer.class)).thenReturn(2);
+        when(properties.get(HierarchyConstants.PN_IS_ROOT, false)).thenReturn(true);
+        when(properties.get(HierarchyConstants.PN_STRUCTURE_PATTERNS, String.class)).thenReturn("^/content/site/en");
+        when(properties.get(HierarchyConstants.PN_SKELETON_DESCENDANTS, false)).thenReturn(true);
+
+        when(contentPolicy.getProperties()).thenReturn(properties);
+        HierarchyPolicyCache.getInstance().invalidate(POLICY_PATH);
+    }
+
+    @Test
+    void testMissingPolicy() {
+        assertSame(HierarchyPolicy.EMPTY, HierarchyPolicy.of((Style) null));
+        assertSame(HierarchyPolicy.EMPTY, HierarchyPolicy.of((ContentPolicy) null));
+        assertEquals(0, HierarchyPolicy.EMPTY.getDepth());
+        assertFalse(HierarchyPolicy.EMPTY.isRoot());
+        assertTrue(HierarchyPolicy.EMPTY.getStructurePatterns().isEmpty());
+        assertFalse(HierarchyPolicy.EMPTY.isSkeletonDescendants());
+    }
+
+    @Test
+    void testRead() {
+        HierarchyPolicy policy = HierarchyPolicy.of(contentPolicy);
+        assertEquals(2, policy.getDepth());
+        assertTrue(policy.isRoot());
+        assertEquals("^/content/site/en", policy.getStructurePatterns().getPatterns().get(0).pattern());
+        assertTrue(policy.isSkeletonDescendants());
+    }
+
+    @Test
+    void testReadStyle() {
+        when(style.get(PN_STRUCTURE_DEPTH, Integer.class)).thenReturn(3);
+        HierarchyPolicy policy = HierarchyPolicy.of(style);
+        assertEquals(3, policy.getDepth());
+        assertFalse(policy.isRoot());
+        assertTrue(policy.getStructurePatterns().isEmpty());
+        assertFalse(policy.isSkeletonDescendants());
+    }
+
+    @Test
+    void testNotCachedWithoutModificationTime() {
+        when(contentPolicy.getPath()).thenReturn(POLICY_PATH);
+        assertNotSame(HierarchyPolicy.of(contentPolicy), HierarchyPolicy.of(contentPolicy));
+    }
+
+    @Test
+    void testCachedPerModificationTime() {
+        when(contentPolicy.getPath()).thenReturn(POLICY_PATH);
+        when(contentPolicy.getLastModified()).thenReturn(time(1000));
+        HierarchyPolicy policy = HierarchyPolicy.of(contentPolicy);
+        when(properties.get(PN_STRUCTURE_DEPTH, Integer.class)).thenReturn(5);
+        assertSame(policy, HierarchyPolicy.of(contentPolicy));
+
+        when(contentPolicy.getLastModified()).thenReturn(time(2000));
+        assertEquals(5, HierarchyPolicy.of(contentPolicy).getDepth());
+    }
+
+    @Test
+    void testStyleCachedPerModificationTime() {
+        when(style.getPath()).thenReturn(POLICY_PATH);
+        when(style.get(JcrConstants.JCR_LASTMODIFIED, Calendar.class)).thenReturn(time(1000));
+        when(style.get(PN_STRUCTURE_DEPTH, Integer.class)).thenReturn(3);
+        HierarchyPolicy policy = HierarchyPolicy.of(style);
+        assertSame(policy, HierarchyPolicy.of(style));
+
+        HierarchyPolicyCache.getInstance().invalidate(POLICY_PATH);
+        assertNotSame(policy, HierarchyPolicy.of(style));
+    }
+
+    private static Calendar time(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return calendar;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.HierarchyMetrics;
+import com.adobe.aem.spa.project.core.internal.impl.PageImpl;
+import com.adobe.aem.spa.project.core.internal.impl.RemotePageImpl;
+import com.adobe.aem.spa.project.core.models.Page;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HierarchyRequestContextTest {
+
+    @Mock
+    private com.day.cq.wcm.api.Page page;
+
+    private SlingHttpServletRequest request;
+
+    private HierarchyRequestContext context;
+
+    @BeforeEach
+    void beforeEach() {
+        when(page.getPath()).thenReturn("/content/site/en");
+        request = new MockSlingHttpServletRequest(MockOsgi.newBundleContext());
+        context = HierarchyRequestContext.get(request);
+    }
+
+    @Test
+    void testStoredOnRequest() {
+        assertSame(context, HierarchyRequestContext.get(request));
+        assertNotSame(context, HierarchyRequestContext.get(new MockSlingHttpServletRequest(MockOsgi.newBundleContext())));
+    }
+
+    @Test
+    void testRootPageLookedUpOnce() {
+        AtomicInteger lookups = new AtomicInteger();
+
+        assertSame(page, context.getRootPage("/content/site/en/page", () -> {
+            lookups.incrementAndGet();
+            return page;
+        }));
+        assertSame(page, context.getRootPage("/content/site/en/page", () -> null));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void testMissingRootPageLookedUpOnce() {
+        AtomicInteger lookups = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertNull(context.getRootPage("/content/other", () -> {
+                lookups.incrementAndGet();
+                return null;
+            }));
+        }
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void testRootModelAdaptedOncePerClass() {
+        Page model = mock(Page.class);
+        Page remoteModel = mock(Page.class);
+
+        assertSame(model, context.getRootModel(page, PageImpl.class, () -> model));
+        assertSame(model, context.getRootModel(page, PageImpl.class, () -> remoteModel));
+        assertSame(remoteModel, context.getRootModel(page, RemotePageImpl.class, () -> remoteModel));
+    }
+
+    @Test
+    void testExportUrlBuiltOnce() {
+        assertEquals("/content/site/en.model.json", context.getExportUrl(page, () -> "/content/site/en.model.json"));
+        assertEquals("/content/site/en.model.json", context.getExportUrl(page, () -> "/other.model.json"));
+    }
+
+    @Test
+    void testDescendantsOfRootAndChildPagesAreKeptApart() {
+        HierarchyRequestContext.Descendants root = new HierarchyRequestContext.Descendants(
+            Collections.singletonMap("/content/site/en/page", mock(Page.class)), true, "children-10-10");
+        HierarchyRequestContext.Descendants child = new HierarchyRequestContext.Descendants(Collections.emptyMap(), false, null);
+
+        assertSame(root, context.getDescendants(page, request, () -> root));
+        assertSame(root, context.getDescendants(page, request, () -> child));
+
+        request.setAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE, true);
+        assertSame(child, context.getDescendants(page, request, () -> child));
+    }
+
+    @Test
+    void testDependenciesKeepTheirOrder() {
+        context.addDependency("/content/site/en");
+        context.addDependency("/conf/site/settings/wcm/policies/page");
+        context.addDependency("/content/site/en");
+        assertEquals(Arrays.asList("/content/site/en", "/conf/site/settings/wcm/policies/page"),
+            new ArrayList<>(context.getDependencies()));
+    }
+
+    @Test
+    void testMetrics() {
+        HierarchyMetrics metrics = mock(HierarchyMetrics.class);
+        MockSlingHttpServletRequest otherRequest = new MockSlingHttpServletRequest(MockOsgi.newBundleContext());
+        assertNull(HierarchyRequestContext.getMetrics(otherRequest));
+        assertNull(otherRequest.getAttribute(HierarchyRequestContext.ATTR_CONTEXT));
+
+        HierarchyRequestContext.get(otherRequest).setMetrics(metrics);
+        assertSame(metrics, HierarchyRequestContext.getMetrics(otherRequest));
+    }
+
+    @Test
+    void testTrace() {
+        HierarchyTrace trace = new HierarchyTrace();
+        MockSlingHttpServletRequest otherRequest = new MockSlingHttpServletRequest(MockOsgi.newBundleContext());
+        assertNull(HierarchyRequestContext.getTrace(otherRequest));
+        assertNull(otherRequest.getAttribute(HierarchyRequestContext.ATTR_CONTEXT));
+
+        HierarchyRequestContext.get(otherRequest).setTrace(trace);
+        assertSame(trace, HierarchyRequestContext.getTrace(otherRequest));
+    }
+
+    @Test
+    void testExportOptions() {
+        HierarchyExportOptions options = HierarchyExportOptions.of(HierarchyExportSettings.DEFAULT);
+        MockSlingHttpServletRequest otherRequest = new MockSlingHttpServletRequest(MockOsgi.newBundleContext());
+        assertNull(HierarchyRequestContext.getExportOptions(otherRequest));
+        assertNull(otherRequest.getAttribute(HierarchyRequestContext.ATTR_CONTEXT));
+
+        HierarchyRequestContext.get(otherRequest).setExportOptions(options);
+        assertSame(options, HierarchyRequestContext.getExportOptions(otherRequest));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchyTraceTest {
+
+    @Test
+    void testServerTiming() {
+        HierarchyTrace trace = new HierarchyTrace();
+        assertEquals("", trace.getServerTiming());
+
+        trace.record("/content/site/en", HierarchyTrace.Phase.RESOURCE, 100_000L);
+        trace.record("/content/site/fr", HierarchyTrace.Phase.RESOURCE, 200_000L);
+        trace.record("/content/site/fr", HierarchyTrace.Phase.ADAPT, 12_340_000L);
+
+        assertEquals("resource;dur=0.3;desc=\"2 pages\", adapt;dur=12.3;desc=\"1 pages\"", trace.getServerTiming());
+    }
+
+    @Test
+    void testSlowestPages() {
+        HierarchyTrace trace = new HierarchyTrace();
+        trace.record("/content/site/en", HierarchyTrace.Phase.ADAPT, 1_000_000L);
+        trace.record("/content/site/fr", HierarchyTrace.Phase.ADAPT, 1_000_000L);
+        trace.record("/content/site/fr", HierarchyTrace.Phase.SERIALIZE, 2_000_000L);
+        trace.record("/content/site/fr", HierarchyTrace.Phase.SERIALIZE, 500_000L);
+        trace.record("/content/site/de", HierarchyTrace.Phase.ADAPT, 2_000_000L);
+
+        List<HierarchyTrace.PageTiming> slowest = trace.getSlowestPages(2);
+        assertEquals(2, slowest.size());
+        assertEquals("/content/site/fr", slowest.get(0).getPath());
+        assertEquals(3_500_000L, slowest.get(0).getTotalNanos());
+        assertEquals(2_500_000L, slowest.get(0).getNanos(HierarchyTrace.Phase.SERIALIZE));
+        assertEquals(-1, slowest.get(0).getNanos(HierarchyTrace.Phase.RESOURCE));
+        assertEquals("/content/site/fr: 3.5 ms, adapt 1.0 ms, serialize 2.5 ms", slowest.get(0).toString());
+        assertEquals("/content/site/de", slowest.get(1).getPath());
+
+        assertEquals(3, trace.getSlowestPages(10).size());
+        assertTrue(trace.getSlowestPages(-1).isEmpty());
+    }
+}
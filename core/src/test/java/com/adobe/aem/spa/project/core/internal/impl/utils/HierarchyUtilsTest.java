@@ -14,10 +14,14 @@ package com.adobe.aem.spa.project.core.internal.impl.utils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import org.apache.sling.api.SlingHttpServletRequest;
@@ -27,7 +31,9 @@ import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.models.factory.ModelFactory;
 import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.apache.sling.testing.mock.sling.servlet.MockRequestPathInfo;
 import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -40,7 +46,13 @@ import org.mockito.quality.Strictness;
 import org.mockito.stubbing.Answer;
 
 import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.adobe.aem.spa.project.core.internal.HierarchyMetrics;
+import com.adobe.aem.spa.project.core.internal.PageModelFragmentCache;
+import com.adobe.aem.spa.project.core.internal.RootPageCache;
+import com.adobe.aem.spa.project.core.internal.StructurePatternsEngine;
 import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.PageManager;
 import com.day.cq.wcm.api.Template;
 import com.day.cq.wcm.api.TemplatedResource;
 import com.day.cq.wcm.api.components.ComponentContext;
@@ -57,12 +69,17 @@ import static com.adobe.aem.spa.project.core.internal.HierarchyConstants.PN_STRU
 import static com.adobe.aem.spa.project.core.models.Page.PN_STRUCTURE_DEPTH;
 import static org.apache.commons.collections.IteratorUtils.emptyIterator;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -114,6 +131,7 @@ class HierarchyUtilsTest {
     void beforeEach() {
         // Pages
         when(currentPage.getPath()).thenReturn("/path/to/current/page");
+        when(page.getPath()).thenReturn("/path/to");
 
         when(entryPage.getContentResource()).thenReturn(mock(Resource.class));
         when(entryPage.getPath()).thenReturn("/path/to/entry/page");
@@ -167,14 +185,14 @@ class HierarchyUtilsTest {
     void testGetStructurePatternsEmpty() {
         // Expect empty
         when(requestParameter.getString()).thenReturn("");
-        assertTrue(HierarchyUtils.getStructurePatterns(request, null).isEmpty());
+        assertTrue(HierarchyUtils.getStructurePatterns(request, null, StructurePatternsEngine.REGEX).isEmpty());
     }
 
     @Test
     void testGetStructurePatternsTwoElements() {
         // Expect two elements
         when(requestParameter.getString()).thenReturn("first,second");
-        List<Pattern> patterns = HierarchyUtils.getStructurePatterns(request, null);
+        List<Pattern> patterns = HierarchyUtils.getStructurePatterns(request, null, StructurePatternsEngine.REGEX);
         assertEquals("first", patterns.get(0).pattern());
         assertEquals("second", patterns.get(1).pattern());
     }
@@ -240,6 +258,104 @@ class HierarchyUtilsTest {
             assertEquals(pages.get("root"), HierarchyUtils.getRootPage(resource, pages.get("parent")));
             assertEquals(pages.get("root"), HierarchyUtils.getRootPage(resource, pages.get("root")));
         }
+
+        @Test
+        void testFindRootPage() {
+            assertNull(HierarchyUtils.findRootPage(pages.get("current"), contentPolicyManager));
+            assertNull(HierarchyUtils.findRootPage(null, contentPolicyManager));
+
+            when(properties.get("parent").get(PN_IS_ROOT, false)).thenReturn(true);
+            assertEquals(pages.get("parent"), HierarchyUtils.findRootPage(pages.get("current"), contentPolicyManager));
+        }
+
+        @Test
+        void testGetRootPageOncePerRequest() {
+            when(properties.get("root").get(PN_IS_ROOT, false)).thenReturn(true);
+            pages.forEach((name, page) -> when(page.getPath()).thenReturn("/content/" + name));
+
+            assertEquals(pages.get("root"), HierarchyUtils.getRootPage(request, resource, pages.get("current"), null));
+            assertEquals(pages.get("root"), HierarchyUtils.getRootPage(request, resource, pages.get("current"), null));
+
+            verify(contentPolicyManager, times(1)).getPolicy(pageContentResources.get("current"));
+        }
+
+        @Test
+        void testGetRootPageFromCache() {
+            when(properties.get("root").get(PN_IS_ROOT, false)).thenReturn(true);
+            when(pages.get("current").getPath()).thenReturn("/content/root/parent/current");
+            when(pages.get("parent").getPath()).thenReturn("/content/root/parent");
+            when(pages.get("root").getPath()).thenReturn("/content/root");
+            PageManager pageManager = mock(PageManager.class);
+            when(pages.get("current").getPageManager()).thenReturn(pageManager);
+            when(pageManager.getPage("/content/root")).thenReturn(pages.get("root"));
+            MapRootPageCache rootPageCache = new MapRootPageCache();
+
+            assertEquals(pages.get("root"), HierarchyUtils.getRootPage(request, resource, pages.get("current"), rootPageCache));
+            assertEquals("/content/root", rootPageCache.entries.get("/content/root/parent/current"));
+            assertEquals("/content/root", rootPageCache.entries.get("/content/root/parent"));
+            assertEquals("/content/root", rootPageCache.entries.get("/content/root"));
+
+            // Another request resolves the cached root without looking at policies
+            clearInvocations(contentPolicyManager);
+            assertEquals(pages.get("root"), HierarchyUtils.getRootPage(newRequest(), resource, pages.get("current"), rootPageCache));
+            verify(contentPolicyManager, never()).getPolicy(any(Resource.class));
+        }
+
+        @Test
+        void testGetRootPageNotFoundFromCache() {
+            pages.forEach((name, page) -> when(page.getPath()).thenReturn("/content/" + name));
+            // The top page is below a folder
+            when(resourceResolver.getResource("/content")).thenReturn(mock(Resource.class));
+            MapRootPageCache rootPageCache = new MapRootPageCache();
+
+            assertNull(HierarchyUtils.getRootPage(request, resource, pages.get("current"), rootPageCache));
+            assertEquals(RootPageCache.NO_ROOT, rootPageCache.entries.get("/content/current"));
+            assertEquals(RootPageCache.NO_ROOT, rootPageCache.entries.get("/content/root"));
+
+            clearInvocations(contentPolicyManager);
+            assertNull(HierarchyUtils.getRootPage(newRequest(), resource, pages.get("parent"), rootPageCache));
+            verify(contentPolicyManager, never()).getPolicy(any(Resource.class));
+        }
+
+        @Test
+        void testGetRootPageBelowUnreadableParentNotCached() {
+            when(properties.get("root").get(PN_IS_ROOT, false)).thenReturn(true);
+            when(pages.get("current").getPath()).thenReturn("/content/root/parent/current");
+            when(pages.get("parent").getPath()).thenReturn("/content/root/parent");
+            when(pages.get("root").getPath()).thenReturn("/content/root");
+            PageManager pageManager = mock(PageManager.class);
+            when(pages.get("current").getPageManager()).thenReturn(pageManager);
+            when(pageManager.getPage("/content/root")).thenReturn(pages.get("root"));
+            MapRootPageCache rootPageCache = new MapRootPageCache();
+
+            // The requesting user cannot read the root page
+            when(pages.get("parent").getParent()).thenReturn(null);
+            assertNull(HierarchyUtils.getRootPage(request, resource, pages.get("current"), rootPageCache));
+            assertTrue(rootPageCache.entries.isEmpty());
+
+            // A user who can read it still finds it
+            when(pages.get("parent").getParent()).thenReturn(pages.get("root"));
+            assertEquals(pages.get("root"), HierarchyUtils.getRootPage(newRequest(), resource, pages.get("current"), rootPageCache));
+            assertEquals("/content/root", rootPageCache.entries.get("/content/root/parent/current"));
+        }
+
+        private SlingHttpServletRequest newRequest() {
+            return new MockSlingHttpServletRequest(MockOsgi.newBundleContext());
+        }
+    }
+
+    private static final class MapRootPageCache implements RootPageCache {
+        private final Map<String, String> entries = new HashMap<>();
+
+        @Override
+        public String getRootPath(@NotNull String pagePath) {
+            return entries.get(pagePath);
+        }
+
+        @Override
+        public void putRootPath(@NotNull String pagePath, @NotNull String rootPath) {
+            entries.put(pagePath, rootPath);
+        }
     }
 
     @Test
@@ -303,6 +419,82 @@ class HierarchyUtilsTest {
         assertEquals(2, HierarchyUtils.getDescendants(page, request, structurePatterns, 1).size());
     }
 
+    @Test
+    void testGetDescendantsKeepsDocumentOrder() {
+        // root -> a (a1, a2 (a2x)), b (b1)
+        Page a2 = getMockPageTree("/root/a/a2", getMockPageTree("/root/a/a2/a2x"));
+        Page a = getMockPageTree("/root/a", getMockPageTree("/root/a/a1"), a2);
+        Page b = getMockPageTree("/root/b", getMockPageTree("/root/b/b1"));
+        Page root = getMockPageTree("/root", a, b);
+
+        assertEquals(Arrays.asList("/root/a", "/root/a/a1", "/root/a/a2", "/root/a/a2/a2x", "/root/b", "/root/b/b1"),
+            getPaths(HierarchyUtils.getDescendants(root, request, structurePatterns, -1)));
+        assertEquals(Arrays.asList("/root/a", "/root/a/a1", "/root/a/a2", "/root/b", "/root/b/b1"),
+            getPaths(HierarchyUtils.getDescendants(root, request, structurePatterns, 2)));
+
+        // The children of the deepest exported level are never listed
+        verify(a2, times(1)).listChildren();
+    }
+
+    @Test
+    void testGetDescendantsSkipsNonMatchingSubtrees() {
+        Page b = getMockPageTree("/root/b", getMockPageTree("/root/b/b1"));
+        Page root = getMockPageTree("/root", getMockPageTree("/root/a", getMockPageTree("/root/a/a1")), b);
+        structurePatterns.add(Pattern.compile("^/root/a"));
+
+        assertEquals(Arrays.asList("/root/a", "/root/a/a1"),
+            getPaths(HierarchyUtils.getDescendants(root, request, structurePatterns, DEPTH)));
+        verify(b, never()).listChildren();
+    }
+
+    @Test
+    void testGetDescendantsPrunesSubtreesThatCannotMatch() {
+        Page a = getMockPageTree("/root/a", getMockPageTree("/root/a/a1"));
+        Page b = getMockPageTree("/root/b", getMockPageTree("/root/b/b1"));
+        Page root = getMockPageTree("/root", a, b);
+        structurePatterns.add(Pattern.compile("^/root/a$"));
+        structurePatterns.add(Pattern.compile("^/root/(b|c)"));
+
+        assertEquals(Arrays.asList("/root/a", "/root/b", "/root/b/b1"),
+            getPaths(HierarchyUtils.getDescendants(root, request, structurePatterns, DEPTH)));
+        // No descendant of /root/a can match an exact pattern
+        verify(a, never()).listChildren();
+
+        // No child of the root can match
+        structurePatterns.clear();
+        structurePatterns.add(Pattern.compile("^/other/(a|b)"));
+        assertTrue(HierarchyUtils.getDescendants(root, request, structurePatterns, DEPTH).isEmpty());
+        verify(root, times(1)).listChildren();
+    }
+
+    @Test
+    void testAddEntryPointPageAlreadyDescended() {
+        // Another instance of the entry point page was found during the traversal
+        String entryPagePath = entryPage.getPath();
+        Page descendedEntryPage = mock(Page.class);
+        when(descendedEntryPage.getPath()).thenReturn(entryPagePath);
+        List<Page> descendedPages = new ArrayList<>(Collections.singletonList(descendedEntryPage));
+
+        HierarchyUtils.addEntryPointPage(request, currentPage, descendedPages);
+        assertEquals(1, descendedPages.size());
+        assertEquals(descendedEntryPage, descendedPages.get(0));
+    }
+
+    private Page getMockPageTree(String path, Page... children) {
+        Page mockPage = mock(Page.class);
+        when(mockPage.getPath()).thenReturn(path);
+        when(mockPage.listChildren()).thenAnswer((Answer<Iterator<Page>>) i -> Arrays.asList(children).iterator());
+        return mockPage;
+    }
+
+    private static List<String> getPaths(List<Page> pages) {
+        List<String> paths = new ArrayList<>();
+        for (Page descendant : pages) {
+            paths.add(descendant.getPath());
+        }
+        return paths;
+    }
+
     @Test
     void testGetDescendantModelContentResourceIsNull() {
         // contentResource is null
@@ -388,6 +580,233 @@ class HierarchyUtilsTest {
             });
         }
 
+        @Test
+        void testRecordsDependencies() {
+            // when
+            HierarchyUtils.getDescendantsModels(request, currentPage, style, modelFactory);
+
+            // then
+            assertEquals(new LinkedHashSet<>(Arrays.asList(currentPage.getPath(), "/path/to/child1", "/path/to/child2",
+                entryPage.getPath())), HierarchyRequestContext.get(request).getDependencies());
+        }
+
+        @Test
+        void testReusesRecordedTraversal() {
+            // having
+            HierarchyRequestContext.get(request).putTraversal(currentPage, StructurePatterns.compile(null), 2,
+                Collections.singletonList(children.get(1)));
+
+            // when
+            final Map<String, com.adobe.aem.spa.project.core.models.Page> descendantsModels =
+                HierarchyUtils.getDescendantsModels(request, currentPage, style, modelFactory);
+
+            // then
+            assertEquals(new LinkedHashSet<>(Arrays.asList("/path/to/child2", entryPage.getPath())), descendantsModels.keySet());
+            verify(currentPage, never()).listChildren();
+        }
+
+        @Test
+        void testRecordsMetrics() {
+            // having
+            HierarchyMetrics metrics = mock(HierarchyMetrics.class);
+            HierarchyRequestContext.get(request).setMetrics(metrics);
+
+            // when
+            HierarchyUtils.getDescendantsModels(request, currentPage, style, modelFactory);
+
+            // then
+            verify(metrics).recordTraversal(eq(currentPage.getPath()), eq(2), eq(2), anyLong());
+            verify(metrics).recordAdaptation(eq("/path/to/child1"), anyLong());
+            verify(metrics).recordAdaptation(eq("/path/to/child2"), anyLong());
+        }
+
+        @Test
+        void testSkeletonDescendants() {
+            // having
+            ((MockRequestPathInfo) request.getRequestPathInfo()).setSelectorString("model.skeleton");
+            when(children.get(0).getTitle()).thenReturn("Child 1");
+            when(children.get(0).getName()).thenReturn("child1");
+            when(children.get(1).getName()).thenReturn("child2");
+            when(children.get(0).getContentResource().getResourceType()).thenReturn("site/components/page");
+
+            // when
+            Map<String, com.adobe.aem.spa.project.core.models.Page> descendantsModels =
+                HierarchyUtils.getDescendantsModels(request, currentPage, style, modelFactory);
+
+            // then
+            assertEquals(3, descendantsModels.size());
+            assertTrue(descendantsModels.get(entryPage.getPath()) instanceof SpyPageImpl);
+            SkeletonPageModel child1 = (SkeletonPageModel) descendantsModels.get("/path/to/child1");
+            assertEquals("/path/to/child1", child1.getExportedPath());
+            assertEquals("site/components/page", child1.getExportedType());
+            assertEquals("Child 1", child1.getTitle());
+            assertEquals("/path/to/child1.model.json", child1.getModelUrl());
+            assertEquals("child2", descendantsModels.get("/path/to/child2").getTitle());
+            verify(modelFactory, times(1)).getModelFromWrappedRequest(any(SlingHttpServletRequest.class), any(), any());
+        }
+
+        @Test
+        void testRecordsTrace() {
+            // having
+            HierarchyTrace trace = new HierarchyTrace();
+            HierarchyRequestContext.get(request).setTrace(trace);
+
+            // when
+            Map<String, com.adobe.aem.spa.project.core.models.Page> descendantsModels =
+                HierarchyUtils.getDescendantsModels(request, currentPage, style, modelFactory);
+
+            // then
+            assertTrue(descendantsModels.get("/path/to/child1") instanceof TracedPageModel);
+            Map<String, HierarchyTrace.PageTiming> pages = new HashMap<>();
+            for (HierarchyTrace.PageTiming page : trace.getSlowestPages(10)) {
+                pages.put(page.getPath(), page);
+            }
+            for (String path : new String[] { "/path/to/child1", "/path/to/child2" }) {
+                HierarchyTrace.PageTiming page = pages.get(path);
+                assertTrue(page.getNanos(HierarchyTrace.Phase.RESOURCE) >= 0);
+                assertTrue(page.getNanos(HierarchyTrace.Phase.TEMPLATE) >= 0);
+                assertTrue(page.getNanos(HierarchyTrace.Phase.ADAPT) >= 0);
+                assertEquals(-1, page.getNanos(HierarchyTrace.Phase.SERIALIZE));
+            }
+        }
+
+        @Test
+        void testMaxDescendants() {
+            // having
+            HierarchyExportSettings settings = mock(HierarchyExportSettings.class);
+            when(settings.getRequestPatternsEngine()).thenReturn(StructurePatternsEngine.REGEX);
+            when(settings.getMaxDescendants()).thenReturn(1);
+            HierarchyExportBudget budget = HierarchyExportBudget.start(settings);
+
+            // when
+            final Map<String, com.adobe.aem.spa.project.core.models.Page> descendantsModels =
+                getDescendantsModels(new HierarchyExportOptions(settings, budget, null, null, null));
+
+            // then the entry point page is exported in addition
+            assertEquals(Arrays.asList("/path/to/child1", entryPage.getPath()), new ArrayList<>(descendantsModels.keySet()));
+            assertTrue(budget.isTruncated());
+        }
+
+        @Test
+        void testMaxModels() {
+            // having
+            HierarchyExportSettings settings = mock(HierarchyExportSettings.class);
+            when(settings.getRequestPatternsEngine()).thenReturn(StructurePatternsEngine.REGEX);
+            when(settings.getMaxModels()).thenReturn(2);
+            HierarchyExportBudget budget = HierarchyExportBudget.start(settings);
+
+            // when
+            final Map<String, com.adobe.aem.spa.project.core.models.Page> descendantsModels =
+                getDescendantsModels(new HierarchyExportOptions(settings, budget, null, null, null));
+
+            // then the entry point page takes the place of the second child
+            assertEquals(Arrays.asList("/path/to/child1", entryPage.getPath()), new ArrayList<>(descendantsModels.keySet()));
+            assertTrue(budget.isTruncated());
+
+            // when all models fit
+            when(settings.getMaxModels()).thenReturn(3);
+            request.removeAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE);
+            budget = HierarchyExportBudget.start(settings);
+
+            // then
+            assertEquals(3, getDescendantsModels(new HierarchyExportOptions(settings, budget, null, null, null)).size());
+            assertFalse(budget.isTruncated());
+        }
+
+        @Test
+        void testMaxExportTime() {
+            // having a clock which advances by one millisecond each time it is read
+            AtomicLong nanos = new AtomicLong();
+            HierarchyExportBudget budget = new HierarchyExportBudget(0, 0, 2, () -> nanos.getAndAdd(1_000_000));
+
+            // when
+            final Map<String, com.adobe.aem.spa.project.core.models.Page> descendantsModels =
+                getDescendantsModels(new HierarchyExportOptions(HierarchyExportSettings.DEFAULT, budget, null, null, null));
+
+            // then the entry point page is exported in any case
+            assertTrue(descendantsModels.containsKey(entryPage.getPath()));
+            assertTrue(descendantsModels.size() < children.size() + 1);
+            assertTrue(budget.isTruncated());
+        }
+
+        @Test
+        void testSlices() {
+            // having
+            HierarchyExportBudget budget = HierarchyExportBudget.unlimited();
+            ChildrenSlice first = new ChildrenSlice(0, 1);
+
+            // when
+            Map<String, com.adobe.aem.spa.project.core.models.Page> descendantsModels =
+                getDescendantsModels(new HierarchyExportOptions(HierarchyExportSettings.DEFAULT, budget, first, null, null));
+
+            // then the entry point page is added to the first slice
+            assertEquals(Arrays.asList("/path/to/child1", entryPage.getPath()), new ArrayList<>(descendantsModels.keySet()));
+            assertEquals("children-1-1", first.getNextSelector());
+
+            // when
+            request.removeAttribute(HierarchyConstants.ATTR_IS_CHILD_PAGE);
+            ChildrenSlice second = new ChildrenSlice(1, 1);
+            descendantsModels = getDescendantsModels(new HierarchyExportOptions(HierarchyExportSettings.DEFAULT, budget, second, null,
+                null));
+
+            // then
+            assertEquals(Collections.singletonList("/path/to/child2"), new ArrayList<>(descendantsModels.keySet()));
+            assertNull(second.getNextSelector());
+            // Only the models of the slices are adapted
+            verify(modelFactory, times(3)).getModelFromWrappedRequest(any(SlingHttpServletRequest.class), any(), any());
+        }
+
+        @Test
+        void testLazyAdaptation() {
+            // having
+            HierarchyExportSettings settings = mock(HierarchyExportSettings.class);
+            when(settings.getRequestPatternsEngine()).thenReturn(StructurePatternsEngine.REGEX);
+            when(settings.isLazyAdaptation()).thenReturn(true);
+
+            // when
+            final Map<String, com.adobe.aem.spa.project.core.models.Page> descendantsModels =
+                getDescendantsModels(HierarchyExportOptions.of(settings));
+
+            // then no model is adapted before the values are read
+            assertEquals(Arrays.asList("/path/to/child1", "/path/to/child2", entryPage.getPath()),
+                new ArrayList<>(descendantsModels.keySet()));
+            verify(modelFactory, never()).getModelFromWrappedRequest(any(SlingHttpServletRequest.class), any(), any());
+
+            children.forEach(child -> assertComponentContext(
+                ((SpyPageImpl) descendantsModels.get(child.getPath())).getOriginalRequest(), child.getPath()));
+        }
+
+        @Test
+        void testFragmentCache() {
+            // having
+            Calendar lastModified = Calendar.getInstance();
+            children.forEach(child -> when(child.getLastModified()).thenReturn(lastModified));
+            when(request.getResourceResolver()).thenReturn(mock(ResourceResolver.class));
+
+            PageModelFragmentCache fragmentCache = mock(PageModelFragmentCache.class);
+            when(fragmentCache.get(eq("/path/to/child1"), anyString())).thenReturn("{\"cached\":true}");
+
+            // when
+            final Map<String, com.adobe.aem.spa.project.core.models.Page> descendantsModels =
+                getDescendantsModels(new HierarchyExportOptions(HierarchyExportSettings.DEFAULT, HierarchyExportBudget.unlimited(), null,
+                    fragmentCache, null));
+
+            // then the cached model is not adapted, the others are
+            assertEquals(3, descendantsModels.size());
+            assertTrue(descendantsModels.get("/path/to/child1") instanceof CachedPageModel);
+            assertTrue(descendantsModels.get("/path/to/child2") instanceof CachedPageModel);
+            // The entry point page was never modified, it is not cached
+            assertTrue(descendantsModels.get(entryPage.getPath()) instanceof SpyPageImpl);
+            verify(modelFactory, times(2)).getModelFromWrappedRequest(any(SlingHttpServletRequest.class), any(), any());
+            String variant = HierarchyUtils.getFragmentVariant(children.get(1), request);
+            verify(fragmentCache).get("/path/to/child2", variant);
+        }
+
+        private Map<String, com.adobe.aem.spa.project.core.models.Page> getDescendantsModels(HierarchyExportOptions options) {
+            HierarchyRequestContext.get(request).setExportOptions(options);
+            return HierarchyUtils.getDescendantsModels(request, currentPage, style, modelFactory);
+        }
+
         private void assertComponentContext(SlingHttpServletRequest request, String childPath) {
             final ComponentContext componentContext = WCMUtils.getComponentContext(request);
             assertEquals(childPath, componentContext.getPage().getPath(), "ComponentContext has wrong path");
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.mockito.stubbing.Answer;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyExportSettings;
+import com.day.cq.replication.ReplicationStatus;
+import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+import com.day.cq.wcm.api.policies.ContentPolicyManager;
+
+import static com.adobe.aem.spa.project.core.models.Page.PN_STRUCTURE_DEPTH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HierarchyValidatorTest {
+
+    private static final String ROOT_PATH = "/content/site/en";
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private RequestPathInfo requestPathInfo;
+
+    @Mock
+    private ResourceResolver resourceResolver;
+
+    @Mock
+    private ContentPolicyManager policyManager;
+
+    @Mock
+    private ContentPolicy rootPolicy;
+
+    @Mock
+    private ValueMap rootPolicyProperties;
+
+    private Page root;
+
+    private List<Page> children;
+
+    @BeforeEach
+    void beforeEach() {
+        when(request.getResourceResolver()).thenReturn(resourceResolver);
+        when(request.getRequestPathInfo()).thenReturn(requestPathInfo);
+        when(resourceResolver.adaptTo(ContentPolicyManager.class)).thenReturn(policyManager);
+
+        when(rootPolicy.getPath()).thenReturn("/conf/site/settings/wcm/policies/spa/page/root");
+        when(rootPolicy.getProperties()).thenReturn(rootPolicyProperties);
+        when(rootPolicyProperties.get(PN_STRUCTURE_DEPTH, Integer.class)).thenReturn(1);
+
+        root = getMockPage(ROOT_PATH, 1000);
+        when(policyManager.getPolicy(root.getContentResource())).thenReturn(rootPolicy);
+        children = new ArrayList<>(Arrays.asList(getMockPage(ROOT_PATH + "/a", 2000), getMockPage(ROOT_PATH + "/b", 3000)));
+        when(root.listChildren()).thenAnswer((Answer<Iterator<Page>>) i -> new ArrayList<>(children).iterator());
+    }
+
+    @Test
+    void testLastModified() {
+        HierarchyValidator validator = compute();
+        assertNotNull(validator);
+        assertEquals(3000, validator.getLastModified());
+
+        when(rootPolicy.getLastModified()).thenReturn(time(4000));
+        assertEquals(4000, compute().getLastModified());
+    }
+
+    @Test
+    void testETag() {
+        String eTag = compute().getETag();
+        assertTrue(eTag.startsWith("W/\""));
+        assertEquals(eTag, compute().getETag());
+
+        // An older page was modified
+        when(children.get(0).getLastModified()).thenReturn(time(2500));
+        String modified = compute().getETag();
+        assertNotEquals(eTag, modified);
+        assertEquals(3000, compute().getLastModified());
+
+        // A page was removed, the latest modification does not change
+        children.remove(0);
+        assertNotEquals(modified, compute().getETag());
+        assertEquals(3000, compute().getLastModified());
+    }
+
+    @Test
+    void testLastReplicated() {
+        String eTag = compute().getETag();
+
+        ValueMap properties = mock(ValueMap.class);
+        when(properties.get(ReplicationStatus.NODE_PROPERTY_LAST_REPLICATED, Calendar.class)).thenReturn(time(5000));
+        when(children.get(0).getProperties()).thenReturn(properties);
+
+        HierarchyValidator replicated = compute();
+        assertEquals(5000, replicated.getLastModified());
+        assertNotEquals(eTag, replicated.getETag());
+    }
+
+    @Test
+    void testSlice() {
+        String eTag = compute().getETag();
+
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", "children-0-1" });
+        String firstSlice = compute().getETag();
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", "children-1-1" });
+        String secondSlice = compute().getETag();
+
+        assertNotEquals(eTag, firstSlice);
+        assertNotEquals(firstSlice, secondSlice);
+    }
+
+    @Test
+    void testUnknownModificationTime() {
+        when(children.get(1).getLastModified()).thenReturn(null);
+        assertNull(compute());
+    }
+
+    @Test
+    void testTruncated() {
+        HierarchyExportSettings settings = mock(HierarchyExportSettings.class);
+        when(settings.getMaxDescendants()).thenReturn(1);
+        assertNull(HierarchyValidator.compute(request, root, settings));
+    }
+
+    @Test
+    void testTraversalKeptForTheExport() {
+        HierarchyRequestContext context = HierarchyRequestContext.get(new MockSlingHttpServletRequest(MockOsgi.newBundleContext()));
+        when(request.getAttribute(HierarchyRequestContext.ATTR_CONTEXT)).thenReturn(context);
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", "children-0-1" });
+
+        assertNotNull(compute());
+        // The whole traversal is kept, the export applies the slice itself
+        assertEquals(children, context.getTraversal(root, StructurePatterns.compile(null), 1));
+        assertNull(context.getTraversal(root, StructurePatterns.compile(null), 2));
+    }
+
+    private HierarchyValidator compute() {
+        return HierarchyValidator.compute(request, root, HierarchyExportSettings.DEFAULT);
+    }
+
+    private static Page getMockPage(String path, long lastModified) {
+        Page page = mock(Page.class);
+        Resource contentResource = mock(Resource.class);
+        when(page.getPath()).thenReturn(path);
+        when(page.getContentResource()).thenReturn(contentResource);
+        Calendar time = time(lastModified);
+        when(page.getLastModified()).thenReturn(time);
+        return page;
+    }
+
+    private static Calendar time(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return calendar;
+    }
+}
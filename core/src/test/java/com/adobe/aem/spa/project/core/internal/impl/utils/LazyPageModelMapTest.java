@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.day.cq.wcm.api.Page;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LazyPageModelMapTest {
+
+    private final AtomicInteger adaptations = new AtomicInteger();
+
+    private LazyPageModelMap map;
+
+    @BeforeEach
+    void beforeEach() {
+        List<Page> pages = Arrays.asList(mockPage("/content/b"), mockPage("/content/a"), mockPage("/content/c"));
+        map = new LazyPageModelMap(pages, page -> {
+            adaptations.incrementAndGet();
+            return mock(com.adobe.aem.spa.project.core.models.Page.class);
+        });
+    }
+
+    @Test
+    void testKeysWithoutAdaptation() {
+        assertEquals(3, map.size());
+        assertFalse(map.isEmpty());
+        assertEquals(Arrays.asList("/content/b", "/content/a", "/content/c"), new ArrayList<>(map.keySet()));
+        assertTrue(map.containsKey("/content/a"));
+        assertFalse(map.containsKey("/content/d"));
+        assertEquals(0, adaptations.get());
+    }
+
+    @Test
+    void testValuesAreAdaptedOnRead() {
+        Iterator<Map.Entry<String, com.adobe.aem.spa.project.core.models.Page>> entries = map.entrySet().iterator();
+        Map.Entry<String, com.adobe.aem.spa.project.core.models.Page> entry = entries.next();
+        assertEquals(0, adaptations.get());
+
+        com.adobe.aem.spa.project.core.models.Page value = entry.getValue();
+        assertSame(value, entry.getValue());
+        assertEquals(1, adaptations.get());
+
+        entries.next();
+        assertEquals(1, adaptations.get());
+    }
+
+    @Test
+    void testValuesAreNotRetained() {
+        com.adobe.aem.spa.project.core.models.Page first = map.get("/content/a");
+        com.adobe.aem.spa.project.core.models.Page second = map.get("/content/a");
+
+        assertNotSame(first, second);
+        assertEquals(2, adaptations.get());
+        assertNull(map.get("/content/d"));
+    }
+
+    @Test
+    void testUnmodifiable() {
+        assertThrows(UnsupportedOperationException.class, () -> map.put("/content/d", null));
+        assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue(null));
+        Iterator<Map.Entry<String, com.adobe.aem.spa.project.core.models.Page>> entries = map.entrySet().iterator();
+        entries.next();
+        assertThrows(UnsupportedOperationException.class, entries::remove);
+    }
+
+    private static Page mockPage(String path) {
+        Page page = mock(Page.class);
+        when(page.getPath()).thenReturn(path);
+        return page;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LinearPatternTest {
+
+    private static final String[] PATTERNS = {
+        "child1",
+        "^/content/site/en",
+        "^/content/site/en$",
+        "^/content/(en|fr)/.*",
+        "^/content/(?:en|fr)?/blog$",
+        "^/content/[a-z]{2}(-[a-z]{2})?/products",
+        "^/content/[^/]+/[^/]+$",
+        "/(news|blog)/\\d{4}/",
+        "\\w+-\\w+",
+        "^/content/site/a+b*c?$",
+        "^/content/.{3,5}$",
+        "^/content/x{2,}$",
+        "\\.html$",
+        "[.\\-]x",
+        "^/content/(?<lang>[a-z]{2})/",
+        "(a|ab)(c|bcd)(d*)",
+        "^$",
+        "a.*?b",
+        "\\s|\\S\\S\\D\\W",
+        "[\\d-z]",
+        "\\/content\\/"
+    };
+
+    private static final String[] INPUTS = {
+        "",
+        "/",
+        "/content",
+        "/content/site/en",
+        "/content/site/en/child1",
+        "/content/site/fr/child2",
+        "/content/en/blog",
+        "/content/fr/products/a",
+        "/content/de-ch/products",
+        "/content/site/abc",
+        "/content/site/aaab",
+        "/content/site/ac",
+        "/content/abcd",
+        "/content/xxx",
+        "/content/x",
+        "/content/2020/news/2020/post",
+        "/content/page.html",
+        "/content/page-x",
+        "/content/a b",
+        "/content/z9",
+        "abcd"
+    };
+
+    @Test
+    void testFindLikeJavaRegex() {
+        for (String regex : PATTERNS) {
+            Pattern expected = Pattern.compile(regex);
+            LinearPattern actual = LinearPattern.compile(regex);
+            for (String input : INPUTS) {
+                assertEquals(expected.matcher(input).find(), actual.find(input), regex + " on " + input);
+            }
+        }
+    }
+
+    @Test
+    void testAlternativePatterns() {
+        LinearPattern pattern = LinearPattern.compile(Arrays.asList("^/content/a$", "blog"));
+        assertTrue(pattern.find("/content/a"));
+        assertTrue(pattern.find("/content/b/blog"));
+        assertFalse(pattern.find("/content/a/b"));
+        assertEquals("^/content/a$|blog", pattern.pattern());
+        // Like an empty java.util.regex expression
+        assertTrue(LinearPattern.compile(Collections.emptyList()).find("/content"));
+    }
+
+    @Test
+    void testCatastrophicBacktrackingPatterns() {
+        String input = StringUtils.repeat('a', 10000) + "!";
+        assertTimeoutPreemptively(java.time.Duration.ofSeconds(5), () -> {
+            assertFalse(LinearPattern.compile("^(a+)+b").find(input));
+            assertFalse(LinearPattern.compile("(a|aa)*c").find(input));
+            assertFalse(LinearPattern.compile("^(a|a?)+$").find(input));
+        });
+    }
+
+    @Test
+    void testUnsupportedConstructs() {
+        for (String regex : new String[] { "(a)\\1", "(?=a)", "(?<!a)b", "(?i)a", "a++", "[a[b]]", "[a&&b]", "\\p{L}", "\\bword",
+            "a{99999}" }) {
+            assertThrows(PatternSyntaxException.class, () -> LinearPattern.compile(regex), regex);
+        }
+    }
+
+    @Test
+    void testInvalidPatterns() {
+        for (String regex : new String[] { "(a", "a)", "[a", "*a", "a{2", "\\" }) {
+            assertThrows(PatternSyntaxException.class, () -> LinearPattern.compile(regex), regex);
+        }
+    }
+
+    @Test
+    void testTooComplexPatterns() {
+        assertThrows(PatternSyntaxException.class, () -> LinearPattern.compile("(a{50}){50}"));
+        assertThrows(PatternSyntaxException.class,
+            () -> LinearPattern.compile(StringUtils.repeat('(', LinearPattern.MAX_GROUP_DEPTH + 1) + "a"
+                + StringUtils.repeat(')', LinearPattern.MAX_GROUP_DEPTH + 1)));
+    }
+}
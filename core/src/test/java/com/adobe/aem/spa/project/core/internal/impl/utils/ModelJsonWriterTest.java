@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.sling.models.factory.ExportException;
+import org.apache.sling.models.jacksonexporter.impl.JacksonExporter;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ModelJsonWriterTest {
+
+    private final ModelJsonWriter writer = new ModelJsonWriter(Collections.emptyList());
+
+    @Test
+    void testWriteLikeExporter() throws IOException, ExportException {
+        assertSameBytes(createModel(), false);
+    }
+
+    @Test
+    void testWriteTidyLikeExporter() throws IOException, ExportException {
+        assertSameBytes(createModel(), true);
+    }
+
+    @Test
+    void testWriteAsStringLikeExporter() throws IOException, ExportException {
+        Model model = createModel();
+        assertEquals(export(model, false), writer.writeAsString(model, false));
+    }
+
+    @Test
+    void testEscapeCloseScriptBlocks() throws IOException {
+        assertEquals("\"\\u003C/script\\u003E\"", writer.writeAsString("</script>", false));
+    }
+
+    @Test
+    void testModules() throws IOException {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(Model.class, ToStringSerializer.instance);
+        ModelJsonWriter moduleWriter = new ModelJsonWriter(Collections.singletonList(module));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        moduleWriter.write(new Model("title", null), out, false);
+
+        assertEquals("\"model\"", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private void assertSameBytes(Object model, boolean tidy) throws IOException, ExportException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(model, out, tidy);
+
+        assertArrayEquals(export(model, tidy).getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    private static String export(Object model, boolean tidy) throws ExportException {
+        Map<String, String> options = new HashMap<>();
+        if (tidy) {
+            options.put("tidy", "true");
+        }
+        return new JacksonExporter().export(model, String.class, options);
+    }
+
+    private static Model createModel() {
+        Map<String, Model> children = new LinkedHashMap<>();
+        children.put("/content/site/en/café", new Model("Café ☕ 😀", null));
+        children.put("/content/site/en/script", new Model("</script><script>alert(\"x\")</script>\t\n ", null));
+        return new Model("Root & <b>friends</b>", children);
+    }
+
+    static final class Model {
+
+        private final String title;
+
+        private final Map<String, Model> children;
+
+        Model(String title, Map<String, Model> children) {
+            this.title = title;
+            this.children = children;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        @JsonProperty(":children")
+        public Map<String, Model> getChildren() {
+            return children;
+        }
+
+        public Iterable<Integer> getNumbers() {
+            return Arrays.asList(1, 2, 3);
+        }
+
+        @Override
+        public String toString() {
+            return "model";
+        }
+    }
+}
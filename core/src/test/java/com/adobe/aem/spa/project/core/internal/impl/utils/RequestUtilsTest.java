@@ -72,4 +72,12 @@ class RequestUtilsTest {
         assertEquals("some/path.model.json", getJsonExportURL("some/path"));
         assertEquals("path/with/some.model.json", getJsonExportURL("path/with/some.more.selectors.html"));
     }
+
+    @Test
+    void testGetJsonExportURLWithSelector() {
+        assertNull(getJsonExportURL("", "children-0-10"));
+        assertEquals("some/path.model.children-0-10.json", getJsonExportURL("some/path.html", "children-0-10"));
+        assertEquals(CONTEXT_PATH + PAGE_PATH + ".model.children-0-10.json",
+            RequestUtils.getPageJsonExportUrl(request, page, "children-0-10"));
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.adobe.aem.spa.project.core.internal.HierarchyConstants;
+import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.designer.Style;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SkeletonPageModelTest {
+
+    @Mock
+    private Page page;
+
+    @Mock
+    private Resource contentResource;
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private RequestPathInfo requestPathInfo;
+
+    @Mock
+    private Style style;
+
+    private final ModelJsonWriter writer = new ModelJsonWriter(Collections.emptyList());
+
+    @BeforeEach
+    void beforeEach() {
+        when(page.getPath()).thenReturn("/content/site/en/about");
+        when(page.getName()).thenReturn("about");
+        when(page.getContentResource()).thenReturn(contentResource);
+        when(contentResource.getResourceType()).thenReturn("site/components/page");
+        when(request.getContextPath()).thenReturn("/ctx");
+        when(request.getRequestPathInfo()).thenReturn(requestPathInfo);
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model" });
+    }
+
+    @Test
+    void testSerialize() throws IOException {
+        when(page.getTitle()).thenReturn("About \"us\"");
+
+        assertEquals("{\":type\":\"site/components/page\",\":path\":\"/content/site/en/about\",\":hierarchyType\":\"page\","
+                + "\"title\":\"About \\\"us\\\"\",\":modelUrl\":\"/ctx/content/site/en/about.model.json\",\":skeleton\":true}",
+            writer.writeAsString(SkeletonPageModel.of(page, request), false));
+    }
+
+    @Test
+    void testTitleFallsBackToName() {
+        when(page.getTitle()).thenReturn(" ");
+        assertEquals("about", SkeletonPageModel.of(page, request).getTitle());
+    }
+
+    @Test
+    void testNoContent() {
+        when(page.getContentResource()).thenReturn(null);
+        assertNull(SkeletonPageModel.of(page, request));
+    }
+
+    @Test
+    void testIsRequested() {
+        assertFalse(SkeletonPageModel.isRequested(request, null));
+
+        when(style.get(HierarchyConstants.PN_SKELETON_DESCENDANTS, false)).thenReturn(true);
+        assertTrue(SkeletonPageModel.isRequested(request, style));
+
+        when(requestPathInfo.getSelectors()).thenReturn(new String[] { "model", SkeletonPageModel.SELECTOR });
+        assertTrue(SkeletonPageModel.isRequested(request, null));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.jupiter.api.Test;
+
+import static com.adobe.aem.spa.project.core.internal.StructurePatternsEngine.LINEAR;
+import static com.adobe.aem.spa.project.core.internal.StructurePatternsEngine.REGEX;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StructurePatternsCacheTest {
+
+    @Test
+    void testHitsAndMisses() {
+        StructurePatternsCache cache = new StructurePatternsCache(2);
+
+        StructurePatterns first = cache.get("a,b", REGEX);
+        assertSame(first, cache.get("a,b", REGEX));
+        cache.get("c", REGEX);
+
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        StructurePatternsCache cache = new StructurePatternsCache(2);
+
+        StructurePatterns first = cache.get("a", REGEX);
+        StructurePatterns second = cache.get("b", REGEX);
+        // Touch "a" so that "b" is the eldest entry
+        cache.get("a", REGEX);
+        cache.get("c", REGEX);
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get("a", REGEX));
+        assertNotSame(second, cache.get("b", REGEX));
+    }
+
+    @Test
+    void testEnginesAreCachedSeparately() {
+        StructurePatternsCache cache = new StructurePatternsCache(2);
+
+        assertNotSame(cache.get("a", REGEX), cache.get("a", LINEAR));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void testInvalidPatternsAreNotCached() {
+        StructurePatternsCache cache = new StructurePatternsCache(2);
+
+        assertThrows(PatternSyntaxException.class, () -> cache.get("(", REGEX));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMisses());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.jupiter.api.Test;
+
+import static com.adobe.aem.spa.project.core.internal.StructurePatternsEngine.LINEAR;
+import static com.adobe.aem.spa.project.core.internal.StructurePatternsEngine.REGEX;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructurePatternsTest {
+
+    @Test
+    void testEmpty() {
+        StructurePatterns patterns = StructurePatterns.of(Collections.emptyList());
+        assertTrue(patterns.isEmpty());
+        assertTrue(patterns.matches("/content/site"));
+        assertTrue(patterns.mayMatchBelow("/content/site"));
+    }
+
+    @Test
+    void testMatches() {
+        StructurePatterns patterns = of("child1", "^/content/site/en/blog");
+        assertTrue(patterns.matches("/content/site/fr/child1"));
+        assertTrue(patterns.matches("/content/site/en/blog/post"));
+        assertFalse(patterns.matches("/content/site/en/about"));
+    }
+
+    @Test
+    void testCompile() {
+        assertTrue(StructurePatterns.compile(null).isEmpty());
+        assertTrue(StructurePatterns.compile("").isEmpty());
+
+        StructurePatterns patterns = StructurePatterns.compile("first,second");
+        assertEquals("first", patterns.getPatterns().get(0).pattern());
+        assertEquals("second", patterns.getPatterns().get(1).pattern());
+        assertSame(patterns, StructurePatterns.compile("first,second"));
+    }
+
+    @Test
+    void testCompileInvalidPattern() {
+        assertThrows(PatternSyntaxException.class, () -> StructurePatterns.compile("valid,(invalid"));
+    }
+
+    @Test
+    void testCombinedMatchesLikeSeparatePatterns() {
+        StructurePatterns patterns = StructurePatterns.parse("^/content/a$,b/c,^/content/(x|y)/", REGEX);
+        for (String path : new String[] { "/content/a", "/content/a/b", "/content/b/c", "/content/x/1", "/content/z" }) {
+            boolean expected = false;
+            for (Pattern pattern : patterns.getPatterns()) {
+                expected |= pattern.matcher(path).find();
+            }
+            assertEquals(expected, patterns.matches(path), path);
+        }
+    }
+
+    @Test
+    void testPatternsReferencingGroupsAreNotCombined() {
+        // Combining would shift the group number of the back reference
+        StructurePatterns backReference = StructurePatterns.parse("^/content/(a),/(b)\\1$", REGEX);
+        assertTrue(backReference.matches("/content/bb"));
+        assertFalse(backReference.matches("/content/b"));
+
+        // Combining would duplicate the group name
+        StructurePatterns namedGroups = StructurePatterns.parse("(?<lang>en)/a,(?<lang>fr)/b", REGEX);
+        assertTrue(namedGroups.matches("/content/fr/b"));
+        assertFalse(namedGroups.matches("/content/fr/a"));
+    }
+
+    @Test
+    void testLinearMatchesLikeRegex() {
+        String raw = "^/content/a$,b/c,^/content/(x|y)/";
+        StructurePatterns regex = StructurePatterns.parse(raw, REGEX);
+        StructurePatterns linear = StructurePatterns.parse(raw, LINEAR);
+        for (String path : new String[] { "/content/a", "/content/a/b", "/content/b/c", "/content/x/1", "/content/z" }) {
+            assertEquals(regex.matches(path), linear.matches(path), path);
+        }
+        assertEquals(regex.mayMatchBelow("/content/z"), linear.mayMatchBelow("/content/z"));
+    }
+
+    @Test
+    void testLinearRejectsUnsupportedPattern() {
+        assertThrows(PatternSyntaxException.class, () -> StructurePatterns.compile("valid,(?=invalid)", LINEAR));
+    }
+
+    @Test
+    void testMayMatchBelowLiteralAlternatives() {
+        StructurePatterns patterns = of("^/content/site/en/(products|blog)");
+        assertTrue(patterns.mayMatchBelow("/content/site"));
+        assertTrue(patterns.mayMatchBelow("/content/site/en"));
+        assertTrue(patterns.mayMatchBelow("/content/site/en/products"));
+        assertTrue(patterns.mayMatchBelow("/content/site/en/blog/2020"));
+        assertFalse(patterns.mayMatchBelow("/content/site/fr"));
+        assertFalse(patterns.mayMatchBelow("/content/site/en/about"));
+        assertFalse(patterns.mayMatchBelow("/content/other"));
+    }
+
+    @Test
+    void testMayMatchBelowExactPattern() {
+        StructurePatterns patterns = of("^/content/site/en/products$");
+        assertTrue(patterns.mayMatchBelow("/content/site/en"));
+        assertFalse(patterns.mayMatchBelow("/content/site/en/products"));
+    }
+
+    @Test
+    void testMayMatchBelowUnboundedPatterns() {
+        // Any unanchored pattern can match anywhere in the tree
+        assertTrue(of("^/content/site/en/products", "blog").mayMatchBelow("/content/site/fr"));
+        // Top-level alternation
+        assertTrue(of("^/content/site/en|/fr").mayMatchBelow("/content/other"));
+        // Flags
+        List<Pattern> caseInsensitive = Collections.singletonList(Pattern.compile("^/content/en", Pattern.CASE_INSENSITIVE));
+        assertTrue(StructurePatterns.of(caseInsensitive).mayMatchBelow("/content/EN"));
+    }
+
+    @Test
+    void testAnalyze() {
+        assertNull(StructurePatterns.analyze("/content/site"));
+        assertNull(StructurePatterns.analyze("^/content/a|^/content/b"));
+        assertPrefixes(StructurePatterns.analyze("^/content/site/.*"), "/content/site/");
+        assertPrefixes(StructurePatterns.analyze("^/content/site\\.en"), "/content/site.en");
+        // Optional and repeated literals
+        assertPrefixes(StructurePatterns.analyze("^/content/sites?/en"), "/content/site");
+        assertPrefixes(StructurePatterns.analyze("^/content/s+ite"), "/content/s");
+        // Classes and escapes that are not literals
+        assertPrefixes(StructurePatterns.analyze("^/content/[a-z]+"), "/content/");
+        assertPrefixes(StructurePatterns.analyze("^/content/\\w+"), "/content/");
+        // Groups which are not a list of literal alternatives
+        assertPrefixes(StructurePatterns.analyze("^/content/(?:en|fr)/.*"), "/content/en", "/content/fr");
+        assertPrefixes(StructurePatterns.analyze("^/content/(en|fr)?/.*"), "/content/");
+        assertPrefixes(StructurePatterns.analyze("^/content/(e.|fr)"), "/content/");
+        assertPrefixes(StructurePatterns.analyze("^/content/(?=en)"), "/content/");
+
+        assertTrue(StructurePatterns.analyze("^/content/site$").get(0).isExact());
+        assertFalse(StructurePatterns.analyze("^/content/site").get(0).isExact());
+        assertTrue(StructurePatterns.analyze("^/content/(en|fr)$").get(1).isExact());
+    }
+
+    private static StructurePatterns of(String... regexes) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String regex : regexes) {
+            patterns.add(Pattern.compile(regex));
+        }
+        return StructurePatterns.of(patterns);
+    }
+
+    private static void assertPrefixes(List<StructurePatterns.PathPrefix> pathPrefixes, String... expected) {
+        List<String> values = new ArrayList<>();
+        for (StructurePatterns.PathPrefix pathPrefix : pathPrefixes) {
+            values.add(pathPrefix.getValue());
+        }
+        assertEquals(Arrays.asList(expected), values);
+    }
+}
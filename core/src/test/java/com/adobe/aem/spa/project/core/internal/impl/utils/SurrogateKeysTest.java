@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SurrogateKeysTest {
+
+    @Test
+    void testOf() {
+        String key = SurrogateKeys.of("/content/site/en");
+        assertEquals(12, key.length());
+        assertTrue(key.matches("[A-Za-z0-9_-]+"), key);
+        assertEquals(key, SurrogateKeys.of("/content/site/en"));
+        assertNotEquals(key, SurrogateKeys.of("/content/site/fr"));
+    }
+
+    @Test
+    void testForChange() {
+        assertEquals(new LinkedHashSet<>(Arrays.asList(SurrogateKeys.of("/content/site/en"), SurrogateKeys.of("/content/site"))),
+            SurrogateKeys.forChange("/content/site/en/jcr:content/root"));
+        assertEquals(Collections.singleton(SurrogateKeys.of("/content")), SurrogateKeys.forChange("/content"));
+    }
+
+    @Test
+    void testGetChangedPage() {
+        assertEquals("/content/site/en", SurrogateKeys.getChangedPage("/content/site/en"));
+        assertEquals("/content/site/en", SurrogateKeys.getChangedPage("/content/site/en/jcr:content"));
+        assertEquals("/content/site/en", SurrogateKeys.getChangedPage("/content/site/en/jcr:content/root/text"));
+        assertEquals("/content/site/jcr:contents", SurrogateKeys.getChangedPage("/content/site/jcr:contents"));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package com.adobe.aem.spa.project.core.internal.impl.utils;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import com.adobe.aem.spa.project.core.models.Page;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TracedPageModelTest {
+
+    private static final String PATH = "/content/site/en";
+
+    private final ModelJsonWriter writer = new ModelJsonWriter(Collections.singletonList(
+        new SimpleModule().addSerializer(TitlePage.class, new TitlePageSerializer())));
+
+    @Test
+    void testSerializeRecordsTiming() throws IOException {
+        HierarchyTrace trace = new HierarchyTrace();
+        TracedPageModel model = new TracedPageModel(new TitlePage("Traced"), trace, PATH);
+
+        assertEquals("Traced", model.getTitle());
+        assertEquals("{\"title\":\"Traced\"}", writer.writeAsString(model, false));
+        HierarchyTrace.PageTiming timing = trace.getSlowestPages(1).get(0);
+        assertEquals(PATH, timing.getPath());
+        assertTrue(timing.getNanos(HierarchyTrace.Phase.SERIALIZE) >= 0);
+    }
+
+    private static final class TitlePage implements Page {
+
+        private final String title;
+
+        TitlePage(String title) {
+            this.title = title;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private static final class TitlePageSerializer extends StdSerializer<TitlePage> {
+
+        TitlePageSerializer() {
+            super(TitlePage.class);
+        }
+
+        @Override
+        public void serialize(TitlePage value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("title", value.getTitle());
+            gen.writeEndObject();
+        }
+    }
+}